@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.benchmark;
+
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+
+import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
+import org.titou10.jtb.config.gen.SessionDef;
+import org.titou10.jtb.jms.qm.DestinationData;
+import org.titou10.jtb.jms.qm.QManager;
+import org.titou10.jtb.jms.qm.QueueData;
+import org.titou10.jtb.jms.qm.TopicData;
+
+/**
+ *
+ * Minimal Q Manager connected to the in-VM Artemis broker started by BrokerState
+ *
+ * @author Denis Forveille
+ *
+ */
+final class BenchmarkQManager extends QManager {
+
+   static final String BROKER_URL = "vm://0";
+
+   @Override
+   public Connection connect(SessionDef sessionDef, boolean showSystemObjects, String clientID) throws Exception {
+      ActiveMQConnectionFactory cf = new ActiveMQConnectionFactory(BROKER_URL);
+      Connection jmsConnection = cf.createConnection();
+      jmsConnection.setClientID(clientID);
+      jmsConnection.start();
+      return jmsConnection;
+   }
+
+   @Override
+   public DestinationData discoverDestinations(Connection jmsConnection, boolean showSystemObjects) throws Exception {
+      SortedSet<QueueData> listQueueData = new TreeSet<>();
+      listQueueData.add(new QueueData(BrokerState.QUEUE_NAME));
+      return new DestinationData(listQueueData, new TreeSet<TopicData>());
+   }
+
+   @Override
+   public void close(Connection jmsConnection) throws JMSException {
+      jmsConnection.close();
+   }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.benchmark;
+
+import javax.jms.JMSException;
+import javax.jms.TextMessage;
+
+import org.apache.activemq.artemis.api.core.RoutingType;
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.CoreQueueConfiguration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.titou10.jtb.config.JTBPreferenceStore;
+import org.titou10.jtb.config.gen.SessionDef;
+import org.titou10.jtb.jms.model.JTBConnection;
+import org.titou10.jtb.jms.model.JTBMessage;
+import org.titou10.jtb.jms.model.JTBMessageType;
+import org.titou10.jtb.jms.model.JTBQueue;
+import org.titou10.jtb.jms.model.JTBSessionClientType;
+import org.titou10.jtb.util.Constants;
+
+/**
+ *
+ * Embedded Artemis broker, reached in-VM, with one queue filled with QUEUE_DEPTH text messages
+ *
+ * One message out of ten contains SEARCH_TEXT in its payload
+ *
+ * @author Denis Forveille
+ *
+ */
+@State(Scope.Benchmark)
+public class BrokerState {
+
+   static final String      QUEUE_NAME  = "jtb.benchmark.queue";
+   static final int         QUEUE_DEPTH = 1000;
+   static final String      SEARCH_TEXT = "<status>REJECTED</status>";
+
+   private EmbeddedActiveMQ broker;
+
+   JTBPreferenceStore       ps;
+   JTBConnection            jtbConnection;
+   JTBQueue                 jtbQueue;
+
+   // ------------------------
+   // Lifecycle
+   // ------------------------
+
+   @Setup(Level.Trial)
+   public void setup() throws Exception {
+
+      CoreQueueConfiguration queueConfig = new CoreQueueConfiguration();
+      queueConfig.setAddress(QUEUE_NAME);
+      queueConfig.setName(QUEUE_NAME);
+      queueConfig.setRoutingType(RoutingType.ANYCAST);
+
+      Configuration config = new ConfigurationImpl();
+      config.setPersistenceEnabled(false);
+      config.setSecurityEnabled(false);
+      config.setJMXManagementEnabled(false);
+      config.addAcceptorConfiguration("in-vm", BenchmarkQManager.BROKER_URL);
+      config.addQueueConfiguration(queueConfig);
+
+      broker = new EmbeddedActiveMQ();
+      broker.setConfiguration(config);
+      broker.start();
+
+      ps = new JTBPreferenceStore();
+      ps.setValue(Constants.PREF_CONN_CLIENT_ID_PREFIX, "JTBBenchmark");
+      ps.setValue(Constants.PREF_SESSION_POOL_SIZE, Constants.PREF_SESSION_POOL_SIZE_DEFAULT);
+      ps.setValue(Constants.PREF_XML_INDENT, Constants.PREF_XML_INDENT_DEFAULT);
+
+      SessionDef sessionDef = new SessionDef();
+      sessionDef.setName("Benchmark");
+
+      BenchmarkQManager qm = new BenchmarkQManager();
+      qm.setName("Embedded Artemis");
+
+      jtbConnection = new JTBConnection(ps, JTBSessionClientType.SCRIPT_EXEC, sessionDef, qm, null);
+      jtbConnection.connect();
+      jtbQueue = (JTBQueue) jtbConnection.getJTBDestinationByName(QUEUE_NAME);
+
+      jtbConnection.beginBatch();
+      for (int i = 0; i < QUEUE_DEPTH; i++) {
+         jtbConnection.sendMessage(createMessage(i));
+      }
+      jtbConnection.commitBatch();
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() throws Exception {
+      jtbConnection.disconnect();
+      broker.stop();
+   }
+
+   // ------------------------
+   // Helpers
+   // ------------------------
+
+   JTBMessage createMessage(int n) throws JMSException {
+      TextMessage message = (TextMessage) jtbConnection.createJMSMessage(JTBMessageType.TEXT);
+      message.setText(xmlPayload(n));
+      message.setJMSCorrelationID("corr-" + n);
+      message.setJMSType("benchmark");
+      message.setStringProperty("customer", "customer-" + (n % 50));
+      message.setIntProperty("sequence", n);
+      message.setLongProperty("amount", n * 1000L);
+      message.setBooleanProperty("urgent", (n % 2) == 0);
+
+      JTBMessage jtbMessage = new JTBMessage(jtbQueue, message);
+      jtbMessage.setPriority(4);
+      return jtbMessage;
+   }
+
+   // Unformatted xml order of a couple of KB
+   static String xmlPayload(int n) {
+      StringBuilder sb = new StringBuilder(4096);
+      sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?><order><id>");
+      sb.append(n);
+      sb.append("</id>");
+      sb.append((n % 10) == 0 ? SEARCH_TEXT : "<status>ACCEPTED</status>");
+      sb.append("<lines>");
+      for (int i = 0; i < 20; i++) {
+         sb.append("<line><sku>SKU-");
+         sb.append(i);
+         sb.append("</sku><quantity>");
+         sb.append(i + 1);
+         sb.append("</quantity><description>Item number ");
+         sb.append(i);
+         sb.append(" of order ");
+         sb.append(n);
+         sb.append("</description></line>");
+      }
+      sb.append("</lines></order>");
+      return sb.toString();
+   }
+
+   // Unformatted json equivalent of xmlPayload()
+   static String jsonPayload(int n) {
+      StringBuilder sb = new StringBuilder(4096);
+      sb.append("{\"id\":");
+      sb.append(n);
+      sb.append(",\"status\":\"ACCEPTED\",\"lines\":[");
+      for (int i = 0; i < 20; i++) {
+         if (i > 0) {
+            sb.append(",");
+         }
+         sb.append("{\"sku\":\"SKU-");
+         sb.append(i);
+         sb.append("\",\"quantity\":");
+         sb.append(i + 1);
+         sb.append(",\"description\":\"Item number ");
+         sb.append(i);
+         sb.append(" of order ");
+         sb.append(n);
+         sb.append("\"}");
+      }
+      sb.append("]}");
+      return sb.toString();
+   }
+}
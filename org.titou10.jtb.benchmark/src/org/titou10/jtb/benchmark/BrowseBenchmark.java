@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.JMSException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.titou10.jtb.jms.model.JTBMessage;
+
+/**
+ *
+ * Browsing of a whole queue of BrokerState.QUEUE_DEPTH messages, with and without a search on the payload
+ *
+ * @author Denis Forveille
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BrowseBenchmark {
+
+   @Benchmark
+   public List<JTBMessage> browseQueue(BrokerState brokerState) throws JMSException {
+      return brokerState.jtbConnection.browseQueue(brokerState.jtbQueue, 0, "", "");
+   }
+
+   @Benchmark
+   public List<JTBMessage> browseQueueWithPayloadSearch(BrokerState brokerState) throws JMSException {
+      return brokerState.jtbConnection.browseQueue(brokerState.jtbQueue, 0, BrokerState.SEARCH_TEXT, "");
+   }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.titou10.jtb.config.JTBPreferenceStore;
+import org.titou10.jtb.util.Constants;
+import org.titou10.jtb.util.FormatUtils;
+
+/**
+ *
+ * Pretty printing of xml and json payloads, as done when a message is displayed
+ *
+ * @author Denis Forveille
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatBenchmark {
+
+   private JTBPreferenceStore ps;
+   private String             xml;
+   private String             json;
+
+   @Setup(Level.Trial)
+   public void setup() {
+      ps = new JTBPreferenceStore();
+      ps.setValue(Constants.PREF_XML_INDENT, Constants.PREF_XML_INDENT_DEFAULT);
+      xml = BrokerState.xmlPayload(1);
+      json = BrokerState.jsonPayload(1);
+   }
+
+   @Benchmark
+   public String xmlPrettyFormat() {
+      return FormatUtils.xmlPrettyFormat(ps, xml, true);
+   }
+
+   @Benchmark
+   public String jsonPrettyFormat() {
+      return FormatUtils.jsonPrettyFormat(json);
+   }
+
+}
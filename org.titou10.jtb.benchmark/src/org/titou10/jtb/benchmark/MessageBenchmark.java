@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.titou10.jtb.connector.transport.MessageOutput;
+import org.titou10.jtb.jms.model.JTBMessage;
+import org.titou10.jtb.jms.model.JTBMessageTemplate;
+import org.titou10.jtb.jms.model.JTBMessageType;
+
+/**
+ *
+ * Copy and conversions of a single message: clone for a re-send, templates and REST output
+ *
+ * @author Denis Forveille
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageBenchmark {
+
+   private JTBMessage         jtbMessage;
+   private JTBMessageTemplate template;
+   private Message            targetMessage;
+
+   @Setup(Level.Trial)
+   public void setup(BrokerState brokerState) throws JMSException {
+      jtbMessage = brokerState.jtbConnection.browseQueue(brokerState.jtbQueue, 1).get(0);
+      template = new JTBMessageTemplate(jtbMessage);
+      targetMessage = brokerState.jtbConnection.createJMSMessage(JTBMessageType.TEXT);
+   }
+
+   @Benchmark
+   public Message cloneJMSMessage(BrokerState brokerState) throws JMSException {
+      return brokerState.jtbConnection.cloneJMSMessage(jtbMessage.getJmsMessage());
+   }
+
+   @Benchmark
+   public JTBMessageTemplate templateDeepClone() {
+      return JTBMessageTemplate.deepClone(template);
+   }
+
+   @Benchmark
+   public JTBMessage templateToJTBMessage(BrokerState brokerState) throws JMSException {
+      return template.toJTBMessage(brokerState.jtbQueue, targetMessage);
+   }
+
+   @Benchmark
+   public MessageOutput messageOutput() throws JMSException {
+      return new MessageOutput(jtbMessage, null);
+   }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.benchmark;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.titou10.jtb.variable.VariablesManager;
+import org.titou10.jtb.variable.gen.Variables;
+
+/**
+ *
+ * Replacement of the system variables in a template payload, as done for each message sent by a script
+ *
+ * @author Denis Forveille
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VariablesBenchmark {
+
+   private static final String TEMPLATE = "<order><id>${string}</id><quantity>${int}</quantity><date>${currentDate}</date>"
+                                          + "<description>Order placed on ${currentDate}</description></order>";
+
+   private VariablesManager    variablesManager;
+
+   @Setup(Level.Trial)
+   public void setup() throws Exception {
+      // Outside of the RCP application, there is no workspace to read the variables file from: start with no user variable
+      variablesManager = new VariablesManager();
+      Field variablesDef = VariablesManager.class.getDeclaredField("variablesDef");
+      variablesDef.setAccessible(true);
+      variablesDef.set(variablesManager, new Variables());
+      variablesManager.reloadConfig();
+   }
+
+   @Benchmark
+   public String replaceTemplateVariables() {
+      return variablesManager.replaceTemplateVariables(TEMPLATE);
+   }
+
+}
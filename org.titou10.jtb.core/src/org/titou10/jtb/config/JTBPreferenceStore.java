@@ -100,6 +100,9 @@ public class JTBPreferenceStore extends EventManager implements IPersistentPrefe
       setDefault(Constants.PREF_SYNCHRONIZE_SESSIONS_MESSAGES, Constants.PREF_SYNCHRONIZE_SESSIONS_MESSAGES_DEFAULT);
       setDefault(Constants.PREF_MESSAGE_TAB_DISPLAY, Constants.PREF_MESSAGE_TAB_DISPLAY_DEFAULT);
       setDefault(Constants.PREF_COLUMNSSET_DEFAULT_NAME, Constants.JTB_COLUMNSSETS_SYSTEM_CS_NAME);
+      setDefault(Constants.PREF_Q_DEPTH_NB_THREADS, Constants.PREF_Q_DEPTH_NB_THREADS_DEFAULT);
+      setDefault(Constants.PREF_TRANSFER_BATCH_SIZE, Constants.PREF_TRANSFER_BATCH_SIZE_DEFAULT);
+      setDefault(Constants.PREF_SESSION_POOL_SIZE, Constants.PREF_SESSION_POOL_SIZE_DEFAULT);
    }
 
    public String getPreferenceFileName() {
@@ -175,6 +178,18 @@ public class JTBPreferenceStore extends EventManager implements IPersistentPrefe
       return Constants.PREF_Q_DEPTH_FILTER_KEY_PREFIX + jtbSessionName;
    }
 
+   public String buildPreferenceKeyForQDepthNbThreads(String jtbSessionName) {
+      return Constants.PREF_Q_DEPTH_NB_THREADS_KEY_PREFIX + jtbSessionName;
+   }
+
+   public int getQDepthNbThreads(String jtbSessionName) {
+      String key = buildPreferenceKeyForQDepthNbThreads(jtbSessionName);
+      if (contains(key)) {
+         return getInt(key);
+      }
+      return getInt(Constants.PREF_Q_DEPTH_NB_THREADS);
+   }
+
    public String buildPreferenceKeyForDestinationCS(JTBDestination jtbDestination) {
       String key = buildPreferenceKeyForSessionNameCS(jtbDestination.getJtbConnection().getSessionName()) + "."
                    + jtbDestination.getName();
@@ -41,16 +41,25 @@ import org.titou10.jtb.connector.transport.Destination;
 import org.titou10.jtb.connector.transport.Destination.Type;
 import org.titou10.jtb.connector.transport.MessageInput;
 import org.titou10.jtb.connector.transport.MessageOutput;
+import org.titou10.jtb.connector.transport.ScriptOutput;
+import org.titou10.jtb.connector.transport.ScriptStepOutput;
+import org.titou10.jtb.connector.transport.TransferOutput;
 import org.titou10.jtb.jms.model.JTBConnection;
 import org.titou10.jtb.jms.model.JTBDestination;
 import org.titou10.jtb.jms.model.JTBMessage;
 import org.titou10.jtb.jms.model.JTBMessageTemplate;
+import org.titou10.jtb.jms.model.JTBMessageTransfer;
+import org.titou10.jtb.jms.model.JTBMessageTransfer.TransferMode;
+import org.titou10.jtb.jms.model.JTBMessageTransfer.TransferResult;
 import org.titou10.jtb.jms.model.JTBQueue;
 import org.titou10.jtb.jms.model.JTBSession;
 import org.titou10.jtb.jms.model.JTBSessionClientType;
 import org.titou10.jtb.jms.model.JTBTopic;
 import org.titou10.jtb.script.ScriptExecutionEngine;
+import org.titou10.jtb.script.ScriptExecutionReport;
+import org.titou10.jtb.script.ScriptStepMetrics;
 import org.titou10.jtb.template.TemplatesManager;
+import org.titou10.jtb.util.Constants;
 import org.titou10.jtb.variable.VariablesManager;
 
 /**
@@ -86,6 +95,12 @@ public class ExternalConnectorManager {
    public IPreferenceStore getIPreferenceStore() {
       return ps;
    }
+
+   // Number of JMS sessions each connection can use at the same time
+   public int getSessionPoolSize() {
+      return ps.getInt(Constants.PREF_SESSION_POOL_SIZE);
+   }
+
    // ----------------------------
    // Services related to Sessions
    // ----------------------------
@@ -148,6 +163,35 @@ public class ExternalConnectorManager {
 
    }
 
+   // Open a stream on the messages of a queue, optionally filtered by a selector. The caller must close it
+   public MessageStream openMessageStream(String sessionName,
+                                          String queueName,
+                                          String selector,
+                                          int limit,
+                                          boolean withPayload) throws ExecutionException, UnknownSessionException,
+                                                               UnknownDestinationException, UnknownQueueException {
+
+      // Get JTBConnection
+      JTBConnection jtbConnection = getJTBConnection(sessionName);
+      try {
+         jtbConnection.connect();
+      } catch (Exception e) {
+         log.error("Exception when streaming messages from queue '{}::{}'", sessionName, queueName, e);
+         throw new ExecutionException(e);
+      }
+
+      JTBQueue jtbQueue = getJTBQueue(jtbConnection, queueName);
+
+      try {
+         return new MessageStream(jtbConnection.openQueueBrowser(jtbQueue, "", selector == null ? "" : selector),
+                                  limit,
+                                  withPayload);
+      } catch (JMSException e) {
+         log.error("Exception when streaming messages from queue '{}::{}'", sessionName, queueName, e);
+         throw new ExecutionException(e);
+      }
+   }
+
    public List<MessageOutput> removeMessages(String sessionName, String queueName, int limit) throws ExecutionException,
                                                                                               UnknownSessionException,
                                                                                               UnknownDestinationException,
@@ -217,6 +261,27 @@ public class ExternalConnectorManager {
 
    }
 
+   // Open a batch posting messages to a destination, committed every "commitEvery" messages. The caller must close it
+   public MessageBatch openMessageBatch(String sessionName, String destinationName, int commitEvery) throws ExecutionException,
+                                                                                                   UnknownSessionException,
+                                                                                                   UnknownDestinationException {
+      log.debug("openMessageBatch");
+
+      // Get JTBConnection
+      JTBConnection jtbConnection = getJTBConnection(sessionName);
+      try {
+         jtbConnection.connect();
+      } catch (Exception e) {
+         log.error("Exception when posting messages to destination '{}::{}'", sessionName, destinationName, e);
+         throw new ExecutionException(e);
+      }
+
+      // Get JTBDestination
+      JTBDestination jtbDestination = getJTBDestination(jtbConnection, destinationName);
+
+      return new MessageBatch(jtbConnection, jtbDestination, commitEvery);
+   }
+
    public MessageOutput postMessageTemplate(String sessionName,
                                             String destinationName,
                                             String templateName) throws EmptyMessageException, UnknownSessionException,
@@ -277,8 +342,8 @@ public class ExternalConnectorManager {
 
    }
 
-   public int emptyQueue(String sessionName, String queueName) throws ExecutionException, UnknownSessionException,
-                                                               UnknownDestinationException, UnknownQueueException {
+   public Integer emptyQueue(String sessionName, String queueName) throws ExecutionException, UnknownSessionException,
+                                                                   UnknownDestinationException, UnknownQueueException {
       log.debug("emptyQueue");
 
       // Get JTBConnection
@@ -300,12 +365,82 @@ public class ExternalConnectorManager {
       }
    }
 
+   public TransferOutput transferMessages(String sessionName,
+                                          String queueName,
+                                          String targetSessionName,
+                                          String targetDestinationName,
+                                          boolean move,
+                                          String selector,
+                                          int limit) throws ExecutionException, UnknownSessionException,
+                                                     UnknownDestinationException, UnknownQueueException {
+      log.debug("transferMessages");
+
+      // Get source and target JTBConnections
+      JTBConnection jtbConnection = getJTBConnection(sessionName);
+      JTBConnection targetJtbConnection = getJTBConnection(targetSessionName == null ? sessionName : targetSessionName);
+      try {
+         jtbConnection.connect();
+         targetJtbConnection.connect();
+      } catch (Exception e) {
+         log.error("Exception when transferring messages from queue '{}::{}'", sessionName, queueName, e);
+         throw new ExecutionException(e);
+      }
+
+      JTBQueue jtbQueue = getJTBQueue(jtbConnection, queueName);
+      JTBDestination targetJtbDestination = getJTBDestination(targetJtbConnection, targetDestinationName);
+
+      try {
+         JTBMessageTransfer transfer = new JTBMessageTransfer(jtbQueue,
+                                                              targetJtbDestination,
+                                                              move ? TransferMode.MOVE : TransferMode.COPY,
+                                                              selector,
+                                                              limit,
+                                                              ps.getInt(Constants.PREF_TRANSFER_BATCH_SIZE));
+         TransferResult result = transfer.execute(null);
+
+         TransferOutput transferOutput = new TransferOutput();
+         transferOutput.setNbMessages(result.getNbMessages());
+         transferOutput.setElapsedMs(result.getElapsedMs());
+         transferOutput.setMessagesPerSecond(result.getThroughput());
+         return transferOutput;
+      } catch (JMSException e) {
+         log.error("Exception when transferring messages from queue '{}::{}'", sessionName, queueName, e);
+         throw new ExecutionException(e);
+      }
+   }
+
    // ----------------------------
    // Services related to Scripts
    // ----------------------------
-   public int executeScript(String scriptName, boolean simulation, int nbMessagesMax) throws Exception {
+   public ScriptOutput executeScript(String scriptName, boolean simulation, int nbMessagesMax) throws Exception {
       log.debug("executeScript scriptName {} simulation? {} nbMessagesMax {}", scriptName, simulation, nbMessagesMax);
-      return scriptExecutionEngine.executeScriptNoUI(scriptName, simulation, nbMessagesMax);
+      ScriptExecutionReport report = scriptExecutionEngine.executeScriptNoUI(scriptName, simulation, nbMessagesMax);
+
+      List<ScriptStepOutput> steps = new ArrayList<>(report.getSteps().size());
+      for (ScriptStepMetrics metrics : report.getSteps()) {
+         List<Long> perSecond = new ArrayList<>();
+         for (long n : metrics.getMessagesPerSecond()) {
+            perSecond.add(n);
+         }
+
+         ScriptStepOutput stepOutput = new ScriptStepOutput();
+         stepOutput.setStep(metrics.getName());
+         stepOutput.setNbMessages(metrics.getNbMessages());
+         stepOutput.setNbErrors(metrics.getNbErrors());
+         stepOutput.setElapsedMs(metrics.getElapsedMs());
+         stepOutput.setMessagesPerSecond(metrics.getThroughput());
+         stepOutput.setLatencyP50Ms(metrics.getLatencyPercentileMs(50));
+         stepOutput.setLatencyP90Ms(metrics.getLatencyPercentileMs(90));
+         stepOutput.setLatencyP99Ms(metrics.getLatencyPercentileMs(99));
+         stepOutput.setLatencyMaxMs(metrics.getLatencyMaxMs());
+         stepOutput.setMessagesPerSecondOverTime(perSecond);
+         steps.add(stepOutput);
+      }
+
+      ScriptOutput scriptOutput = new ScriptOutput();
+      scriptOutput.setNbMessages(report.getNbMessages());
+      scriptOutput.setSteps(steps);
+      return scriptOutput;
    }
 
    // ----------------------------
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.connector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.jms.JMSException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.connector.transport.MessageInput;
+import org.titou10.jtb.connector.transport.PostBatchOutput;
+import org.titou10.jtb.connector.transport.PostItemOutput;
+import org.titou10.jtb.connector.transport.PostItemOutput.Status;
+import org.titou10.jtb.jms.model.JTBConnection;
+import org.titou10.jtb.jms.model.JTBDestination;
+import org.titou10.jtb.jms.model.JTBMessage;
+import org.titou10.jtb.jms.model.JTBMessageTransfer.TransferResult;
+
+/**
+ * Post of many messages to a destination by an External Connector
+ * 
+ * Messages are sent with the producer cached by one pooled session and committed every "commitEvery" messages. A message that
+ * can not be sent rolls back the messages of its batch, then posting goes on with a new batch
+ * 
+ * The batch is bound to the thread that created it and must be closed by this thread
+ * 
+ * @author Denis Forveille
+ *
+ */
+public final class MessageBatch implements AutoCloseable {
+
+   private static final Logger        log     = LoggerFactory.getLogger(MessageBatch.class);
+
+   private final JTBConnection        jtbConnection;
+   private final JTBDestination       jtbDestination;
+   private final int                  commitEvery;
+   private final long                 start;
+
+   private final List<PostItemOutput> items   = new ArrayList<>();
+   private final List<PostItemOutput> pending = new ArrayList<>();
+
+   private boolean                    inBatch;
+   private int                        nbCommits;
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   MessageBatch(JTBConnection jtbConnection, JTBDestination jtbDestination, int commitEvery) {
+      this.jtbConnection = jtbConnection;
+      this.jtbDestination = jtbDestination;
+      this.commitEvery = Math.max(1, commitEvery);
+      this.start = System.currentTimeMillis();
+   }
+
+   // ------------------------
+   // Business Interface
+   // ------------------------
+
+   public void add(MessageInput messageInput) {
+      PostItemOutput item = newItem();
+
+      if ((messageInput == null) || (messageInput.getType() == null)) {
+         fail(item, "Message is empty or has no type");
+         return;
+      }
+
+      try {
+         JTBMessage jtbMessage = messageInput.toJTBMessage(jtbConnection, jtbDestination);
+         if (!inBatch) {
+            jtbConnection.beginBatch();
+            inBatch = true;
+         }
+         jtbConnection.sendMessage(jtbMessage);
+         item.setJmsMessageID(jtbMessage.getJmsMessage().getJMSMessageID());
+         pending.add(item);
+      } catch (JMSException | RuntimeException e) {
+         // RuntimeException: invalid content in the message (empty property name...)
+         String error = e.getMessage() == null ? e.toString() : e.getMessage();
+         log.warn("Exception when posting message #{} to '{}': {}", item.getIndex(), jtbDestination, error);
+         fail(item, error);
+         rollback("Rolled back after the failure of message #" + item.getIndex());
+         return;
+      }
+
+      if (pending.size() >= commitEvery) {
+         commit();
+      }
+   }
+
+   // Message that could not be read from the request
+   public void addError(String error) {
+      fail(newItem(), error);
+   }
+
+   // Commit the messages not committed yet and return the result of the whole batch
+   public PostBatchOutput finish() {
+      commit();
+
+      int nbCommitted = 0;
+      int nbRolledBack = 0;
+      int nbFailed = 0;
+      for (PostItemOutput item : items) {
+         switch (item.getStatus()) {
+            case COMMITTED:
+               nbCommitted++;
+               break;
+            case ROLLED_BACK:
+               nbRolledBack++;
+               break;
+            case FAILED:
+               nbFailed++;
+               break;
+         }
+      }
+
+      long elapsedMs = System.currentTimeMillis() - start;
+
+      PostBatchOutput postBatchOutput = new PostBatchOutput();
+      postBatchOutput.setNbMessages(items.size());
+      postBatchOutput.setNbCommitted(nbCommitted);
+      postBatchOutput.setNbRolledBack(nbRolledBack);
+      postBatchOutput.setNbFailed(nbFailed);
+      postBatchOutput.setNbCommits(nbCommits);
+      postBatchOutput.setElapsedMs(elapsedMs);
+      postBatchOutput.setMessagesPerSecond(TransferResult.getThroughput(nbCommitted, elapsedMs));
+      postBatchOutput.setItems(items);
+      log.info("Batch posted to {}: {}", jtbDestination, postBatchOutput);
+      return postBatchOutput;
+   }
+
+   // Roll back the messages not committed yet
+   @Override
+   public void close() {
+      rollback("Rolled back: the batch has not been completed");
+   }
+
+   // ------------------------
+   // Helpers
+   // ------------------------
+
+   private PostItemOutput newItem() {
+      PostItemOutput item = new PostItemOutput(items.size());
+      items.add(item);
+      return item;
+   }
+
+   private void fail(PostItemOutput item, String error) {
+      item.setStatus(Status.FAILED);
+      item.setError(error);
+   }
+
+   private void commit() {
+      if (!inBatch) {
+         return;
+      }
+      inBatch = false;
+      try {
+         jtbConnection.commitBatch();
+         nbCommits++;
+         for (PostItemOutput item : pending) {
+            item.setStatus(Status.COMMITTED);
+         }
+      } catch (JMSException e) {
+         log.warn("Exception when committing {} messages to '{}': {}", pending.size(), jtbDestination, e.getMessage());
+         for (PostItemOutput item : pending) {
+            item.setStatus(Status.ROLLED_BACK);
+            item.setError("Commit failed: " + e.getMessage());
+         }
+      }
+      pending.clear();
+   }
+
+   private void rollback(String reason) {
+      if (!inBatch) {
+         return;
+      }
+      inBatch = false;
+      jtbConnection.rollbackBatch();
+      for (PostItemOutput item : pending) {
+         item.setStatus(Status.ROLLED_BACK);
+         item.setError(reason);
+      }
+      pending.clear();
+   }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.connector;
+
+import javax.jms.JMSException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.connector.ex.ExecutionException;
+import org.titou10.jtb.connector.transport.MessageOutput;
+import org.titou10.jtb.jms.model.JTBMessage;
+import org.titou10.jtb.jms.model.JTBQueueBrowser;
+
+/**
+ * Messages of a Queue exposed one by one to an External Connector, straight from the JMS QueueBrowser enumeration
+ * 
+ * The stream owns a JMS session and must be used and closed by a single thread
+ * 
+ * @author Denis Forveille
+ *
+ */
+public final class MessageStream implements AutoCloseable {
+
+   private static final Logger   log = LoggerFactory.getLogger(MessageStream.class);
+
+   private final JTBQueueBrowser browser;
+   private final int             limit;
+   private final boolean         withPayload;
+
+   private int                   nbMessages;
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   MessageStream(JTBQueueBrowser browser, int limit, boolean withPayload) {
+      this.browser = browser;
+      this.limit = limit <= 0 ? Integer.MAX_VALUE : limit;
+      this.withPayload = withPayload;
+   }
+
+   // ------------------------
+   // Business Interface
+   // ------------------------
+
+   // Next message, null when the end of the queue or the limit has been reached
+   public MessageOutput next() throws ExecutionException {
+      if (nbMessages >= limit) {
+         return null;
+      }
+      try {
+         JTBMessage jtbMessage = browser.next();
+         if (jtbMessage == null) {
+            return null;
+         }
+         nbMessages++;
+         return new MessageOutput(jtbMessage, null, withPayload);
+      } catch (JMSException e) {
+         log.error("Exception when streaming messages from queue '{}'", browser.getJtbQueue(), e);
+         throw new ExecutionException(e);
+      }
+   }
+
+   public int getNbMessages() {
+      return nbMessages;
+   }
+
+   @Override
+   public void close() {
+      browser.close();
+   }
+}
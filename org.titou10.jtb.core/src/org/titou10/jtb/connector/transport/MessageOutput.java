@@ -79,7 +79,12 @@ public class MessageOutput implements Serializable {
    }
 
    public MessageOutput(JTBMessage jtbMessage, byte[] plb) throws JMSException {
-      Message message = jtbMessage.getJmsMessage();
+      this(jtbMessage, plb, true);
+   }
+
+   // Without payload, only the JMS headers and the properties are exposed
+   public MessageOutput(JTBMessage jtbMessage, byte[] plb, boolean withPayload) throws JMSException {
+      Message message = withPayload ? jtbMessage.getJmsMessageWithPayload() : jtbMessage.getJmsMessage();
 
       this.jmsMessageID = message.getJMSMessageID();
       this.jmsCorrelationID = message.getJMSCorrelationID();
@@ -105,6 +110,24 @@ public class MessageOutput implements Serializable {
          // JMS 2.0+ only..
       }
 
+      if (withPayload) {
+         readPayload(message, plb);
+      }
+
+      // Properties: as for JMS specs, all properties can be read and written as strings: Great!
+      properties = new HashMap<>();
+      @SuppressWarnings("unchecked")
+      Enumeration<String> e = message.getPropertyNames();
+      while (e.hasMoreElements()) {
+         String key = e.nextElement();
+         // Do not store standard + Queue Manager properties
+         if (!(key.startsWith("JMS"))) {
+            properties.put(key, message.getStringProperty(key));
+         }
+      }
+   }
+
+   private void readPayload(Message message, byte[] plb) throws JMSException {
       switch (jtbMessageType) {
          case TEXT:
             TextMessage tm = (TextMessage) message;
@@ -142,19 +165,7 @@ public class MessageOutput implements Serializable {
 
          case OBJECT:
          case STREAM:
-            return;
-      }
-
-      // Properties: as for JMS specs, all properties can be read and written as strings: Great!
-      properties = new HashMap<>();
-      @SuppressWarnings("unchecked")
-      Enumeration<String> e = message.getPropertyNames();
-      while (e.hasMoreElements()) {
-         String key = e.nextElement();
-         // Do not store standard + Queue Manager properties
-         if (!(key.startsWith("JMS"))) {
-            properties.put(key, message.getStringProperty(key));
-         }
+            break;
       }
    }
 
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.connector.transport;
+
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Result of the post of a batch of messages used by an External Connector
+ * 
+ * @author Denis Forveille
+ *
+ */
+@XmlRootElement
+public class PostBatchOutput {
+
+   private Integer              nbMessages;
+   private Integer              nbCommitted;
+   private Integer              nbRolledBack;
+   private Integer              nbFailed;
+   private Integer              nbCommits;
+   private Long                 elapsedMs;
+   private Double               messagesPerSecond;
+   private List<PostItemOutput> items;
+
+   // ------------------------
+   // toString()
+   // ------------------------
+
+   @Override
+   public String toString() {
+      StringBuilder builder = new StringBuilder(256);
+      builder.append("PostBatchOutput [nbMessages=");
+      builder.append(nbMessages);
+      builder.append(", nbCommitted=");
+      builder.append(nbCommitted);
+      builder.append(", nbRolledBack=");
+      builder.append(nbRolledBack);
+      builder.append(", nbFailed=");
+      builder.append(nbFailed);
+      builder.append(", nbCommits=");
+      builder.append(nbCommits);
+      builder.append(", elapsedMs=");
+      builder.append(elapsedMs);
+      builder.append(", messagesPerSecond=");
+      builder.append(messagesPerSecond);
+      builder.append("]");
+      return builder.toString();
+   }
+
+   // ------------------------
+   // Standard Getters/Setters
+   // ------------------------
+
+   public Integer getNbMessages() {
+      return nbMessages;
+   }
+
+   public void setNbMessages(Integer nbMessages) {
+      this.nbMessages = nbMessages;
+   }
+
+   public Integer getNbCommitted() {
+      return nbCommitted;
+   }
+
+   public void setNbCommitted(Integer nbCommitted) {
+      this.nbCommitted = nbCommitted;
+   }
+
+   public Integer getNbRolledBack() {
+      return nbRolledBack;
+   }
+
+   public void setNbRolledBack(Integer nbRolledBack) {
+      this.nbRolledBack = nbRolledBack;
+   }
+
+   public Integer getNbFailed() {
+      return nbFailed;
+   }
+
+   public void setNbFailed(Integer nbFailed) {
+      this.nbFailed = nbFailed;
+   }
+
+   public Integer getNbCommits() {
+      return nbCommits;
+   }
+
+   public void setNbCommits(Integer nbCommits) {
+      this.nbCommits = nbCommits;
+   }
+
+   public Long getElapsedMs() {
+      return elapsedMs;
+   }
+
+   public void setElapsedMs(Long elapsedMs) {
+      this.elapsedMs = elapsedMs;
+   }
+
+   public Double getMessagesPerSecond() {
+      return messagesPerSecond;
+   }
+
+   public void setMessagesPerSecond(Double messagesPerSecond) {
+      this.messagesPerSecond = messagesPerSecond;
+   }
+
+   public List<PostItemOutput> getItems() {
+      return items;
+   }
+
+   public void setItems(List<PostItemOutput> items) {
+      this.items = items;
+   }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.connector.transport;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Result of the post of one message of a batch used by an External Connector
+ * 
+ * @author Denis Forveille
+ *
+ */
+@XmlRootElement
+public class PostItemOutput {
+
+   public enum Status {
+                       COMMITTED,
+                       ROLLED_BACK,
+                       FAILED
+   }
+
+   private Integer index;
+   private Status  status;
+   private String  jmsMessageID;
+   private String  error;
+
+   // ------------
+   // Constructors
+   // ------------
+   public PostItemOutput() {
+   }
+
+   public PostItemOutput(int index) {
+      this.index = index;
+   }
+
+   // ------------------------
+   // toString()
+   // ------------------------
+
+   @Override
+   public String toString() {
+      StringBuilder builder = new StringBuilder(128);
+      builder.append("PostItemOutput [index=");
+      builder.append(index);
+      builder.append(", status=");
+      builder.append(status);
+      builder.append(", jmsMessageID=");
+      builder.append(jmsMessageID);
+      builder.append(", error=");
+      builder.append(error);
+      builder.append("]");
+      return builder.toString();
+   }
+
+   // ------------------------
+   // Standard Getters/Setters
+   // ------------------------
+
+   public Integer getIndex() {
+      return index;
+   }
+
+   public void setIndex(Integer index) {
+      this.index = index;
+   }
+
+   public Status getStatus() {
+      return status;
+   }
+
+   public void setStatus(Status status) {
+      this.status = status;
+   }
+
+   public String getJmsMessageID() {
+      return jmsMessageID;
+   }
+
+   public void setJmsMessageID(String jmsMessageID) {
+      this.jmsMessageID = jmsMessageID;
+   }
+
+   public String getError() {
+      return error;
+   }
+
+   public void setError(String error) {
+      this.error = error;
+   }
+
+}
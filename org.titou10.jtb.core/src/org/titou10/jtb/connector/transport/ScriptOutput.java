@@ -16,6 +16,8 @@
  */
 package org.titou10.jtb.connector.transport;
 
+import java.util.List;
+
 import javax.xml.bind.annotation.XmlRootElement;
 
 /**
@@ -27,7 +29,8 @@ import javax.xml.bind.annotation.XmlRootElement;
 @XmlRootElement
 public class ScriptOutput {
 
-   private Integer nbMessages;
+   private Integer                nbMessages;
+   private List<ScriptStepOutput> steps;
 
    // ------------------------
    // toString()
@@ -38,6 +41,8 @@ public class ScriptOutput {
       StringBuilder builder = new StringBuilder(128);
       builder.append("ScriptInput [nbMessages=");
       builder.append(nbMessages);
+      builder.append(", steps=");
+      builder.append(steps);
       builder.append("]");
       return builder.toString();
    }
@@ -54,4 +59,12 @@ public class ScriptOutput {
       this.nbMessages = nbMessages;
    }
 
+   public List<ScriptStepOutput> getSteps() {
+      return steps;
+   }
+
+   public void setSteps(List<ScriptStepOutput> steps) {
+      this.steps = steps;
+   }
+
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.connector.transport;
+
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Metrics of a step of a script execution used by an External Connector
+ * 
+ * @author Denis Forveille
+ *
+ */
+@XmlRootElement
+public class ScriptStepOutput {
+
+   private String     step;
+   private Long       nbMessages;
+   private Long       nbErrors;
+   private Long       elapsedMs;
+   private Double     messagesPerSecond;
+   private Double     latencyP50Ms;
+   private Double     latencyP90Ms;
+   private Double     latencyP99Ms;
+   private Double     latencyMaxMs;
+   private List<Long> messagesPerSecondOverTime;
+
+   // ------------------------
+   // toString()
+   // ------------------------
+
+   @Override
+   public String toString() {
+      StringBuilder builder = new StringBuilder(256);
+      builder.append("ScriptStepOutput [step=");
+      builder.append(step);
+      builder.append(", nbMessages=");
+      builder.append(nbMessages);
+      builder.append(", nbErrors=");
+      builder.append(nbErrors);
+      builder.append(", elapsedMs=");
+      builder.append(elapsedMs);
+      builder.append(", messagesPerSecond=");
+      builder.append(messagesPerSecond);
+      builder.append(", latencyP50Ms=");
+      builder.append(latencyP50Ms);
+      builder.append(", latencyP90Ms=");
+      builder.append(latencyP90Ms);
+      builder.append(", latencyP99Ms=");
+      builder.append(latencyP99Ms);
+      builder.append(", latencyMaxMs=");
+      builder.append(latencyMaxMs);
+      builder.append("]");
+      return builder.toString();
+   }
+
+   // ------------------------
+   // Standard Getters/Setters
+   // ------------------------
+
+   public String getStep() {
+      return step;
+   }
+
+   public void setStep(String step) {
+      this.step = step;
+   }
+
+   public Long getNbMessages() {
+      return nbMessages;
+   }
+
+   public void setNbMessages(Long nbMessages) {
+      this.nbMessages = nbMessages;
+   }
+
+   public Long getNbErrors() {
+      return nbErrors;
+   }
+
+   public void setNbErrors(Long nbErrors) {
+      this.nbErrors = nbErrors;
+   }
+
+   public Long getElapsedMs() {
+      return elapsedMs;
+   }
+
+   public void setElapsedMs(Long elapsedMs) {
+      this.elapsedMs = elapsedMs;
+   }
+
+   public Double getMessagesPerSecond() {
+      return messagesPerSecond;
+   }
+
+   public void setMessagesPerSecond(Double messagesPerSecond) {
+      this.messagesPerSecond = messagesPerSecond;
+   }
+
+   public Double getLatencyP50Ms() {
+      return latencyP50Ms;
+   }
+
+   public void setLatencyP50Ms(Double latencyP50Ms) {
+      this.latencyP50Ms = latencyP50Ms;
+   }
+
+   public Double getLatencyP90Ms() {
+      return latencyP90Ms;
+   }
+
+   public void setLatencyP90Ms(Double latencyP90Ms) {
+      this.latencyP90Ms = latencyP90Ms;
+   }
+
+   public Double getLatencyP99Ms() {
+      return latencyP99Ms;
+   }
+
+   public void setLatencyP99Ms(Double latencyP99Ms) {
+      this.latencyP99Ms = latencyP99Ms;
+   }
+
+   public Double getLatencyMaxMs() {
+      return latencyMaxMs;
+   }
+
+   public void setLatencyMaxMs(Double latencyMaxMs) {
+      this.latencyMaxMs = latencyMaxMs;
+   }
+
+   public List<Long> getMessagesPerSecondOverTime() {
+      return messagesPerSecondOverTime;
+   }
+
+   public void setMessagesPerSecondOverTime(List<Long> messagesPerSecondOverTime) {
+      this.messagesPerSecondOverTime = messagesPerSecondOverTime;
+   }
+
+}
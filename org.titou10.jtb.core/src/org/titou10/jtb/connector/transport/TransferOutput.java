@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.connector.transport;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Result of a bulk copy or move of messages used by an External Connector
+ * 
+ * @author Denis Forveille
+ *
+ */
+@XmlRootElement
+public class TransferOutput {
+
+   private Integer nbMessages;
+   private Long    elapsedMs;
+   private Double  messagesPerSecond;
+
+   // ------------------------
+   // toString()
+   // ------------------------
+
+   @Override
+   public String toString() {
+      StringBuilder builder = new StringBuilder(128);
+      builder.append("TransferOutput [nbMessages=");
+      builder.append(nbMessages);
+      builder.append(", elapsedMs=");
+      builder.append(elapsedMs);
+      builder.append(", messagesPerSecond=");
+      builder.append(messagesPerSecond);
+      builder.append("]");
+      return builder.toString();
+   }
+
+   // ------------------------
+   // Standard Getters/Setters
+   // ------------------------
+
+   public Integer getNbMessages() {
+      return nbMessages;
+   }
+
+   public void setNbMessages(Integer nbMessages) {
+      this.nbMessages = nbMessages;
+   }
+
+   public Long getElapsedMs() {
+      return elapsedMs;
+   }
+
+   public void setElapsedMs(Long elapsedMs) {
+      this.elapsedMs = elapsedMs;
+   }
+
+   public Double getMessagesPerSecond() {
+      return messagesPerSecond;
+   }
+
+   public void setMessagesPerSecond(Double messagesPerSecond) {
+      this.messagesPerSecond = messagesPerSecond;
+   }
+
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.dialog;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jface.dialogs.Dialog;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.layout.RowLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Spinner;
+import org.eclipse.swt.widgets.Text;
+import org.titou10.jtb.jms.model.JTBConnection;
+import org.titou10.jtb.jms.model.JTBDestination;
+import org.titou10.jtb.jms.model.JTBMessageTransfer.TransferMode;
+import org.titou10.jtb.jms.model.JTBQueue;
+import org.titou10.jtb.jms.model.JTBSession;
+import org.titou10.jtb.jms.model.JTBSessionClientType;
+import org.titou10.jtb.jms.model.JTBTopic;
+import org.titou10.jtb.util.Utils;
+
+/**
+ * 
+ * Ask for the parameters of a bulk copy or move of messages from a Queue
+ * 
+ * @author Denis Forveille
+ *
+ */
+public class MessageTransferDialog extends Dialog {
+
+   private JTBQueue            sourceJTBQueue;
+   private List<JTBConnection> jtbConnections;
+
+   private JTBDestination      targetJTBDestination;
+   private TransferMode        transferMode;
+   private String              selector;
+   private int                 maxMessages;
+   private int                 batchSize;
+
+   private Combo               comboSession;
+   private Combo               comboDestination;
+   private Button              btnCopy;
+   private Button              btnMove;
+   private Text                txtSelector;
+   private Spinner             spinnerMaxMessages;
+   private Spinner             spinnerBatchSize;
+
+   public MessageTransferDialog(Shell parentShell, List<JTBSession> jtbSessions, JTBQueue sourceJTBQueue, int batchSize) {
+      super(parentShell);
+      setShellStyle(SWT.RESIZE | SWT.TITLE | SWT.PRIMARY_MODAL);
+
+      this.sourceJTBQueue = sourceJTBQueue;
+      this.batchSize = batchSize;
+
+      // Only connected sessions can be a target. The session of the source queue comes first
+      JTBConnection sourceJTBConnection = sourceJTBQueue.getJtbConnection();
+      this.jtbConnections = new ArrayList<>();
+      this.jtbConnections.add(sourceJTBConnection);
+      for (JTBSession jtbSession : jtbSessions) {
+         JTBConnection jtbConnection = jtbSession.getJTBConnection(JTBSessionClientType.GUI);
+         if ((jtbConnection != sourceJTBConnection) && (jtbConnection.isConnected())) {
+            this.jtbConnections.add(jtbConnection);
+         }
+      }
+   }
+
+   @Override
+   protected void configureShell(Shell newShell) {
+      super.configureShell(newShell);
+      newShell.setText("Copy or move messages from queue '" + sourceJTBQueue.getName() + "'");
+   }
+
+   @Override
+   protected Control createDialogArea(Composite parent) {
+      Composite container = (Composite) super.createDialogArea(parent);
+      container.setLayout(new GridLayout(2, false));
+
+      Label lbl1 = new Label(container, SWT.NONE);
+      lbl1.setText("Target session:");
+      comboSession = new Combo(container, SWT.READ_ONLY);
+      comboSession.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+      for (JTBConnection jtbConnection : jtbConnections) {
+         comboSession.add(jtbConnection.getSessionName());
+      }
+      comboSession.select(0);
+      comboSession.addListener(SWT.Selection, e -> populateDestinations());
+
+      Label lbl2 = new Label(container, SWT.NONE);
+      lbl2.setText("Target destination:");
+      comboDestination = new Combo(container, SWT.DROP_DOWN);
+      GridData gd = new GridData(SWT.FILL, SWT.CENTER, true, false);
+      gd.widthHint = 350;
+      comboDestination.setLayoutData(gd);
+      populateDestinations();
+
+      Label lbl3 = new Label(container, SWT.NONE);
+      lbl3.setText("Operation:");
+      Composite compositeMode = new Composite(container, SWT.NONE);
+      compositeMode.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, true, false));
+      compositeMode.setLayout(new RowLayout(SWT.HORIZONTAL));
+      btnCopy = new Button(compositeMode, SWT.RADIO);
+      btnCopy.setText("Copy");
+      btnCopy.setSelection(true);
+      btnMove = new Button(compositeMode, SWT.RADIO);
+      btnMove.setText("Move");
+
+      Label lbl4 = new Label(container, SWT.NONE);
+      lbl4.setText("Selector:");
+      txtSelector = new Text(container, SWT.BORDER);
+      txtSelector.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+      txtSelector.setToolTipText("Optional JMS selector to restrict the messages to copy or move");
+
+      Label lbl5 = new Label(container, SWT.NONE);
+      lbl5.setText("Max messages (0 = all):");
+      spinnerMaxMessages = new Spinner(container, SWT.BORDER);
+      spinnerMaxMessages.setMinimum(0);
+      spinnerMaxMessages.setMaximum(9999999);
+      spinnerMaxMessages.setIncrement(1);
+      spinnerMaxMessages.setPageIncrement(100);
+      spinnerMaxMessages.setSelection(0);
+
+      Label lbl6 = new Label(container, SWT.NONE);
+      lbl6.setText("Commit every:");
+      spinnerBatchSize = new Spinner(container, SWT.BORDER);
+      spinnerBatchSize.setMinimum(1);
+      spinnerBatchSize.setMaximum(99999);
+      spinnerBatchSize.setIncrement(1);
+      spinnerBatchSize.setPageIncrement(100);
+      spinnerBatchSize.setSelection(batchSize);
+      spinnerBatchSize.setToolTipText("Number of messages per transaction");
+
+      return container;
+   }
+
+   @Override
+   protected void okPressed() {
+      JTBConnection jtbConnection = jtbConnections.get(comboSession.getSelectionIndex());
+      String destinationName = comboDestination.getText().trim();
+      if (Utils.isEmpty(destinationName)) {
+         comboDestination.setFocus();
+         MessageDialog.openError(getShell(), "Validation error", "The target destination is mandatory");
+         return;
+      }
+      targetJTBDestination = jtbConnection.getJTBDestinationByName(destinationName);
+      if (targetJTBDestination == null) {
+         comboDestination.setFocus();
+         MessageDialog.openError(getShell(), "Validation error", "There is no destination with name '" + destinationName + "'");
+         return;
+      }
+      if ((jtbConnection == sourceJTBQueue.getJtbConnection()) && (destinationName.equals(sourceJTBQueue.getName()))) {
+         comboDestination.setFocus();
+         MessageDialog.openError(getShell(), "Validation error", "The target destination must be different from the source queue");
+         return;
+      }
+
+      transferMode = btnMove.getSelection() ? TransferMode.MOVE : TransferMode.COPY;
+      selector = txtSelector.getText().trim();
+      maxMessages = spinnerMaxMessages.getSelection();
+      batchSize = spinnerBatchSize.getSelection();
+
+      super.okPressed();
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   private void populateDestinations() {
+      JTBConnection jtbConnection = jtbConnections.get(comboSession.getSelectionIndex());
+      comboDestination.removeAll();
+      for (JTBQueue jtbQueue : jtbConnection.getJtbQueues()) {
+         if (jtbQueue != sourceJTBQueue) {
+            comboDestination.add(jtbQueue.getName());
+         }
+      }
+      for (JTBTopic jtbTopic : jtbConnection.getJtbTopics()) {
+         comboDestination.add(jtbTopic.getName());
+      }
+   }
+
+   // ----------------
+   // Standard Getters
+   // ----------------
+
+   public JTBDestination getTargetJTBDestination() {
+      return targetJTBDestination;
+   }
+
+   public TransferMode getTransferMode() {
+      return transferMode;
+   }
+
+   public String getSelector() {
+      return selector;
+   }
+
+   public int getMaxMessages() {
+      return maxMessages;
+   }
+
+   public int getBatchSize() {
+      return batchSize;
+   }
+
+}
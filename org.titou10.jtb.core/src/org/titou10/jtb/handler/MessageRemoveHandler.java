@@ -16,12 +16,14 @@
  */
 package org.titou10.jtb.handler;
 
+import java.lang.reflect.InvocationTargetException;
 import java.util.List;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.jms.JMSException;
 
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.e4.core.di.annotations.CanExecute;
 import org.eclipse.e4.core.di.annotations.Execute;
 import org.eclipse.e4.core.di.annotations.Optional;
@@ -29,6 +31,7 @@ import org.eclipse.e4.core.services.events.IEventBroker;
 import org.eclipse.e4.ui.model.application.ui.menu.MMenuItem;
 import org.eclipse.e4.ui.services.IServiceConstants;
 import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.dialogs.ProgressMonitorDialog;
 import org.eclipse.swt.custom.BusyIndicator;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
@@ -36,6 +39,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.jms.model.JTBDestination;
 import org.titou10.jtb.jms.model.JTBMessage;
+import org.titou10.jtb.jms.model.JTBProgressListener;
 import org.titou10.jtb.ui.JTBStatusReporter;
 import org.titou10.jtb.util.Constants;
 import org.titou10.jtb.util.Utils;
@@ -79,19 +83,21 @@ public class MessageRemoveHandler {
          JTBDestination jtbDestination = jtbMessage1.getJtbDestination();
 
          // Remove Messages
-         BusyIndicator.showWhile(Display.getCurrent(), new Runnable() {
-
-            @Override
-            public void run() {
-               try {
-                  for (JTBMessage jtbMessage : selection) {
-                     jtbDestination.getJtbConnection().removeMessage(jtbMessage);
+         if (Utils.containsOneElement(selection)) {
+            BusyIndicator.showWhile(Display.getCurrent(), new Runnable() {
+
+               @Override
+               public void run() {
+                  try {
+                     jtbDestination.getJtbConnection().removeMessage(jtbMessage1);
+                  } catch (JMSException e) {
+                     jtbStatusReporter.showError("Exception occurred when removing messages", e, "");
                   }
-               } catch (JMSException e) {
-                  jtbStatusReporter.showError("Exception occurred when removing messages", e, "");
                }
-            }
-         });
+            });
+         } else {
+            removeMessages(shell, jtbDestination, selection);
+         }
 
          // Refresh List of Message
          eventBroker.send(Constants.EVENT_REFRESH_QUEUE_MESSAGES, jtbDestination);
@@ -102,6 +108,40 @@ public class MessageRemoveHandler {
       }
    }
 
+   // Remove the messages by chunks in a background thread, with progress and cancel
+   private void removeMessages(Shell shell, JTBDestination jtbDestination, List<JTBMessage> selection) {
+      try {
+         ProgressMonitorDialog progressDialog = new ProgressMonitorDialog(shell);
+         progressDialog.run(true, true, (IProgressMonitor monitor) -> {
+            monitor.beginTask("Removing " + selection.size() + " messages from '" + jtbDestination.getName() + "'",
+                              selection.size());
+            try {
+               jtbDestination.getJtbConnection().removeMessages(selection, new JTBProgressListener() {
+                  private int done;
+
+                  @Override
+                  public void progress(int nbProcessed, long elapsedMs) {
+                     monitor.worked(nbProcessed - done);
+                     done = nbProcessed;
+                  }
+
+                  @Override
+                  public boolean isCanceled() {
+                     return monitor.isCanceled();
+                  }
+               });
+            } catch (JMSException e) {
+               throw new InvocationTargetException(e);
+            }
+            monitor.done();
+         });
+      } catch (InvocationTargetException e) {
+         jtbStatusReporter.showError("Exception occurred when removing messages", Utils.getCause(e), "");
+      } catch (InterruptedException e) {
+         log.info("Remove messages has been interrupted");
+      }
+   }
+
    @CanExecute
    public boolean canExecute(@Named(IServiceConstants.ACTIVE_SELECTION) @Optional List<JTBMessage> selection,
                              @Named(Constants.CURRENT_TAB_JTBDESTINATION) JTBDestination jtbDestination,
@@ -148,14 +148,19 @@ public class MessageSendHandler {
                         }
 
                      } else {
-                        // else, blindly duplicate and post the messages
+                        // else, blindly duplicate and post the messages in one transaction
+                        JTBConnection jtbConnection = jtbDestination.getJtbConnection();
                         JTBMessage newMessage;
-                        for (JTBMessage jtbMessage : jtbMessages) {
-                           // Create new Message to destination from old Message
-                           JTBConnection jtbConnection = jtbDestination.getJtbConnection();
-                           Message newJMSMessage = jtbConnection.cloneJMSMessage(jtbMessage.getJmsMessage());
-                           newMessage = new JTBMessage(jtbDestination, newJMSMessage);
-                           jtbDestination.getJtbConnection().sendMessage(newMessage, jtbDestination);
+                        jtbConnection.beginBatch();
+                        try {
+                           for (JTBMessage jtbMessage : jtbMessages) {
+                              // Create new Message to destination from old Message
+                              Message newJMSMessage = jtbConnection.cloneJMSMessage(jtbMessage.getJmsMessageWithPayload());
+                              newMessage = new JTBMessage(jtbDestination, newJMSMessage);
+                              jtbConnection.sendMessage(newMessage, jtbDestination);
+                           }
+                        } finally {
+                           jtbConnection.commitBatch();
                         }
                      }
 
@@ -16,12 +16,14 @@
  */
 package org.titou10.jtb.handler;
 
+import java.lang.reflect.InvocationTargetException;
 import java.util.List;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.jms.JMSException;
 
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.e4.core.di.annotations.CanExecute;
 import org.eclipse.e4.core.di.annotations.Execute;
 import org.eclipse.e4.core.di.annotations.Optional;
@@ -29,13 +31,13 @@ import org.eclipse.e4.core.services.events.IEventBroker;
 import org.eclipse.e4.ui.model.application.ui.menu.MMenuItem;
 import org.eclipse.e4.ui.services.IServiceConstants;
 import org.eclipse.jface.dialogs.MessageDialog;
-import org.eclipse.swt.custom.BusyIndicator;
-import org.eclipse.swt.widgets.Display;
+import org.eclipse.jface.dialogs.ProgressMonitorDialog;
 import org.eclipse.swt.widgets.Shell;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.jms.model.JTBDestination;
 import org.titou10.jtb.jms.model.JTBObject;
+import org.titou10.jtb.jms.model.JTBProgressListener;
 import org.titou10.jtb.jms.model.JTBQueue;
 import org.titou10.jtb.ui.JTBStatusReporter;
 import org.titou10.jtb.ui.navigator.NodeJTBQueue;
@@ -88,17 +90,34 @@ public class QueueEmptyHandler {
          return;
       }
 
-      BusyIndicator.showWhile(Display.getCurrent(), new Runnable() {
-
-         @Override
-         public void run() {
+      Integer[] nb = new Integer[1];
+      try {
+         ProgressMonitorDialog progressDialog = new ProgressMonitorDialog(shell);
+         progressDialog.run(true, true, (IProgressMonitor monitor) -> {
+            monitor.beginTask("Removing all messages from queue '" + jtbQueue.getName() + "'", IProgressMonitor.UNKNOWN);
             try {
-               jtbQueue.getJtbConnection().emptyQueue(jtbQueue);
+               nb[0] = jtbQueue.getJtbConnection().emptyQueue(jtbQueue, new JTBProgressListener() {
+                  @Override
+                  public void progress(int nbProcessed, long elapsedMs) {
+                     monitor.subTask(nbProcessed + " messages removed");
+                  }
+
+                  @Override
+                  public boolean isCanceled() {
+                     return monitor.isCanceled();
+                  }
+               });
             } catch (JMSException e) {
-               jtbStatusReporter.showError("Problem occurred while pruning the queue", e, jtbQueue.getName());
+               throw new InvocationTargetException(e);
             }
-         }
-      });
+            monitor.done();
+         });
+      } catch (InvocationTargetException e) {
+         jtbStatusReporter.showError("Problem occurred while pruning the queue", Utils.getCause(e), jtbQueue.getName());
+      } catch (InterruptedException e) {
+         log.info("Empty queue has been interrupted");
+      }
+      log.debug("{} messages removed from {}", nb[0], jtbQueue);
 
       // Rafraichissement de la liste
       eventBroker.send(Constants.EVENT_REFRESH_QUEUE_MESSAGES, jtbQueue);
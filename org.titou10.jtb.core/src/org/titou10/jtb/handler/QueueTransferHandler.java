@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.handler;
+
+import java.lang.reflect.InvocationTargetException;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.jms.JMSException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.e4.core.di.annotations.CanExecute;
+import org.eclipse.e4.core.di.annotations.Execute;
+import org.eclipse.e4.core.di.annotations.Optional;
+import org.eclipse.e4.core.services.events.IEventBroker;
+import org.eclipse.e4.ui.model.application.ui.menu.MMenuItem;
+import org.eclipse.e4.ui.services.IServiceConstants;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.dialogs.ProgressMonitorDialog;
+import org.eclipse.jface.window.Window;
+import org.eclipse.swt.widgets.Shell;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.config.ConfigManager;
+import org.titou10.jtb.config.JTBPreferenceStore;
+import org.titou10.jtb.dialog.MessageTransferDialog;
+import org.titou10.jtb.jms.model.JTBDestination;
+import org.titou10.jtb.jms.model.JTBMessageTransfer;
+import org.titou10.jtb.jms.model.JTBMessageTransfer.TransferMode;
+import org.titou10.jtb.jms.model.JTBMessageTransfer.TransferResult;
+import org.titou10.jtb.jms.model.JTBObject;
+import org.titou10.jtb.jms.model.JTBProgressListener;
+import org.titou10.jtb.jms.model.JTBQueue;
+import org.titou10.jtb.ui.JTBStatusReporter;
+import org.titou10.jtb.ui.navigator.NodeJTBQueue;
+import org.titou10.jtb.util.Constants;
+import org.titou10.jtb.util.Utils;
+
+/**
+ * Manage the "Copy/Move Messages" command : bulk transfer of the messages of a queue to another destination
+ * 
+ * @author Denis Forveille
+ * 
+ */
+public class QueueTransferHandler {
+
+   private static final Logger log = LoggerFactory.getLogger(QueueTransferHandler.class);
+
+   @Inject
+   private IEventBroker        eventBroker;
+
+   @Inject
+   private JTBStatusReporter   jtbStatusReporter;
+
+   @Inject
+   private ConfigManager       cm;
+
+   @Inject
+   private JTBPreferenceStore  ps;
+
+   // This can be called in two contexts depending on parameter "queueOrMessage":
+   // - right click on a session = QUEUE : -> use selection
+   // - right click on message browser = MESSAGE : -> use tabJTBQueue
+
+   @Execute
+   public void execute(Shell shell,
+                       @Named(Constants.COMMAND_CONTEXT_PARAM) String context,
+                       @Named(IServiceConstants.ACTIVE_SELECTION) @Optional JTBObject selection,
+                       @Named(Constants.CURRENT_TAB_JTBDESTINATION) @Optional JTBDestination jtbDestination) {
+      log.debug("execute");
+
+      JTBQueue jtbQueue;
+      switch (context) {
+         case Constants.COMMAND_CONTEXT_PARAM_QUEUE:
+            NodeJTBQueue nodeJTBQueue = (NodeJTBQueue) selection;
+            jtbQueue = (JTBQueue) nodeJTBQueue.getBusinessObject();
+            break;
+         case Constants.COMMAND_CONTEXT_PARAM_MESSAGE:
+            jtbQueue = jtbDestination.getAsJTBQueue();
+            break;
+         default:
+            log.error("Invalid value : {}", context);
+            return;
+      }
+
+      MessageTransferDialog dialog = new MessageTransferDialog(shell,
+                                                               cm.getJtbSessions(),
+                                                               jtbQueue,
+                                                               ps.getInt(Constants.PREF_TRANSFER_BATCH_SIZE));
+      if (dialog.open() != Window.OK) {
+         return;
+      }
+
+      JTBDestination target = dialog.getTargetJTBDestination();
+      TransferMode mode = dialog.getTransferMode();
+      JTBMessageTransfer transfer = new JTBMessageTransfer(jtbQueue,
+                                                           target,
+                                                           mode,
+                                                           dialog.getSelector(),
+                                                           dialog.getMaxMessages(),
+                                                           dialog.getBatchSize());
+
+      TransferResult[] result = new TransferResult[1];
+      try {
+         ProgressMonitorDialog progressDialog = new ProgressMonitorDialog(shell);
+         progressDialog.run(true, true, (IProgressMonitor monitor) -> {
+            monitor.beginTask(mode + " messages from '" + jtbQueue.getName() + "' to '" + target.getName() + "'",
+                              IProgressMonitor.UNKNOWN);
+            try {
+               result[0] = transfer.execute(new JTBProgressListener() {
+                  @Override
+                  public void progress(int nbCommitted, long elapsedMs) {
+                     monitor.subTask(String.format("%d messages (%.1f msg/s)",
+                                                   nbCommitted,
+                                                   TransferResult.getThroughput(nbCommitted, elapsedMs)));
+                  }
+
+                  @Override
+                  public boolean isCanceled() {
+                     return monitor.isCanceled();
+                  }
+               });
+            } catch (JMSException e) {
+               throw new InvocationTargetException(e);
+            }
+            monitor.done();
+         });
+      } catch (InvocationTargetException e) {
+         jtbStatusReporter.showError("Problem occurred while transferring the messages", Utils.getCause(e), jtbQueue.getName());
+      } catch (InterruptedException e) {
+         log.info("Transfer has been interrupted");
+      }
+
+      if (result[0] != null) {
+         MessageDialog.openInformation(shell, "Transfer done", mode + " from '" + jtbQueue.getName() + "' to '" + target.getName()
+                                                               + "': " + result[0]);
+      }
+
+      // Refresh the lists
+      if (mode == TransferMode.MOVE) {
+         eventBroker.send(Constants.EVENT_REFRESH_QUEUE_MESSAGES, jtbQueue);
+      }
+      if ((target.isJTBQueue()) && (target.getAsJTBQueue().isBrowsable())) {
+         eventBroker.send(Constants.EVENT_REFRESH_QUEUE_MESSAGES, target);
+      }
+   }
+
+   @CanExecute
+   public boolean canExecute(@Named(Constants.COMMAND_CONTEXT_PARAM) String context,
+                             @Named(IServiceConstants.ACTIVE_SELECTION) @Optional JTBObject selection,
+                             @Named(Constants.CURRENT_TAB_JTBDESTINATION) @Optional JTBDestination jtbDestination,
+                             @Optional MMenuItem menuItem) {
+
+      switch (context) {
+         case Constants.COMMAND_CONTEXT_PARAM_QUEUE:
+            // Show menu on Queues that can be browsed only
+            if (selection instanceof NodeJTBQueue) {
+               NodeJTBQueue nodeJTBQueue = (NodeJTBQueue) selection;
+               JTBQueue jtbQueue = (JTBQueue) nodeJTBQueue.getBusinessObject();
+               if (jtbQueue.isBrowsable()) {
+                  return Utils.enableMenu(menuItem);
+               }
+            }
+            return Utils.disableMenu(menuItem);
+
+         case Constants.COMMAND_CONTEXT_PARAM_MESSAGE:
+            // Show menu on Queues that can be browsed only
+            if ((jtbDestination != null) && (jtbDestination.isJTBQueue())) {
+               if (jtbDestination.getAsJTBQueue().isBrowsable()) {
+                  return Utils.enableMenu(menuItem);
+               }
+            }
+            return Utils.disableMenu(menuItem);
+
+         default:
+            log.error("Invalid value : {}", context);
+            return Utils.disableMenu(menuItem);
+      }
+   }
+}
@@ -22,6 +22,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
@@ -36,7 +37,6 @@ import javax.jms.MapMessage;
 import javax.jms.Message;
 import javax.jms.MessageConsumer;
 import javax.jms.MessageEOFException;
-import javax.jms.MessageProducer;
 import javax.jms.ObjectMessage;
 import javax.jms.Queue;
 import javax.jms.QueueBrowser;
@@ -71,11 +71,16 @@ public class JTBConnection {
 
    private static final Long    RECEIVE_MAX_WAIT_REMOVE       = 1 * 100L;                                    // 1 secs
    private static final Long    RECEIVE_MAX_WAIT_REMOVE_ID    = 30 * 1000L;                                  // 30 seconds
+   private static final Long    RECEIVE_MAX_WAIT_REMOVE_IDS   = 5 * 1000L;                                   // 5 seconds
+   private static final int     EMPTY_QUEUE_BATCH_SIZE        = 500;
+   private static final int     REMOVE_BATCH_SIZE             = 100;                                         // IDs per selector
 
    private static final String  UNKNOWN                       = "Unknown";
    private static final String  JMSMESSAGEID_STD_PREFIX       = "ID:";
    private static final int     JMSMESSAGEID_STD_PREFIX_START = JMSMESSAGEID_STD_PREFIX.length();
 
+   private static final int     PAYLOAD_CACHE_SIZE            = 32;
+
    // Global unique ID for the session
    private static long          CONN_CLIENT_ID                = System.currentTimeMillis();
 
@@ -85,11 +90,20 @@ public class JTBConnection {
    private JTBPreferenceStore   ps;
 
    // JMS Provider Information
-   private boolean              connected;
+   private volatile boolean     connected;
    private Connection           jmsConnection;
-   private Session              jmsSession;
+   private JTBSessionPool       sessionPool;
    private Map<String, Session> jmsAsynchronousSessions       = new HashMap<>();
 
+   // Messages with their payload read again by readMessage(), by destination and JMSMessageID. Least recently used ones are evicted
+   private Map<String, Message> payloadCache                  = Collections.synchronizedMap(new PayloadCache());
+
+   // Payloads of large captured messages
+   private JTBPayloadStore      payloadStore;
+
+   // Pooled sessions of the threads sending messages in a batch, between beginBatch() and commitBatch()
+   private ThreadLocal<JTBPooledSession> batchSessions = new ThreadLocal<>();
+
    // Connection Metadata
    private String               metaJMSVersion                = UNKNOWN;
    private String               metaJMSProviderName           = UNKNOWN;
@@ -121,6 +135,7 @@ public class JTBConnection {
       this.jtbSessionClientType = jtbSessionClientType;
       this.sessionDef = sessionDef;
       this.qm = qm;
+      this.payloadStore = new JTBPayloadStore(sessionDef.getName());
 
       this.jtbQueues = new TreeSet<>();
       this.jtbTopics = new TreeSet<>();
@@ -251,7 +266,7 @@ public class JTBConnection {
    // }
 
    @SuppressWarnings("unchecked")
-   public void connect() throws Exception {
+   public synchronized void connect() throws Exception {
       log.debug("connect '{}'", this);
       if (this.isConnected()) {
          return;
@@ -265,7 +280,7 @@ public class JTBConnection {
 
       // Create JMS connection
       jmsConnection = qm.connect(sessionDef, showSystemObjects, clientId);
-      jmsSession = jmsConnection.createSession(true, Session.SESSION_TRANSACTED);
+      sessionPool = new JTBSessionPool(sessionDef.getName(), jmsConnection, ps.getInt(Constants.PREF_SESSION_POOL_SIZE));
       ConnectionMetaData meta = jmsConnection.getMetaData();
       metaJMSProviderName = meta.getJMSProviderName();
       metaProviderVersion = meta.getProviderVersion();
@@ -276,14 +291,14 @@ public class JTBConnection {
       // Build lists of destinations
       DestinationData dd = qm.discoverDestinations(jmsConnection, showSystemObjects);
       for (QueueData qData : dd.getListQueueData()) {
-         log.debug("jmsSession.createQueue '{}'", qData.getName());
-         Queue jmsQ = jmsSession.createQueue(qData.getName());
+         log.debug("createQueue '{}'", qData.getName());
+         Queue jmsQ = sessionPool.createQueue(qData.getName());
          jtbQueues.add(new JTBQueue(this, qData.getName(), jmsQ, qData.isBrowsable()));
       }
 
       for (TopicData tData : dd.getListTopicData()) {
-         log.debug("jmsSession.createTopic '{}'", tData.getName());
-         Topic jmsTopic = jmsSession.createTopic(tData.getName());
+         log.debug("createTopic '{}'", tData.getName());
+         Topic jmsTopic = sessionPool.createTopic(tData.getName());
          jtbTopics.add(new JTBTopic(this, tData.getName(), jmsTopic));
       }
 
@@ -306,8 +321,8 @@ public class JTBConnection {
       for (QueueData qData : dd.getListQueueData()) {
          JTBDestination dest = getJTBDestinationByName(qData.getName());
          if (dest == null) {
-            log.debug("new Queue: jmsSession.createQueue '{}'", qData.getName());
-            Queue jmsQ = jmsSession.createQueue(qData.getName());
+            log.debug("new Queue: createQueue '{}'", qData.getName());
+            Queue jmsQ = sessionPool.createQueue(qData.getName());
             jtbQueues.add(new JTBQueue(this, qData.getName(), jmsQ, qData.isBrowsable()));
          }
       }
@@ -315,8 +330,8 @@ public class JTBConnection {
       for (TopicData tData : dd.getListTopicData()) {
          JTBDestination dest = getJTBDestinationByName(tData.getName());
          if (dest == null) {
-            log.debug("New Topic: jmsSession.createTopic '{}'", tData.getName());
-            Topic jmsTopic = jmsSession.createTopic(tData.getName());
+            log.debug("New Topic: createTopic '{}'", tData.getName());
+            Topic jmsTopic = sessionPool.createTopic(tData.getName());
             jtbTopics.add(new JTBTopic(this, tData.getName(), jmsTopic));
          }
       }
@@ -325,7 +340,7 @@ public class JTBConnection {
 
    }
 
-   public void disconnect() throws JMSException {
+   public synchronized void disconnect() throws JMSException {
       log.debug("disconnect : '{}'", this);
       if (!(this.isConnected())) {
          return;
@@ -341,8 +356,13 @@ public class JTBConnection {
 
       connected = false;
       // jmsSessionAsynchronous = null;
-      jmsSession = null;
+      // Sessions bound by beginBatch() to other threads are given back by commitBatch()/rollbackBatch(), or discarded by the
+      // next beginBatch()
+      sessionPool.close();
+      sessionPool = null;
       jmsAsynchronousSessions.clear();
+      payloadCache.clear();
+      payloadStore.close();
 
       jtbQueues.clear();
       jtbQueuesFiltered.clear();
@@ -361,35 +381,27 @@ public class JTBConnection {
 
    public Message createJMSMessage(JTBMessageType jtbMessageType) throws JMSException {
       log.debug("createJMSMessage {}", jtbMessageType);
-      switch (jtbMessageType) {
-         case TEXT:
-            return jmsSession.createTextMessage();
-
-         case BYTES:
-            return jmsSession.createBytesMessage();
-
-         case MESSAGE:
-            return jmsSession.createMessage();
-
-         case MAP:
-            return jmsSession.createMapMessage();
-
-         case OBJECT:
-            return jmsSession.createObjectMessage();
+      return sessionPool.createMessage(jtbMessageType);
+   }
 
-         case STREAM:
-            return jmsSession.createStreamMessage();
+   public Message cloneJMSMessage(Message message) throws JMSException {
+      JTBPooledSession batchSession = batchSessions.get();
+      if (batchSession != null) {
+         return cloneJMSMessage(batchSession.getSession(), message);
+      }
+      try (JTBPooledSession pooledSession = sessionPool.borrow();) {
+         return cloneJMSMessage(pooledSession.getSession(), message);
       }
-      return null; // Impossible
    }
 
-   public Message cloneJMSMessage(Message message) throws JMSException {
+   // Build a copy of a message with a given session, possibly from another connection or another provider
+   public Message cloneJMSMessage(Session session, Message message) throws JMSException {
       log.debug("cloneJMSMessage {}", message.getJMSMessageID());
 
       Message res = null;
 
       if (message instanceof TextMessage) {
-         TextMessage newTextMessage = jmsSession.createTextMessage();
+         TextMessage newTextMessage = session.createTextMessage();
          String payloadText = ((TextMessage) message).getText();
          if (Utils.isNotEmpty(payloadText)) {
             newTextMessage.setText(payloadText);
@@ -398,7 +410,7 @@ public class JTBConnection {
       }
 
       if (message instanceof BytesMessage) {
-         BytesMessage newBytesMessage = jmsSession.createBytesMessage();
+         BytesMessage newBytesMessage = session.createBytesMessage();
 
          BytesMessage bm = (BytesMessage) message;
          byte[] payloadBytes = new byte[(int) bm.getBodyLength()];
@@ -411,7 +423,7 @@ public class JTBConnection {
       }
 
       if (message instanceof MapMessage) {
-         MapMessage newMapMessage = jmsSession.createMapMessage();
+         MapMessage newMapMessage = session.createMapMessage();
 
          MapMessage mm = (MapMessage) message;
          @SuppressWarnings("rawtypes")
@@ -424,7 +436,7 @@ public class JTBConnection {
       }
 
       if (message instanceof ObjectMessage) {
-         ObjectMessage newObjectMessage = jmsSession.createObjectMessage();
+         ObjectMessage newObjectMessage = session.createObjectMessage();
 
          ObjectMessage om = (ObjectMessage) message;
          Serializable payloadObject = om.getObject();
@@ -435,7 +447,7 @@ public class JTBConnection {
       }
 
       if (message instanceof StreamMessage) {
-         StreamMessage newStreamMessage = jmsSession.createStreamMessage();
+         StreamMessage newStreamMessage = session.createStreamMessage();
 
          StreamMessage sm = (StreamMessage) message;
          try {
@@ -451,7 +463,7 @@ public class JTBConnection {
 
       if (res == null) {
          if (message instanceof Message) {
-            res = jmsSession.createMessage();
+            res = session.createMessage();
          } else {
             // Impossible
             throw new JMSException("Unknown/Unsupported message class : " + message.getClass().getCanonicalName());
@@ -511,23 +523,85 @@ public class JTBConnection {
       Message message = jtbMessage.getJmsMessage();
       JTBDestination jtbDestination = jtbMessage.getJtbDestination();
 
-      StringBuilder sb = new StringBuilder(128);
-      sb.append("JMSMessageID='");
-      if (qm.mustRemoveIDFromJMSMessageID()) {
-         sb.append(message.getJMSMessageID().substring(JMSMESSAGEID_STD_PREFIX_START));
-      } else {
-         sb.append(message.getJMSMessageID());
-      }
-      sb.append("'");
+      String selector = buildJMSMessageIDSelector(message.getJMSMessageID());
+      payloadCache.remove(payloadCacheKey(jtbDestination, message.getJMSMessageID()));
 
-      try (MessageConsumer consumer = jmsSession.createConsumer(jtbDestination.getJmsDestination(), sb.toString());) {
+      try (JTBPooledSession pooledSession = sessionPool.borrow();
+           MessageConsumer consumer = pooledSession.getSession().createConsumer(jtbDestination.getJmsDestination(), selector);) {
          message = consumer.receive(RECEIVE_MAX_WAIT_REMOVE_ID);
          if (message == null) {
             throw new JMSException("JMSToolBox was not able to receive the message within " + RECEIVE_MAX_WAIT_REMOVE_ID + "ms");
          }
+         pooledSession.commit();
+      }
+   }
+
+   // Remove many messages from the same destination. The messages are received by chunks with one "JMSMessageID IN (...)"
+   // selector and one commit per chunk. Messages that are no longer on the destination are ignored
+   // Returns the number of messages removed
+   public int removeMessages(List<JTBMessage> jtbMessages, JTBProgressListener listener) throws JMSException {
+      log.debug("Remove {} Messages", jtbMessages.size());
+      if (jtbMessages.isEmpty()) {
+         return 0;
+      }
+
+      long start = System.currentTimeMillis();
+      JTBDestination jtbDestination = jtbMessages.get(0).getJtbDestination();
+
+      int nbRemoved = 0;
+      Session session = createTransactedWorkerSession();
+      try {
+         for (int i = 0; i < jtbMessages.size(); i += REMOVE_BATCH_SIZE) {
+            if ((listener != null) && (listener.isCanceled())) {
+               break;
+            }
+
+            List<JTBMessage> chunk = jtbMessages.subList(i, Math.min(i + REMOVE_BATCH_SIZE, jtbMessages.size()));
+            List<String> ids = new ArrayList<>(chunk.size());
+            for (JTBMessage jtbMessage : chunk) {
+               String id = jtbMessage.getJmsMessage().getJMSMessageID();
+               ids.add(id);
+               payloadCache.remove(payloadCacheKey(jtbDestination, id));
+            }
+
+            int nb = 0;
+            try (MessageConsumer consumer = session.createConsumer(jtbDestination.getJmsDestination(),
+                                                                   buildJMSMessageIDsSelector(ids));) {
+               while (nb < ids.size()) {
+                  Message message = consumer.receive(RECEIVE_MAX_WAIT_REMOVE_IDS);
+                  if (message == null) {
+                     break;
+                  }
+                  if (qm.manulAcknoledge()) {
+                     message.acknowledge();
+                  }
+                  nb++;
+               }
+            }
+            session.commit();
+
+            if (nb < ids.size()) {
+               log.warn("{} messages out of {} were not found on {}", ids.size() - nb, ids.size(), jtbDestination);
+            }
+            nbRemoved += nb;
+            if (listener != null) {
+               listener.progress(i + chunk.size(), System.currentTimeMillis() - start);
+            }
+         }
+      } catch (JMSException e) {
+         log.error("Problem while removing messages from {}. {} messages have been removed", jtbDestination, nbRemoved);
+         try {
+            session.rollback();
+         } catch (JMSException e2) {
+            log.warn("JMSException occurred when rolling back. Ignoring: {}", e2.getMessage());
+         }
+         throw e;
+      } finally {
+         session.close();
       }
 
-      jmsSession.commit();
+      log.info("{} messages removed from {} in {} ms", nbRemoved, jtbDestination, System.currentTimeMillis() - start);
+      return nbRemoved;
    }
 
    public List<JTBMessage> removeFirstMessages(JTBDestination jtbDestination, int limit) throws JMSException {
@@ -537,7 +611,8 @@ public class JTBConnection {
 
       Message message;
       int n = 0;
-      try (MessageConsumer consumer = jmsSession.createConsumer(jtbDestination.getJmsDestination());) {
+      try (JTBPooledSession pooledSession = sessionPool.borrow();
+           MessageConsumer consumer = pooledSession.getSession().createConsumer(jtbDestination.getJmsDestination());) {
          while (n++ < limit) {
             message = consumer.receive(RECEIVE_MAX_WAIT_REMOVE); // Seems necessary for ActiveMQ instead of receiveNoWait()
             if (message != null) {
@@ -545,22 +620,48 @@ public class JTBConnection {
                   message.acknowledge();
                }
                jtbMessages.add(new JTBMessage(jtbDestination, message));
+               payloadCache.remove(payloadCacheKey(jtbDestination, message.getJMSMessageID()));
             } else {
                break;
             }
          }
+         pooledSession.commit();
       }
 
-      jmsSession.commit();
-
       return jtbMessages;
 
    }
 
-   public int emptyQueue(JTBQueue jtbQueue) throws JMSException {
+   public Integer emptyQueue(JTBQueue jtbQueue) throws JMSException {
+      return emptyQueue(jtbQueue, null);
+   }
+
+   // Use the admin API of the Q Manager when available, otherwise drain the queue with a consumer, committing by batches
+   // Returns the number of messages removed, or null if it is not known (native purge on a Q Manager without queue depth)
+   public Integer emptyQueue(JTBQueue jtbQueue, JTBProgressListener listener) throws JMSException {
+      log.debug("emptyQueue {}", jtbQueue);
+
+      long start = System.currentTimeMillis();
+
+      invalidatePayloadCache(jtbQueue);
+
+      Integer depth = qm.getQueueDepth(jmsConnection, jtbQueue.getName());
+      try {
+         if (qm.purgeQueue(jmsConnection, jtbQueue.getName())) {
+            log.info("Queue {} purged natively in {} ms. Depth before purge: {}", jtbQueue, System.currentTimeMillis() - start, depth);
+            if (listener != null) {
+               listener.progress(depth == null ? 0 : depth, System.currentTimeMillis() - start);
+            }
+            return depth;
+         }
+      } catch (Exception e) {
+         log.warn("Native purge of queue {} failed. Falling back to consuming the messages: {}", jtbQueue, e.getMessage());
+      }
+
       Message message = null;
-      Integer nb = 0;
-      try (MessageConsumer consumer = jmsSession.createConsumer(jtbQueue.getJmsDestination());) {
+      int nb = 0;
+      Session session = createTransactedWorkerSession();
+      try (MessageConsumer consumer = session.createConsumer(jtbQueue.getJmsDestination());) {
          do {
             message = consumer.receive(RECEIVE_MAX_WAIT_REMOVE); // Seems necessary for ActiveMQ instead of receiveNoWait()
             if (message != null) {
@@ -568,46 +669,69 @@ public class JTBConnection {
                   message.acknowledge();
                }
                nb++;
+               if ((nb % EMPTY_QUEUE_BATCH_SIZE) == 0) {
+                  session.commit();
+                  if (listener != null) {
+                     listener.progress(nb, System.currentTimeMillis() - start);
+                  }
+               }
             }
-         } while (message != null);
+         } while ((message != null) && ((listener == null) || (!listener.isCanceled())));
+         session.commit();
+      } catch (JMSException e) {
+         log.error("Problem while emptying queue {}. {} messages have been removed", jtbQueue, nb - (nb % EMPTY_QUEUE_BATCH_SIZE));
+         try {
+            session.rollback();
+         } catch (JMSException e2) {
+            log.warn("JMSException occurred when rolling back. Ignoring: {}", e2.getMessage());
+         }
+         throw e;
+      } finally {
+         session.close();
       }
-      jmsSession.commit();
 
+      if (listener != null) {
+         listener.progress(nb, System.currentTimeMillis() - start);
+      }
+      log.info("Queue {} emptied: {} messages removed in {} ms", jtbQueue, nb, System.currentTimeMillis() - start);
       return nb;
    }
 
    public void sendMessage(JTBMessage jtbMessage, JTBDestination jtbDestination) throws JMSException {
       log.debug("sendMessage {} to {}", jtbMessage, jtbDestination);
       Message m = jtbMessage.getJmsMessage();
-      Destination d = jtbDestination.getJmsDestination();
 
-      try (MessageProducer p = jmsSession.createProducer(d);) {
-         if (jtbMessage.getDeliveryMode() != null) {
-            p.setDeliveryMode(jtbMessage.getDeliveryMode().intValue());
-         }
-         if (jtbMessage.getPriority() != null) {
-            p.setPriority(jtbMessage.getPriority());
-         }
-         if (jtbMessage.getTimeToLive() != null) {
-            p.setTimeToLive(jtbMessage.getTimeToLive());
-         }
+      int deliveryMode = Message.DEFAULT_DELIVERY_MODE;
+      if (jtbMessage.getDeliveryMode() != null) {
+         deliveryMode = jtbMessage.getDeliveryMode().intValue();
+      }
+      int priority = Message.DEFAULT_PRIORITY;
+      if (jtbMessage.getPriority() != null) {
+         priority = jtbMessage.getPriority();
+      }
+      long timeToLive = Message.DEFAULT_TIME_TO_LIVE;
+      if (jtbMessage.getTimeToLive() != null) {
+         timeToLive = jtbMessage.getTimeToLive();
+      }
+
+      // In a batch, the message is committed by commitBatch()
+      JTBPooledSession batchSession = batchSessions.get();
+      JTBPooledSession pooledSession = batchSession == null ? sessionPool.borrow() : batchSession;
+      try {
          if (jtbMessage.getReplyToDestinationName() != null) {
-            // Destination replyToDest = jmsSession.createTemporaryQueue();
-            Destination replyToDest = jmsSession.createQueue(jtbMessage.getReplyToDestinationName());
-            m.setJMSReplyTo(replyToDest);
-         }
-         if (jtbMessage.getDeliveryDelay() != null) {
-            try {
-               p.setDeliveryDelay(jtbMessage.getDeliveryDelay());
-            } catch (Throwable t) {
-               log.warn("JMS 2.0 feature 'setDeliveryDelay' failed. ignoring. Msg: {}", t.getMessage());
-            }
+            m.setJMSReplyTo(pooledSession.getReplyToDestination(jtbMessage.getReplyToDestinationName()));
          }
 
-         p.send(m);
-      }
+         pooledSession.send(jtbDestination, m, deliveryMode, priority, timeToLive, jtbMessage.getDeliveryDelay());
 
-      jmsSession.commit();
+         if (batchSession == null) {
+            pooledSession.commit();
+         }
+      } finally {
+         if (batchSession == null) {
+            pooledSession.close();
+         }
+      }
       log.debug("Message sent");
    }
 
@@ -615,6 +739,74 @@ public class JTBConnection {
       sendMessage(jtbMessage, jtbMessage.getJtbDestination());
    }
 
+   // Messages sent by the calling thread after this call are committed together by commitBatch(), with the same session
+   public void beginBatch() throws JMSException {
+      log.debug("beginBatch");
+      JTBPooledSession batchSession = batchSessions.get();
+      if ((batchSession != null) && (!batchSession.isFrom(sessionPool))) {
+         // Bound before a disconnect: the JMS session has been closed with the connection
+         log.debug("Discarding batch session of a previous connection");
+         batchSession = null;
+      }
+      if (batchSession == null) {
+         batchSessions.set(sessionPool.borrow());
+      }
+   }
+
+   public void commitBatch() throws JMSException {
+      log.debug("commitBatch");
+      JTBPooledSession batchSession = batchSessions.get();
+      if (batchSession == null) {
+         return;
+      }
+      batchSessions.remove();
+      try {
+         batchSession.commit();
+      } finally {
+         batchSession.close();
+      }
+   }
+
+   // Give back the session bound by beginBatch() without committing: the messages sent since are rolled back
+   public void rollbackBatch() {
+      log.debug("rollbackBatch");
+      JTBPooledSession batchSession = batchSessions.get();
+      if (batchSession == null) {
+         return;
+      }
+      batchSessions.remove();
+      batchSession.close();
+   }
+
+   // ----------------
+   // Worker Sessions
+   // ----------------
+
+   // Lease a transacted session from the pool of the connection. It must be given back by calling close() on it
+   public JTBPooledSession borrowSession() throws JMSException {
+      return sessionPool.borrow();
+   }
+
+   // Maximum number of threads that can work with their own session at the same time
+   public int getSessionPoolSize() {
+      return sessionPool.getMaxSize();
+   }
+
+   // JMS Sessions are single threaded. Jobs that call the Q Manager from multiple threads must use one session per thread
+   public Session createWorkerSession() throws JMSException {
+      return jmsConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+   }
+
+   // Used by bulk transfers that commit by batches, in parallel of the UI session
+   public Session createTransactedWorkerSession() throws JMSException {
+      return jmsConnection.createSession(true, Session.SESSION_TRANSACTED);
+   }
+
+   // Used by consumers that acknowledge the messages by batches
+   public Session createClientAckWorkerSession() throws JMSException {
+      return jmsConnection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+   }
+
    // ----------------
    // Topic Consumer
    // ----------------
@@ -653,16 +845,22 @@ public class JTBConnection {
    // Browse/Search Messages
    // ------------------------
    public Date getFirstMessageTimestamp(JTBQueue jtbQueue) throws JMSException {
-      try (QueueBrowser browser = jmsSession.createBrowser(jtbQueue.getJmsQueue());) {
+      try (JTBPooledSession pooledSession = sessionPool.borrow();) {
+         Date firstMessageTimestamp = getFirstMessageTimestamp(pooledSession.getSession(), jtbQueue);
+         pooledSession.commit();
+         return firstMessageTimestamp;
+      }
+   }
+
+   // Used by background jobs that work in parallel with their own non transacted session
+   public Date getFirstMessageTimestamp(Session session, JTBQueue jtbQueue) throws JMSException {
+      try (QueueBrowser browser = session.createBrowser(jtbQueue.getJmsQueue());) {
          Enumeration<?> msgs = browser.getEnumeration();
          while (msgs.hasMoreElements()) {
             Message firstMessage = (Message) msgs.nextElement();
             return new Date(firstMessage.getJMSTimestamp());
          }
       }
-
-      jmsSession.commit();
-
       return null;
    }
 
@@ -685,66 +883,108 @@ public class JTBConnection {
       List<JTBMessage> jtbMessages = new ArrayList<>(Math.min(256, maxMessages));
 
       // JMS Browser with selector
-      try (QueueBrowser browser = jmsSession.createBrowser(jtbQueue.getJmsQueue(), selectorsSearchText);) {
+      try (JTBPooledSession pooledSession = sessionPool.borrow();
+           QueueBrowser browser = pooledSession.getSession().createBrowser(jtbQueue.getJmsQueue(), selectorsSearchText);) {
          int n = 0;
 
          Enumeration<?> msgs = browser.getEnumeration();
-         loopOnMessages: while (msgs.hasMoreElements()) {
+         while (msgs.hasMoreElements()) {
             Message message = (Message) msgs.nextElement();
-
-            // No filter on payload, keep all messages
-            if (payloadSearchText.isEmpty()) {
+            if (JTBQueueBrowser.payloadContains(message, payloadSearchText)) {
                jtbMessages.add(new JTBMessage(jtbQueue, message));
                if (++n >= limit) {
-                  break loopOnMessages;
+                  break;
                }
-               continue loopOnMessages;
             }
+         }
+         pooledSession.commit();
+      }
 
-            // Search on text payload of Text Messages
-            if (message instanceof TextMessage) {
-               String text = ((TextMessage) message).getText();
-               if (text != null) {
-                  if (text.contains(payloadSearchText)) {
-                     jtbMessages.add(new JTBMessage(jtbQueue, message));
-                     if (++n >= limit) {
-                        break loopOnMessages;
-                     }
-                  }
-               }
-               continue loopOnMessages;
-            }
+      return jtbMessages;
+   }
 
-            // Search on "values" of Map Message content
-            if (message instanceof MapMessage) {
-               MapMessage mm = (MapMessage) message;
-               Enumeration<?> mapNames = mm.getMapNames();
-               while (mapNames.hasMoreElements()) {
-                  Object value = mm.getObject((String) mapNames.nextElement());
-                  if (value != null) {
-                     if (value.toString().contains(payloadSearchText)) {
-                        jtbMessages.add(new JTBMessage(jtbQueue, message));
-                        if (++n >= limit) {
-                           break loopOnMessages;
-                        }
-                     }
-                  }
-               }
+   // Read again a message previously browsed. The last ones read are kept in a small cache
+   public Message readMessage(JTBQueue jtbQueue, String jmsMessageID) throws JMSException {
+      log.debug("readMessage {} from {}", jmsMessageID, jtbQueue);
 
-               continue loopOnMessages;
-            }
+      String key = payloadCacheKey(jtbQueue, jmsMessageID);
+      Message message = payloadCache.get(key);
+      if (message != null) {
+         return message;
+      }
+
+      try (JTBPooledSession pooledSession = sessionPool.borrow();
+           QueueBrowser browser = pooledSession.getSession().createBrowser(jtbQueue.getJmsQueue(),
+                                                                           buildJMSMessageIDSelector(jmsMessageID));) {
+         Enumeration<?> msgs = browser.getEnumeration();
+         if (msgs.hasMoreElements()) {
+            message = (Message) msgs.nextElement();
          }
+         pooledSession.commit();
       }
 
-      jmsSession.commit();
+      if (message == null) {
+         throw new JMSException("Message with id '" + jmsMessageID + "' is not present in queue '" + jtbQueue.getName() + "' anymore");
+      }
+      payloadCache.put(key, message);
+      return message;
+   }
 
-      return jtbMessages;
+   // Open an incremental browser on the queue, with its own session. The caller must close it
+   public JTBQueueBrowser openQueueBrowser(JTBQueue jtbQueue, String payloadSearchText, String selectorsSearchText) throws JMSException {
+      log.debug("openQueueBrowser {} payloadSearchText='{}' selectorsSearchText='{}'", jtbQueue, payloadSearchText, selectorsSearchText);
+
+      return new JTBQueueBrowser(createWorkerSession(), jtbQueue, payloadSearchText, selectorsSearchText);
    }
 
    // ------------------------
    // Helpers
    // ------------------------
 
+   // Forget the payloads of the messages of a destination, after messages have been removed from it
+   void invalidatePayloadCache(JTBDestination jtbDestination) {
+      String prefix = payloadCacheKey(jtbDestination, "");
+      synchronized (payloadCache) {
+         payloadCache.keySet().removeIf(k -> k.startsWith(prefix));
+      }
+   }
+
+   private static String payloadCacheKey(JTBDestination jtbDestination, String jmsMessageID) {
+      return jtbDestination.getName() + "::" + jmsMessageID;
+   }
+
+   private String buildJMSMessageIDSelector(String jmsMessageID) {
+      StringBuilder sb = new StringBuilder(128);
+      sb.append("JMSMessageID='");
+      if (qm.mustRemoveIDFromJMSMessageID()) {
+         sb.append(jmsMessageID.substring(JMSMESSAGEID_STD_PREFIX_START));
+      } else {
+         sb.append(jmsMessageID);
+      }
+      sb.append("'");
+      return sb.toString();
+   }
+
+   private String buildJMSMessageIDsSelector(List<String> jmsMessageIDs) {
+      StringBuilder sb = new StringBuilder(64 * jmsMessageIDs.size());
+      sb.append("JMSMessageID IN (");
+      for (int i = 0; i < jmsMessageIDs.size(); i++) {
+         if (i > 0) {
+            sb.append(",");
+         }
+         String jmsMessageID = jmsMessageIDs.get(i);
+         sb.append("'");
+         if (qm.mustRemoveIDFromJMSMessageID()) {
+            sb.append(jmsMessageID.substring(JMSMESSAGEID_STD_PREFIX_START));
+         } else {
+            sb.append(jmsMessageID);
+         }
+         sb.append("'");
+      }
+      sb.append(")");
+      return sb.toString();
+   }
+
    public JTBDestination getJTBDestinationByName(String destinationName) {
       for (JTBQueue jtbQueue : jtbQueues) {
          if (jtbQueue.getName().equals(destinationName)) {
@@ -813,4 +1053,21 @@ public class JTBConnection {
       return sessionDef;
    }
 
+   public JTBPayloadStore getPayloadStore() {
+      return payloadStore;
+   }
+
+   // LRU cache of the messages read again with their payload
+   private static final class PayloadCache extends LinkedHashMap<String, Message> {
+      private static final long serialVersionUID = 1L;
+
+      PayloadCache() {
+         super(PAYLOAD_CACHE_SIZE, 0.75f, true);
+      }
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Message> eldest) {
+         return size() > PAYLOAD_CACHE_SIZE;
+      }
+   }
 }
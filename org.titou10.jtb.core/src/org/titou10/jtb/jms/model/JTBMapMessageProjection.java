@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.model;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.jms.JMSException;
+import javax.jms.MapMessage;
+import javax.jms.MessageFormatException;
+import javax.jms.MessageNotWriteableException;
+
+/**
+ *
+ * Read only copy of a JMS MapMessage, with its entries
+ *
+ * Entries are small compared to text or bytes payloads and are kept so that columns and filters on map entries still work on
+ * browsed messages
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class JTBMapMessageProjection extends JTBMessageProjection implements MapMessage {
+
+   private final Map<String, Object> entries;
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   JTBMapMessageProjection(MapMessage message) throws JMSException {
+      super(message);
+
+      Map<String, Object> map = new LinkedHashMap<>();
+      Enumeration<?> e = message.getMapNames();
+      while (e.hasMoreElements()) {
+         String name = (String) e.nextElement();
+         map.put(name, message.getObject(name));
+      }
+      this.entries = Collections.unmodifiableMap(map);
+   }
+
+   // ------------------------
+   // Map entries
+   // ------------------------
+
+   @Override
+   public boolean itemExists(String name) throws JMSException {
+      return entries.containsKey(name);
+   }
+
+   @Override
+   public Enumeration<String> getMapNames() throws JMSException {
+      return Collections.enumeration(entries.keySet());
+   }
+
+   @Override
+   public Object getObject(String name) throws JMSException {
+      Object value = entries.get(name);
+      return value instanceof byte[] ? ((byte[]) value).clone() : value;
+   }
+
+   @Override
+   public String getString(String name) throws JMSException {
+      Object value = entries.get(name);
+      if (value instanceof byte[]) {
+         throw notConvertible(name, value, "String");
+      }
+      return value == null ? null : value.toString();
+   }
+
+   @Override
+   public boolean getBoolean(String name) throws JMSException {
+      return toBoolean(name, entries.get(name));
+   }
+
+   @Override
+   public byte getByte(String name) throws JMSException {
+      return toByte(name, entries.get(name));
+   }
+
+   @Override
+   public short getShort(String name) throws JMSException {
+      return toShort(name, entries.get(name));
+   }
+
+   @Override
+   public char getChar(String name) throws JMSException {
+      Object value = entries.get(name);
+      if (value instanceof Character) {
+         return (Character) value;
+      }
+      if (value == null) {
+         throw new NullPointerException("Entry '" + name + "' does not exist");
+      }
+      throw new MessageFormatException("'" + name + "' of type " + value.getClass().getSimpleName() + " can not be read as a char");
+   }
+
+   @Override
+   public int getInt(String name) throws JMSException {
+      return toInt(name, entries.get(name));
+   }
+
+   @Override
+   public long getLong(String name) throws JMSException {
+      return toLong(name, entries.get(name));
+   }
+
+   @Override
+   public float getFloat(String name) throws JMSException {
+      return toFloat(name, entries.get(name));
+   }
+
+   @Override
+   public double getDouble(String name) throws JMSException {
+      return toDouble(name, entries.get(name));
+   }
+
+   @Override
+   public byte[] getBytes(String name) throws JMSException {
+      Object value = entries.get(name);
+      if (value == null) {
+         return null;
+      }
+      if (value instanceof byte[]) {
+         return ((byte[]) value).clone();
+      }
+      throw notConvertible(name, value, "byte[]");
+   }
+
+   // ------------------------
+   // Read only
+   // ------------------------
+
+   @Override
+   public void setBoolean(String name, boolean value) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setByte(String name, byte value) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setShort(String name, short value) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setChar(String name, char value) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setInt(String name, int value) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setLong(String name, long value) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setFloat(String name, float value) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setDouble(String name, double value) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setString(String name, String value) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setBytes(String name, byte[] value) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setBytes(String name, byte[] value, int offset, int length) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setObject(String name, Object value) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+}
@@ -16,9 +16,17 @@
  */
 package org.titou10.jtb.jms.model;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+
+import javax.jms.BytesMessage;
 import javax.jms.JMSException;
 import javax.jms.Message;
+import javax.jms.TextMessage;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.titou10.jtb.jms.util.JTBDeliveryMode;
 import org.titou10.jtb.util.Utils;
 
@@ -30,9 +38,14 @@ import org.titou10.jtb.util.Utils;
  */
 public class JTBMessage {
 
-   // JMS Object
+   private static final Logger log = LoggerFactory.getLogger(JTBMessage.class);
+
+   // JMS Object. For browsed messages, only a projection of the JMS headers and properties
    private Message         jmsMessage;
 
+   // Location of the payload of large captured messages in the spill file of the connection
+   private JTBPayloadStore.Ref spilledPayload;
+
    // Owner Destination
    private JTBDestination  jtbDestination;
 
@@ -50,17 +63,145 @@ public class JTBMessage {
    // Constructor
    // ------------------------
    public JTBMessage(JTBDestination jtbDestination, Message jmsMessage) throws JMSException {
+      this(jtbDestination, jmsMessage, true);
+   }
+
+   // Messages kept in lists may drop their payload:
+   // - browsed messages can be read again from the queue by their JMSMessageID
+   // - large payloads of messages captured from topics are moved to the spill file of the connection
+   public JTBMessage(JTBDestination jtbDestination, Message jmsMessage, boolean keepPayload) throws JMSException {
       this.jtbDestination = jtbDestination;
       this.jmsMessage = jmsMessage;
       this.jtbMessageType = JTBMessageType.fromJMSMessage(jmsMessage);
       this.deliveryMode = JTBDeliveryMode.fromValue(jmsMessage.getJMSDeliveryMode());
       this.priority = jmsMessage.getJMSPriority();
       this.replyToDestinationName = Utils.getDestinationName(jmsMessage.getJMSReplyTo());
+
+      if (keepPayload) {
+         return;
+      }
+
+      if (jtbDestination.isJTBQueue()) {
+         if (jmsMessage.getJMSMessageID() != null) {
+            this.jmsMessage = JTBMessageProjection.project(jmsMessage);
+         }
+         return;
+      }
+
+      byte[] payload = getLargePayload(jmsMessage);
+      if (payload != null) {
+         try {
+            this.spilledPayload = jtbDestination.getJtbConnection().getPayloadStore().append(payload);
+            this.jmsMessage = JTBMessageProjection.project(jmsMessage);
+         } catch (IOException e) {
+            log.warn("IOException occurred when writing payload to spill file. Keeping it in memory: {}", e.getMessage());
+         }
+      }
    }
 
    // ------------------------
    // Helpers
    // ------------------------
+
+   public boolean isPayloadLoaded() {
+      return !(jmsMessage instanceof JTBMessageProjection);
+   }
+
+   // The JMS Message with its payload. Read again from the queue or rebuilt from the spill file if only the projection is kept
+   public Message getJmsMessageWithPayload() throws JMSException {
+      if (isPayloadLoaded()) {
+         return jmsMessage;
+      }
+      if (spilledPayload != null) {
+         return restoreSpilledMessage();
+      }
+      return jtbDestination.getJtbConnection().readMessage(jtbDestination.getAsJTBQueue(), jmsMessage.getJMSMessageID());
+   }
+
+   // Payload read from the spill file. null if the payload is not spilled
+   public byte[] getSpilledPayload() throws IOException {
+      if (spilledPayload == null) {
+         return null;
+      }
+      return jtbDestination.getJtbConnection().getPayloadStore().readBytes(spilledPayload);
+   }
+
+   // Called when the message is not displayed anymore. Frees the space used by the spilled payload
+   public void releaseSpilledPayload() {
+      if (spilledPayload != null) {
+         jtbDestination.getJtbConnection().getPayloadStore().release(spilledPayload);
+      }
+   }
+
+   private static byte[] getLargePayload(Message jmsMessage) throws JMSException {
+      if (jmsMessage instanceof TextMessage) {
+         String text = ((TextMessage) jmsMessage).getText();
+         if ((text == null) || (text.length() < JTBPayloadStore.SPILL_THRESHOLD)) {
+            return null;
+         }
+         return text.getBytes(StandardCharsets.UTF_8);
+      }
+      if (jmsMessage instanceof BytesMessage) {
+         BytesMessage bm = (BytesMessage) jmsMessage;
+         if (bm.getBodyLength() < JTBPayloadStore.SPILL_THRESHOLD) {
+            return null;
+         }
+         byte[] payload = new byte[(int) bm.getBodyLength()];
+         bm.reset();
+         bm.readBytes(payload);
+         bm.reset();
+         return payload;
+      }
+      return null;
+   }
+
+   // Build a new JMS Message with the headers and properties of the projection and the payload from the spill file
+   private Message restoreSpilledMessage() throws JMSException {
+      JTBConnection jtbConnection = jtbDestination.getJtbConnection();
+
+      byte[] payload;
+      try {
+         payload = jtbConnection.getPayloadStore().readBytes(spilledPayload);
+      } catch (IOException e) {
+         JMSException je = new JMSException("Payload of message '" + jmsMessage.getJMSMessageID() + "' is not available anymore");
+         je.setLinkedException(e);
+         throw je;
+      }
+
+      Message m = jtbConnection.createJMSMessage(jtbMessageType);
+      if (jtbMessageType == JTBMessageType.TEXT) {
+         ((TextMessage) m).setText(new String(payload, StandardCharsets.UTF_8));
+      } else {
+         BytesMessage bm = (BytesMessage) m;
+         bm.writeBytes(payload);
+         bm.reset();
+      }
+
+      m.setJMSMessageID(jmsMessage.getJMSMessageID());
+      m.setJMSTimestamp(jmsMessage.getJMSTimestamp());
+      m.setJMSCorrelationID(jmsMessage.getJMSCorrelationID());
+      m.setJMSType(jmsMessage.getJMSType());
+      m.setJMSExpiration(jmsMessage.getJMSExpiration());
+      m.setJMSPriority(jmsMessage.getJMSPriority());
+      m.setJMSDeliveryMode(jmsMessage.getJMSDeliveryMode());
+      m.setJMSRedelivered(jmsMessage.getJMSRedelivered());
+      m.setJMSDestination(jmsMessage.getJMSDestination());
+      m.setJMSReplyTo(jmsMessage.getJMSReplyTo());
+
+      Enumeration<?> e = jmsMessage.getPropertyNames();
+      while (e.hasMoreElements()) {
+         String name = (String) e.nextElement();
+         try {
+            m.setObjectProperty(name, jmsMessage.getObjectProperty(name));
+         } catch (JMSException | RuntimeException ex) {
+            // Some providers refuse to set JMSX properties
+            log.debug("Property '{}' not restored: {}", name, ex.getMessage());
+         }
+      }
+
+      return m;
+   }
+
    @Override
    public String toString() {
       try {
@@ -0,0 +1,504 @@
+/*
+ * Copyright (C) 2015-2020 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.model;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.jms.BytesMessage;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.MapMessage;
+import javax.jms.Message;
+import javax.jms.MessageFormatException;
+import javax.jms.MessageNotWriteableException;
+import javax.jms.TextMessage;
+
+/**
+ *
+ * Read only copy of the JMS headers and properties of a JMS Message, without its payload
+ *
+ * Used by the message browser to keep the rows small. Only the size and the beginning of the payload are kept
+ *
+ * Map messages also keep their entries, see JTBMapMessageProjection
+ *
+ * @author Denis Forveille
+ *
+ */
+public class JTBMessageProjection implements Message {
+
+   private static final int          PREVIEW_LENGTH = 128;
+   static final String               READ_ONLY      = "This message is read only";
+
+   private final JTBMessageType      jtbMessageType;
+   private final Long                payloadSize;
+   private final String              payloadPreview;
+
+   private final String              jmsMessageID;
+   private final String              jmsCorrelationID;
+   private final String              jmsType;
+   private final long                jmsTimestamp;
+   private final long                jmsExpiration;
+   private final long                jmsDeliveryTime;
+   private final int                 jmsDeliveryMode;
+   private final int                 jmsPriority;
+   private final boolean             jmsRedelivered;
+   private final Destination         jmsDestination;
+   private final Destination         jmsReplyTo;
+
+   private final Map<String, Object> properties;
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   JTBMessageProjection(Message message) throws JMSException {
+      this.jtbMessageType = JTBMessageType.fromJMSMessage(message);
+
+      this.jmsMessageID = message.getJMSMessageID();
+      this.jmsCorrelationID = message.getJMSCorrelationID();
+      this.jmsType = message.getJMSType();
+      this.jmsTimestamp = message.getJMSTimestamp();
+      this.jmsExpiration = message.getJMSExpiration();
+      this.jmsDeliveryMode = message.getJMSDeliveryMode();
+      this.jmsPriority = message.getJMSPriority();
+      this.jmsRedelivered = message.getJMSRedelivered();
+      this.jmsDestination = message.getJMSDestination();
+      this.jmsReplyTo = message.getJMSReplyTo();
+
+      long deliveryTime = 0;
+      try {
+         deliveryTime = message.getJMSDeliveryTime();
+      } catch (Throwable t) {
+         // JMS 2.0+ only..
+      }
+      this.jmsDeliveryTime = deliveryTime;
+
+      Map<String, Object> props = new LinkedHashMap<>();
+      Enumeration<?> e = message.getPropertyNames();
+      while (e.hasMoreElements()) {
+         String name = (String) e.nextElement();
+         props.put(name, message.getObjectProperty(name));
+      }
+      this.properties = Collections.unmodifiableMap(props);
+
+      switch (jtbMessageType) {
+         case TEXT:
+            String text = ((TextMessage) message).getText();
+            this.payloadSize = text == null ? null : Long.valueOf(text.length());
+            this.payloadPreview = text == null ? null : text.substring(0, Math.min(PREVIEW_LENGTH, text.length()));
+            break;
+
+         case BYTES:
+            this.payloadSize = ((BytesMessage) message).getBodyLength();
+            this.payloadPreview = null;
+            break;
+
+         default:
+            this.payloadSize = null;
+            this.payloadPreview = null;
+            break;
+      }
+   }
+
+   // Map messages keep their entries, that may be shown in columns or used by filters
+   static JTBMessageProjection project(Message message) throws JMSException {
+      if (message instanceof MapMessage) {
+         return new JTBMapMessageProjection((MapMessage) message);
+      }
+      return new JTBMessageProjection(message);
+   }
+
+   // ------------------------
+   // JTB Specifics
+   // ------------------------
+
+   public JTBMessageType getJtbMessageType() {
+      return jtbMessageType;
+   }
+
+   // Number of characters for TextMessages, number of bytes for BytesMessages, null otherwise
+   public Long getPayloadSize() {
+      return payloadSize;
+   }
+
+   // Beginning of the text of TextMessages, null otherwise
+   public String getPayloadPreview() {
+      return payloadPreview;
+   }
+
+   @Override
+   public String toString() {
+      StringBuilder builder = new StringBuilder(256);
+      builder.append("JTBMessageProjection [jmsMessageID=");
+      builder.append(jmsMessageID);
+      builder.append(", jtbMessageType=");
+      builder.append(jtbMessageType);
+      builder.append(", payloadSize=");
+      builder.append(payloadSize);
+      builder.append(", properties=");
+      builder.append(properties);
+      builder.append("]");
+      return builder.toString();
+   }
+
+   // ------------------------
+   // JMS Headers
+   // ------------------------
+
+   @Override
+   public String getJMSMessageID() throws JMSException {
+      return jmsMessageID;
+   }
+
+   @Override
+   public long getJMSTimestamp() throws JMSException {
+      return jmsTimestamp;
+   }
+
+   @Override
+   public byte[] getJMSCorrelationIDAsBytes() throws JMSException {
+      return jmsCorrelationID == null ? null : jmsCorrelationID.getBytes();
+   }
+
+   @Override
+   public String getJMSCorrelationID() throws JMSException {
+      return jmsCorrelationID;
+   }
+
+   @Override
+   public Destination getJMSReplyTo() throws JMSException {
+      return jmsReplyTo;
+   }
+
+   @Override
+   public Destination getJMSDestination() throws JMSException {
+      return jmsDestination;
+   }
+
+   @Override
+   public int getJMSDeliveryMode() throws JMSException {
+      return jmsDeliveryMode;
+   }
+
+   @Override
+   public boolean getJMSRedelivered() throws JMSException {
+      return jmsRedelivered;
+   }
+
+   @Override
+   public String getJMSType() throws JMSException {
+      return jmsType;
+   }
+
+   @Override
+   public long getJMSExpiration() throws JMSException {
+      return jmsExpiration;
+   }
+
+   @Override
+   public long getJMSDeliveryTime() throws JMSException {
+      return jmsDeliveryTime;
+   }
+
+   @Override
+   public int getJMSPriority() throws JMSException {
+      return jmsPriority;
+   }
+
+   // ------------------------
+   // JMS Properties
+   // ------------------------
+
+   @Override
+   public boolean propertyExists(String name) throws JMSException {
+      return properties.containsKey(name);
+   }
+
+   @Override
+   public Enumeration<String> getPropertyNames() throws JMSException {
+      return Collections.enumeration(properties.keySet());
+   }
+
+   @Override
+   public Object getObjectProperty(String name) throws JMSException {
+      return properties.get(name);
+   }
+
+   @Override
+   public String getStringProperty(String name) throws JMSException {
+      Object value = properties.get(name);
+      return value == null ? null : value.toString();
+   }
+
+   @Override
+   public boolean getBooleanProperty(String name) throws JMSException {
+      return toBoolean(name, properties.get(name));
+   }
+
+   @Override
+   public byte getByteProperty(String name) throws JMSException {
+      return toByte(name, properties.get(name));
+   }
+
+   @Override
+   public short getShortProperty(String name) throws JMSException {
+      return toShort(name, properties.get(name));
+   }
+
+   @Override
+   public int getIntProperty(String name) throws JMSException {
+      return toInt(name, properties.get(name));
+   }
+
+   @Override
+   public long getLongProperty(String name) throws JMSException {
+      return toLong(name, properties.get(name));
+   }
+
+   @Override
+   public float getFloatProperty(String name) throws JMSException {
+      return toFloat(name, properties.get(name));
+   }
+
+   @Override
+   public double getDoubleProperty(String name) throws JMSException {
+      return toDouble(name, properties.get(name));
+   }
+
+   // ------------------------
+   // Conversions allowed by the JMS specification for properties and map entries
+   // A null value behaves as valueOf(null) on the wrapper class. No narrowing conversion is done
+   // ------------------------
+
+   static boolean toBoolean(String name, Object value) throws JMSException {
+      if (value instanceof Boolean) {
+         return (Boolean) value;
+      }
+      if ((value == null) || (value instanceof String)) {
+         return Boolean.valueOf((String) value);
+      }
+      throw notConvertible(name, value, "boolean");
+   }
+
+   static byte toByte(String name, Object value) throws JMSException {
+      if (value instanceof Byte) {
+         return (Byte) value;
+      }
+      if ((value == null) || (value instanceof String)) {
+         return Byte.valueOf((String) value);
+      }
+      throw notConvertible(name, value, "byte");
+   }
+
+   static short toShort(String name, Object value) throws JMSException {
+      if ((value instanceof Short) || (value instanceof Byte)) {
+         return ((Number) value).shortValue();
+      }
+      if ((value == null) || (value instanceof String)) {
+         return Short.valueOf((String) value);
+      }
+      throw notConvertible(name, value, "short");
+   }
+
+   static int toInt(String name, Object value) throws JMSException {
+      if ((value instanceof Integer) || (value instanceof Short) || (value instanceof Byte)) {
+         return ((Number) value).intValue();
+      }
+      if ((value == null) || (value instanceof String)) {
+         return Integer.valueOf((String) value);
+      }
+      throw notConvertible(name, value, "int");
+   }
+
+   static long toLong(String name, Object value) throws JMSException {
+      if ((value instanceof Long) || (value instanceof Integer) || (value instanceof Short) || (value instanceof Byte)) {
+         return ((Number) value).longValue();
+      }
+      if ((value == null) || (value instanceof String)) {
+         return Long.valueOf((String) value);
+      }
+      throw notConvertible(name, value, "long");
+   }
+
+   static float toFloat(String name, Object value) throws JMSException {
+      if (value instanceof Float) {
+         return (Float) value;
+      }
+      if ((value == null) || (value instanceof String)) {
+         return Float.valueOf((String) value);
+      }
+      throw notConvertible(name, value, "float");
+   }
+
+   static double toDouble(String name, Object value) throws JMSException {
+      if ((value instanceof Double) || (value instanceof Float)) {
+         return ((Number) value).doubleValue();
+      }
+      if ((value == null) || (value instanceof String)) {
+         return Double.valueOf((String) value);
+      }
+      throw notConvertible(name, value, "double");
+   }
+
+   static MessageFormatException notConvertible(String name, Object value, String kind) {
+      return new MessageFormatException("'" + name + "' of type " + value.getClass().getSimpleName() + " can not be read as a "
+                                        + kind);
+   }
+
+   // ------------------------
+   // Payload
+   // ------------------------
+
+   @Override
+   public <T> T getBody(Class<T> c) throws JMSException {
+      throw new MessageFormatException("The payload of this message has not been loaded");
+   }
+
+   @Override
+   @SuppressWarnings("rawtypes")
+   public boolean isBodyAssignableTo(Class c) throws JMSException {
+      return false;
+   }
+
+   @Override
+   public void acknowledge() throws JMSException {
+      // Browsed messages are never acknowledged
+   }
+
+   // ------------------------
+   // Read only
+   // ------------------------
+
+   @Override
+   public void setJMSMessageID(String id) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setJMSTimestamp(long timestamp) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setJMSCorrelationIDAsBytes(byte[] correlationID) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setJMSCorrelationID(String correlationID) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setJMSReplyTo(Destination replyTo) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setJMSDestination(Destination destination) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setJMSDeliveryMode(int deliveryMode) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setJMSRedelivered(boolean redelivered) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setJMSType(String type) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setJMSExpiration(long expiration) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setJMSDeliveryTime(long deliveryTime) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setJMSPriority(int priority) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void clearProperties() throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setBooleanProperty(String name, boolean value) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setByteProperty(String name, byte value) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setShortProperty(String name, short value) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setIntProperty(String name, int value) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setLongProperty(String name, long value) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setFloatProperty(String name, float value) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setDoubleProperty(String name, double value) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setStringProperty(String name, String value) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void setObjectProperty(String name, Object value) throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+   @Override
+   public void clearBody() throws JMSException {
+      throw new MessageNotWriteableException(READ_ONLY);
+   }
+
+}
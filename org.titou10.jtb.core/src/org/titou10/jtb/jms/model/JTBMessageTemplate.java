@@ -115,7 +115,7 @@ public class JTBMessageTemplate implements Serializable {
    }
 
    public JTBMessageTemplate(JTBMessage jtbMessage) throws JMSException {
-      Message message = jtbMessage.getJmsMessage();
+      Message message = jtbMessage.getJmsMessageWithPayload();
 
       this.jtbMessageType = jtbMessage.getJtbMessageType();
       this.replyToDestinationName = jtbMessage.getReplyToDestinationName();
@@ -348,6 +348,30 @@ public class JTBMessageTemplate implements Serializable {
 
    }
 
+   // Copy of this template with another text payload, for templates used to build many messages
+   // The other parts (bytes, map, object payloads and properties) are shared with this template and must not be modified
+   public JTBMessageTemplate copyWithPayloadText(String payloadText) {
+      JTBMessageTemplate copy = new JTBMessageTemplate();
+      copy.jmsType = this.jmsType;
+      copy.jmsCorrelationID = this.jmsCorrelationID;
+      copy.jmsMessageID = this.jmsMessageID;
+      copy.jmsTimestamp = this.jmsTimestamp;
+      copy.jmsDeliveryTime = this.jmsDeliveryTime;
+      copy.jmsExpiration = this.jmsExpiration;
+      copy.deliveryMode = this.deliveryMode;
+      copy.priority = this.priority;
+      copy.timeToLive = this.timeToLive;
+      copy.deliveryDelay = this.deliveryDelay;
+      copy.jtbMessageType = this.jtbMessageType;
+      copy.replyToDestinationName = this.replyToDestinationName;
+      copy.payloadText = payloadText;
+      copy.payloadBytes = this.payloadBytes;
+      copy.payloadMap = this.payloadMap;
+      copy.payloadObject = this.payloadObject;
+      copy.jtbProperties = getJtbProperties();
+      return copy;
+   }
+
    public static JTBMessageTemplate deepClone(JTBMessageTemplate object) {
       try {
          ByteArrayOutputStream baos = new ByteArrayOutputStream();
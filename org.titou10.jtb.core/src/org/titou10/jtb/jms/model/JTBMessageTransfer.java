@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2015-2020 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.model;
+
+import java.util.Enumeration;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.QueueBrowser;
+import javax.jms.Session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * Bulk copy or move of the messages of a Queue to another destination, possibly from another session
+ *
+ * One producer is used for the whole transfer and sessions are committed every "batchSize" messages. When source and target
+ * share the same connection, a move receives and sends in the same transacted session and each batch is atomic. Across
+ * connections, the target is committed before the source: a failure between the two commits may duplicate messages but never
+ * loses any
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class JTBMessageTransfer {
+
+   private static final Logger  log                 = LoggerFactory.getLogger(JTBMessageTransfer.class);
+
+   private static final long    RECEIVE_MAX_WAIT    = 1 * 100L;                                             // ms
+
+   public enum TransferMode {
+                             COPY,
+                             MOVE
+   }
+
+   private final JTBQueue       sourceQueue;
+   private final JTBDestination targetDestination;
+   private final TransferMode   mode;
+   private final String         selector;
+   private final int            maxMessages;
+   private final int            batchSize;
+
+   private boolean              canceled;
+   private int                  nbCommitted;
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   public JTBMessageTransfer(JTBQueue sourceQueue,
+                             JTBDestination targetDestination,
+                             TransferMode mode,
+                             String selector,
+                             int maxMessages,
+                             int batchSize) {
+      this.sourceQueue = sourceQueue;
+      this.targetDestination = targetDestination;
+      this.mode = mode;
+      this.selector = selector == null || selector.trim().isEmpty() ? null : selector.trim();
+      this.maxMessages = maxMessages <= 0 ? Integer.MAX_VALUE : maxMessages;
+      this.batchSize = Math.max(1, batchSize);
+   }
+
+   // ------------------------
+   // Business Interface
+   // ------------------------
+
+   public TransferResult execute(JTBProgressListener listener) throws JMSException {
+      log.debug("execute {} from {} to {}. selector='{}' max={} batchSize={}",
+                mode,
+                sourceQueue,
+                targetDestination,
+                selector,
+                maxMessages,
+                batchSize);
+
+      JTBConnection sourceConnection = sourceQueue.getJtbConnection();
+      JTBConnection targetConnection = targetDestination.getJtbConnection();
+      boolean sameConnection = sourceConnection == targetConnection;
+
+      if (sameConnection && sourceQueue.getName().equals(targetDestination.getName())) {
+         throw new JMSException("Source and target destinations must be different");
+      }
+
+      long start = System.currentTimeMillis();
+      nbCommitted = 0;
+
+      Session sourceSession = sourceConnection.createTransactedWorkerSession();
+      Session targetSession = null;
+      try {
+         targetSession = sameConnection ? sourceSession : targetConnection.createTransactedWorkerSession();
+
+         try (MessageProducer producer = targetSession.createProducer(targetDestination.getJmsDestination());) {
+            if (mode == TransferMode.MOVE) {
+               move(sourceConnection, targetConnection, sourceSession, targetSession, producer, listener, start);
+            } else {
+               copy(targetConnection, sourceSession, targetSession, producer, listener, start);
+            }
+         }
+
+      } catch (JMSException e) {
+         log.error("Transfer failed after {} messages", nbCommitted, e);
+         rollback(targetSession);
+         if (!sameConnection) {
+            rollback(sourceSession);
+         }
+         throw e;
+      } finally {
+         close(sourceSession);
+         if (!sameConnection) {
+            close(targetSession);
+         }
+         if (mode == TransferMode.MOVE) {
+            sourceConnection.invalidatePayloadCache(sourceQueue);
+         }
+      }
+
+      TransferResult result = new TransferResult(nbCommitted, System.currentTimeMillis() - start, canceled);
+      log.info("{} from {} to {} done: {}", mode, sourceQueue, targetDestination, result);
+      return result;
+   }
+
+   // ------------------------
+   // Helpers
+   // ------------------------
+
+   private void move(JTBConnection sourceConnection,
+                    JTBConnection targetConnection,
+                    Session sourceSession,
+                    Session targetSession,
+                    MessageProducer producer,
+                    JTBProgressListener listener,
+                    long start) throws JMSException {
+      boolean sameSession = sourceSession == targetSession;
+      boolean manualAck = sourceConnection.getQm().manulAcknoledge();
+
+      int n = 0;
+      try (MessageConsumer consumer = sourceSession.createConsumer(sourceQueue.getJmsDestination(), selector);) {
+         while ((n < maxMessages) && (!isCanceled(listener))) {
+            Message message = consumer.receive(RECEIVE_MAX_WAIT); // Seems necessary for ActiveMQ instead of receiveNoWait()
+            if (message == null) {
+               break;
+            }
+            if (manualAck) {
+               message.acknowledge();
+            }
+            send(producer, sameSession ? message : targetConnection.cloneJMSMessage(targetSession, message));
+            n++;
+
+            if ((n % batchSize) == 0) {
+               targetSession.commit();
+               if (!sameSession) {
+                  sourceSession.commit();
+               }
+               progress(listener, n, start);
+            }
+         }
+      }
+
+      targetSession.commit();
+      if (!sameSession) {
+         sourceSession.commit();
+      }
+      progress(listener, n, start);
+   }
+
+   private void copy(JTBConnection targetConnection,
+                    Session sourceSession,
+                    Session targetSession,
+                    MessageProducer producer,
+                    JTBProgressListener listener,
+                    long start) throws JMSException {
+      int n = 0;
+      try (QueueBrowser browser = sourceSession.createBrowser(sourceQueue.getJmsQueue(), selector);) {
+         Enumeration<?> msgs = browser.getEnumeration();
+         while ((n < maxMessages) && (msgs.hasMoreElements()) && (!isCanceled(listener))) {
+            Message message = (Message) msgs.nextElement();
+            send(producer, targetConnection.cloneJMSMessage(targetSession, message));
+            n++;
+
+            if ((n % batchSize) == 0) {
+               targetSession.commit();
+               progress(listener, n, start);
+            }
+         }
+      }
+
+      targetSession.commit();
+      progress(listener, n, start);
+   }
+
+   // Keep the delivery mode, priority and remaining time to live of the original message
+   private void send(MessageProducer producer, Message message) throws JMSException {
+      long timeToLive = Message.DEFAULT_TIME_TO_LIVE;
+      long expiration = message.getJMSExpiration();
+      if (expiration > 0) {
+         timeToLive = Math.max(1, expiration - System.currentTimeMillis());
+      }
+      producer.send(message, message.getJMSDeliveryMode(), message.getJMSPriority(), timeToLive);
+   }
+
+   private boolean isCanceled(JTBProgressListener listener) {
+      if ((listener != null) && (listener.isCanceled())) {
+         canceled = true;
+      }
+      return canceled;
+   }
+
+   private void progress(JTBProgressListener listener, int n, long start) {
+      nbCommitted = n;
+      if (listener != null) {
+         listener.progress(n, System.currentTimeMillis() - start);
+      }
+   }
+
+   private void rollback(Session session) {
+      if (session == null) {
+         return;
+      }
+      try {
+         session.rollback();
+      } catch (JMSException e) {
+         log.warn("JMSException occurred when rolling back transfer session. Ignoring: {}", e.getMessage());
+      }
+   }
+
+   private void close(Session session) {
+      if (session == null) {
+         return;
+      }
+      try {
+         session.close();
+      } catch (JMSException e) {
+         log.warn("JMSException occurred when closing transfer session. Ignoring: {}", e.getMessage());
+      }
+   }
+
+   // ------------------------
+   // Result
+   // ------------------------
+
+   public static final class TransferResult {
+      private final int     nbMessages;
+      private final long    elapsedMs;
+      private final boolean canceled;
+
+      private TransferResult(int nbMessages, long elapsedMs, boolean canceled) {
+         this.nbMessages = nbMessages;
+         this.elapsedMs = elapsedMs;
+         this.canceled = canceled;
+      }
+
+      public static double getThroughput(int nbMessages, long elapsedMs) {
+         return elapsedMs == 0 ? nbMessages : nbMessages * 1000d / elapsedMs;
+      }
+
+      public double getThroughput() {
+         return getThroughput(nbMessages, elapsedMs);
+      }
+
+      public int getNbMessages() {
+         return nbMessages;
+      }
+
+      public long getElapsedMs() {
+         return elapsedMs;
+      }
+
+      public boolean isCanceled() {
+         return canceled;
+      }
+
+      @Override
+      public String toString() {
+         return String.format("%d messages in %d ms (%.1f msg/s)%s",
+                              nbMessages,
+                              elapsedMs,
+                              getThroughput(),
+                              canceled ? " (canceled)" : "");
+      }
+   }
+}
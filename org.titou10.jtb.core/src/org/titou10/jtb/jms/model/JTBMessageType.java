@@ -72,6 +72,9 @@ public enum JTBMessageType {
    }
 
    public static JTBMessageType fromJMSMessage(Message message) {
+      if (message instanceof JTBMessageProjection) {
+         return ((JTBMessageProjection) message).getJtbMessageType();
+      }
       if (message instanceof TextMessage) {
          return JTBMessageType.TEXT;
       }
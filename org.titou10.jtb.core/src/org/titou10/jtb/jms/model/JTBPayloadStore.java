@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2015-2020 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * Spill file holding the payloads of large messages kept in memory by a JTBConnection
+ *
+ * The file is split into append only segments of SEGMENT_SIZE bytes. Payloads are written once and read back with positional
+ * reads. A payload is released when its message is not displayed anymore, and a segment is deleted (or truncated if it is the
+ * one being written) as soon as all its payloads are released. No region of the files is memory mapped, so that they can be
+ * deleted at once, even on Windows. All the segments are deleted when the connection is closed
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class JTBPayloadStore {
+
+   private static final Logger log             = LoggerFactory.getLogger(JTBPayloadStore.class);
+
+   // Payloads smaller than this stay on the heap
+   public static final int     SPILL_THRESHOLD = 64 * 1024;
+
+   private static final long   SEGMENT_SIZE    = 64 * 1024 * 1024;
+
+   private final String        sessionName;
+
+   private final List<Segment> segments        = new ArrayList<>();
+   private Segment             current;
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   JTBPayloadStore(String sessionName) {
+      this.sessionName = sessionName;
+   }
+
+   // ------------------------
+   // Business Interface
+   // ------------------------
+
+   // Append a payload to the current segment and return its location
+   public synchronized Ref append(byte[] payload) throws IOException {
+      if ((current == null) || ((current.position > 0) && (current.position + payload.length > SEGMENT_SIZE))) {
+         Segment previous = current;
+         current = new Segment();
+         segments.add(current);
+         if ((previous != null) && (previous.nbRefs == 0)) {
+            delete(previous);
+         }
+      }
+
+      Ref ref = new Ref(current, current.position, payload.length);
+      ByteBuffer bb = ByteBuffer.wrap(payload);
+      while (bb.hasRemaining()) {
+         current.position += current.channel.write(bb, current.position);
+      }
+      current.nbRefs++;
+      return ref;
+   }
+
+   public synchronized byte[] readBytes(Ref ref) throws IOException {
+      FileChannel channel = ref.segment.channel;
+      if ((channel == null) || (ref.released)) {
+         throw new IOException("Payload is not available anymore in the spill file of session '" + sessionName + "'");
+      }
+      byte[] payload = new byte[ref.length];
+      ByteBuffer bb = ByteBuffer.wrap(payload);
+      while (bb.hasRemaining()) {
+         if (channel.read(bb, ref.offset + bb.position()) < 0) {
+            throw new IOException("Spill file of session '" + sessionName + "' is truncated");
+         }
+      }
+      return payload;
+   }
+
+   // The payload will not be read anymore. Free its segment if it was the last one used in it
+   public synchronized void release(Ref ref) {
+      if (ref.released) {
+         return;
+      }
+      ref.released = true;
+
+      Segment segment = ref.segment;
+      if ((segment.channel == null) || (--segment.nbRefs > 0)) {
+         return;
+      }
+      if (segment != current) {
+         delete(segment);
+         return;
+      }
+      try {
+         segment.channel.truncate(0);
+         segment.position = 0;
+      } catch (IOException e) {
+         log.warn("IOException occurred when truncating spill file. Ignoring: {}", e.getMessage());
+      }
+   }
+
+   public synchronized void close() {
+      for (Segment segment : new ArrayList<>(segments)) {
+         delete(segment);
+      }
+      current = null;
+   }
+
+   // ------------------------
+   // Helpers
+   // ------------------------
+
+   private void delete(Segment segment) {
+      log.debug("Deleting spill file {} of session '{}'", segment.file, sessionName);
+      segments.remove(segment);
+      try {
+         segment.channel.close();
+      } catch (IOException e) {
+         log.warn("IOException occurred when closing spill file. Ignoring: {}", e.getMessage());
+      }
+      segment.channel = null;
+      if (!segment.file.delete()) {
+         log.warn("Spill file {} could not be deleted", segment.file);
+      }
+   }
+
+   // ------------------------
+   // Segment of the spill file
+   // ------------------------
+
+   private final class Segment {
+      private final File  file;
+      private FileChannel channel;
+      private long        position;
+      private int         nbRefs;
+
+      private Segment() throws IOException {
+         this.file = File.createTempFile("jmstoolbox_payloads_", ".spill");
+         this.file.deleteOnExit();
+         this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+         log.debug("Spill file for session '{}' : {}", sessionName, file);
+      }
+   }
+
+   // ------------------------
+   // Location of a payload
+   // ------------------------
+
+   public static final class Ref {
+      private final Segment segment;
+      private final long    offset;
+      private final int     length;
+      private boolean       released;
+
+      private Ref(Segment segment, long offset, int length) {
+         this.segment = segment;
+         this.offset = offset;
+         this.length = length;
+      }
+
+      public int getLength() {
+         return length;
+      }
+   }
+}
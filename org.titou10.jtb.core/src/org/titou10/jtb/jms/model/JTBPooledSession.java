@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.model;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * Transacted JMS session leased from a JTBSessionPool, with the producers and reply-to destinations created on it
+ *
+ * Only the thread that borrowed it may use it. Work that has not been committed when the session is given back is rolled back
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class JTBPooledSession implements AutoCloseable {
+
+   private static final Logger                        log                        = LoggerFactory.getLogger(JTBPooledSession.class);
+
+   private static final int                           PRODUCER_CACHE_SIZE        = 16;
+
+   private final JTBSessionPool                       pool;
+   private final Session                              session;
+
+   // Producers and reply-to destinations reused by send()
+   private final Map<JTBDestination, MessageProducer> producers                  = new ProducerCache();
+   private final Set<MessageProducer>                 producersWithDeliveryDelay = new HashSet<>();
+   private final Map<String, Destination>             replyToDestinations        = new HashMap<>();
+
+   private boolean                                    committed;
+   private boolean                                    broken;
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   JTBPooledSession(JTBSessionPool pool, Session session) {
+      this.pool = pool;
+      this.session = session;
+   }
+
+   // ------------------------
+   // Business Interface
+   // ------------------------
+
+   public Session getSession() {
+      return session;
+   }
+
+   public void commit() throws JMSException {
+      try {
+         session.commit();
+         committed = true;
+      } catch (JMSException e) {
+         broken = true;
+         throw e;
+      }
+   }
+
+   public void send(JTBDestination jtbDestination,
+                    Message m,
+                    int deliveryMode,
+                    int priority,
+                    long timeToLive,
+                    Long deliveryDelay) throws JMSException {
+      MessageProducer p = getProducer(jtbDestination);
+      try {
+         // The producer is reused: reset the delivery delay set by a previous message
+         if (deliveryDelay != null) {
+            try {
+               p.setDeliveryDelay(deliveryDelay);
+               producersWithDeliveryDelay.add(p);
+            } catch (Throwable t) {
+               log.warn("JMS 2.0 feature 'setDeliveryDelay' failed. ignoring. Msg: {}", t.getMessage());
+            }
+         } else {
+            if (producersWithDeliveryDelay.remove(p)) {
+               p.setDeliveryDelay(Message.DEFAULT_DELIVERY_DELAY);
+            }
+         }
+
+         p.send(m, deliveryMode, priority, timeToLive);
+         committed = false;
+      } catch (JMSException e) {
+         // Do not reuse a producer that may be in a bad state
+         closeProducer(jtbDestination);
+         throw e;
+      }
+   }
+
+   public Destination getReplyToDestination(String replyToDestinationName) throws JMSException {
+      Destination replyToDest = replyToDestinations.get(replyToDestinationName);
+      if (replyToDest == null) {
+         replyToDest = session.createQueue(replyToDestinationName);
+         replyToDestinations.put(replyToDestinationName, replyToDest);
+      }
+      return replyToDest;
+   }
+
+   // Give the session back to the pool
+   @Override
+   public void close() {
+      if (!committed && !broken) {
+         try {
+            session.rollback();
+         } catch (JMSException e) {
+            log.warn("JMSException occurred when rolling back pooled session. Discarding it: {}", e.getMessage());
+            broken = true;
+         }
+      }
+      pool.release(this, !broken);
+   }
+
+   // ------------------------
+   // Helpers
+   // ------------------------
+
+   void leased() {
+      committed = false;
+   }
+
+   boolean isFrom(JTBSessionPool pool) {
+      return this.pool == pool;
+   }
+
+   void closeSession() {
+      producers.clear();
+      try {
+         session.close();
+      } catch (JMSException e) {
+         log.warn("JMSException occurred when closing pooled session. Ignoring: {}", e.getMessage());
+      }
+   }
+
+   private MessageProducer getProducer(JTBDestination jtbDestination) throws JMSException {
+      MessageProducer p = producers.get(jtbDestination);
+      if (p == null) {
+         log.debug("createProducer for {}", jtbDestination);
+         p = session.createProducer(jtbDestination.getJmsDestination());
+         producers.put(jtbDestination, p);
+      }
+      return p;
+   }
+
+   private void closeProducer(JTBDestination jtbDestination) {
+      MessageProducer p = producers.remove(jtbDestination);
+      if (p != null) {
+         producersWithDeliveryDelay.remove(p);
+         closeProducer(p);
+      }
+   }
+
+   private static void closeProducer(MessageProducer p) {
+      try {
+         p.close();
+      } catch (JMSException e) {
+         log.warn("JMSException occurred when closing producer. Ignoring: {}", e.getMessage());
+      }
+   }
+
+   // LRU cache of the producers used to send messages. The least recently used producer is closed when the cache is full
+   private final class ProducerCache extends LinkedHashMap<JTBDestination, MessageProducer> {
+      private static final long serialVersionUID = 1L;
+
+      ProducerCache() {
+         super(PRODUCER_CACHE_SIZE, 0.75f, true);
+      }
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<JTBDestination, MessageProducer> eldest) {
+         if (size() > PRODUCER_CACHE_SIZE) {
+            log.debug("Closing producer for {}", eldest.getKey());
+            producersWithDeliveryDelay.remove(eldest.getValue());
+            closeProducer(eldest.getValue());
+            return true;
+         }
+         return false;
+      }
+   }
+}
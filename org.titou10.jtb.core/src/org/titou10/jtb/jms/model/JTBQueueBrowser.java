@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2015-2020 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.model;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+import javax.jms.JMSException;
+import javax.jms.MapMessage;
+import javax.jms.Message;
+import javax.jms.QueueBrowser;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * Incremental browsing of a Queue. The JMS QueueBrowser enumeration stays open and messages are read page by page
+ *
+ * The browser owns its JMS session and must be used and closed by a single thread
+ *
+ * @author Denis Forveille
+ *
+ */
+public class JTBQueueBrowser implements AutoCloseable {
+
+   private static final Logger log = LoggerFactory.getLogger(JTBQueueBrowser.class);
+
+   private final JTBQueue       jtbQueue;
+   private final String         payloadSearchText;
+
+   private final Session        session;
+   private final QueueBrowser   browser;
+   private final Enumeration<?> msgs;
+
+   private int                  nbRead;
+   private int                  nbKept;
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   JTBQueueBrowser(Session session, JTBQueue jtbQueue, String payloadSearchText, String selectorsSearchText) throws JMSException {
+      this.session = session;
+      this.jtbQueue = jtbQueue;
+      this.payloadSearchText = payloadSearchText == null ? "" : payloadSearchText;
+
+      try {
+         this.browser = session.createBrowser(jtbQueue.getJmsQueue(), selectorsSearchText);
+         this.msgs = browser.getEnumeration();
+      } catch (JMSException e) {
+         session.close();
+         throw e;
+      }
+   }
+
+   // ------------------------
+   // Business Interface
+   // ------------------------
+
+   // Return up to "max" messages matching the payload filter. An empty list means the end of the queue has been reached
+   public List<JTBMessage> nextPage(int max) throws JMSException {
+      List<JTBMessage> jtbMessages = new ArrayList<>(Math.min(256, max));
+      while ((jtbMessages.size() < max) && (msgs.hasMoreElements())) {
+         Message message = (Message) msgs.nextElement();
+         nbRead++;
+         if (payloadContains(message, payloadSearchText)) {
+            jtbMessages.add(new JTBMessage(jtbQueue, message, false));
+         }
+      }
+      nbKept += jtbMessages.size();
+      log.debug("nextPage {} : {} messages kept, {} read so far", jtbQueue, nbKept, nbRead);
+      return jtbMessages;
+   }
+
+   // Next message matching the payload filter, with its payload. null when the end of the queue has been reached
+   public JTBMessage next() throws JMSException {
+      while (msgs.hasMoreElements()) {
+         Message message = (Message) msgs.nextElement();
+         nbRead++;
+         if (payloadContains(message, payloadSearchText)) {
+            nbKept++;
+            return new JTBMessage(jtbQueue, message);
+         }
+      }
+      return null;
+   }
+
+   public boolean hasMoreMessages() {
+      return msgs.hasMoreElements();
+   }
+
+   @Override
+   public void close() {
+      log.debug("close browser on {}. {} messages read", jtbQueue, nbRead);
+      try {
+         browser.close();
+      } catch (JMSException e) {
+         log.warn("JMSException occurred when closing browser. Ignoring: {}", e.getMessage());
+      }
+      try {
+         session.close();
+      } catch (JMSException e) {
+         log.warn("JMSException occurred when closing browser session. Ignoring: {}", e.getMessage());
+      }
+   }
+
+   // ------------------------
+   // Helpers
+   // ------------------------
+
+   // Search on text payload of Text Messages and on "values" of Map Messages content
+   static boolean payloadContains(Message message, String payloadSearchText) throws JMSException {
+
+      // No filter on payload, keep all messages
+      if (payloadSearchText.isEmpty()) {
+         return true;
+      }
+
+      if (message instanceof TextMessage) {
+         String text = ((TextMessage) message).getText();
+         return (text != null) && (text.contains(payloadSearchText));
+      }
+
+      if (message instanceof MapMessage) {
+         MapMessage mm = (MapMessage) message;
+         Enumeration<?> mapNames = mm.getMapNames();
+         while (mapNames.hasMoreElements()) {
+            Object value = mm.getObject((String) mapNames.nextElement());
+            if ((value != null) && (value.toString().contains(payloadSearchText))) {
+               return true;
+            }
+         }
+      }
+
+      return false;
+   }
+
+   // ------------------------
+   // Standard Getters/Setters
+   // ------------------------
+
+   public JTBQueue getJtbQueue() {
+      return jtbQueue;
+   }
+
+   public int getNbRead() {
+      return nbRead;
+   }
+
+}
@@ -62,7 +62,7 @@ public class JTBSession implements JTBObject, Comparable<JTBSession> {
    // ----------------------------
    // Manage Connections
    // ----------------------------
-   public JTBConnection getJTBConnection(JTBSessionClientType jtbSessionClientType) {
+   public synchronized JTBConnection getJTBConnection(JTBSessionClientType jtbSessionClientType) {
       JTBConnection jtbConnection = jtbConnections.get(jtbSessionClientType);
       if (jtbConnection == null) {
          jtbConnection = new JTBConnection(ps,
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Queue;
+import javax.jms.Session;
+import javax.jms.Topic;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * Pool of transacted JMS sessions of a JTBConnection
+ *
+ * JMS sessions are single threaded. Each operation borrows a session, uses it from one thread only and gives it back by
+ * closing it. Sessions are created lazily, up to the size of the pool. An extra session, only used under a lock, creates the
+ * messages and the destinations
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class JTBSessionPool {
+
+   private static final Logger           log             = LoggerFactory.getLogger(JTBSessionPool.class);
+
+   private static final long             BORROW_MAX_WAIT = 30 * 1000L;                                    // 30 seconds
+
+   private final String                  sessionName;
+   private final Connection              jmsConnection;
+   private final int                     maxSize;
+
+   private final Semaphore               available;
+   private final Deque<JTBPooledSession> idle            = new ArrayDeque<>();
+   private final Session                 factorySession;
+
+   private int                           nbCreated;
+   private boolean                       closed;
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   JTBSessionPool(String sessionName, Connection jmsConnection, int maxSize) throws JMSException {
+      this.sessionName = sessionName;
+      this.jmsConnection = jmsConnection;
+      this.maxSize = Math.max(1, maxSize);
+      this.available = new Semaphore(this.maxSize, true);
+      this.factorySession = jmsConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+   }
+
+   // ------------------------
+   // Business Interface
+   // ------------------------
+
+   // Lease a session to the calling thread. It must be given back by calling close() on it
+   public JTBPooledSession borrow() throws JMSException {
+      try {
+         if (!available.tryAcquire(BORROW_MAX_WAIT, TimeUnit.MILLISECONDS)) {
+            throw new JMSException("No JMS session available for '" + sessionName + "' within " + BORROW_MAX_WAIT + "ms. The "
+                                   + maxSize + " sessions of the pool are in use");
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new JMSException("Interrupted while waiting for a JMS session for '" + sessionName + "'");
+      }
+
+      JTBPooledSession pooledSession;
+      synchronized (idle) {
+         if (closed) {
+            available.release();
+            throw new JMSException("Connection '" + sessionName + "' is closed");
+         }
+         pooledSession = idle.pollFirst();
+      }
+
+      if (pooledSession == null) {
+         try {
+            pooledSession = new JTBPooledSession(this, jmsConnection.createSession(true, Session.SESSION_TRANSACTED));
+         } catch (JMSException e) {
+            available.release();
+            throw e;
+         }
+         synchronized (idle) {
+            nbCreated++;
+            log.debug("New JMS session for '{}'. {} sessions created", sessionName, nbCreated);
+         }
+      }
+
+      pooledSession.leased();
+      return pooledSession;
+   }
+
+   public Message createMessage(JTBMessageType jtbMessageType) throws JMSException {
+      synchronized (factorySession) {
+         switch (jtbMessageType) {
+            case TEXT:
+               return factorySession.createTextMessage();
+
+            case BYTES:
+               return factorySession.createBytesMessage();
+
+            case MESSAGE:
+               return factorySession.createMessage();
+
+            case MAP:
+               return factorySession.createMapMessage();
+
+            case OBJECT:
+               return factorySession.createObjectMessage();
+
+            case STREAM:
+               return factorySession.createStreamMessage();
+         }
+         return null; // Impossible
+      }
+   }
+
+   public Queue createQueue(String queueName) throws JMSException {
+      synchronized (factorySession) {
+         return factorySession.createQueue(queueName);
+      }
+   }
+
+   public Topic createTopic(String topicName) throws JMSException {
+      synchronized (factorySession) {
+         return factorySession.createTopic(topicName);
+      }
+   }
+
+   public int getMaxSize() {
+      return maxSize;
+   }
+
+   // ------------------------
+   // Helpers
+   // ------------------------
+
+   // Called by JTBPooledSession.close()
+   void release(JTBPooledSession pooledSession, boolean reusable) {
+      synchronized (idle) {
+         if (reusable && !closed) {
+            idle.addFirst(pooledSession);
+         } else {
+            nbCreated--;
+            pooledSession.closeSession();
+         }
+      }
+      available.release();
+   }
+
+   // The sessions are closed with the JMS connection
+   void close() {
+      synchronized (idle) {
+         log.debug("Closing session pool of '{}'. {} sessions created", sessionName, nbCreated);
+         closed = true;
+         idle.clear();
+         nbCreated = 0;
+      }
+   }
+}
@@ -10,6 +10,7 @@
  * <http://www.gnu.org/licenses/>. */
 package org.titou10.jtb.jms.qm;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -77,6 +78,25 @@ public abstract class QManager implements JTBObject, Comparable<QManager> {
       return null;
    }
 
+   // Depths of many queues at once. Queues with an unknown depth are absent from the map
+   // Q Managers that can read all depths with one admin request should override it along with supportsBulkQueueDepths()
+   public Map<String, Integer> getQueueDepths(Connection jmsConnection, Collection<String> queueNames) {
+      Map<String, Integer> depths = new HashMap<>(queueNames.size());
+      for (String queueName : queueNames) {
+         Integer depth = getQueueDepth(jmsConnection, queueName);
+         if (depth != null) {
+            depths.put(queueName, depth);
+         }
+      }
+      return depths;
+   }
+
+   // Remove all the messages of a queue with a single admin request to the server
+   // Returns false if the Q Manager can not do it, in which case the messages are consumed by JMSToolBox
+   public boolean purgeQueue(Connection jmsConnection, String queueName) throws Exception {
+      return false;
+   }
+
    public Map<String, Object> getQueueInformation(Connection jmsConnection, String queueName) {
       return Collections.emptyMap();
    }
@@ -100,6 +120,17 @@ public abstract class QManager implements JTBObject, Comparable<QManager> {
       return false;
    }
 
+   // getQueueDepths() is implemented natively with a single request to the server
+   public boolean supportsBulkQueueDepths() {
+      return false;
+   }
+
+   // getQueueDepth() can be called by many threads at the same time on the same connection
+   // Q Managers that share a non thread-safe admin session or requestor per connection must return false
+   public boolean supportsConcurrentQueueDepths() {
+      return false;
+   }
+
    // UniversalMessaging shows JMSMessagesID with the "ID:" prefix but does not store it internally
    // It has to be removed for selectors
    public boolean mustRemoveIDFromJMSMessageID() {
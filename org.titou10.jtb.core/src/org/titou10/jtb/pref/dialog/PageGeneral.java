@@ -69,7 +69,10 @@ final class PageGeneral extends PreferencePage {
    private Button              trustAllCertificates;
    private Button              clearScriptLogsOnExecution;
    private Spinner             spinnerMaxMessagesTopic;
+   private Spinner             spinnerQDepthNbThreads;
+   private Spinner             spinnerTransferBatchSize;
    private Text                textConnectionClientId;
+   private Spinner             spinnerSessionPoolSize;
    private Spinner             spinnerXMLindent;
    private Button              synchronizeSessionBrowser;
    private Combo               comboMessageTabDisplay;
@@ -162,15 +165,42 @@ final class PageGeneral extends PreferencePage {
       comboCS.setLabelProvider(LabelProvider.createTextProvider(element -> ((ColumnsSet) element).getName()));
       comboCS.setInput(csManager.getColumnsSets());
 
+      Label lbl17 = new Label(gBrowser, SWT.LEFT);
+      lbl17.setText("Commit bulk copies/moves of messages every");
+      lbl17.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false, 1, 1));
+      spinnerTransferBatchSize = new Spinner(gBrowser, SWT.BORDER);
+      spinnerTransferBatchSize.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, false, false, 1, 1));
+      spinnerTransferBatchSize.setMinimum(1);
+      spinnerTransferBatchSize.setMaximum(99999);
+      spinnerTransferBatchSize.setIncrement(1);
+      spinnerTransferBatchSize.setPageIncrement(100);
+      spinnerTransferBatchSize.setTextLimit(5);
+      Label lbl18 = new Label(gBrowser, SWT.LEFT);
+      lbl18.setText("messages");
+
       // Queue Depth Browser
 
       Group qQDepth = new Group(composite, SWT.SHADOW_ETCHED_IN);
       qQDepth.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, true, false, 1, 1));
       qQDepth.setText("Queue depth browsers");
-      qQDepth.setLayout(new GridLayout(1, false));
+      qQDepth.setLayout(new GridLayout(3, false));
 
       showNonBrowsableQueue = new Button(qQDepth, SWT.CHECK);
       showNonBrowsableQueue.setText("Show 'non browsable' queues in the 'Queue depth' browser");
+      showNonBrowsableQueue.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, true, false, 3, 1));
+
+      Label lbl15 = new Label(qQDepth, SWT.LEFT);
+      lbl15.setText("Collect queue depths with");
+      lbl15.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false, 1, 1));
+      spinnerQDepthNbThreads = new Spinner(qQDepth, SWT.BORDER);
+      spinnerQDepthNbThreads.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, false, false, 1, 1));
+      spinnerQDepthNbThreads.setMinimum(1);
+      spinnerQDepthNbThreads.setMaximum(64);
+      spinnerQDepthNbThreads.setIncrement(1);
+      spinnerQDepthNbThreads.setPageIncrement(4);
+      spinnerQDepthNbThreads.setTextLimit(2);
+      Label lbl16 = new Label(qQDepth, SWT.LEFT);
+      lbl16.setText("parallel requests (Default value for new sessions)");
 
       // Message Viewer
 
@@ -236,6 +266,16 @@ final class PageGeneral extends PreferencePage {
       textConnectionClientId = new Text(gConnection, SWT.BORDER);
       textConnectionClientId.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 1, 1));
 
+      Label lbl19 = new Label(gConnection, SWT.LEFT);
+      lbl19.setText("Max number of parallel JMS sessions per connection: ");
+      spinnerSessionPoolSize = new Spinner(gConnection, SWT.BORDER);
+      spinnerSessionPoolSize.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 1, 1));
+      spinnerSessionPoolSize.setMinimum(1);
+      spinnerSessionPoolSize.setMaximum(64);
+      spinnerSessionPoolSize.setIncrement(1);
+      spinnerSessionPoolSize.setPageIncrement(4);
+      spinnerSessionPoolSize.setTextLimit(2);
+
       trustAllCertificates = new Button(gConnection, SWT.CHECK);
       trustAllCertificates.setText("Trust all server certificates. Do not check/validate servers certificate authenticity !!!");
       trustAllCertificates.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1));
@@ -250,7 +290,10 @@ final class PageGeneral extends PreferencePage {
       trustAllCertificates.setSelection(ps.getBoolean(Constants.PREF_TRUST_ALL_CERTIFICATES));
       clearScriptLogsOnExecution.setSelection(ps.getBoolean(Constants.PREF_CLEAR_LOGS_EXECUTION));
       spinnerMaxMessagesTopic.setSelection(ps.getInt(Constants.PREF_MAX_MESSAGES_TOPIC));
+      spinnerQDepthNbThreads.setSelection(ps.getInt(Constants.PREF_Q_DEPTH_NB_THREADS));
+      spinnerTransferBatchSize.setSelection(ps.getInt(Constants.PREF_TRANSFER_BATCH_SIZE));
       textConnectionClientId.setText(ps.getString(Constants.PREF_CONN_CLIENT_ID_PREFIX));
+      spinnerSessionPoolSize.setSelection(ps.getInt(Constants.PREF_SESSION_POOL_SIZE));
       spinnerXMLindent.setSelection(ps.getInt(Constants.PREF_XML_INDENT));
       synchronizeSessionBrowser.setSelection(ps.getBoolean(Constants.PREF_SYNCHRONIZE_SESSIONS_MESSAGES));
 
@@ -304,7 +347,10 @@ final class PageGeneral extends PreferencePage {
       trustAllCertificates.setSelection(ps.getDefaultBoolean(Constants.PREF_TRUST_ALL_CERTIFICATES));
       clearScriptLogsOnExecution.setSelection(ps.getDefaultBoolean(Constants.PREF_CLEAR_LOGS_EXECUTION));
       spinnerMaxMessagesTopic.setSelection(ps.getDefaultInt(Constants.PREF_MAX_MESSAGES_TOPIC));
+      spinnerQDepthNbThreads.setSelection(ps.getDefaultInt(Constants.PREF_Q_DEPTH_NB_THREADS));
+      spinnerTransferBatchSize.setSelection(ps.getDefaultInt(Constants.PREF_TRANSFER_BATCH_SIZE));
       textConnectionClientId.setText(ps.getDefaultString(Constants.PREF_CONN_CLIENT_ID_PREFIX));
+      spinnerSessionPoolSize.setSelection(ps.getDefaultInt(Constants.PREF_SESSION_POOL_SIZE));
       spinnerXMLindent.setSelection(ps.getDefaultInt(Constants.PREF_XML_INDENT));
       synchronizeSessionBrowser.setSelection(ps.getDefaultBoolean(Constants.PREF_SYNCHRONIZE_SESSIONS_MESSAGES));
 
@@ -334,7 +380,10 @@ final class PageGeneral extends PreferencePage {
       ps.setValue(Constants.PREF_TRUST_ALL_CERTIFICATES, trustAllCertificates.getSelection());
       ps.setValue(Constants.PREF_CLEAR_LOGS_EXECUTION, clearScriptLogsOnExecution.getSelection());
       ps.setValue(Constants.PREF_MAX_MESSAGES_TOPIC, spinnerMaxMessagesTopic.getSelection());
+      ps.setValue(Constants.PREF_Q_DEPTH_NB_THREADS, spinnerQDepthNbThreads.getSelection());
+      ps.setValue(Constants.PREF_TRANSFER_BATCH_SIZE, spinnerTransferBatchSize.getSelection());
       ps.setValue(Constants.PREF_CONN_CLIENT_ID_PREFIX, textConnectionClientId.getText());
+      ps.setValue(Constants.PREF_SESSION_POOL_SIZE, spinnerSessionPoolSize.getSelection());
       ps.setValue(Constants.PREF_XML_INDENT, spinnerXMLindent.getSelection());
       ps.setValue(Constants.PREF_SYNCHRONIZE_SESSIONS_MESSAGES, synchronizeSessionBrowser.getSelection());
 
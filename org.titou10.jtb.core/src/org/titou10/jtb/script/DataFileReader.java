@@ -0,0 +1,344 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.script;
+
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * Reads the lines of a script data file in one pass
+ *
+ * Values are separated by a delimiter of one or more characters and may be quoted as per RFC-4180: a value starting with a double
+ * quote ends with the next single double quote, may contain delimiters and line breaks, and "" stands for a double quote. Lines end
+ * with CR, LF or CRLF. The position in the file (in bytes) is available for progress reporting
+ *
+ * With "readAhead", lines are parsed by a separate thread while the previous ones are posted
+ *
+ * @author Denis Forveille
+ *
+ */
+final class DataFileReader implements AutoCloseable {
+
+   private static final Logger       log              = LoggerFactory.getLogger(DataFileReader.class);
+
+   private static final int          BUFFER_SIZE      = 64 * 1024;
+   private static final int          READ_AHEAD_LINES = 1024;
+   private static final long         END_WAIT         = 100L;                                          // ms
+   private static final char         QUOTE            = '"';
+
+   private static final Line         END              = new Line(null, 0);
+
+   private final String              fileName;
+   private final char[]              delimiter;
+   private final long                size;
+
+   private final CountingInputStream cis;
+   private final Reader              reader;
+   private final char[]              buffer           = new char[BUFFER_SIZE];
+   private final StringBuilder       value            = new StringBuilder(256);
+   private int                       bufferPos;
+   private int                       bufferLen;
+   private int                       nbValues         = 8;
+
+   private final BlockingQueue<Line> lines;
+   private final Thread              readAheadThread;
+   private volatile Throwable        failure;
+   private volatile boolean          closed;
+
+   private long                      position;
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   DataFileReader(String fileName, Charset charset, String delimiter, boolean readAhead) throws IOException {
+      this.fileName = fileName;
+      this.delimiter = delimiter == null ? new char[0] : delimiter.toCharArray();
+      this.size = Files.size(Paths.get(fileName));
+      this.cis = new CountingInputStream(new FileInputStream(fileName));
+      this.reader = new InputStreamReader(cis, charset);
+
+      if (readAhead) {
+         lines = new ArrayBlockingQueue<>(READ_AHEAD_LINES);
+         readAheadThread = new Thread(this::readAhead, "JTB Data File Reader - " + fileName);
+         readAheadThread.setDaemon(true);
+         readAheadThread.start();
+      } else {
+         lines = null;
+         readAheadThread = null;
+      }
+   }
+
+   // ------------------------
+   // Business Interface
+   // ------------------------
+
+   // Values of the next line, null at the end of the file
+   String[] next() throws IOException {
+      if (lines == null) {
+         String[] values = parseLine();
+         position = cis.getCount();
+         return values;
+      }
+
+      Line line;
+      try {
+         line = lines.take();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new IOException("Interrupted while reading data file '" + fileName + "'", e);
+      }
+      if (line == END) {
+         lines.offer(END); // Subsequent calls also return null
+         Throwable t = failure;
+         if (t != null) {
+            throw t instanceof IOException ? (IOException) t : new IOException(t);
+         }
+         return null;
+      }
+      position = line.position;
+      return line.values;
+   }
+
+   // Number of bytes of the file read so far. Slightly ahead of the last line returned, because of buffering
+   long getPosition() {
+      return position;
+   }
+
+   long getSize() {
+      return size;
+   }
+
+   @Override
+   public void close() {
+      closed = true;
+      if (readAheadThread != null) {
+         readAheadThread.interrupt();
+      }
+      try {
+         reader.close();
+      } catch (IOException e) {
+         log.warn("IOException occurred when closing data file '{}'. Ignoring: {}", fileName, e.getMessage());
+      }
+   }
+
+   // ------------------------
+   // Helpers
+   // ------------------------
+
+   private void readAhead() {
+      try {
+         String[] values;
+         while ((!closed) && ((values = parseLine()) != null)) {
+            lines.put(new Line(values, cis.getCount()));
+         }
+      } catch (InterruptedException e) {
+         // Closed
+      } catch (Throwable t) {
+         if (!closed) {
+            log.error("Exception occurred while reading data file '{}'", fileName, t);
+            failure = t;
+         }
+      } finally {
+         putEnd();
+      }
+   }
+
+   // The queue may be full: wait for the consumer to make room for END, unless the reader is closed
+   private void putEnd() {
+      try {
+         while (!closed) {
+            if (lines.offer(END, END_WAIT, TimeUnit.MILLISECONDS)) {
+               return;
+            }
+         }
+      } catch (InterruptedException e) {
+         // Closed
+      }
+   }
+
+   private String[] parseLine() throws IOException {
+      int c = read();
+      if (c < 0) {
+         return null;
+      }
+
+      List<String> values = new ArrayList<>(nbValues);
+      value.setLength(0);
+      boolean quoted = false;
+      boolean valueStart = true;
+
+      while (c >= 0) {
+         if (quoted) {
+            if (c == QUOTE) {
+               if (peek(0) == QUOTE) {
+                  bufferPos++;
+                  value.append(QUOTE);
+               } else {
+                  quoted = false;
+               }
+            } else {
+               value.append((char) c);
+            }
+
+         } else
+            if ((valueStart) && (c == QUOTE)) {
+               quoted = true;
+
+            } else
+               if (c == '\n') {
+                  break;
+
+               } else
+                  if (c == '\r') {
+                     if (peek(0) == '\n') {
+                        bufferPos++;
+                     }
+                     break;
+
+                  } else
+                     if (isDelimiter(c)) {
+                        bufferPos += delimiter.length - 1;
+                        values.add(value.toString());
+                        value.setLength(0);
+                        valueStart = true;
+                        c = read();
+                        continue;
+
+                     } else {
+                        value.append((char) c);
+                     }
+
+         valueStart = false;
+         c = read();
+      }
+
+      values.add(value.toString());
+      nbValues = values.size();
+      return values.toArray(new String[values.size()]);
+   }
+
+   private boolean isDelimiter(int c) throws IOException {
+      if ((delimiter.length == 0) || (c != delimiter[0])) {
+         return false;
+      }
+      for (int i = 1; i < delimiter.length; i++) {
+         if (peek(i - 1) != delimiter[i]) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private int read() throws IOException {
+      if ((bufferPos >= bufferLen) && (!fill(1))) {
+         return -1;
+      }
+      return buffer[bufferPos++];
+   }
+
+   // Character at "offset" after the current position, without consuming it
+   private int peek(int offset) throws IOException {
+      if ((bufferPos + offset >= bufferLen) && (!fill(offset + 1))) {
+         return -1;
+      }
+      return buffer[bufferPos + offset];
+   }
+
+   // Make sure that at least "n" characters are available in the buffer
+   private boolean fill(int n) throws IOException {
+      int remaining = bufferLen - bufferPos;
+      System.arraycopy(buffer, bufferPos, buffer, 0, remaining);
+      bufferPos = 0;
+      bufferLen = remaining;
+      while (bufferLen < n) {
+         int nb = reader.read(buffer, bufferLen, buffer.length - bufferLen);
+         if (nb < 0) {
+            return false;
+         }
+         bufferLen += nb;
+      }
+      return true;
+   }
+
+   // ------------------------
+   // Helper Classes
+   // ------------------------
+
+   private static final class Line {
+      private final String[] values;
+      private final long     position;
+
+      private Line(String[] values, long position) {
+         this.values = values;
+         this.position = position;
+      }
+   }
+
+   private static final class CountingInputStream extends FilterInputStream {
+      private volatile long count;
+
+      private CountingInputStream(InputStream in) {
+         super(in);
+      }
+
+      @Override
+      public int read() throws IOException {
+         int b = super.read();
+         if (b >= 0) {
+            count++;
+         }
+         return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         int nb = super.read(b, off, len);
+         if (nb > 0) {
+            count += nb;
+         }
+         return nb;
+      }
+
+      @Override
+      public long skip(long n) throws IOException {
+         long nb = super.skip(n);
+         count += nb;
+         return nb;
+      }
+
+      private long getCount() {
+         return count;
+      }
+   }
+}
@@ -22,6 +22,7 @@ import java.util.List;
 import org.titou10.jtb.jms.model.JTBConnection;
 import org.titou10.jtb.jms.model.JTBDestination;
 import org.titou10.jtb.jms.model.JTBMessageTemplate;
+import org.titou10.jtb.jms.model.JTBQueue;
 import org.titou10.jtb.script.gen.DataFile;
 import org.titou10.jtb.script.gen.Step;
 import org.titou10.jtb.script.gen.StepKind;
@@ -33,6 +34,10 @@ import org.titou10.jtb.script.gen.StepKind;
  *
  */
 public class RuntimeStep {
+
+   public static final int    DEFAULT_REPLY_TIMEOUT_MS = 30000;
+   public static final int    DEFAULT_MAX_IN_FLIGHT    = 100;
+
    private Step               step;
 
    private JTBMessageTemplate jtbMessageTemplate;
@@ -45,6 +50,12 @@ public class RuntimeStep {
 
    private String             templateName;
 
+   private ScriptPacer        pacer;
+   private ScriptStepMetrics  metrics;
+   private ScriptRequestReply requestReply;
+   private JTBQueue           replyToQueue;
+   private ScriptConsumer     consumer;
+
    // -----------
    // Constructor
    // -----------
@@ -60,7 +71,23 @@ public class RuntimeStep {
    public String toString() {
       StringBuilder sb = new StringBuilder(256);
 
-      if (step.getKind() == StepKind.REGULAR) {
+      if (step.getKind() == StepKind.CONSUME) {
+         sb.append("Consume from ");
+         sb.append(step.getDestinationName());
+         sb.append(" -> ");
+         sb.append(step.getSessionName());
+         if (step.getSelector() != null) {
+            sb.append(". Selector: '");
+            sb.append(step.getSelector());
+            sb.append("'");
+         }
+         if (isBackground()) {
+            sb.append(". In background");
+         }
+         return sb.toString();
+      }
+
+      if (step.getKind() != StepKind.PAUSE) {
          sb.append("[");
          sb.append(step.getTemplateDirectory());
          sb.append("::");
@@ -77,6 +104,10 @@ public class RuntimeStep {
             sb.append(step.getPayloadDirectory());
             sb.append("'");
          }
+         if (isRequestReply()) {
+            sb.append(". Replies on ");
+            sb.append(step.getReplyToDestinationName() == null ? "a temporary queue" : step.getReplyToDestinationName());
+         }
       } else {
          sb.append("Pause for");
          sb.append(step.getPauseSecsAfter());
@@ -98,6 +129,109 @@ public class RuntimeStep {
       return step;
    }
 
+   ScriptPacer getPacer() {
+      return pacer;
+   }
+
+   void setPacer(ScriptPacer pacer) {
+      this.pacer = pacer;
+   }
+
+   ScriptStepMetrics getMetrics() {
+      return metrics;
+   }
+
+   void setMetrics(ScriptStepMetrics metrics) {
+      this.metrics = metrics;
+   }
+
+   ScriptRequestReply getRequestReply() {
+      return requestReply;
+   }
+
+   void setRequestReply(ScriptRequestReply requestReply) {
+      this.requestReply = requestReply;
+   }
+
+   // null when the replies are read from a temporary queue
+   JTBQueue getReplyToQueue() {
+      return replyToQueue;
+   }
+
+   void setReplyToQueue(JTBQueue replyToQueue) {
+      this.replyToQueue = replyToQueue;
+   }
+
+   ScriptConsumer getConsumer() {
+      return consumer;
+   }
+
+   void setConsumer(ScriptConsumer consumer) {
+      this.consumer = consumer;
+   }
+
+   // Messages are requests, the step waits for their replies
+   public boolean isRequestReply() {
+      return step.getKind() == StepKind.REQUEST_REPLY;
+   }
+
+   public int getReplyTimeoutMs() {
+      Integer replyTimeoutMs = step.getReplyTimeoutMs();
+      return replyTimeoutMs == null ? DEFAULT_REPLY_TIMEOUT_MS : Math.max(1, replyTimeoutMs);
+   }
+
+   // Maximum number of requests waiting for their reply
+   public int getMaxInFlight() {
+      Integer maxInFlight = step.getMaxInFlight();
+      return maxInFlight == null ? DEFAULT_MAX_IN_FLIGHT : Math.max(1, maxInFlight);
+   }
+
+   // Messages are received from the destination of the step
+   public boolean isConsume() {
+      return step.getKind() == StepKind.CONSUME;
+   }
+
+   // Number of messages committed or acknowledged at once by the consumers
+   public int getConsumeBatchSize() {
+      Integer consumeBatchSize = step.getConsumeBatchSize();
+      return consumeBatchSize == null ? 1 : Math.max(1, consumeBatchSize);
+   }
+
+   // Maximum duration of the consumption in seconds, 0 for no limit
+   public int getConsumeDurationSecs() {
+      Integer consumeDurationSecs = step.getConsumeDurationSecs();
+      return consumeDurationSecs == null ? 0 : Math.max(0, consumeDurationSecs);
+   }
+
+   public boolean isTransacted() {
+      Boolean transacted = step.isTransacted();
+      return transacted == null ? false : transacted;
+   }
+
+   // The consumers run while the next steps are executed
+   public boolean isBackground() {
+      Boolean background = step.isBackground();
+      return background == null ? false : background;
+   }
+
+   // Number of threads posting the iterations of the step in parallel
+   public int getNbWorkers() {
+      Integer workers = step.getWorkers();
+      return workers == null ? 1 : Math.max(1, workers);
+   }
+
+   // Target rate in messages per second, 0 for as fast as possible
+   public int getTargetRate() {
+      Integer targetRate = step.getTargetRate();
+      return targetRate == null ? 0 : Math.max(0, targetRate);
+   }
+
+   // Lines of the data file or payload files are posted in order, unless explicitly unordered
+   public boolean isOrderedDataFile() {
+      Boolean ordered = step.isOrderedDataFile();
+      return ordered == null ? true : ordered;
+   }
+
    public String[] getVarNames() {
       return varNames;
    }
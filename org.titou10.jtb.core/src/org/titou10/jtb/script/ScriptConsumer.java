@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.script;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.jms.model.JTBConnection;
+import org.titou10.jtb.jms.model.JTBDestination;
+
+/**
+ *
+ * Consumers of a "Consume" step
+ *
+ * Each consumer receives with its own JMS session and thread, and commits (transacted) or acknowledges (client acknowledge) the
+ * messages by batches. The consumers are created by the constructor so that they are registered before the next steps post
+ * their messages, even on topics. The end-to-end latency of each message, from its JMSTimestamp, is recorded in the metrics of
+ * the step
+ *
+ * @author Denis Forveille
+ *
+ */
+final class ScriptConsumer implements AutoCloseable {
+
+   private static final Logger     log              = LoggerFactory.getLogger(ScriptConsumer.class);
+
+   private static final long       RECEIVE_MAX_WAIT = 100;       // ms
+   private static final long       MAX_WAIT_STOP    = 30 * 1000; // ms
+
+   private final String            name;
+   private final ScriptStepMetrics metrics;
+   private final boolean           transacted;
+   private final boolean           manualAck;
+   private final int               batchSize;
+   private final long              deadlineNanos;
+
+   private final List<Session>     sessions;
+   private final List<Thread>      threads;
+
+   // Number of messages still to consume, Integer.MAX_VALUE for no limit
+   private final AtomicInteger     nbRemaining;
+   private final AtomicInteger     nbConsumed       = new AtomicInteger();
+
+   private final long              startNanos;
+   private volatile long           endNanos;
+   private volatile boolean        stopped;
+   private volatile JMSException   failure;
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   // Stop after "maxMessages" messages (0 for no limit) or after "durationSecs" seconds (0 for no limit)
+   ScriptConsumer(String name,
+                  JTBConnection jtbConnection,
+                  JTBDestination jtbDestination,
+                  String selector,
+                  int nbConsumers,
+                  int maxMessages,
+                  int durationSecs,
+                  int batchSize,
+                  boolean transacted,
+                  ScriptStepMetrics metrics) throws JMSException {
+      this.name = name;
+      this.metrics = metrics;
+      this.transacted = transacted;
+      this.manualAck = jtbConnection.getQm().manulAcknoledge();
+      this.batchSize = batchSize;
+      this.nbRemaining = new AtomicInteger(maxMessages <= 0 ? Integer.MAX_VALUE : maxMessages);
+
+      this.sessions = new ArrayList<>(nbConsumers);
+      this.threads = new ArrayList<>(nbConsumers);
+      try {
+         for (int i = 0; i < nbConsumers; i++) {
+            Session session = transacted ? jtbConnection.createTransactedWorkerSession()
+                     : jtbConnection.createClientAckWorkerSession();
+            sessions.add(session);
+            MessageConsumer consumer = session.createConsumer(jtbDestination.getJmsDestination(), selector);
+
+            Thread t = new Thread(() -> run(session, consumer), "JTB Script Consumer " + (i + 1) + " - " + name);
+            t.setDaemon(true);
+            threads.add(t);
+         }
+      } catch (JMSException e) {
+         closeSessions();
+         throw e;
+      }
+
+      this.startNanos = System.nanoTime();
+      this.deadlineNanos = durationSecs <= 0 ? Long.MAX_VALUE : startNanos + TimeUnit.SECONDS.toNanos(durationSecs);
+      log.debug("Starting {} consumers for '{}'", nbConsumers, name);
+      threads.forEach(Thread::start);
+   }
+
+   // ------------------------
+   // Business Interface
+   // ------------------------
+
+   // Wait for the consumers to reach the number of messages or the duration of the step
+   void await(IProgressMonitor monitor) throws JMSException, InterruptedException {
+      for (Thread t : threads) {
+         while (t.isAlive()) {
+            t.join(RECEIVE_MAX_WAIT);
+            if (monitor.isCanceled()) {
+               stop();
+               throw new InterruptedException();
+            }
+         }
+      }
+      if (failure != null) {
+         throw failure;
+      }
+   }
+
+   // Same, for at most maxWaitMs. Return false if some consumers are still running. Failures are only logged
+   boolean await(IProgressMonitor monitor, long maxWaitMs) throws InterruptedException {
+      long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+      for (Thread t : threads) {
+         while (t.isAlive()) {
+            if ((monitor.isCanceled()) || (System.nanoTime() - deadlineNanos > 0)) {
+               return false;
+            }
+            t.join(RECEIVE_MAX_WAIT);
+         }
+      }
+      return true;
+   }
+
+   @Override
+   public void close() {
+      stop();
+      closeSessions();
+      log.info("Consume step {}: {} messages in {} ms", name, nbConsumed, getElapsedMs());
+   }
+
+   int getNbConsumed() {
+      return nbConsumed.get();
+   }
+
+   long getElapsedMs() {
+      long end = endNanos == 0 ? System.nanoTime() : endNanos;
+      return TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+   }
+
+   // ------------------------
+   // Helpers
+   // ------------------------
+
+   private void run(Session session, MessageConsumer consumer) {
+      int nbPending = 0;
+      Message last = null;
+      try {
+         while ((!stopped) && (System.nanoTime() < deadlineNanos)) {
+
+            // Reserve the message before receiving it, so that no more than the expected number of messages are consumed
+            if (nbRemaining.getAndDecrement() <= 0) {
+               break;
+            }
+            Message message = consumer.receive(RECEIVE_MAX_WAIT); // Seems necessary for ActiveMQ instead of receiveNoWait()
+            if (message == null) {
+               nbRemaining.incrementAndGet();
+               continue;
+            }
+
+            long now = System.nanoTime();
+            long timestamp = message.getJMSTimestamp();
+            if (timestamp > 0) {
+               metrics.recordLatency(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis() - timestamp), now);
+            } else {
+               metrics.recordLatency(0, now);
+            }
+
+            if (transacted && manualAck) {
+               message.acknowledge();
+            }
+            last = message;
+            if (++nbPending == batchSize) {
+               acknowledge(session, last);
+               nbPending = 0;
+            }
+            nbConsumed.incrementAndGet();
+         }
+         if (nbPending > 0) {
+            acknowledge(session, last);
+         }
+      } catch (JMSException e) {
+         log.error("JMSException occurred in consumer", e);
+         metrics.error();
+         failure = e;
+         stopped = true;
+      } finally {
+         endNanos = System.nanoTime();
+         try {
+            consumer.close();
+         } catch (JMSException e) {
+            log.warn("JMSException occurred when closing consumer. Ignoring: {}", e.getMessage());
+         }
+      }
+   }
+
+   // In client acknowledge mode, acknowledging a message acknowledges all the messages previously received by the session
+   private void acknowledge(Session session, Message message) throws JMSException {
+      if (transacted) {
+         session.commit();
+      } else {
+         message.acknowledge();
+      }
+   }
+
+   private void stop() {
+      stopped = true;
+      for (Thread t : threads) {
+         try {
+            t.join(MAX_WAIT_STOP);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+         }
+         if (t.isAlive()) {
+            log.warn("Consumer {} did not stop within {} ms", t.getName(), MAX_WAIT_STOP);
+         }
+      }
+   }
+
+   private void closeSessions() {
+      for (Session session : sessions) {
+         try {
+            session.close();
+         } catch (JMSException e) {
+            log.warn("JMSException occurred when closing consumer session. Ignoring: {}", e.getMessage());
+         }
+      }
+   }
+}
@@ -16,16 +16,14 @@
  */
 package org.titou10.jtb.script;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,7 +31,6 @@ import java.util.Map.Entry;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.regex.Pattern;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -70,6 +67,7 @@ import org.titou10.jtb.template.TemplatesManager;
 import org.titou10.jtb.template.TemplatesManager.TemplateNameStructure;
 import org.titou10.jtb.util.Constants;
 import org.titou10.jtb.util.Utils;
+import org.titou10.jtb.variable.CompiledTemplate;
 import org.titou10.jtb.variable.VariablesManager;
 import org.titou10.jtb.variable.gen.Variable;
 
@@ -83,30 +81,39 @@ import org.titou10.jtb.variable.gen.Variable;
 @Singleton
 public class ScriptExecutionEngine {
 
-   private static final Logger log                     = LoggerFactory.getLogger(ScriptExecutionEngine.class);
+   private static final Logger   log                     = LoggerFactory.getLogger(ScriptExecutionEngine.class);
 
-   private static final String VARIABLE_NAME_SEPARATOR = ",";
-   private static final String MAX_MESSAGES_REACHED    = "MAX_MESSAGES_REACHED";
-   private static final int    NB_TICKS_VALIDATION     = 7;
-   private static final int    NB_TICKS_PER_STEP       = 100000;
+   private static final String   VARIABLE_NAME_SEPARATOR = ",";
+   private static final String   MAX_MESSAGES_REACHED    = "MAX_MESSAGES_REACHED";
+   private static final int      NB_TICKS_VALIDATION     = 7;
+   private static final int      NB_TICKS_PER_STEP       = 100000;
+   private static final int      COMMIT_BATCH_SIZE       = 100;
+   private static final long     MAX_WAIT_END            = 30 * 1000; // ms
 
    @Inject
-   private IEventBroker        eventBroker;
+   private IEventBroker          eventBroker;
 
    @Inject
-   private ConfigManager       cm;
+   private ConfigManager         cm;
 
    @Inject
-   private JTBPreferenceStore  ps;
+   private JTBPreferenceStore    ps;
 
    @Inject
-   private TemplatesManager    templatesManager;
+   private TemplatesManager      templatesManager;
 
    @Inject
-   private VariablesManager    variablesManager;
+   private VariablesManager      variablesManager;
 
    @Inject
-   private ScriptsManager      scriptsManager;
+   private ScriptsManager        scriptsManager;
+
+   // Metrics of the last script executed from the UI
+   private ScriptExecutionReport lastReport;
+
+   // Lines of the execution log are displayed asynchronously by the UI
+   private ScriptExecutionLog    executionLog            = new ScriptExecutionLog(() -> eventBroker
+            .post(Constants.EVENT_REFRESH_EXECUTION_LOG, "X"));
 
    public void executeScript(Script script, final boolean simulation, boolean doShowPostLogs, int nbMessagesMax) {
       log.debug("executeScript '{}'. simulation? {}", script.getName(), simulation);
@@ -121,6 +128,7 @@ public class ScriptExecutionEngine {
                                                                  script);
 
       ProgressMonitorDialog progressDialog = new ProgressMonitorDialogPrimaryModal(Display.getCurrent().getActiveShell());
+      ScriptExecutionReport report = mirp.getReport();
 
       try {
 
@@ -146,9 +154,27 @@ public class ScriptExecutionEngine {
                                .createValidationExceptionFail(ExectionActionCode.SCRIPT, "An unexpected problem occured", t));
          }
       }
+
+      // Show the metrics of the steps at the end of the run
+      report.setNbMessages(mirp.getNbMessagePost());
+      for (ScriptStepMetrics metrics : report.getSteps()) {
+         log.info("Metrics of step {}", metrics);
+         updateLog(doShowPostLogs, ScriptStepResult.createStepMetrics(metrics));
+      }
+      lastReport = report;
+   }
+
+   public ScriptExecutionReport getLastReport() {
+      return lastReport;
+   }
+
+   public ScriptExecutionLog getExecutionLog() {
+      return executionLog;
    }
 
-   public int executeScriptNoUI(String scriptName, final boolean simulation, int nbMessagesMax) throws Exception {
+   public ScriptExecutionReport executeScriptNoUI(String scriptName,
+                                                  final boolean simulation,
+                                                  int nbMessagesMax) throws Exception {
       log.info("executeScriptNoUI scriptName '{}' simulation? {} nbMessagesMax {}", scriptName, simulation, nbMessagesMax);
 
       int msgMax = nbMessagesMax == 0 ? Integer.MAX_VALUE : nbMessagesMax;
@@ -162,8 +188,17 @@ public class ScriptExecutionEngine {
 
       // Execute Script
       AtomicInteger nbMessagePost = new AtomicInteger(0);
-      executeScriptInBackground(new NullProgressMonitor(), simulation, false, msgMax, nbMessagePost, script);
-      return nbMessagePost.get();
+      ScriptExecutionReport report = new ScriptExecutionReport(script.getName());
+      try {
+         executeScriptInBackground(new NullProgressMonitor(), simulation, false, msgMax, nbMessagePost, report, script);
+      } catch (InterruptedException e) {
+         if (!MAX_MESSAGES_REACHED.equals(e.getMessage())) {
+            throw e;
+         }
+         log.info("Max messages reached");
+      }
+      report.setNbMessages(nbMessagePost.get());
+      return report;
    }
 
    // -------
@@ -175,6 +210,7 @@ public class ScriptExecutionEngine {
                                           boolean doShowPostLogs,
                                           int nbMessagesMax,
                                           AtomicInteger nbMessagePost,
+                                          ScriptExecutionReport report,
                                           Script script) throws InterruptedException, InvocationTargetException,
                                                          ScriptValidationException {
       log.debug("executeScriptInBackground '{}'. simulation? {}", script.getName(), simulation);
@@ -210,57 +246,164 @@ public class ScriptExecutionEngine {
          subMonitorExecution.setTaskName("Executing Script...");
       }
 
-      for (RuntimeStep runtimeStep : runtimeSteps) {
+      // Consumers running while the next steps are executed
+      List<RuntimeStep> backgroundSteps = new ArrayList<>();
+      boolean maxMessagesReached = false;
+      try {
+         for (RuntimeStep runtimeStep : runtimeSteps) {
 
-         subMonitorExecution.setWorkRemaining(nbTicksExecution);
-         nbTicksExecution -= NB_TICKS_PER_STEP;
-         subMonitorExecution.subTask(runtimeStep.toString());
+            subMonitorExecution.setWorkRemaining(nbTicksExecution);
+            nbTicksExecution -= NB_TICKS_PER_STEP;
+            subMonitorExecution.subTask(runtimeStep.toString());
 
-         Step step = runtimeStep.getStep();
+            Step step = runtimeStep.getStep();
+
+            switch (step.getKind()) {
+               case PAUSE:
+
+                  updateLog(doShowPostLogs, ScriptStepResult.createPauseStart(step.getPauseSecsAfter()));
+                  executePause(subMonitorExecution, simulation, runtimeStep);
+                  updateLog(doShowPostLogs, ScriptStepResult.createPauseSuccess());
+                  break;
+
+               case REGULAR:
+               case REQUEST_REPLY:
 
-         switch (step.getKind()) {
-            case PAUSE:
+                  updateLog(doShowPostLogs,
+                            ScriptStepResult.createStepStart(runtimeStep.getTemplateName(),
+                                                             runtimeStep.getJtbDestination().getName()));
 
-               updateLog(doShowPostLogs, ScriptStepResult.createPauseStart(step.getPauseSecsAfter()));
-               executePause(subMonitorExecution, simulation, runtimeStep);
-               updateLog(doShowPostLogs, ScriptStepResult.createPauseSuccess());
-               break;
+                  // Parse the template to replace variables names by global variables values
+                  JTBMessageTemplate t = runtimeStep.getJtbMessageTemplate();
+                  t.setPayloadText(variablesManager.replaceDataFileVariables(globalVariablesValues, t.getPayloadText()));
 
-            case REGULAR:
+                  // Send latencies and errors are recorded for each step, except in simulation mode
+                  runtimeStep.setMetrics(simulation ? null : report.addStep(runtimeStep.toString()));
 
-               updateLog(doShowPostLogs,
-                         ScriptStepResult.createStepStart(runtimeStep.getTemplateName(),
-                                                          runtimeStep.getJtbDestination().getName()));
+                  try {
 
-               // Parse the template to replace variables names by global variables values
-               JTBMessageTemplate t = runtimeStep.getJtbMessageTemplate();
-               String payload = t.getPayloadText();
-               if (payload != null) {
-                  for (Entry<String, String> v : globalVariablesValues.entrySet()) {
-                     payload = payload.replaceAll(variablesManager.buildVariableReplaceName(v.getKey()), v.getValue());
+                     executeRegular(subMonitorExecution, simulation, doShowPostLogs, nbMessagesMax, nbMessagePost, runtimeStep);
+
+                     updateLog(doShowPostLogs, ScriptStepResult.createStepSuccess());
+
+                  } catch (JMSException | IOException e) {
+                     log.error("Exception occurred during step execution ", e);
+                     updateLog(doShowPostLogs, ScriptStepResult.createStepFail(runtimeStep.getJtbDestination().getName(), e));
+                     throw new InvocationTargetException(e);
                   }
-                  t.setPayloadText(payload);
-               }
+                  break;
 
-               try {
+               case CONSUME:
 
-                  executeRegular(subMonitorExecution, simulation, doShowPostLogs, nbMessagesMax, nbMessagePost, runtimeStep);
+                  updateLog(doShowPostLogs,
+                            ScriptStepResult.createConsumeStart(runtimeStep.getJtbDestination().getName(),
+                                                                runtimeStep.isBackground()));
 
-                  updateLog(doShowPostLogs, ScriptStepResult.createStepSuccess());
+                  // Receive latencies and errors are recorded for each step, except in simulation mode
+                  runtimeStep.setMetrics(simulation ? null : report.addStep(runtimeStep.toString()));
 
-               } catch (JMSException | IOException e) {
-                  log.error("Exception occurred during step execution ", e);
-                  updateLog(doShowPostLogs, ScriptStepResult.createStepFail(runtimeStep.getJtbDestination().getName(), e));
-                  throw new InvocationTargetException(e);
-               }
-               break;
+                  try {
+
+                     executeConsume(subMonitorExecution, simulation, doShowPostLogs, runtimeStep, backgroundSteps);
+
+                  } catch (JMSException e) {
+                     log.error("Exception occurred during step execution ", e);
+                     updateLog(doShowPostLogs, ScriptStepResult.createStepFail(runtimeStep.getJtbDestination().getName(), e));
+                     throw new InvocationTargetException(e);
+                  }
+                  break;
+
+               default:
+                  break;
+            }
+         }
 
-            default:
-               break;
+         // Wait for the consumers running in background
+         for (RuntimeStep runtimeStep : backgroundSteps) {
+            subMonitorExecution.subTask(runtimeStep.toString());
+            try {
+               awaitConsume(subMonitorExecution, doShowPostLogs, runtimeStep);
+            } catch (JMSException e) {
+               log.error("Exception occurred during step execution ", e);
+               updateLog(doShowPostLogs, ScriptStepResult.createStepFail(runtimeStep.getJtbDestination().getName(), e));
+               throw new InvocationTargetException(e);
+            }
+         }
+
+      } catch (InterruptedException e) {
+         maxMessagesReached = MAX_MESSAGES_REACHED.equals(e.getMessage());
+         throw e;
+      } finally {
+         // The consumers still receive the messages already posted, all within the same limit
+         long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_WAIT_END);
+         for (RuntimeStep runtimeStep : backgroundSteps) {
+            ScriptConsumer consumer = runtimeStep.getConsumer();
+            if (consumer != null) {
+               runtimeStep.setConsumer(null);
+               if (maxMessagesReached) {
+                  long maxWaitMs = Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+                  awaitConsumer(subMonitorExecution, consumer, maxWaitMs);
+               }
+               consumer.close();
+               if (maxMessagesReached) {
+                  updateLog(doShowPostLogs,
+                            ScriptStepResult.createConsumeResult(runtimeStep.getJtbDestination().getName(),
+                                                                 consumer.getNbConsumed(),
+                                                                 consumer.getElapsedMs()));
+               }
+            }
          }
       }
    }
 
+   private void executeConsume(SubMonitor subMonitor,
+                               boolean simulation,
+                               boolean doShowPostLogs,
+                               RuntimeStep runtimeStep,
+                               List<RuntimeStep> backgroundSteps) throws JMSException, InterruptedException {
+      log.debug("executeConsume. Simulation? {}", simulation);
+
+      if (simulation) {
+         subMonitor.worked(NB_TICKS_PER_STEP);
+         return;
+      }
+
+      // The consumers are registered before the next steps are executed
+      Step step = runtimeStep.getStep();
+      runtimeStep.setConsumer(new ScriptConsumer(runtimeStep.toString(),
+                                                 runtimeStep.getJtbConnection(),
+                                                 runtimeStep.getJtbDestination(),
+                                                 step.getSelector(),
+                                                 runtimeStep.getNbWorkers(),
+                                                 step.getIterations(),
+                                                 runtimeStep.getConsumeDurationSecs(),
+                                                 runtimeStep.getConsumeBatchSize(),
+                                                 runtimeStep.isTransacted(),
+                                                 runtimeStep.getMetrics()));
+      if (runtimeStep.isBackground()) {
+         backgroundSteps.add(runtimeStep);
+      } else {
+         awaitConsume(subMonitor, doShowPostLogs, runtimeStep);
+      }
+      subMonitor.worked(NB_TICKS_PER_STEP);
+   }
+
+   private void awaitConsume(SubMonitor subMonitor, boolean doShowPostLogs, RuntimeStep runtimeStep) throws JMSException,
+                                                                                                  InterruptedException {
+      ScriptConsumer consumer = runtimeStep.getConsumer();
+      try {
+         consumer.await(subMonitor);
+      } finally {
+         runtimeStep.setConsumer(null);
+         consumer.close();
+         updateLog(doShowPostLogs,
+                   ScriptStepResult.createConsumeResult(runtimeStep.getJtbDestination().getName(),
+                                                        consumer.getNbConsumed(),
+                                                        consumer.getElapsedMs()));
+      }
+      updateLog(doShowPostLogs, ScriptStepResult.createStepSuccess());
+   }
+
    private void executeRegular(SubMonitor subMonitor,
                                boolean simulation,
                                boolean doShowPostLogs,
@@ -273,22 +416,115 @@ public class ScriptExecutionEngine {
 
       JTBMessageTemplate jtbMessageTemplate = runtimeStep.getJtbMessageTemplate();
 
+      // The template is shared by the messages of the step, and by the workers. Convert old style properties once
+      jtbMessageTemplate.getJtbProperties();
+
       DataFile dataFile = runtimeStep.getDataFile();
       List<File> payloadFiles = runtimeStep.getPayloadFiles();
       String templateName = runtimeStep.getTemplateName();
 
+      // Messages are paced and posted in parallel by workers, not in simulation mode
+      if ((!simulation) && (runtimeStep.getTargetRate() > 0)) {
+         runtimeStep.setPacer(createPacer(runtimeStep, nbMessagesMax - nbMessagePost.get()));
+      }
+      ScriptStepWorkers workers = simulation ? null : createWorkers(subMonitor, runtimeStep);
+      boolean maxMessagesReached = false;
+      try {
+
+         // Requests are sent without waiting for their reply. Replies are read by a listener
+         if ((!simulation) && (runtimeStep.isRequestReply())) {
+            runtimeStep.setRequestReply(new ScriptRequestReply(runtimeStep.getJtbConnection(),
+                                                               runtimeStep.getReplyToQueue(),
+                                                               runtimeStep.getMaxInFlight(),
+                                                               runtimeStep.getReplyTimeoutMs(),
+                                                               runtimeStep.getMetrics()));
+         }
+
+         executeRegular1(subMonitor,
+                         workers,
+                         simulation,
+                         doShowPostLogs,
+                         nbMessagesMax,
+                         nbMessagePost,
+                         runtimeStep,
+                         jtbMessageTemplate,
+                         templateName,
+                         dataFile,
+                         payloadFiles,
+                         dataFileVariables);
+         if (workers != null) {
+            workers.finish();
+         }
+         if (runtimeStep.getRequestReply() != null) {
+            runtimeStep.getRequestReply().awaitReplies(subMonitor);
+         }
+      } catch (InterruptedException e) {
+         maxMessagesReached = MAX_MESSAGES_REACHED.equals(e.getMessage());
+         throw e;
+      } finally {
+         if (workers != null) {
+            workers.close();
+         }
+         ScriptRequestReply requestReply = runtimeStep.getRequestReply();
+         if (requestReply != null) {
+            runtimeStep.setRequestReply(null);
+            // The requests already sent still get their reply or their timeout, within a limit
+            if (maxMessagesReached) {
+               awaitReplies(subMonitor, requestReply);
+            }
+            requestReply.close();
+            updateLog(doShowPostLogs, ScriptStepResult.createStepReplies(requestReply.getNbReplies(), requestReply.getNbTimeouts()));
+         }
+         ScriptPacer pacer = runtimeStep.getPacer();
+         if (pacer != null) {
+            runtimeStep.setPacer(null);
+            log.info("Step {}: {} messages at {} msg/s. Target: {} msg/s. Max lag: {} ms",
+                     runtimeStep,
+                     pacer.getNbAcquired(),
+                     pacer.getAchievedRate(),
+                     pacer.getTargetRate(),
+                     pacer.getMaxLagMs());
+            updateLog(doShowPostLogs,
+                      ScriptStepResult.createStepRate(pacer.getNbAcquired(),
+                                                      pacer.getAchievedRate(),
+                                                      pacer.getTargetRate(),
+                                                      pacer.getMaxLagMs()));
+         }
+      }
+   }
+
+   private void executeRegular1(SubMonitor subMonitor,
+                                ScriptStepWorkers workers,
+                                boolean simulation,
+                                boolean doShowPostLogs,
+                                int nbMessagesMax,
+                                AtomicInteger nbMessagePost,
+                                RuntimeStep runtimeStep,
+                                JTBMessageTemplate jtbMessageTemplate,
+                                String templateName,
+                                DataFile dataFile,
+                                List<File> payloadFiles,
+                                Map<String, String> dataFileVariables) throws JMSException, InterruptedException, IOException {
+
+      // The payload is parsed once per template/payload file and rendered for each message
+      CompiledTemplate payload;
+
       if (dataFile == null) {
          if (payloadFiles == null) {
-            executeRegular2(subMonitor,
-                            NB_TICKS_PER_STEP,
-                            simulation,
-                            doShowPostLogs,
-                            nbMessagesMax,
-                            nbMessagePost,
-                            runtimeStep,
-                            jtbMessageTemplate,
-                            templateName,
-                            dataFileVariables);
+            payload = variablesManager.compileTemplate(jtbMessageTemplate.getPayloadText(), Collections.emptySet());
+            executeUnit(subMonitor,
+                        workers,
+                        false,
+                        NB_TICKS_PER_STEP,
+                        simulation,
+                        doShowPostLogs,
+                        nbMessagesMax,
+                        nbMessagePost,
+                        runtimeStep,
+                        jtbMessageTemplate,
+                        payload,
+                        templateName,
+                        dataFileVariables);
             return;
          }
 
@@ -296,60 +532,53 @@ public class ScriptExecutionEngine {
          int nbTicks = NB_TICKS_PER_STEP / payloadFiles.size();
          log.debug("nbFiles: {} nbTicksPerFile: {}", payloadFiles.size(), nbTicks);
          for (File file : payloadFiles) {
+            // The template may still be used by messages of the previous file
+            JTBMessageTemplate fileTemplate = jtbMessageTemplate.copyWithPayloadText(jtbMessageTemplate.getPayloadText());
             switch (jtbMessageTemplate.getJtbMessageType()) {
                case TEXT:
-                  jtbMessageTemplate.setPayloadText(new String(Files.readAllBytes(file.toPath())));
+                  fileTemplate.setPayloadText(new String(Files.readAllBytes(file.toPath())));
                   break;
 
                case BYTES:
-                  jtbMessageTemplate.setPayloadBytes(Files.readAllBytes(file.toPath()));
+                  fileTemplate.setPayloadBytes(Files.readAllBytes(file.toPath()));
                   break;
 
                default:
                   break;
             }
-            executeRegular2(subMonitor,
-                            nbTicks,
-                            simulation,
-                            doShowPostLogs,
-                            nbMessagesMax,
-                            nbMessagePost,
-                            runtimeStep,
-                            jtbMessageTemplate,
-                            templateName,
-                            dataFileVariables);
+            payload = variablesManager.compileTemplate(fileTemplate.getPayloadText(), Collections.emptySet());
+            executeUnit(subMonitor,
+                        workers,
+                        true,
+                        nbTicks,
+                        simulation,
+                        doShowPostLogs,
+                        nbMessagesMax,
+                        nbMessagePost,
+                        runtimeStep,
+                        fileTemplate,
+                        payload,
+                        templateName,
+                        dataFileVariables);
          }
          return;
       }
 
       // DataFile is present, load the lines..
       String[] varNames = runtimeStep.getVarNames();
+      Charset charset = getCharset(dataFile);
 
-      Charset charset;
-      // DF may be null because the charset property is new in v4.0
-      if ((dataFile.getCharset() == null) || (dataFile.getCharset().startsWith(Constants.CHARSET_DEFAULT_PREFIX))) {
-         charset = Charset.defaultCharset();
-      } else {
-         // TODO DF: may fail is charset does not exist
-         charset = Charset.forName(dataFile.getCharset());
-      }
-
-      // Count nbOfLines for progressMonitor
-      int nbLines = 0;
-      try (BufferedReader reader = new BufferedReader(new FileReader(dataFile.getFileName()));) {
-         while (reader.readLine() != null)
-            nbLines++;
-      }
-      int nbTicks = nbLines > NB_TICKS_PER_STEP ? 1 : NB_TICKS_PER_STEP / nbLines;
-      log.debug("nbLines: {} nbTicksPerLine: {}", nbLines, nbTicks);
+      payload = variablesManager.compileTemplate(jtbMessageTemplate.getPayloadText(), Arrays.asList(varNames));
 
-      try (BufferedReader reader = Files.newBufferedReader(Paths.get(dataFile.getFileName()), charset);) {
-         String line = null;
-         while ((line = reader.readLine()) != null) {
+      // Lines are parsed in a read-ahead thread. Progress is based on the position in the file
+      int nbTicksDone = 0;
+      try (DataFileReader reader = new DataFileReader(dataFile.getFileName(), charset, dataFile.getDelimiter(), true);) {
+         log.debug("Data file size: {} bytes", reader.getSize());
+         String[] values;
+         while ((values = reader.next()) != null) {
             dataFileVariables.clear();
 
-            // Parse and setup line Variables
-            String[] values = line.split(Pattern.quote(dataFile.getDelimiter()));
+            // Setup line Variables
             String value;
             for (int i = 0; i < varNames.length; i++) {
                String varName = varNames[i];
@@ -362,64 +591,123 @@ public class ScriptExecutionEngine {
             }
 
             // Execute Step
-            executeRegular2(subMonitor,
-                            nbTicks,
-                            simulation,
-                            doShowPostLogs,
-                            nbMessagesMax,
-                            nbMessagePost,
-                            runtimeStep,
-                            jtbMessageTemplate,
-                            templateName,
-                            dataFileVariables);
+            executeUnit(subMonitor,
+                        workers,
+                        true,
+                        0,
+                        simulation,
+                        doShowPostLogs,
+                        nbMessagesMax,
+                        nbMessagePost,
+                        runtimeStep,
+                        jtbMessageTemplate,
+                        payload,
+                        templateName,
+                        dataFileVariables);
+
+            int nbTicks = (int) (NB_TICKS_PER_STEP * reader.getPosition() / Math.max(1, reader.getSize()));
+            subMonitor.worked(nbTicks - nbTicksDone);
+            nbTicksDone = nbTicks;
          }
       }
    }
 
-   private void executeRegular2(SubMonitor subMonitor,
-                                int nbTicks,
-                                boolean simulation,
-                                boolean doShowPostLogs,
-                                int nbMessagesMax,
-                                AtomicInteger nbMessagePost,
-                                RuntimeStep runtimeStep,
-                                JTBMessageTemplate t,
-                                String templateName,
-                                Map<String, String> dataFileVariables) throws JMSException, InterruptedException {
+   // Post the iterations of one template/data file line, either in the current thread or by the workers
+   private void executeUnit(SubMonitor subMonitor,
+                            ScriptStepWorkers workers,
+                            boolean multipleUnits,
+                            int nbTicks,
+                            boolean simulation,
+                            boolean doShowPostLogs,
+                            int nbMessagesMax,
+                            AtomicInteger nbMessagePost,
+                            RuntimeStep runtimeStep,
+                            JTBMessageTemplate t,
+                            CompiledTemplate payload,
+                            String templateName,
+                            Map<String, String> dataFileVariables) throws JMSException, InterruptedException {
+      if (workers == null) {
+         executeRegular2(subMonitor,
+                         nbTicks,
+                         simulation,
+                         doShowPostLogs,
+                         nbMessagesMax,
+                         nbMessagePost,
+                         runtimeStep,
+                         t,
+                         payload,
+                         templateName,
+                         dataFileVariables);
+         return;
+      }
 
-      Step step = runtimeStep.getStep();
-      JTBConnection jtbConnection = runtimeStep.getJtbConnection();
-      JTBDestination jtbDestination = runtimeStep.getJtbDestination();
+      int iterations = runtimeStep.getStep().getIterations();
+      int nbTickWorkePerIteration = nbTicks == 0 ? 0 : Math.max(1, nbTicks / iterations);
+
+      // Ordered: lines/files are posted one after the other, the iterations of each one are shared between the workers
+      // Unordered: each line/file is posted by the first worker available
+      boolean ordered = (!multipleUnits) || runtimeStep.isOrderedDataFile();
+
+      // The variables are reused by the caller for the next line
+      Map<String, String> unitVariables = ordered ? dataFileVariables : new HashMap<>(dataFileVariables);
+
+      workers.submit((worker, nbIterations) -> postIterations(worker,
+                                                              doShowPostLogs,
+                                                              nbMessagesMax,
+                                                              nbMessagePost,
+                                                              runtimeStep,
+                                                              t,
+                                                              payload,
+                                                              templateName,
+                                                              unitVariables,
+                                                              nbIterations),
+                     iterations,
+                     nbTickWorkePerIteration,
+                     ordered,
+                     ordered && multipleUnits);
+   }
 
-      int nbTickWorkePerIteration = step.getIterations() > nbTicks ? 1 : nbTicks / step.getIterations();
+   // Called by the workers threads. Messages are sent with the session bound to the thread of the worker
+   private void postIterations(ScriptStepWorkers.Worker worker,
+                               boolean doShowPostLogs,
+                               int nbMessagesMax,
+                               AtomicInteger nbMessagePost,
+                               RuntimeStep runtimeStep,
+                               JTBMessageTemplate t,
+                               CompiledTemplate payload,
+                               String templateName,
+                               Map<String, String> dataFileVariables,
+                               int nbIterations) throws JMSException, InterruptedException {
 
-      for (int i = 0; i < step.getIterations(); i++) {
+      Step step = runtimeStep.getStep();
 
-         JTBMessageTemplate jtbMessageTemplate = JTBMessageTemplate.deepClone(t);
+      for (int i = 0; (i < nbIterations) && (!worker.isStopped()); i++) {
 
-         // If we use a data file, replace the dataFileVariables
-         if (!(dataFileVariables.isEmpty())) {
-            jtbMessageTemplate.setPayloadText(variablesManager.replaceDataFileVariables(dataFileVariables,
-                                                                                        jtbMessageTemplate.getPayloadText()));
-         }
+         // Replace the data file variables and generate local variables for each iteration
+         JTBMessageTemplate jtbMessageTemplate = payload.isConstant() ? t
+                  : t.copyWithPayloadText(payload.render(dataFileVariables));
 
-         // Generate local variables for each iteration
-         jtbMessageTemplate.setPayloadText(variablesManager.replaceTemplateVariables(jtbMessageTemplate.getPayloadText()));
+         // Reserve the message before sending it, so that the workers never post more than nbMessagesMax messages
+         int n = nbMessagePost.incrementAndGet();
+         if (n > nbMessagesMax) {
+            nbMessagePost.decrementAndGet();
+            throw new InterruptedException(MAX_MESSAGES_REACHED);
+         }
 
          updateLog(doShowPostLogs, ScriptStepResult.createPostStart(jtbMessageTemplate, templateName));
 
          // Send Message
-         if (!simulation) {
-            Message m = jtbConnection.createJMSMessage(jtbMessageTemplate.getJtbMessageType());
-            JTBMessage jtbMessage = jtbMessageTemplate.toJTBMessage(jtbDestination, m);
-            jtbDestination.getJtbConnection().sendMessage(jtbMessage);
+         try {
+            sendMessage(runtimeStep, jtbMessageTemplate);
+         } catch (JMSException e) {
+            nbMessagePost.decrementAndGet();
+            throw e;
          }
+         worker.messageSent();
 
          updateLog(doShowPostLogs, ScriptStepResult.createPostSuccess());
 
-         // Increment nb messages posted
-         nbMessagePost.set(nbMessagePost.get() + 1);
-         if (nbMessagePost.get() >= nbMessagesMax) {
+         if (n >= nbMessagesMax) {
             throw new InterruptedException(MAX_MESSAGES_REACHED);
          }
 
@@ -427,21 +715,230 @@ public class ScriptExecutionEngine {
          Integer pause = step.getPauseSecsAfter();
          if ((pause != null) && (pause > 0)) {
             updateLog(doShowPostLogs, ScriptStepResult.createStepPauseStart(pause));
+            worker.commit();
+            try {
+               TimeUnit.SECONDS.sleep(pause);
+            } catch (InterruptedException e) {
+               // NOP
+            }
+            updateLog(doShowPostLogs, ScriptStepResult.createStepPauseSuccess());
+         }
+      }
+   }
+
+   // Send one message of the step and record its latency. For requests, the latency is recorded when the reply is received
+   private void sendMessage(RuntimeStep runtimeStep, JTBMessageTemplate jtbMessageTemplate) throws JMSException,
+                                                                                          InterruptedException {
+      JTBConnection jtbConnection = runtimeStep.getJtbConnection();
+      JTBDestination jtbDestination = runtimeStep.getJtbDestination();
+      ScriptStepMetrics metrics = runtimeStep.getMetrics();
+      ScriptRequestReply requestReply = runtimeStep.getRequestReply();
+
+      if (requestReply != null) {
+         requestReply.acquire();
+      }
+
+      // When paced, the latency is measured from the time the message should have been sent
+      long start = runtimeStep.getPacer() == null ? System.nanoTime() : runtimeStep.getPacer().acquire();
+
+      ScriptRequestReply.Request request = null;
+      try {
+         Message m = jtbConnection.createJMSMessage(jtbMessageTemplate.getJtbMessageType());
+         JTBMessage jtbMessage = jtbMessageTemplate.toJTBMessage(jtbDestination, m);
+         if (requestReply != null) {
+            request = requestReply.prepare(jtbMessage, start);
+         }
+         jtbDestination.getJtbConnection().sendMessage(jtbMessage);
+         if (request != null) {
+            requestReply.sent(request, m);
+         }
+      } catch (JMSException e) {
+         metrics.error();
+         if (request != null) {
+            requestReply.failed(request);
+         } else {
+            if (requestReply != null) {
+               requestReply.release();
+            }
+         }
+         throw e;
+      }
+      if (requestReply == null) {
+         metrics.record(start);
+      }
+   }
+
+   // Requests are committed one by one, their replies are awaited
+   private int getCommitBatchSize(RuntimeStep runtimeStep) {
+      return runtimeStep.isRequestReply() ? 1 : COMMIT_BATCH_SIZE;
+   }
+
+   private ScriptPacer createPacer(RuntimeStep runtimeStep, int nbMessagesLeft) throws IOException {
+      Step step = runtimeStep.getStep();
+      int rampUpSecs = step.getRampUpSecs() == null ? 0 : step.getRampUpSecs();
+      int rampDownSecs = step.getRampDownSecs() == null ? 0 : step.getRampDownSecs();
+
+      // The ramp-down needs the number of messages of the step. Data files are only read for that when necessary
+      long nbUnits;
+      if (runtimeStep.getDataFile() != null) {
+         nbUnits = rampDownSecs > 0 ? countLines(runtimeStep.getDataFile()) : 0;
+      } else {
+         nbUnits = runtimeStep.getPayloadFiles() == null ? 1 : runtimeStep.getPayloadFiles().size();
+      }
+      long nbMessages = Math.min(nbUnits * step.getIterations(), nbMessagesLeft);
+
+      log.debug("Pacing step {} at {} msg/s. rampUp: {}s rampDown: {}s nbMessages: {}",
+                runtimeStep,
+                runtimeStep.getTargetRate(),
+                rampUpSecs,
+                rampDownSecs,
+                nbMessages);
+      return new ScriptPacer(runtimeStep.getTargetRate(), rampUpSecs, rampDownSecs, nbMessages);
+   }
+
+   private int countLines(DataFile dataFile) throws IOException {
+      int nbLines = 0;
+      try (DataFileReader reader = new DataFileReader(dataFile.getFileName(),
+                                                      getCharset(dataFile),
+                                                      dataFile.getDelimiter(),
+                                                      false);) {
+         while (reader.next() != null)
+            nbLines++;
+      }
+      return nbLines;
+   }
+
+   private Charset getCharset(DataFile dataFile) {
+      // DF may be null because the charset property is new in v4.0
+      if ((dataFile.getCharset() == null) || (dataFile.getCharset().startsWith(Constants.CHARSET_DEFAULT_PREFIX))) {
+         return Charset.defaultCharset();
+      } else {
+         // TODO DF: may fail is charset does not exist
+         return Charset.forName(dataFile.getCharset());
+      }
+   }
+
+   private ScriptStepWorkers createWorkers(SubMonitor subMonitor, RuntimeStep runtimeStep) {
+      int nbWorkers = runtimeStep.getNbWorkers();
+      if (nbWorkers <= 1) {
+         return null;
+      }
+
+      // Each worker holds a session of the connection for the duration of the step
+      // Keep one pooled session free for the other users of the connection (UI, browser, REST...)
+      JTBConnection jtbConnection = runtimeStep.getJtbConnection();
+      int max = jtbConnection.getSessionPoolSize() - 1;
+      if (nbWorkers > max) {
+         log.warn("{} workers requested for step '{}'. Limited to {}, the size of the session pool minus one",
+                  nbWorkers,
+                  runtimeStep,
+                  max);
+         nbWorkers = max;
+      }
+      if (nbWorkers <= 1) {
+         return null;
+      }
+      return new ScriptStepWorkers(runtimeStep.toString(), jtbConnection, subMonitor, nbWorkers, getCommitBatchSize(runtimeStep));
+   }
+
+   // Called while the script is stopped by the maximum number of messages: must not hide it with another exception
+   private void awaitConsumer(SubMonitor subMonitor, ScriptConsumer consumer, long maxWaitMs) {
+      try {
+         if (!consumer.await(subMonitor, maxWaitMs)) {
+            log.warn("Consumers stopped {} ms after the maximum number of messages was reached", MAX_WAIT_END);
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   // Called while the step is stopped by the maximum number of messages: must not hide it with another exception
+   private void awaitReplies(SubMonitor subMonitor, ScriptRequestReply requestReply) {
+      try {
+         if (!requestReply.awaitReplies(subMonitor, MAX_WAIT_END)) {
+            log.warn("Some replies were not received within {} ms after the maximum number of messages was reached", MAX_WAIT_END);
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   private void executeRegular2(SubMonitor subMonitor,
+                                int nbTicks,
+                                boolean simulation,
+                                boolean doShowPostLogs,
+                                int nbMessagesMax,
+                                AtomicInteger nbMessagePost,
+                                RuntimeStep runtimeStep,
+                                JTBMessageTemplate t,
+                                CompiledTemplate payload,
+                                String templateName,
+                                Map<String, String> dataFileVariables) throws JMSException, InterruptedException {
+
+      Step step = runtimeStep.getStep();
+      JTBConnection jtbConnection = runtimeStep.getJtbConnection();
 
+      int nbTickWorkePerIteration = nbTicks == 0 ? 0 : Math.max(1, nbTicks / step.getIterations());
+
+      // Messages are committed by batches, and before each pause
+      int commitBatchSize = getCommitBatchSize(runtimeStep);
+      int nbInBatch = 0;
+      if (!simulation) {
+         jtbConnection.beginBatch();
+      }
+      try {
+         for (int i = 0; i < step.getIterations(); i++) {
+
+            // Replace the data file variables and generate local variables for each iteration
+            JTBMessageTemplate jtbMessageTemplate = payload.isConstant() ? t
+                     : t.copyWithPayloadText(payload.render(dataFileVariables));
+
+            updateLog(doShowPostLogs, ScriptStepResult.createPostStart(jtbMessageTemplate, templateName));
+
+            // Send Message
             if (!simulation) {
-               try {
-                  TimeUnit.SECONDS.sleep(step.getPauseSecsAfter());
-               } catch (InterruptedException e) {
-                  // NOP
+               sendMessage(runtimeStep, jtbMessageTemplate);
+               if (++nbInBatch >= commitBatchSize) {
+                  jtbConnection.commitBatch();
+                  jtbConnection.beginBatch();
+                  nbInBatch = 0;
                }
             }
-            updateLog(doShowPostLogs, ScriptStepResult.createStepPauseSuccess());
-         }
 
-         subMonitor.worked(nbTickWorkePerIteration);
-         if (subMonitor.isCanceled()) {
-            subMonitor.done();
-            throw new InterruptedException();
+            updateLog(doShowPostLogs, ScriptStepResult.createPostSuccess());
+
+            // Increment nb messages posted
+            if (nbMessagePost.incrementAndGet() >= nbMessagesMax) {
+               throw new InterruptedException(MAX_MESSAGES_REACHED);
+            }
+
+            // Eventually pause after...
+            Integer pause = step.getPauseSecsAfter();
+            if ((pause != null) && (pause > 0)) {
+               updateLog(doShowPostLogs, ScriptStepResult.createStepPauseStart(pause));
+
+               if (!simulation) {
+                  jtbConnection.commitBatch();
+                  jtbConnection.beginBatch();
+                  nbInBatch = 0;
+                  try {
+                     TimeUnit.SECONDS.sleep(step.getPauseSecsAfter());
+                  } catch (InterruptedException e) {
+                     // NOP
+                  }
+               }
+               updateLog(doShowPostLogs, ScriptStepResult.createStepPauseSuccess());
+            }
+
+            subMonitor.worked(nbTickWorkePerIteration);
+            if (subMonitor.isCanceled()) {
+               subMonitor.done();
+               throw new InterruptedException();
+            }
+         }
+      } finally {
+         if (!simulation) {
+            jtbConnection.commitBatch();
          }
       }
    }
@@ -470,12 +967,11 @@ public class ScriptExecutionEngine {
    }
 
    private void updateLog(boolean doShowPostLogs, ScriptStepResult ssr) {
-      if (ssr.getData() != null) {
+      if ((ssr.getData() != null) && (log.isDebugEnabled())) {
          log.debug(ssr.getData().toString());
       }
       if (ssr.isAlwaysShow() || doShowPostLogs) {
-         // eventBroker.post(Constants.EVENT_REFRESH_EXECUTION_LOG, ssr);
-         eventBroker.send(Constants.EVENT_REFRESH_EXECUTION_LOG, ssr);
+         executionLog.add(ssr);
       }
    }
 
@@ -504,7 +1000,8 @@ public class ScriptExecutionEngine {
          for (RuntimeStep runtimeStep : runtimeSteps) {
             Step step = runtimeStep.getStep();
 
-            if (step.getKind() != StepKind.REGULAR) {
+            // Pause and Consume steps do not use templates
+            if ((step.getKind() == StepKind.PAUSE) || (step.getKind() == StepKind.CONSUME)) {
                continue;
             }
 
@@ -551,7 +1048,7 @@ public class ScriptExecutionEngine {
       for (RuntimeStep runtimeStep : runtimeSteps) {
          Step step = runtimeStep.getStep();
 
-         if (step.getKind() != StepKind.REGULAR) {
+         if (step.getKind() == StepKind.PAUSE) {
             continue;
          }
 
@@ -613,7 +1110,7 @@ public class ScriptExecutionEngine {
       subMonitor.subTask("Validating Data Files...");
       for (RuntimeStep runtimeStep : runtimeSteps) {
          Step step = runtimeStep.getStep();
-         if (step.getKind() != StepKind.REGULAR) {
+         if (step.getKind() == StepKind.PAUSE) {
             continue;
          }
 
@@ -662,7 +1159,7 @@ public class ScriptExecutionEngine {
       subMonitor.subTask("Validating Payload Directory...");
       for (RuntimeStep runtimeStep : runtimeSteps) {
          Step step = runtimeStep.getStep();
-         if (step.getKind() != StepKind.REGULAR) {
+         if (step.getKind() == StepKind.PAUSE) {
             continue;
          }
 
@@ -735,7 +1232,7 @@ public class ScriptExecutionEngine {
       subMonitor.subTask("Validating Destinations...");
       for (RuntimeStep runtimeStep : runtimeSteps) {
          Step step = runtimeStep.getStep();
-         if (step.getKind() == StepKind.REGULAR) {
+         if (step.getKind() != StepKind.PAUSE) {
             JTBConnection jtbConnection = runtimeStep.getJtbConnection();
             JTBDestination jtbDestination = jtbConnection.getJTBDestinationByName(step.getDestinationName());
             if (jtbDestination == null) {
@@ -744,6 +1241,18 @@ public class ScriptExecutionEngine {
                throw new ScriptValidationException(ssr);
             }
             runtimeStep.setJtbDestination(jtbDestination);
+
+            // Replies are read from a queue
+            String replyToDestinationName = step.getReplyToDestinationName();
+            if (runtimeStep.isRequestReply() && (replyToDestinationName != null)) {
+               JTBDestination replyTo = jtbConnection.getJTBDestinationByName(replyToDestinationName);
+               if ((replyTo == null) || (!replyTo.isJTBQueue())) {
+                  ScriptStepResult ssr = ScriptStepResult.createValidationReplyToFail(replyToDestinationName);
+                  updateLog(doShowPostLogs, ssr);
+                  throw new ScriptValidationException(ssr);
+               }
+               runtimeStep.setReplyToQueue(replyTo.getAsJTBQueue());
+            }
          }
       }
       subMonitor.worked(1);
@@ -774,13 +1283,14 @@ public class ScriptExecutionEngine {
 
    private class MyIRunnableWithProgress implements IRunnableWithProgress {
 
-      private AtomicInteger nbMessagePost = new AtomicInteger(0);
+      private AtomicInteger               nbMessagePost = new AtomicInteger(0);
 
-      final boolean         clearLogsBeforeExecution;
-      final boolean         simulation;
-      final int             nbMessagesMax;
-      final boolean         doShowPostLogs;
-      final private Script  script;
+      final boolean                       clearLogsBeforeExecution;
+      final boolean                       simulation;
+      final int                           nbMessagesMax;
+      final boolean                       doShowPostLogs;
+      final private Script                script;
+      final private ScriptExecutionReport report;
 
       public MyIRunnableWithProgress(boolean clearLogsBeforeExecution,
                                      boolean simulation,
@@ -792,6 +1302,7 @@ public class ScriptExecutionEngine {
          this.doShowPostLogs = doShowPostLogs;
          this.nbMessagesMax = nbMessagesMax;
          this.script = script;
+         this.report = new ScriptExecutionReport(script.getName());
       }
 
       @Override
@@ -799,11 +1310,12 @@ public class ScriptExecutionEngine {
 
          // Clear logs is the option is set in preferences
          if (clearLogsBeforeExecution) {
+            executionLog.clear();
             eventBroker.send(Constants.EVENT_CLEAR_EXECUTION_LOG, "noUse");
          }
 
          try {
-            executeScriptInBackground(monitor, simulation, doShowPostLogs, nbMessagesMax, nbMessagePost, script);
+            executeScriptInBackground(monitor, simulation, doShowPostLogs, nbMessagesMax, nbMessagePost, report, script);
          } catch (ScriptValidationException e) {
             throw new InvocationTargetException(e);
          }
@@ -813,5 +1325,9 @@ public class ScriptExecutionEngine {
       public int getNbMessagePost() {
          return nbMessagePost.get();
       }
+
+      public ScriptExecutionReport getReport() {
+         return report;
+      }
    }
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.script;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ * Lines of the execution log waiting to be displayed
+ *
+ * The engine appends lines without waiting for the UI. The UI is notified once, then drains the lines by batches. When the UI
+ * can not keep up, the per-message lines are dropped and only their number is kept. Lines always shown (step start and end,
+ * failures, metrics...) are few and are never dropped
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class ScriptExecutionLog {
+
+   // Maximum number of per-message lines waiting
+   private static final int              MAX_PENDING = 10000;
+
+   private final Queue<ScriptStepResult> pending     = new ConcurrentLinkedQueue<>();
+   private final AtomicInteger           nbPending   = new AtomicInteger();
+   private final AtomicInteger           nbDropped   = new AtomicInteger();
+   private final AtomicBoolean           notified    = new AtomicBoolean();
+
+   private final Runnable                notifier;
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   ScriptExecutionLog(Runnable notifier) {
+      this.notifier = notifier;
+   }
+
+   // ------------------------
+   // Business Interface
+   // ------------------------
+
+   // Called by the engine, from any thread
+   void add(ScriptStepResult ssr) {
+      if ((!ssr.isAlwaysShow()) && (nbPending.incrementAndGet() > MAX_PENDING)) {
+         nbPending.decrementAndGet();
+         nbDropped.incrementAndGet();
+      } else {
+         pending.offer(ssr);
+      }
+      notifyUI();
+   }
+
+   // Called by the UI. Move up to "max" lines into "batch" and return the number of lines dropped since the last call
+   public int drainTo(List<ScriptStepResult> batch, int max) {
+      notified.set(false);
+
+      ScriptStepResult ssr;
+      while ((batch.size() < max) && ((ssr = pending.poll()) != null)) {
+         if (!ssr.isAlwaysShow()) {
+            nbPending.decrementAndGet();
+         }
+         batch.add(ssr);
+      }
+
+      // More lines to come, ask for another call
+      if (!pending.isEmpty()) {
+         notifyUI();
+      }
+      return nbDropped.getAndSet(0);
+   }
+
+   public void clear() {
+      ScriptStepResult ssr;
+      while ((ssr = pending.poll()) != null) {
+         if (!ssr.isAlwaysShow()) {
+            nbPending.decrementAndGet();
+         }
+      }
+      nbDropped.set(0);
+   }
+
+   // ------------------------
+   // Helpers
+   // ------------------------
+
+   private void notifyUI() {
+      if (notified.compareAndSet(false, true)) {
+         notifier.run();
+      }
+   }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.script;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonWriter;
+import javax.json.stream.JsonGenerator;
+
+/**
+ *
+ * Result of the execution of a script: number of messages posted and metrics of each step
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class ScriptExecutionReport {
+
+   private static final String           CSV_HEADER_STEPS   = "step,messages,errors,elapsed_ms,messages_per_second,p50_ms,p90_ms,p99_ms,max_ms";
+   private static final String           CSV_HEADER_SECONDS = "step,second,messages";
+
+   private final String                  scriptName;
+   private final List<ScriptStepMetrics> steps              = Collections.synchronizedList(new ArrayList<>());
+
+   private int                           nbMessages;
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   ScriptExecutionReport(String scriptName) {
+      this.scriptName = scriptName;
+   }
+
+   // ------------------------
+   // Business Interface
+   // ------------------------
+
+   ScriptStepMetrics addStep(String stepName) {
+      ScriptStepMetrics metrics = new ScriptStepMetrics(stepName);
+      steps.add(metrics);
+      return metrics;
+   }
+
+   // Summary of each step followed by the number of messages sent during each second of each step
+   public String toCSV() {
+      StringBuilder sb = new StringBuilder(1024);
+      sb.append(CSV_HEADER_STEPS).append("\n");
+      for (ScriptStepMetrics m : getSteps()) {
+         sb.append(String.format(Locale.ROOT,
+                                 "%s,%d,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f\n",
+                                 csvQuote(m.getName()),
+                                 m.getNbMessages(),
+                                 m.getNbErrors(),
+                                 m.getElapsedMs(),
+                                 m.getThroughput(),
+                                 m.getLatencyPercentileMs(50),
+                                 m.getLatencyPercentileMs(90),
+                                 m.getLatencyPercentileMs(99),
+                                 m.getLatencyMaxMs()));
+      }
+
+      sb.append("\n").append(CSV_HEADER_SECONDS).append("\n");
+      for (ScriptStepMetrics m : getSteps()) {
+         String name = csvQuote(m.getName());
+         long[] perSecond = m.getMessagesPerSecond();
+         for (int i = 0; i < perSecond.length; i++) {
+            sb.append(name).append(",").append(i).append(",").append(perSecond[i]).append("\n");
+         }
+      }
+      return sb.toString();
+   }
+
+   public String toJSON() {
+      JsonArrayBuilder jsonSteps = Json.createArrayBuilder();
+      for (ScriptStepMetrics m : getSteps()) {
+         JsonArrayBuilder jsonPerSecond = Json.createArrayBuilder();
+         for (long n : m.getMessagesPerSecond()) {
+            jsonPerSecond.add(n);
+         }
+         jsonSteps.add(Json.createObjectBuilder().add("step", m.getName()).add("messages", m.getNbMessages())
+                  .add("errors", m.getNbErrors()).add("elapsedMs", m.getElapsedMs()).add("messagesPerSecond", m.getThroughput())
+                  .add("p50Ms", m.getLatencyPercentileMs(50)).add("p90Ms", m.getLatencyPercentileMs(90))
+                  .add("p99Ms", m.getLatencyPercentileMs(99)).add("maxMs", m.getLatencyMaxMs())
+                  .add("messagesPerSecondOverTime", jsonPerSecond));
+      }
+      JsonObjectBuilder json = Json.createObjectBuilder().add("script", scriptName).add("messages", nbMessages)
+               .add("steps", jsonSteps);
+
+      Map<String, Object> config = new HashMap<>(1);
+      config.put(JsonGenerator.PRETTY_PRINTING, true);
+      StringWriter sw = new StringWriter(1024);
+      try (JsonWriter jsonWriter = Json.createWriterFactory(config).createWriter(sw)) {
+         jsonWriter.writeObject(json.build());
+      }
+      return sw.toString();
+   }
+
+   // ------------------------
+   // Helpers
+   // ------------------------
+
+   private static String csvQuote(String value) {
+      return "\"" + value.replace("\"", "\"\"") + "\"";
+   }
+
+   // ------------------------
+   // Standard Getters/Setters
+   // ------------------------
+
+   public String getScriptName() {
+      return scriptName;
+   }
+
+   public List<ScriptStepMetrics> getSteps() {
+      synchronized (steps) {
+         return new ArrayList<>(steps);
+      }
+   }
+
+   public int getNbMessages() {
+      return nbMessages;
+   }
+
+   void setNbMessages(int nbMessages) {
+      this.nbMessages = nbMessages;
+   }
+
+}
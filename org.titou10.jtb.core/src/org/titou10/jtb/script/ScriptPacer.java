@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.script;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ *
+ * Paces the messages posted by a script step to a target rate, with optional linear ramp-up and ramp-down
+ *
+ * The intended send time of each message is computed from the start of the step and not from the previous message: when the
+ * broker or the workers are late, messages are sent immediately until the schedule is caught up, and the lag is recorded
+ * (coordinated omission). Shared by all the workers of a step
+ *
+ * @author Denis Forveille
+ *
+ */
+final class ScriptPacer {
+
+   private static final long NANOS_PER_SEC = TimeUnit.SECONDS.toNanos(1);
+
+   private final int         targetRate;
+   private final double      rampUpSecs;
+   private final double      rampDownSecs;
+   private final long        nbMessages;
+
+   // Number of messages in each phase
+   private final double      nbRampUp;
+   private final double      nbRampDown;
+
+   private final long        startNanos;
+   private final AtomicLong  next          = new AtomicLong();
+   private final AtomicLong  lastNanos     = new AtomicLong();
+   private final AtomicLong  maxLagNanos   = new AtomicLong();
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   // nbMessages is the number of messages planned for the step, 0 if unknown. Without it there is no ramp-down
+   ScriptPacer(int targetRate, int rampUpSecs, int rampDownSecs, long nbMessages) {
+      this.targetRate = targetRate;
+      this.nbMessages = nbMessages;
+
+      double up = Math.max(0, rampUpSecs);
+      double down = nbMessages > 0 ? Math.max(0, rampDownSecs) : 0;
+
+      // Steeper ramps when there are not enough messages for both ramps at the target rate
+      double nbRamps = targetRate * (up + down) / 2;
+      if ((nbMessages > 0) && (nbRamps > nbMessages)) {
+         double f = nbMessages / nbRamps;
+         up = up * f;
+         down = down * f;
+      }
+      this.rampUpSecs = up;
+      this.rampDownSecs = down;
+      this.nbRampUp = targetRate * up / 2;
+      this.nbRampDown = targetRate * down / 2;
+
+      this.startNanos = System.nanoTime();
+   }
+
+   // ------------------------
+   // Business Interface
+   // ------------------------
+
+   // Wait for the intended send time of the next message and return it (System.nanoTime() based)
+   long acquire() throws InterruptedException {
+      long intended = startNanos + (long) (intendedOffsetSecs(next.getAndIncrement()) * NANOS_PER_SEC);
+
+      long now;
+      while ((now = System.nanoTime()) < intended) {
+         LockSupport.parkNanos(intended - now);
+         if (Thread.interrupted()) {
+            throw new InterruptedException();
+         }
+      }
+
+      long lag = now - intended;
+      maxLagNanos.accumulateAndGet(lag, Math::max);
+      lastNanos.accumulateAndGet(now, Math::max);
+      return intended;
+   }
+
+   long getNbAcquired() {
+      return next.get();
+   }
+
+   // Rate observed from the start of the step to the last message sent
+   double getAchievedRate() {
+      long n = next.get();
+      long elapsed = lastNanos.get() - startNanos;
+      if ((n <= 1) || (elapsed <= 0)) {
+         return n;
+      }
+      return (n - 1) * (double) NANOS_PER_SEC / elapsed;
+   }
+
+   long getMaxLagMs() {
+      return TimeUnit.NANOSECONDS.toMillis(maxLagNanos.get());
+   }
+
+   int getTargetRate() {
+      return targetRate;
+   }
+
+   // ------------------------
+   // Helpers
+   // ------------------------
+
+   // Schedule of message k (0 based), in seconds from the start
+   private double intendedOffsetSecs(long k) {
+
+      // Ramp-up: the rate grows linearly from 0 to targetRate
+      if (k < nbRampUp) {
+         return Math.sqrt(2 * k * rampUpSecs / targetRate);
+      }
+
+      // Steady rate
+      double steady = rampUpSecs + (k - nbRampUp) / targetRate;
+      if ((nbMessages <= 0) || (k < nbMessages - nbRampDown)) {
+         return steady;
+      }
+
+      // Ramp-down: the rate decreases linearly from targetRate to 0
+      double end = rampUpSecs + (nbMessages - nbRampUp - nbRampDown) / targetRate + rampDownSecs;
+      long remaining = Math.max(0, nbMessages - k);
+      return end - Math.sqrt(2 * remaining * rampDownSecs / targetRate);
+   }
+}
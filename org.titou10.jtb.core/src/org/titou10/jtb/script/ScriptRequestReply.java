@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.script;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
+import javax.jms.Session;
+import javax.jms.TemporaryQueue;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.jms.model.JTBConnection;
+import org.titou10.jtb.jms.model.JTBMessage;
+import org.titou10.jtb.jms.model.JTBQueue;
+
+/**
+ *
+ * Requests in flight of a "Request/Reply" step
+ *
+ * The requests are sent without waiting for their reply, up to "maxInFlight" at a time. The replies are read asynchronously
+ * from the reply-to queue by a listener and matched with their request on their JMSCorrelationID, that must be the
+ * JMSCorrelationID or the JMSMessageID of the request. The round-trip latency of each request is recorded in the metrics of the
+ * step. Requests not answered within the timeout are counted as errors
+ *
+ * @author Denis Forveille
+ *
+ */
+final class ScriptRequestReply implements MessageListener, AutoCloseable {
+
+   private static final Logger        log             = LoggerFactory.getLogger(ScriptRequestReply.class);
+
+   private static final long          EXPIRE_CHECK_MS = 100;
+
+   private final ScriptStepMetrics    metrics;
+   private final int                  maxInFlight;
+   private final long                 timeoutNanos;
+   private final String               replyToQueueName;
+   private final String               correlationIDPrefix;
+
+   private final Session              session;
+   private final TemporaryQueue       temporaryQueue;
+   private final MessageConsumer      consumer;
+
+   private final Semaphore            inFlight;
+   private final AtomicLong           nextID          = new AtomicLong();
+
+   // Requests in flight, by JMSCorrelationID and by JMSMessageID
+   private final Map<String, Request> requests        = new ConcurrentHashMap<>();
+
+   // Replies received before the JMSMessageID of their request is known
+   private final Map<String, Long>    earlyReplies    = new ConcurrentHashMap<>();
+
+   private final AtomicLong           nbReplies       = new AtomicLong();
+   private final AtomicLong           nbTimeouts      = new AtomicLong();
+   private final AtomicLong           nbUnexpected    = new AtomicLong();
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   // A temporary queue is used when replyToQueue is null
+   ScriptRequestReply(JTBConnection jtbConnection,
+                      JTBQueue replyToQueue,
+                      int maxInFlight,
+                      int timeoutMs,
+                      ScriptStepMetrics metrics) throws JMSException {
+      this.metrics = metrics;
+      this.maxInFlight = maxInFlight;
+      this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+      this.replyToQueueName = replyToQueue == null ? null : replyToQueue.getName();
+      this.correlationIDPrefix = "JTB-" + UUID.randomUUID() + "-";
+      this.inFlight = new Semaphore(maxInFlight);
+
+      this.session = jtbConnection.createWorkerSession();
+      try {
+         if (replyToQueue == null) {
+            this.temporaryQueue = session.createTemporaryQueue();
+            this.consumer = session.createConsumer(temporaryQueue);
+         } else {
+            this.temporaryQueue = null;
+            this.consumer = session.createConsumer(replyToQueue.getJmsQueue());
+         }
+         consumer.setMessageListener(this);
+      } catch (JMSException e) {
+         session.close();
+         throw e;
+      }
+   }
+
+   // ------------------------
+   // Business Interface
+   // ------------------------
+
+   // Wait until less than maxInFlight requests are waiting for their reply
+   void acquire() throws InterruptedException {
+      while (!inFlight.tryAcquire(EXPIRE_CHECK_MS, TimeUnit.MILLISECONDS)) {
+         expire();
+      }
+   }
+
+   // The request has not been sent
+   void release() {
+      inFlight.release();
+   }
+
+   // Set the reply-to and the JMSCorrelationID of the request before it is sent
+   Request prepare(JTBMessage jtbMessage, long startNanos) throws JMSException {
+      Message m = jtbMessage.getJmsMessage();
+
+      Request request = new Request(correlationIDPrefix + nextID.incrementAndGet(), startNanos);
+      m.setJMSCorrelationID(request.correlationID);
+      if (temporaryQueue == null) {
+         jtbMessage.setReplyToDestinationName(replyToQueueName);
+      } else {
+         jtbMessage.setReplyToDestinationName(null);
+         m.setJMSReplyTo(temporaryQueue);
+      }
+
+      requests.put(request.correlationID, request);
+      return request;
+   }
+
+   // The request has been sent. The reply may also be correlated with its JMSMessageID
+   void sent(Request request, Message m) throws JMSException {
+      String messageID = m.getJMSMessageID();
+      if (messageID == null) {
+         return;
+      }
+      request.messageID = messageID;
+      requests.put(messageID, request);
+
+      Long replyNanos = earlyReplies.remove(messageID);
+      if (replyNanos != null) {
+         complete(request, replyNanos);
+      }
+      if (request.done.get()) {
+         requests.remove(messageID);
+      }
+   }
+
+   // The request could not be sent
+   void failed(Request request) {
+      if (request.done.compareAndSet(false, true)) {
+         requests.remove(request.correlationID);
+         inFlight.release();
+      }
+   }
+
+   // Wait for the replies of all the requests in flight, or for their timeout
+   void awaitReplies(IProgressMonitor monitor) throws InterruptedException {
+      while (!inFlight.tryAcquire(maxInFlight, EXPIRE_CHECK_MS, TimeUnit.MILLISECONDS)) {
+         expire();
+         if (monitor.isCanceled()) {
+            throw new InterruptedException();
+         }
+      }
+      inFlight.release(maxInFlight);
+   }
+
+   // Same, for at most maxWaitMs. Return false if some requests are still waiting for their reply
+   boolean awaitReplies(IProgressMonitor monitor, long maxWaitMs) throws InterruptedException {
+      long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+      while (!inFlight.tryAcquire(maxInFlight, EXPIRE_CHECK_MS, TimeUnit.MILLISECONDS)) {
+         expire();
+         if ((monitor.isCanceled()) || (System.nanoTime() - deadlineNanos > 0)) {
+            return false;
+         }
+      }
+      inFlight.release(maxInFlight);
+      return true;
+   }
+
+   @Override
+   public void onMessage(Message reply) {
+      long replyNanos = System.nanoTime();
+
+      String correlationID;
+      try {
+         correlationID = reply.getJMSCorrelationID();
+      } catch (JMSException e) {
+         log.warn("JMSException occurred when reading the JMSCorrelationID of a reply. Ignoring: {}", e.getMessage());
+         return;
+      }
+
+      Request request = correlationID == null ? null : requests.get(correlationID);
+      if (request != null) {
+         complete(request, replyNanos);
+         return;
+      }
+
+      // The JMSMessageID of the request may not be known yet
+      if ((correlationID != null) && (earlyReplies.size() < maxInFlight)) {
+         earlyReplies.put(correlationID, replyNanos);
+
+         // ...or may have been registered in the meantime
+         request = requests.get(correlationID);
+         if ((request != null) && (earlyReplies.remove(correlationID) != null)) {
+            complete(request, replyNanos);
+         }
+      } else {
+         nbUnexpected.incrementAndGet();
+      }
+   }
+
+   @Override
+   public void close() {
+      log.info("Request/Reply: {} replies, {} timeouts, {} unexpected messages", nbReplies, nbTimeouts, nbUnexpected);
+      try {
+         consumer.close();
+         if (temporaryQueue != null) {
+            temporaryQueue.delete();
+         }
+      } catch (JMSException e) {
+         log.warn("JMSException occurred when closing the reply consumer. Ignoring: {}", e.getMessage());
+      }
+      try {
+         session.close();
+      } catch (JMSException e) {
+         log.warn("JMSException occurred when closing the reply session. Ignoring: {}", e.getMessage());
+      }
+   }
+
+   long getNbReplies() {
+      return nbReplies.get();
+   }
+
+   long getNbTimeouts() {
+      return nbTimeouts.get();
+   }
+
+   // ------------------------
+   // Helpers
+   // ------------------------
+
+   private void complete(Request request, long replyNanos) {
+      if (!request.done.compareAndSet(false, true)) {
+         return;
+      }
+      remove(request);
+      metrics.record(request.startNanos, replyNanos);
+      nbReplies.incrementAndGet();
+      inFlight.release();
+   }
+
+   private void expire() {
+      long now = System.nanoTime();
+      for (Request request : requests.values()) {
+         if ((now - request.startNanos > timeoutNanos) && (request.done.compareAndSet(false, true))) {
+            remove(request);
+            metrics.error();
+            nbTimeouts.incrementAndGet();
+            inFlight.release();
+         }
+      }
+      earlyReplies.values().removeIf(replyNanos -> now - replyNanos > timeoutNanos);
+   }
+
+   private void remove(Request request) {
+      requests.remove(request.correlationID);
+      String messageID = request.messageID;
+      if (messageID != null) {
+         requests.remove(messageID);
+      }
+   }
+
+   // ------------------------
+   // A request in flight
+   // ------------------------
+
+   static final class Request {
+      private final String        correlationID;
+      private final long          startNanos;
+      private final AtomicBoolean done = new AtomicBoolean();
+      private volatile String     messageID;
+
+      private Request(String correlationID, long startNanos) {
+         this.correlationID = correlationID;
+         this.startNanos = startNanos;
+      }
+   }
+}
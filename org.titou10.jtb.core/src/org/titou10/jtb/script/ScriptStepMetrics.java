@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.script;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * Send latencies, throughput and errors of a script step
+ *
+ * Latencies are recorded in microseconds in a lock free log-linear histogram: 32 buckets per power of 2, ie a precision of about
+ * 3%. When the step is paced, the latency is measured from the intended send time and includes the time spent behind schedule
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class ScriptStepMetrics {
+
+   private static final int           SUB_BUCKETS_BITS = 5;
+   private static final int           SUB_BUCKETS      = 1 << SUB_BUCKETS_BITS;
+   private static final int           NB_BUCKETS       = (64 - SUB_BUCKETS_BITS + 1) * SUB_BUCKETS;
+
+   private final String               name;
+   private final long                 startNanos;
+
+   private final AtomicLongArray      buckets          = new AtomicLongArray(NB_BUCKETS);
+   private final LongAdder            nbMessages       = new LongAdder();
+   private final LongAdder            nbErrors         = new LongAdder();
+   private final AtomicLong           maxMicros        = new AtomicLong();
+   private final AtomicLong           lastNanos        = new AtomicLong();
+
+   // Number of messages sent during each second since the start of the step
+   private final Map<Long, LongAdder> perSecond        = new ConcurrentHashMap<>();
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   ScriptStepMetrics(String name) {
+      this.name = name;
+      this.startNanos = System.nanoTime();
+      this.lastNanos.set(startNanos);
+   }
+
+   // ------------------------
+   // Recording
+   // ------------------------
+
+   // Called after each message sent, with the time the send has started (or should have started)
+   void record(long sendStartNanos) {
+      record(sendStartNanos, System.nanoTime());
+   }
+
+   void record(long sendStartNanos, long now) {
+      recordLatency(TimeUnit.NANOSECONDS.toMicros(now - sendStartNanos), now);
+   }
+
+   // Called after each message received, with the time the message has spent between its producer and its consumer
+   void recordLatency(long latencyMicros, long now) {
+      long micros = Math.max(0, latencyMicros);
+
+      buckets.incrementAndGet(bucketIndex(micros));
+      maxMicros.accumulateAndGet(micros, Math::max);
+      lastNanos.accumulateAndGet(now, Math::max);
+      nbMessages.increment();
+      perSecond.computeIfAbsent(TimeUnit.NANOSECONDS.toSeconds(now - startNanos), k -> new LongAdder()).increment();
+   }
+
+   void error() {
+      nbErrors.increment();
+   }
+
+   // ------------------------
+   // Results
+   // ------------------------
+
+   public String getName() {
+      return name;
+   }
+
+   public long getNbMessages() {
+      return nbMessages.sum();
+   }
+
+   public long getNbErrors() {
+      return nbErrors.sum();
+   }
+
+   public long getElapsedMs() {
+      return TimeUnit.NANOSECONDS.toMillis(lastNanos.get() - startNanos);
+   }
+
+   // Average number of messages per second
+   public double getThroughput() {
+      long elapsedMs = getElapsedMs();
+      return elapsedMs == 0 ? getNbMessages() : getNbMessages() * 1000d / elapsedMs;
+   }
+
+   // Latency in ms under which "percentile" % of the messages have been sent
+   public double getLatencyPercentileMs(double percentile) {
+      long total = 0;
+      long[] counts = new long[NB_BUCKETS];
+      for (int i = 0; i < NB_BUCKETS; i++) {
+         counts[i] = buckets.get(i);
+         total += counts[i];
+      }
+      if (total == 0) {
+         return 0;
+      }
+
+      long rank = Math.max(1, (long) Math.ceil(total * percentile / 100d));
+      long n = 0;
+      for (int i = 0; i < NB_BUCKETS; i++) {
+         n += counts[i];
+         if (n >= rank) {
+            return Math.min(bucketHighestValue(i), maxMicros.get()) / 1000d;
+         }
+      }
+      return getLatencyMaxMs();
+   }
+
+   public double getLatencyMaxMs() {
+      return maxMicros.get() / 1000d;
+   }
+
+   // Number of messages sent during each second, from the start of the step
+   public long[] getMessagesPerSecond() {
+      TreeMap<Long, LongAdder> sorted = new TreeMap<>(perSecond);
+      if (sorted.isEmpty()) {
+         return new long[0];
+      }
+      long[] res = new long[(int) (sorted.lastKey() + 1)];
+      sorted.forEach((second, n) -> res[second.intValue()] = n.sum());
+      return res;
+   }
+
+   @Override
+   public String toString() {
+      return String.format("%s: %d messages, %d errors in %d ms (%.1f msg/s). Latency (ms) p50: %.3f p90: %.3f p99: %.3f max: %.3f",
+                           name,
+                           getNbMessages(),
+                           getNbErrors(),
+                           getElapsedMs(),
+                           getThroughput(),
+                           getLatencyPercentileMs(50),
+                           getLatencyPercentileMs(90),
+                           getLatencyPercentileMs(99),
+                           getLatencyMaxMs());
+   }
+
+   // ------------------------
+   // Helpers
+   // ------------------------
+
+   private static int bucketIndex(long value) {
+      if (value < SUB_BUCKETS) {
+         return (int) value;
+      }
+      int exponent = 63 - Long.numberOfLeadingZeros(value);
+      int shift = exponent - SUB_BUCKETS_BITS;
+      int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+      return ((shift + 1) << SUB_BUCKETS_BITS) + subBucket;
+   }
+
+   private static long bucketHighestValue(int index) {
+      if (index < SUB_BUCKETS) {
+         return index;
+      }
+      int shift = (index >>> SUB_BUCKETS_BITS) - 1;
+      long subBucket = index & (SUB_BUCKETS - 1);
+      long lowest = (SUB_BUCKETS + subBucket) << shift;
+      return lowest + (1L << shift) - 1;
+   }
+}
@@ -42,6 +42,11 @@ public final class ScriptStepResult {
    private static final String STEP_FAILED                     = "Step to destination %s failed : %s";
    private static final String STEP_PAUSE_RUNNING              = "Pause for %d seconds after post ...";
    private static final String STEP_PAUSE_SUCCESS              = "Pause terminated.";
+   private static final String STEP_RATE                       = "%d messages posted at %.1f msg/s for a target of %d msg/s. Max lag behind schedule: %d ms";
+   private static final String STEP_REPLIES                    = "%d replies received, %d requests timed out";
+   private static final String STEP_CONSUME_START              = "Consume from destination '%s'";
+   private static final String STEP_CONSUME_BACKGROUND         = "Consume from destination '%s' in background";
+   private static final String STEP_CONSUMED                   = "%d messages consumed from destination '%s' in %d ms (%.1f msg/s)";
 
    private static final String PAUSE_RUNNING                   = "Pause for %d seconds ...";
    private static final String PAUSE_SUCCESS                   = "Pause terminated.";
@@ -60,6 +65,7 @@ public final class ScriptStepResult {
    private static final String VALIDATION_DIRECTORY_FAIL       = "Directory is unknown to JMSToolBox";
    private static final String VALIDATION_SESSION_FAIL         = "Session with name '%s' is unknown";
    private static final String VALIDATION_DESTINATION_FAIL     = "Destination with name '%s' is unknown";
+   private static final String VALIDATION_REPLY_TO_FAIL        = "Reply-to queue with name '%s' is unknown";
    private static final String VALIDATION_DATAFILE_FAIL        = "File with name '%s' does not exist";
    private static final String VALIDATION_DATAFILE2_FAIL       = "Data File with variable prefix '%s' is unknown";
    private static final String VALIDATION_PAYLOAD_DIR_FAIL     = "Payload directory '%s' does not exist";
@@ -244,6 +250,42 @@ public final class ScriptStepResult {
       return new ScriptStepResult(ExectionActionCode.STEP, ExectionReturnCode.SUCCESS, String.format(STEP_PAUSE_SUCCESS), true);
    }
 
+   public static ScriptStepResult createStepRate(long nbMessages, double achievedRate, int targetRate, long maxLagMs) {
+      return new ScriptStepResult(ExectionActionCode.STEP,
+                                  ExectionReturnCode.SUCCESS,
+                                  String.format(STEP_RATE, nbMessages, achievedRate, targetRate, maxLagMs),
+                                  true);
+   }
+
+   public static ScriptStepResult createStepReplies(long nbReplies, long nbTimeouts) {
+      return new ScriptStepResult(ExectionActionCode.STEP,
+                                  nbTimeouts == 0 ? ExectionReturnCode.SUCCESS : ExectionReturnCode.FAILED,
+                                  String.format(STEP_REPLIES, nbReplies, nbTimeouts),
+                                  true);
+   }
+
+   public static ScriptStepResult createConsumeStart(String destinationName, boolean background) {
+      return new ScriptStepResult(ExectionActionCode.STEP,
+                                  ExectionReturnCode.START,
+                                  String.format(background ? STEP_CONSUME_BACKGROUND : STEP_CONSUME_START, destinationName),
+                                  true);
+   }
+
+   public static ScriptStepResult createConsumeResult(String destinationName, int nbMessages, long elapsedMs) {
+      return new ScriptStepResult(ExectionActionCode.STEP,
+                                  ExectionReturnCode.SUCCESS,
+                                  String.format(STEP_CONSUMED,
+                                                nbMessages,
+                                                destinationName,
+                                                elapsedMs,
+                                                elapsedMs == 0 ? nbMessages : nbMessages * 1000d / elapsedMs),
+                                  true);
+   }
+
+   public static ScriptStepResult createStepMetrics(ScriptStepMetrics metrics) {
+      return new ScriptStepResult(ExectionActionCode.STEP, ExectionReturnCode.SUCCESS, metrics, true);
+   }
+
    // Post
 
    public static ScriptStepResult createPostStart(JTBMessageTemplate jtbMessageTemplate, String templateName) {
@@ -298,6 +340,13 @@ public final class ScriptStepResult {
                                   true);
    }
 
+   public static ScriptStepResult createValidationReplyToFail(String replyToDestinationName) {
+      return new ScriptStepResult(ExectionActionCode.DESTINATION,
+                                  ExectionReturnCode.FAILED,
+                                  String.format(VALIDATION_REPLY_TO_FAIL, replyToDestinationName),
+                                  true);
+   }
+
    public static ScriptStepResult createValidationVariableFail(String variableName) {
       return new ScriptStepResult(ExectionActionCode.VARIABLE,
                                   ExectionReturnCode.FAILED,
@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.script;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jms.JMSException;
+
+import org.eclipse.core.runtime.SubMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.jms.model.JTBConnection;
+
+/**
+ *
+ * Pool of threads posting the iterations of a script step in parallel
+ *
+ * Each worker sends with its own pooled JMS session, bound to its thread with JTBConnection.beginBatch(), and commits every
+ * "commitBatchSize" messages. Only the thread that created this object (the script thread) updates the progress monitor, checks
+ * for cancelation and receives the exceptions raised by the workers
+ *
+ * @author Denis Forveille
+ *
+ */
+final class ScriptStepWorkers {
+
+   private static final Logger       log           = LoggerFactory.getLogger(ScriptStepWorkers.class);
+
+   private static final long         WAIT          = 100; // ms
+   private static final long         MAX_WAIT_STOP = 30 * 1000; // ms
+
+   /**
+    * A number of iterations of a step, with one template and one set of data file variables
+    */
+   @FunctionalInterface
+   interface Slice {
+      void post(Worker worker, int nbIterations) throws Exception;
+   }
+
+   private final JTBConnection       jtbConnection;
+   private final SubMonitor          subMonitor;
+   private final int                 commitBatchSize;
+
+   private final BlockingQueue<Item> items;
+   private final List<Thread>        threads;
+   private final AtomicInteger       nbPending     = new AtomicInteger();
+   private final AtomicInteger       nbIterations  = new AtomicInteger();
+
+   private volatile boolean          closing;
+   private volatile boolean          stopped;
+   private volatile Throwable        failure;
+
+   private int                       nbIterationsReported;
+   private int                       nbTicksPerIteration;
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   ScriptStepWorkers(String name, JTBConnection jtbConnection, SubMonitor subMonitor, int nbWorkers, int commitBatchSize) {
+      this.jtbConnection = jtbConnection;
+      this.subMonitor = subMonitor;
+      this.commitBatchSize = commitBatchSize;
+
+      this.items = new ArrayBlockingQueue<>(nbWorkers * 2);
+      this.threads = new ArrayList<>(nbWorkers);
+      for (int i = 0; i < nbWorkers; i++) {
+         Thread t = new Thread(this::run, "JTB Script Worker " + (i + 1) + " - " + name);
+         t.setDaemon(true);
+         threads.add(t);
+      }
+      log.debug("Starting {} workers for '{}'", nbWorkers, name);
+      threads.forEach(Thread::start);
+   }
+
+   // ------------------------
+   // Business Interface
+   // ------------------------
+
+   // Queue the iterations of a slice. If "split", they are shared between all the workers. If "wait", return when they are posted
+   void submit(Slice slice, int nbIterations, int nbTicksPerIteration, boolean split, boolean wait) throws JMSException,
+                                                                                                   InterruptedException {
+      this.nbTicksPerIteration = nbTicksPerIteration;
+
+      int nbSlices = split ? Math.min(threads.size(), nbIterations) : 1;
+      CountDownLatch latch = wait ? new CountDownLatch(nbSlices) : null;
+      for (int i = 0; i < nbSlices; i++) {
+         // Spread the remainder on the first slices
+         int n = (nbIterations / nbSlices) + (i < (nbIterations % nbSlices) ? 1 : 0);
+         Item item = new Item(slice, n, latch, wait);
+         nbPending.incrementAndGet();
+         while (!items.offer(item, WAIT, TimeUnit.MILLISECONDS)) {
+            check();
+         }
+      }
+
+      if (latch != null) {
+         while (!latch.await(WAIT, TimeUnit.MILLISECONDS)) {
+            check();
+         }
+         check();
+      }
+   }
+
+   // Wait for all the slices to be posted and stop the workers
+   void finish() throws JMSException, InterruptedException {
+      while (nbPending.get() > 0) {
+         check();
+         synchronized (nbPending) {
+            if (nbPending.get() > 0) {
+               nbPending.wait(WAIT);
+            }
+         }
+      }
+      closing = true;
+      join();
+      check();
+   }
+
+   // Stop the workers, whatever the state of the slices. Messages already sent by the workers are committed
+   void close() {
+      stopped = true;
+      join();
+   }
+
+   // ------------------------
+   // Helpers
+   // ------------------------
+
+   // Report progress to the monitor, propagate cancelation and the first exception raised by a worker
+   private void check() throws JMSException, InterruptedException {
+      int n = nbIterations.get();
+      subMonitor.worked((n - nbIterationsReported) * nbTicksPerIteration);
+      nbIterationsReported = n;
+
+      if (subMonitor.isCanceled()) {
+         stopped = true;
+         subMonitor.done();
+         throw new InterruptedException();
+      }
+
+      Throwable t = failure;
+      if (t == null) {
+         return;
+      }
+      if (t instanceof InterruptedException) {
+         throw (InterruptedException) t;
+      }
+      if (t instanceof JMSException) {
+         throw (JMSException) t;
+      }
+      JMSException e = new JMSException(t.getMessage());
+      e.initCause(t);
+      throw e;
+   }
+
+   private void run() {
+      Worker worker = new Worker();
+      try {
+         jtbConnection.beginBatch();
+         while (!stopped) {
+            Item item = items.poll(WAIT, TimeUnit.MILLISECONDS);
+            if (item == null) {
+               if (closing) {
+                  break;
+               }
+               continue;
+            }
+            try {
+               item.slice.post(worker, item.nbIterations);
+               if (item.commitAtEnd) {
+                  worker.commit();
+               }
+            } finally {
+               item.done();
+            }
+         }
+      } catch (Throwable t) {
+         fail(t);
+      } finally {
+         try {
+            jtbConnection.commitBatch();
+         } catch (JMSException e) {
+            fail(e);
+         }
+      }
+   }
+
+   private void fail(Throwable t) {
+      log.debug("Worker {} stopped by {}", Thread.currentThread().getName(), t.toString());
+      synchronized (this) {
+         if (failure == null) {
+            failure = t;
+         }
+      }
+      stopped = true;
+   }
+
+   private void join() {
+      for (Thread t : threads) {
+         try {
+            t.join(MAX_WAIT_STOP);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+         }
+         if (t.isAlive()) {
+            log.warn("Worker '{}' did not stop after {} ms", t.getName(), MAX_WAIT_STOP);
+         }
+      }
+   }
+
+   // ------------------------
+   // Worker
+   // ------------------------
+
+   final class Worker {
+      private int nbInBatch;
+
+      private Worker() {
+         // Only created by ScriptStepWorkers
+      }
+
+      boolean isStopped() {
+         return stopped;
+      }
+
+      // Called after each message sent
+      void messageSent() throws JMSException {
+         nbIterations.incrementAndGet();
+         if (++nbInBatch >= commitBatchSize) {
+            commit();
+         }
+      }
+
+      void commit() throws JMSException {
+         jtbConnection.commitBatch();
+         jtbConnection.beginBatch();
+         nbInBatch = 0;
+      }
+   }
+
+   private final class Item {
+      private final Slice          slice;
+      private final int            nbIterations;
+      private final CountDownLatch latch;
+      private final boolean        commitAtEnd;
+
+      private Item(Slice slice, int nbIterations, CountDownLatch latch, boolean commitAtEnd) {
+         this.slice = slice;
+         this.nbIterations = nbIterations;
+         this.latch = latch;
+         this.commitAtEnd = commitAtEnd;
+      }
+
+      private void done() {
+         if (latch != null) {
+            latch.countDown();
+         }
+         nbPending.decrementAndGet();
+         synchronized (nbPending) {
+            nbPending.notifyAll();
+         }
+      }
+   }
+}
@@ -242,6 +242,14 @@ public class ScriptsManager {
       return step;
    }
 
+   public Step buildConsumeStep() {
+      Step step = new Step();
+      step.setKind(StepKind.CONSUME);
+      step.setPauseSecsAfter(0);
+      step.setIterations(1);
+      return step;
+   }
+
    public Step buildStep() {
       Step step = new Step();
       step.setKind(StepKind.REGULAR);
@@ -323,6 +331,19 @@ public class ScriptsManager {
          newStep.setKind(step.getKind());
          newStep.setIterations(step.getIterations());
          newStep.setPauseSecsAfter(step.getPauseSecsAfter());
+         newStep.setWorkers(step.getWorkers());
+         newStep.setOrderedDataFile(step.isOrderedDataFile());
+         newStep.setTargetRate(step.getTargetRate());
+         newStep.setRampUpSecs(step.getRampUpSecs());
+         newStep.setRampDownSecs(step.getRampDownSecs());
+         newStep.setReplyToDestinationName(step.getReplyToDestinationName());
+         newStep.setReplyTimeoutMs(step.getReplyTimeoutMs());
+         newStep.setMaxInFlight(step.getMaxInFlight());
+         newStep.setSelector(step.getSelector());
+         newStep.setTransacted(step.isTransacted());
+         newStep.setConsumeBatchSize(step.getConsumeBatchSize());
+         newStep.setConsumeDurationSecs(step.getConsumeDurationSecs());
+         newStep.setBackground(step.isBackground());
          steps.add(newStep);
       }
       newScript.getStep().addAll(steps);
@@ -343,6 +364,19 @@ public class ScriptsManager {
       step.setPayloadDirectory(baseStep.getPayloadDirectory());
       step.setIterations(baseStep.getIterations());
       step.setPauseSecsAfter(baseStep.getPauseSecsAfter());
+      step.setWorkers(baseStep.getWorkers());
+      step.setOrderedDataFile(baseStep.isOrderedDataFile());
+      step.setTargetRate(baseStep.getTargetRate());
+      step.setRampUpSecs(baseStep.getRampUpSecs());
+      step.setRampDownSecs(baseStep.getRampDownSecs());
+      step.setReplyToDestinationName(baseStep.getReplyToDestinationName());
+      step.setReplyTimeoutMs(baseStep.getReplyTimeoutMs());
+      step.setMaxInFlight(baseStep.getMaxInFlight());
+      step.setSelector(baseStep.getSelector());
+      step.setTransacted(baseStep.isTransacted());
+      step.setConsumeBatchSize(baseStep.getConsumeBatchSize());
+      step.setConsumeDurationSecs(baseStep.getConsumeDurationSecs());
+      step.setBackground(baseStep.isBackground());
 
       String templateDirectory = baseStep.getTemplateDirectory();
       step.setTemplateDirectory(templateDirectory == null || templateDirectory.isEmpty() ? Constants.JTB_TEMPLATE_CONFIG_FOLDER_NAME
@@ -0,0 +1,354 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.script.dialog;
+
+import org.eclipse.jface.dialogs.Dialog;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.window.Window;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.BusyIndicator;
+import org.eclipse.swt.events.SelectionListener;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Spinner;
+import org.eclipse.swt.widgets.Text;
+import org.titou10.jtb.config.ConfigManager;
+import org.titou10.jtb.jms.model.JTBConnection;
+import org.titou10.jtb.jms.model.JTBDestination;
+import org.titou10.jtb.jms.model.JTBSession;
+import org.titou10.jtb.jms.model.JTBSessionClientType;
+import org.titou10.jtb.script.gen.Step;
+import org.titou10.jtb.sessiontype.SessionTypeManager;
+import org.titou10.jtb.ui.JTBStatusReporter;
+import org.titou10.jtb.util.Utils;
+
+/**
+ * 
+ * Dialog to create a new step of kind "consume" in a Script
+ * 
+ * @author Denis Forveille
+ *
+ */
+public class ScriptNewConsumeDialog extends Dialog {
+
+   private JTBStatusReporter  jtbStatusReporter;
+   private ConfigManager      cm;
+   private SessionTypeManager sessionTypeManager;
+   private Step               step;
+   private String             scriptName;
+
+   private String             sessionName;
+   private String             destinationName;
+
+   private Label              lblSessionName;
+   private Label              lblDestinationName;
+   private Text               txtSelector;
+   private Spinner            nbMessagesSpinner;
+   private Spinner            durationSpinner;
+   private Spinner            consumersSpinner;
+   private Spinner            batchSizeSpinner;
+   private Button             btnTransacted;
+   private Button             btnBackground;
+
+   private Button             btnChooseDestination;
+
+   public ScriptNewConsumeDialog(Shell parentShell,
+                                 JTBStatusReporter jtbStatusReporter,
+                                 ConfigManager cm,
+                                 SessionTypeManager sessionTypeManager,
+                                 Step step,
+                                 String scriptName) {
+      super(parentShell);
+      setShellStyle(SWT.RESIZE | SWT.TITLE | SWT.PRIMARY_MODAL);
+      this.jtbStatusReporter = jtbStatusReporter;
+      this.cm = cm;
+      this.sessionTypeManager = sessionTypeManager;
+      this.step = step;
+      this.scriptName = scriptName;
+   }
+
+   @Override
+   protected void configureShell(Shell newShell) {
+      super.configureShell(newShell);
+      newShell.setText(scriptName + ": Add/Edit a consume step");
+   }
+
+   @Override
+   protected Point getInitialSize() {
+      Point p = super.getInitialSize();
+      return new Point(600, p.y);
+   }
+
+   @Override
+   protected Control createDialogArea(Composite parent) {
+      final Composite container = (Composite) super.createDialogArea(parent);
+      container.setLayout(new GridLayout(3, false));
+
+      // Session
+
+      Label lbl1 = new Label(container, SWT.NONE);
+      lbl1.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false, 1, 1));
+      lbl1.setText("Session:");
+
+      lblSessionName = new Label(container, SWT.BORDER | SWT.SHADOW_NONE);
+      lblSessionName.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 1, 1));
+
+      Button btnChooseSession = new Button(container, SWT.NONE);
+      btnChooseSession.setText("Select...");
+      btnChooseSession.addSelectionListener(SelectionListener.widgetSelectedAdapter(e -> {
+         // Dialog to choose a Session
+         SessionChooserDialog dialog1 = new SessionChooserDialog(getShell(), cm);
+         if (dialog1.open() == Window.OK) {
+
+            JTBSession jtbSession = dialog1.getSelectedJTBSession();
+            if (jtbSession != null) {
+               // Reset Destination if session name changed
+               if (!(jtbSession.getName().equals(sessionName))) {
+                  destinationName = "";
+                  lblDestinationName.setText(destinationName);
+               }
+               sessionName = jtbSession.getName();
+               lblSessionName.setText(sessionName);
+
+               btnChooseDestination.setEnabled(true);
+            }
+         }
+      }));
+
+      // Destination
+
+      Label lbl2 = new Label(container, SWT.NONE);
+      lbl2.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false, 1, 1));
+      lbl2.setText("Destination:");
+
+      lblDestinationName = new Label(container, SWT.BORDER | SWT.SHADOW_NONE);
+      lblDestinationName.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 1, 1));
+
+      btnChooseDestination = new Button(container, SWT.NONE);
+      btnChooseDestination.setText("Select...");
+      btnChooseDestination.addSelectionListener(SelectionListener.widgetSelectedAdapter(e -> {
+         // Connect to session, get list of destinations
+         final JTBSession jtbSession = cm.getJTBSessionByName(sessionName);
+         if (jtbSession == null) {
+            jtbStatusReporter.showError("It seems session '" + sessionName + "' does not exist", null);
+            return;
+         }
+
+         final JTBConnection jtbConnection = jtbSession.getJTBConnection(JTBSessionClientType.SCRIPT);
+         if (!(jtbConnection.isConnected())) {
+            BusyIndicator.showWhile(Display.getCurrent(), () -> {
+               try {
+                  jtbConnection.connect();
+               } catch (Throwable e1) {
+                  jtbStatusReporter.showError("Connect unsuccessful", e1, jtbSession.getName());
+               }
+            });
+         }
+         // Retest to check is the connect was successfull...
+         if (!(jtbConnection.isConnected())) {
+            return;
+         }
+
+         // Dialog to choose a destination
+         DestinationChooserDialog dialog1 = new DestinationChooserDialog(getShell(), sessionTypeManager, jtbSession);
+         if (dialog1.open() == Window.OK) {
+
+            JTBDestination jtbDestination = dialog1.getSelectedJTBDestination();
+            if (jtbDestination != null) {
+               destinationName = jtbDestination.getName();
+               lblDestinationName.setText(destinationName);
+            }
+         }
+      }));
+
+      // Selector
+
+      Label lbl3 = new Label(container, SWT.NONE);
+      lbl3.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false, 1, 1));
+      lbl3.setText("Selector:");
+
+      txtSelector = new Text(container, SWT.BORDER);
+      txtSelector.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1));
+      txtSelector.setToolTipText("JMS selector of the consumers. All the messages are consumed if empty");
+
+      // Number of messages and duration
+
+      Label lbl4 = new Label(container, SWT.NONE);
+      lbl4.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false, 1, 1));
+      lbl4.setText("Consume");
+
+      Composite limitsComposite = new Composite(container, SWT.NONE);
+      limitsComposite.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 2, 1));
+      GridLayout glLimitsComposite = new GridLayout(4, false);
+      glLimitsComposite.marginWidth = 0;
+      limitsComposite.setLayout(glLimitsComposite);
+
+      nbMessagesSpinner = new Spinner(limitsComposite, SWT.BORDER);
+      nbMessagesSpinner.setMinimum(0);
+      nbMessagesSpinner.setMaximum(9999999);
+      nbMessagesSpinner.setPageIncrement(100);
+      nbMessagesSpinner.setTextLimit(7);
+      nbMessagesSpinner.setToolTipText("Number of messages to consume. 0: no limit");
+
+      Label lbl5 = new Label(limitsComposite, SWT.NONE);
+      lbl5.setText(" message(s), during at most");
+
+      durationSpinner = new Spinner(limitsComposite, SWT.BORDER);
+      durationSpinner.setMinimum(0);
+      durationSpinner.setMaximum(99999);
+      durationSpinner.setPageIncrement(10);
+      durationSpinner.setTextLimit(5);
+      durationSpinner.setToolTipText("Maximum duration of the step. 0: no limit");
+
+      Label lbl6 = new Label(limitsComposite, SWT.NONE);
+      lbl6.setText(" second(s)");
+
+      // Consumers
+
+      Label lbl7 = new Label(container, SWT.NONE);
+      lbl7.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false, 1, 1));
+      lbl7.setText("Consume with");
+
+      Composite consumersComposite = new Composite(container, SWT.NONE);
+      consumersComposite.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 2, 1));
+      GridLayout glConsumersComposite = new GridLayout(2, false);
+      glConsumersComposite.marginWidth = 0;
+      consumersComposite.setLayout(glConsumersComposite);
+
+      consumersSpinner = new Spinner(consumersComposite, SWT.BORDER);
+      consumersSpinner.setMinimum(1);
+      consumersSpinner.setMaximum(64);
+      consumersSpinner.setTextLimit(2);
+      consumersSpinner.setToolTipText("Number of consumers receiving the messages in parallel, each with its own JMS session");
+
+      Label lbl8 = new Label(consumersComposite, SWT.NONE);
+      lbl8.setText(" consumer(s)");
+
+      // Acknowledgement
+
+      Label lbl9 = new Label(container, SWT.NONE);
+      lbl9.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false, 1, 1));
+      lbl9.setText("Acknowledge every");
+
+      Composite ackComposite = new Composite(container, SWT.NONE);
+      ackComposite.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 2, 1));
+      GridLayout glAckComposite = new GridLayout(3, false);
+      glAckComposite.marginWidth = 0;
+      ackComposite.setLayout(glAckComposite);
+
+      batchSizeSpinner = new Spinner(ackComposite, SWT.BORDER);
+      batchSizeSpinner.setMinimum(1);
+      batchSizeSpinner.setMaximum(99999);
+      batchSizeSpinner.setPageIncrement(100);
+      batchSizeSpinner.setTextLimit(5);
+      batchSizeSpinner.setToolTipText("Number of messages acknowledged (or committed) at once by each consumer");
+
+      Label lbl10 = new Label(ackComposite, SWT.NONE);
+      lbl10.setText(" message(s)");
+
+      btnTransacted = new Button(ackComposite, SWT.CHECK);
+      btnTransacted.setText("Use transacted sessions");
+      btnTransacted.setToolTipText("When checked, messages are committed. Otherwise, they are acknowledged in CLIENT_ACKNOWLEDGE mode");
+
+      // Background
+
+      new Label(container, SWT.NONE);
+
+      btnBackground = new Button(container, SWT.CHECK);
+      btnBackground.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 2, 1));
+      btnBackground.setText("Consume in background while the next steps are executed");
+      btnBackground
+               .setToolTipText("When checked, the next steps are executed while the messages are consumed.\nThe script waits for the consumers at its end");
+
+      // Populate Fields
+      sessionName = step.getSessionName();
+      destinationName = step.getDestinationName();
+      String selector = step.getSelector();
+      Integer workers = step.getWorkers();
+      Integer consumeDurationSecs = step.getConsumeDurationSecs();
+      Integer consumeBatchSize = step.getConsumeBatchSize();
+      Boolean transacted = step.isTransacted();
+      Boolean background = step.isBackground();
+
+      lblSessionName.setText(sessionName == null ? "" : sessionName);
+      lblDestinationName.setText(destinationName == null ? "" : destinationName);
+      txtSelector.setText(selector == null ? "" : selector);
+      nbMessagesSpinner.setSelection(step.getIterations());
+      durationSpinner.setSelection(consumeDurationSecs == null ? 0 : consumeDurationSecs);
+      consumersSpinner.setSelection(workers == null ? 1 : workers);
+      batchSizeSpinner.setSelection(consumeBatchSize == null ? 1 : consumeBatchSize);
+      btnTransacted.setSelection(transacted == null ? false : transacted);
+      btnBackground.setSelection(background == null ? false : background);
+
+      if (Utils.isNotEmpty(sessionName)) {
+         btnChooseDestination.setEnabled(true);
+      } else {
+         btnChooseDestination.setEnabled(false);
+      }
+
+      return container;
+   }
+
+   @Override
+   protected void okPressed() {
+
+      if (Utils.isEmpty(sessionName)) {
+         MessageDialog.openError(getShell(), "Error", "A session is mandatory");
+         return;
+      }
+
+      if (Utils.isEmpty(destinationName)) {
+         MessageDialog.openError(getShell(), "Error", "A destination is mandatory");
+         return;
+      }
+
+      if ((nbMessagesSpinner.getSelection() == 0) && (durationSpinner.getSelection() == 0)) {
+         MessageDialog.openError(getShell(), "Error", "A number of messages or a duration is mandatory");
+         return;
+      }
+
+      // Populate fields
+
+      String selector = txtSelector.getText().trim();
+      step.setSessionName(sessionName);
+      step.setDestinationName(destinationName);
+      step.setSelector(selector.isEmpty() ? null : selector);
+      step.setIterations(nbMessagesSpinner.getSelection());
+      step.setConsumeDurationSecs(durationSpinner.getSelection() == 0 ? null : durationSpinner.getSelection());
+      step.setWorkers(consumersSpinner.getSelection() == 1 ? null : consumersSpinner.getSelection());
+      step.setConsumeBatchSize(batchSizeSpinner.getSelection() == 1 ? null : batchSizeSpinner.getSelection());
+      step.setTransacted(btnTransacted.getSelection() ? Boolean.TRUE : null);
+      step.setBackground(btnBackground.getSelection() ? Boolean.TRUE : null);
+
+      super.okPressed();
+   }
+
+   // ----------------
+   // Standard Getters
+   // ----------------
+   public Step getStep() {
+      return step;
+   }
+
+}
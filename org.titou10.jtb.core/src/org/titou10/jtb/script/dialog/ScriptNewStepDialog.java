@@ -43,6 +43,7 @@ import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Spinner;
+import org.eclipse.swt.widgets.Text;
 import org.eclipse.wb.swt.SWTResourceManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,10 +53,12 @@ import org.titou10.jtb.jms.model.JTBDestination;
 import org.titou10.jtb.jms.model.JTBMessageTemplate;
 import org.titou10.jtb.jms.model.JTBSession;
 import org.titou10.jtb.jms.model.JTBSessionClientType;
+import org.titou10.jtb.script.RuntimeStep;
 import org.titou10.jtb.script.ScriptsManager;
 import org.titou10.jtb.script.gen.DataFile;
 import org.titou10.jtb.script.gen.Script;
 import org.titou10.jtb.script.gen.Step;
+import org.titou10.jtb.script.gen.StepKind;
 import org.titou10.jtb.sessiontype.SessionTypeManager;
 import org.titou10.jtb.template.TemplatesManager;
 import org.titou10.jtb.template.TemplatesManager.TemplateNameStructure;
@@ -100,6 +103,15 @@ public class ScriptNewStepDialog extends Dialog {
    private Label                 lblPayloadDirectory;
    private Spinner               delaySpinner;
    private Spinner               iterationsSpinner;
+   private Spinner               workersSpinner;
+   private Button                btnOrderedDataFile;
+   private Spinner               targetRateSpinner;
+   private Spinner               rampUpSpinner;
+   private Spinner               rampDownSpinner;
+   private Button                btnRequestReply;
+   private Text                  txtReplyTo;
+   private Spinner               replyTimeoutSpinner;
+   private Spinner               maxInFlightSpinner;
 
    private Button                btnChooseDestination;
 
@@ -405,6 +417,137 @@ public class ScriptNewStepDialog extends Dialog {
       Label lbl8 = new Label(pauseComposite, SWT.NONE);
       lbl8.setText(" second(s) after this step");
 
+      // Workers
+
+      Label lbl10 = new Label(container, SWT.NONE);
+      lbl10.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false, 2, 1));
+      lbl10.setText("Post with");
+
+      Composite workersComposite = new Composite(container, SWT.NONE);
+      workersComposite.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 2, 1));
+      GridLayout glWorkersComposite = new GridLayout(3, false);
+      glWorkersComposite.marginWidth = 0;
+      workersComposite.setLayout(glWorkersComposite);
+
+      workersSpinner = new Spinner(workersComposite, SWT.BORDER);
+      workersSpinner.setMinimum(1);
+      workersSpinner.setMaximum(64);
+      workersSpinner.setIncrement(1);
+      workersSpinner.setTextLimit(2);
+      workersSpinner.setSelection(1);
+      workersSpinner.setToolTipText("Number of threads posting the messages of this step in parallel.\nEach thread uses its own JMS session, up to the size of the session pool defined in the preferences minus one");
+
+      Label lbl11 = new Label(workersComposite, SWT.NONE);
+      lbl11.setText(" worker(s)");
+
+      btnOrderedDataFile = new Button(workersComposite, SWT.CHECK);
+      btnOrderedDataFile.setText("Keep data file lines/payload files in order");
+      btnOrderedDataFile.setToolTipText("When checked, lines/files are posted one after the other and the iterations of each one are shared between the workers.\nOtherwise, each line/file is posted by the first worker available");
+      btnOrderedDataFile.setSelection(true);
+
+      // Target rate
+
+      Label lbl12 = new Label(container, SWT.NONE);
+      lbl12.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false, 2, 1));
+      lbl12.setText("Target rate");
+
+      Composite rateComposite = new Composite(container, SWT.NONE);
+      rateComposite.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 2, 1));
+      GridLayout glRateComposite = new GridLayout(6, false);
+      glRateComposite.marginWidth = 0;
+      rateComposite.setLayout(glRateComposite);
+
+      targetRateSpinner = new Spinner(rateComposite, SWT.BORDER);
+      targetRateSpinner.setMinimum(0);
+      targetRateSpinner.setMaximum(999999);
+      targetRateSpinner.setPageIncrement(100);
+      targetRateSpinner.setTextLimit(6);
+      targetRateSpinner.setSelection(0);
+      targetRateSpinner.setToolTipText("Number of messages posted per second by this step. 0: as fast as possible");
+
+      Label lbl13 = new Label(rateComposite, SWT.NONE);
+      lbl13.setText(" msg/s, ramp-up over");
+
+      rampUpSpinner = new Spinner(rateComposite, SWT.BORDER);
+      rampUpSpinner.setMinimum(0);
+      rampUpSpinner.setMaximum(9999);
+      rampUpSpinner.setPageIncrement(10);
+      rampUpSpinner.setTextLimit(4);
+      rampUpSpinner.setSelection(0);
+
+      Label lbl14 = new Label(rateComposite, SWT.NONE);
+      lbl14.setText(" second(s), ramp-down over");
+
+      rampDownSpinner = new Spinner(rateComposite, SWT.BORDER);
+      rampDownSpinner.setMinimum(0);
+      rampDownSpinner.setMaximum(9999);
+      rampDownSpinner.setPageIncrement(10);
+      rampDownSpinner.setTextLimit(4);
+      rampDownSpinner.setSelection(0);
+
+      Label lbl15 = new Label(rateComposite, SWT.NONE);
+      lbl15.setText(" second(s)");
+
+      targetRateSpinner.addModifyListener(e -> {
+         boolean paced = targetRateSpinner.getSelection() > 0;
+         rampUpSpinner.setEnabled(paced);
+         rampDownSpinner.setEnabled(paced);
+      });
+
+      // Request/Reply
+
+      Label lbl16 = new Label(container, SWT.NONE);
+      lbl16.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false, 2, 1));
+      lbl16.setText("Request/Reply");
+
+      Composite replyComposite = new Composite(container, SWT.NONE);
+      replyComposite.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1));
+      GridLayout glReplyComposite = new GridLayout(2, false);
+      glReplyComposite.marginWidth = 0;
+      replyComposite.setLayout(glReplyComposite);
+
+      btnRequestReply = new Button(replyComposite, SWT.CHECK);
+      btnRequestReply.setText("Wait for the replies on queue");
+      btnRequestReply.setToolTipText("Each message is a request. The step waits for the replies and measures the round-trip latency.\nThe replies are matched on their JMSCorrelationID, that must be the JMSCorrelationID or the JMSMessageID of the request");
+
+      txtReplyTo = new Text(replyComposite, SWT.BORDER);
+      txtReplyTo.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 1, 1));
+      txtReplyTo.setMessage("Temporary queue");
+      txtReplyTo.setToolTipText("Queue where the replies are sent and read. A temporary queue is used if empty");
+
+      Label lbl17 = new Label(container, SWT.NONE);
+      lbl17.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false, 2, 1));
+      lbl17.setText("Reply timeout");
+
+      Composite inFlightComposite = new Composite(container, SWT.NONE);
+      inFlightComposite.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 2, 1));
+      GridLayout glInFlightComposite = new GridLayout(4, false);
+      glInFlightComposite.marginWidth = 0;
+      inFlightComposite.setLayout(glInFlightComposite);
+
+      replyTimeoutSpinner = new Spinner(inFlightComposite, SWT.BORDER);
+      replyTimeoutSpinner.setMinimum(1);
+      replyTimeoutSpinner.setMaximum(3600000);
+      replyTimeoutSpinner.setPageIncrement(1000);
+      replyTimeoutSpinner.setTextLimit(7);
+      replyTimeoutSpinner.setSelection(RuntimeStep.DEFAULT_REPLY_TIMEOUT_MS);
+
+      Label lbl18 = new Label(inFlightComposite, SWT.NONE);
+      lbl18.setText(" ms, at most");
+
+      maxInFlightSpinner = new Spinner(inFlightComposite, SWT.BORDER);
+      maxInFlightSpinner.setMinimum(1);
+      maxInFlightSpinner.setMaximum(9999);
+      maxInFlightSpinner.setPageIncrement(10);
+      maxInFlightSpinner.setTextLimit(4);
+      maxInFlightSpinner.setSelection(RuntimeStep.DEFAULT_MAX_IN_FLIGHT);
+      maxInFlightSpinner.setToolTipText("Maximum number of requests waiting for their reply");
+
+      Label lbl19 = new Label(inFlightComposite, SWT.NONE);
+      lbl19.setText(" request(s) waiting for a reply");
+
+      btnRequestReply.addSelectionListener(SelectionListener.widgetSelectedAdapter(e -> enableRequestReply()));
+
       // Populate Fields
       tns = templatesManager.buildTemplateNameStructure(step.getTemplateDirectory(), step.getTemplateName());
       sessionName = step.getSessionName();
@@ -413,6 +556,14 @@ public class ScriptNewStepDialog extends Dialog {
       payloadDirectory = step.getPayloadDirectory();
       delay = step.getPauseSecsAfter();
       iterations = step.getIterations();
+      Integer workers = step.getWorkers();
+      Boolean orderedDataFile = step.isOrderedDataFile();
+      Integer targetRate = step.getTargetRate();
+      Integer rampUpSecs = step.getRampUpSecs();
+      Integer rampDownSecs = step.getRampDownSecs();
+      String replyToDestinationName = step.getReplyToDestinationName();
+      Integer replyTimeoutMs = step.getReplyTimeoutMs();
+      Integer maxInFlight = step.getMaxInFlight();
 
       lblTemplateName.setText(tns == null ? "" : tns.getSyntheticName());
       lblSessionName.setText(sessionName == null ? "" : sessionName);
@@ -426,6 +577,18 @@ public class ScriptNewStepDialog extends Dialog {
       }
       delaySpinner.setSelection(delay);
       iterationsSpinner.setSelection(iterations);
+      workersSpinner.setSelection(workers == null ? 1 : workers);
+      btnOrderedDataFile.setSelection(orderedDataFile == null ? true : orderedDataFile);
+      targetRateSpinner.setSelection(targetRate == null ? 0 : targetRate);
+      rampUpSpinner.setSelection(rampUpSecs == null ? 0 : rampUpSecs);
+      rampDownSpinner.setSelection(rampDownSecs == null ? 0 : rampDownSecs);
+      rampUpSpinner.setEnabled(targetRateSpinner.getSelection() > 0);
+      rampDownSpinner.setEnabled(targetRateSpinner.getSelection() > 0);
+      btnRequestReply.setSelection(step.getKind() == StepKind.REQUEST_REPLY);
+      txtReplyTo.setText(replyToDestinationName == null ? "" : replyToDestinationName);
+      replyTimeoutSpinner.setSelection(replyTimeoutMs == null ? RuntimeStep.DEFAULT_REPLY_TIMEOUT_MS : replyTimeoutMs);
+      maxInFlightSpinner.setSelection(maxInFlight == null ? RuntimeStep.DEFAULT_MAX_IN_FLIGHT : maxInFlight);
+      enableRequestReply();
 
       if (Utils.isNotEmpty(sessionName)) {
          btnChooseDestination.setEnabled(true);
@@ -486,10 +649,40 @@ public class ScriptNewStepDialog extends Dialog {
       step.setPayloadDirectory(payloadDirectory);
       step.setPauseSecsAfter(delaySpinner.getSelection());
       step.setIterations(iterationsSpinner.getSelection());
+      step.setWorkers(workersSpinner.getSelection() == 1 ? null : workersSpinner.getSelection());
+      step.setOrderedDataFile(btnOrderedDataFile.getSelection() ? null : Boolean.FALSE);
+      if (targetRateSpinner.getSelection() == 0) {
+         step.setTargetRate(null);
+         step.setRampUpSecs(null);
+         step.setRampDownSecs(null);
+      } else {
+         step.setTargetRate(targetRateSpinner.getSelection());
+         step.setRampUpSecs(rampUpSpinner.getSelection() == 0 ? null : rampUpSpinner.getSelection());
+         step.setRampDownSecs(rampDownSpinner.getSelection() == 0 ? null : rampDownSpinner.getSelection());
+      }
+      if (btnRequestReply.getSelection()) {
+         String replyTo = txtReplyTo.getText().trim();
+         step.setKind(StepKind.REQUEST_REPLY);
+         step.setReplyToDestinationName(replyTo.isEmpty() ? null : replyTo);
+         step.setReplyTimeoutMs(replyTimeoutSpinner.getSelection());
+         step.setMaxInFlight(maxInFlightSpinner.getSelection());
+      } else {
+         step.setKind(StepKind.REGULAR);
+         step.setReplyToDestinationName(null);
+         step.setReplyTimeoutMs(null);
+         step.setMaxInFlight(null);
+      }
 
       super.okPressed();
    }
 
+   private void enableRequestReply() {
+      boolean requestReply = btnRequestReply.getSelection();
+      txtReplyTo.setEnabled(requestReply);
+      replyTimeoutSpinner.setEnabled(requestReply);
+      maxInFlightSpinner.setEnabled(requestReply);
+   }
+
    // ----------------
    // Standard Getters
    // ----------------
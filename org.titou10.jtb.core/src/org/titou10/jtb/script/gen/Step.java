@@ -41,7 +41,9 @@ import org.titou10.jtb.util.Constants;
 @XmlAccessorType(XmlAccessType.FIELD)
 @XmlType(name = "step",
          propOrder = { "kind", "templateName", "templateDirectory", "sessionName", "destinationName", "variablePrefix",
-                       "payloadDirectory", "pauseSecsAfter", "iterations" })
+                       "payloadDirectory", "pauseSecsAfter", "iterations", "workers", "orderedDataFile", "targetRate",
+                       "rampUpSecs", "rampDownSecs", "replyToDestinationName", "replyTimeoutMs", "maxInFlight", "selector", "transacted",
+                       "consumeBatchSize", "consumeDurationSecs", "background" })
 public class Step {
 
    @XmlElement(required = true)
@@ -59,6 +61,19 @@ public class Step {
    protected String   payloadDirectory;
    protected Integer  pauseSecsAfter;
    protected int      iterations;
+   protected Integer  workers;
+   protected Boolean  orderedDataFile;
+   protected Integer  targetRate;
+   protected Integer  rampUpSecs;
+   protected Integer  rampDownSecs;
+   protected String   replyToDestinationName;
+   protected Integer  replyTimeoutMs;
+   protected Integer  maxInFlight;
+   protected String   selector;
+   protected Boolean  transacted;
+   protected Integer  consumeBatchSize;
+   protected Integer  consumeDurationSecs;
+   protected Boolean  background;
 
    // Set templateDirectory for script < v4.1.0
    public String getTemplateDirectory() {
@@ -252,4 +267,277 @@ public class Step {
       this.iterations = value;
    }
 
+   /**
+    * Gets the value of the workers property.
+    * 
+    * @return possible object is {@link Integer }
+    * 
+    */
+   public Integer getWorkers() {
+      return workers;
+   }
+
+   /**
+    * Sets the value of the workers property.
+    * 
+    * @param value
+    *           allowed object is {@link Integer }
+    * 
+    */
+   public void setWorkers(Integer value) {
+      this.workers = value;
+   }
+
+   /**
+    * Gets the value of the orderedDataFile property.
+    * 
+    * @return possible object is {@link Boolean }
+    * 
+    */
+   public Boolean isOrderedDataFile() {
+      return orderedDataFile;
+   }
+
+   /**
+    * Sets the value of the orderedDataFile property.
+    * 
+    * @param value
+    *           allowed object is {@link Boolean }
+    * 
+    */
+   public void setOrderedDataFile(Boolean value) {
+      this.orderedDataFile = value;
+   }
+
+   /**
+    * Gets the value of the targetRate property.
+    * 
+    * @return possible object is {@link Integer }
+    * 
+    */
+   public Integer getTargetRate() {
+      return targetRate;
+   }
+
+   /**
+    * Sets the value of the targetRate property.
+    * 
+    * @param value
+    *           allowed object is {@link Integer }
+    * 
+    */
+   public void setTargetRate(Integer value) {
+      this.targetRate = value;
+   }
+
+   /**
+    * Gets the value of the rampUpSecs property.
+    * 
+    * @return possible object is {@link Integer }
+    * 
+    */
+   public Integer getRampUpSecs() {
+      return rampUpSecs;
+   }
+
+   /**
+    * Sets the value of the rampUpSecs property.
+    * 
+    * @param value
+    *           allowed object is {@link Integer }
+    * 
+    */
+   public void setRampUpSecs(Integer value) {
+      this.rampUpSecs = value;
+   }
+
+   /**
+    * Gets the value of the rampDownSecs property.
+    * 
+    * @return possible object is {@link Integer }
+    * 
+    */
+   public Integer getRampDownSecs() {
+      return rampDownSecs;
+   }
+
+   /**
+    * Sets the value of the rampDownSecs property.
+    * 
+    * @param value
+    *           allowed object is {@link Integer }
+    * 
+    */
+   public void setRampDownSecs(Integer value) {
+      this.rampDownSecs = value;
+   }
+
+   /**
+    * Gets the value of the replyToDestinationName property.
+    * 
+    * @return possible object is {@link String }
+    * 
+    */
+   public String getReplyToDestinationName() {
+      return replyToDestinationName;
+   }
+
+   /**
+    * Sets the value of the replyToDestinationName property.
+    * 
+    * @param value
+    *           allowed object is {@link String }
+    * 
+    */
+   public void setReplyToDestinationName(String value) {
+      this.replyToDestinationName = value;
+   }
+
+   /**
+    * Gets the value of the replyTimeoutMs property.
+    * 
+    * @return possible object is {@link Integer }
+    * 
+    */
+   public Integer getReplyTimeoutMs() {
+      return replyTimeoutMs;
+   }
+
+   /**
+    * Sets the value of the replyTimeoutMs property.
+    * 
+    * @param value
+    *           allowed object is {@link Integer }
+    * 
+    */
+   public void setReplyTimeoutMs(Integer value) {
+      this.replyTimeoutMs = value;
+   }
+
+   /**
+    * Gets the value of the maxInFlight property.
+    * 
+    * @return possible object is {@link Integer }
+    * 
+    */
+   public Integer getMaxInFlight() {
+      return maxInFlight;
+   }
+
+   /**
+    * Sets the value of the maxInFlight property.
+    * 
+    * @param value
+    *           allowed object is {@link Integer }
+    * 
+    */
+   public void setMaxInFlight(Integer value) {
+      this.maxInFlight = value;
+   }
+
+   /**
+    * Gets the value of the selector property.
+    * 
+    * @return possible object is {@link String }
+    * 
+    */
+   public String getSelector() {
+      return selector;
+   }
+
+   /**
+    * Sets the value of the selector property.
+    * 
+    * @param value
+    *           allowed object is {@link String }
+    * 
+    */
+   public void setSelector(String value) {
+      this.selector = value;
+   }
+
+   /**
+    * Gets the value of the transacted property.
+    * 
+    * @return possible object is {@link Boolean }
+    * 
+    */
+   public Boolean isTransacted() {
+      return transacted;
+   }
+
+   /**
+    * Sets the value of the transacted property.
+    * 
+    * @param value
+    *           allowed object is {@link Boolean }
+    * 
+    */
+   public void setTransacted(Boolean value) {
+      this.transacted = value;
+   }
+
+   /**
+    * Gets the value of the consumeBatchSize property.
+    * 
+    * @return possible object is {@link Integer }
+    * 
+    */
+   public Integer getConsumeBatchSize() {
+      return consumeBatchSize;
+   }
+
+   /**
+    * Sets the value of the consumeBatchSize property.
+    * 
+    * @param value
+    *           allowed object is {@link Integer }
+    * 
+    */
+   public void setConsumeBatchSize(Integer value) {
+      this.consumeBatchSize = value;
+   }
+
+   /**
+    * Gets the value of the consumeDurationSecs property.
+    * 
+    * @return possible object is {@link Integer }
+    * 
+    */
+   public Integer getConsumeDurationSecs() {
+      return consumeDurationSecs;
+   }
+
+   /**
+    * Sets the value of the consumeDurationSecs property.
+    * 
+    * @param value
+    *           allowed object is {@link Integer }
+    * 
+    */
+   public void setConsumeDurationSecs(Integer value) {
+      this.consumeDurationSecs = value;
+   }
+
+   /**
+    * Gets the value of the background property.
+    * 
+    * @return possible object is {@link Boolean }
+    * 
+    */
+   public Boolean isBackground() {
+      return background;
+   }
+
+   /**
+    * Sets the value of the background property.
+    * 
+    * @param value
+    *           allowed object is {@link Boolean }
+    * 
+    */
+   public void setBackground(Boolean value) {
+      this.background = value;
+   }
+
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.script.handler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import javax.inject.Inject;
+
+import org.eclipse.e4.core.di.annotations.CanExecute;
+import org.eclipse.e4.core.di.annotations.Execute;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Shell;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.script.ScriptExecutionEngine;
+import org.titou10.jtb.script.ScriptExecutionReport;
+import org.titou10.jtb.ui.JTBStatusReporter;
+
+/**
+ * Manage the "Script Export Metrics" command
+ * 
+ * Exports the metrics of the last script executed, in JSON if the file name ends with ".json", in CSV otherwise
+ * 
+ * @author Denis Forveille
+ * 
+ */
+public class ScriptExportMetricsHandler {
+
+   private static final Logger   log = LoggerFactory.getLogger(ScriptExportMetricsHandler.class);
+
+   private static final String[] EXT = { "*.csv", "*.json" };
+
+   @Inject
+   private ScriptExecutionEngine scriptExecutionEngine;
+
+   @Inject
+   private JTBStatusReporter     jtbStatusReporter;
+
+   @Execute
+   public void execute(Shell shell) {
+      log.debug("execute");
+
+      ScriptExecutionReport report = scriptExecutionEngine.getLastReport();
+
+      FileDialog fileDialog = new FileDialog(shell, SWT.SAVE);
+      fileDialog.setText("Specify a name for the metrics file");
+      fileDialog.setFileName(report.getScriptName() + "_metrics.csv");
+      fileDialog.setFilterExtensions(EXT);
+      fileDialog.setOverwrite(true);
+
+      if (fileDialog.open() == null) {
+         return;
+      }
+
+      // Build file name
+      StringBuffer sb = new StringBuffer(256);
+      sb.append(fileDialog.getFilterPath());
+      sb.append(File.separator);
+      sb.append(fileDialog.getFileName());
+      String choosenFileName = sb.toString();
+      log.debug("choosenFileName={}", choosenFileName);
+
+      String content = choosenFileName.toLowerCase().endsWith(".json") ? report.toJSON() : report.toCSV();
+      try {
+         Files.write(Paths.get(choosenFileName), content.getBytes(StandardCharsets.UTF_8));
+      } catch (IOException e) {
+         jtbStatusReporter.showError("A problem occurred when exporting the metrics of the script", e, "");
+         return;
+      }
+   }
+
+   @CanExecute
+   public boolean canExecute() {
+      return scriptExecutionEngine.getLastReport() != null;
+   }
+}
@@ -32,11 +32,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.config.ConfigManager;
 import org.titou10.jtb.script.ScriptsManager;
+import org.titou10.jtb.script.dialog.ScriptNewConsumeDialog;
 import org.titou10.jtb.script.dialog.ScriptNewPauseDialog;
 import org.titou10.jtb.script.dialog.ScriptNewStepDialog;
 import org.titou10.jtb.script.gen.Script;
 import org.titou10.jtb.script.gen.Step;
-import org.titou10.jtb.script.gen.StepKind;
 import org.titou10.jtb.sessiontype.SessionTypeManager;
 import org.titou10.jtb.template.TemplatesManager;
 import org.titou10.jtb.ui.JTBStatusReporter;
@@ -94,30 +94,51 @@ public class ScriptStepAddOrEditHandler {
             step = scriptsManager.buildPauseStep(5);
             break;
 
+         case Constants.COMMAND_SCRIPT_NEWSTEP_CONSUME:
+            step = scriptsManager.buildConsumeStep();
+            break;
+
          default:
             throw new IllegalArgumentException(mode + " value is invalid");
 
       }
 
-      if (step.getKind() == StepKind.REGULAR) {
-         ScriptNewStepDialog d1 = new ScriptNewStepDialog(shell,
-                                                          jtbStatusReporter,
-                                                          cm,
-                                                          templatesManager,
-                                                          scriptsManager,
-                                                          sessionTypeManager,
-                                                          step,
-                                                          script);
-         if (d1.open() != Window.OK) {
-            return;
-         }
-         step = d1.getStep();
-      } else {
-         ScriptNewPauseDialog d2 = new ScriptNewPauseDialog(shell, step, script.getName());
-         if (d2.open() != Window.OK) {
-            return;
-         }
-         step = d2.getStep();
+      switch (step.getKind()) {
+         case PAUSE:
+            ScriptNewPauseDialog d2 = new ScriptNewPauseDialog(shell, step, script.getName());
+            if (d2.open() != Window.OK) {
+               return;
+            }
+            step = d2.getStep();
+            break;
+
+         case CONSUME:
+            ScriptNewConsumeDialog d3 = new ScriptNewConsumeDialog(shell,
+                                                                   jtbStatusReporter,
+                                                                   cm,
+                                                                   sessionTypeManager,
+                                                                   step,
+                                                                   script.getName());
+            if (d3.open() != Window.OK) {
+               return;
+            }
+            step = d3.getStep();
+            break;
+
+         default:
+            ScriptNewStepDialog d1 = new ScriptNewStepDialog(shell,
+                                                             jtbStatusReporter,
+                                                             cm,
+                                                             templatesManager,
+                                                             scriptsManager,
+                                                             sessionTypeManager,
+                                                             step,
+                                                             script);
+            if (d1.open() != Window.OK) {
+               return;
+            }
+            step = d1.getStep();
+            break;
       }
 
       switch (mode) {
@@ -132,6 +153,7 @@ public class ScriptStepAddOrEditHandler {
 
          case Constants.COMMAND_SCRIPT_NEWSTEP_STEP:
          case Constants.COMMAND_SCRIPT_NEWSTEP_PAUSE:
+         case Constants.COMMAND_SCRIPT_NEWSTEP_CONSUME:
             script.getStep().add(step);
             break;
 
@@ -392,6 +392,9 @@ public class ScriptEditViewPart {
          @Override
          public String getText(Object element) {
             Step s = (Step) element;
+            if (s.getKind() == StepKind.CONSUME) {
+               return "<Consume>";
+            }
             TemplateNameStructure tns = templatesManager.buildTemplateNameStructure(s.getTemplateDirectory(), s.getTemplateName());
             return tns == null ? "" : tns.getSyntheticName();
          }
@@ -435,6 +438,13 @@ public class ScriptEditViewPart {
          @Override
          public String getText(Object element) {
             Step s = (Step) element;
+            if (s.getKind() == StepKind.REQUEST_REPLY) {
+               String replyTo = s.getReplyToDestinationName() == null ? "temporary queue" : s.getReplyToDestinationName();
+               return s.getDestinationName() + " (replies on " + replyTo + ")";
+            }
+            if ((s.getKind() == StepKind.CONSUME) && (s.getSelector() != null)) {
+               return s.getDestinationName() + " (selector: " + s.getSelector() + ")";
+            }
             return s.getDestinationName();
          }
 
@@ -489,8 +499,29 @@ public class ScriptEditViewPart {
          @Override
          public String getText(Object element) {
             Step s = (Step) element;
-            if (s.getKind() == StepKind.REGULAR) {
-               return String.valueOf(s.getIterations());
+            if (s.getKind() == StepKind.CONSUME) {
+               StringBuilder sb = new StringBuilder(64);
+               sb.append(s.getIterations() == 0 ? "-" : String.valueOf(s.getIterations()));
+               if (s.getConsumeDurationSecs() != null) {
+                  sb.append(" / ");
+                  sb.append(s.getConsumeDurationSecs());
+                  sb.append(" s");
+               }
+               if ((s.getWorkers() != null) && (s.getWorkers() > 1)) {
+                  sb.append(" (x");
+                  sb.append(s.getWorkers());
+                  sb.append(" consumers)");
+               }
+               if (Boolean.TRUE.equals(s.isBackground())) {
+                  sb.append(" (background)");
+               }
+               return sb.toString();
+            }
+            if (s.getKind() != StepKind.PAUSE) {
+               if ((s.getWorkers() == null) || (s.getWorkers() <= 1)) {
+                  return String.valueOf(s.getIterations());
+               }
+               return s.getIterations() + " (x" + s.getWorkers() + " workers)";
             } else {
                return "";
             }
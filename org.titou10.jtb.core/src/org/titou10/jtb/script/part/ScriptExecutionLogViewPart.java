@@ -57,24 +57,35 @@ import org.eclipse.wb.swt.SWTResourceManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.jms.model.JTBMessageTemplate;
+import org.titou10.jtb.script.ScriptExecutionEngine;
 import org.titou10.jtb.script.ScriptStepResult;
+import org.titou10.jtb.script.ScriptStepResult.ExectionActionCode;
+import org.titou10.jtb.script.ScriptStepResult.ExectionReturnCode;
 import org.titou10.jtb.ui.dnd.DNDData;
 import org.titou10.jtb.util.Constants;
 
 /**
  * Display the execution log of a Script
  * 
+ * Lines are drained by batches from the engine. Past MAX_POST_LINES "post" lines in a run, the following ones are rolled up in one
+ * line that only shows their number
+ * 
  * @author Denis Forveille
  * 
  */
 @SuppressWarnings("restriction")
 public class ScriptExecutionLogViewPart {
 
-   private static final Logger           log           = LoggerFactory.getLogger(ScriptExecutionLogViewPart.class);
+   private static final Logger           log            = LoggerFactory.getLogger(ScriptExecutionLogViewPart.class);
+
+   private static final SimpleDateFormat SDF            = new SimpleDateFormat("HH:mm:ss.SSS");
+   private static final int              BUTTON_HEIGHT  = 20;                                                       // Hard Coded!!
+   private static final int              ROW_HEIGHT     = BUTTON_HEIGHT + 4;                                        // Hard Coded!!
+   private static final int              BATCH_SIZE     = 1000;
+   private static final int              MAX_POST_LINES = 2000;
 
-   private static final SimpleDateFormat SDF           = new SimpleDateFormat("HH:mm:ss.SSS");
-   private static final int              BUTTON_HEIGHT = 20;                                                       // Hard Coded!!
-   private static final int              ROW_HEIGHT    = BUTTON_HEIGHT + 4;                                        // Hard Coded!!
+   @Inject
+   private ScriptExecutionEngine         scriptExecutionEngine;
 
    @Inject
    private ECommandService               commandService;
@@ -93,17 +104,16 @@ public class ScriptExecutionLogViewPart {
    // Business Data
    private List<ScriptStepResult>        logExecution;
 
-   private Map<Object, Button>           buttons       = new HashMap<>();
+   private Map<Object, Button>           buttons        = new HashMap<>();
+
+   private int                           nbPostLines;
+   private ScriptStepResult              rollUpLine;
+   private RollUp                        rollUp;
 
    @Inject
    @Optional
-   public void getNotified(@UIEventTopic(Constants.EVENT_REFRESH_EXECUTION_LOG) ScriptStepResult ssr) {
-      log.debug("ScriptExecutionLogViewPart refresh");
-
-      logExecution.add(ssr);
-      tableViewer.refresh();
-      tableViewer.reveal(ssr);
-      // compositeLog.layout();
+   public void getNotified(@UIEventTopic(Constants.EVENT_REFRESH_EXECUTION_LOG) String noUse) {
+      drainLogs();
    }
 
    @Inject
@@ -123,6 +133,10 @@ public class ScriptExecutionLogViewPart {
       }
       buttons = new HashMap<Object, Button>();
 
+      nbPostLines = 0;
+      rollUpLine = null;
+      rollUp = null;
+
       tableViewer.refresh();
       compositeLog.layout();
 
@@ -137,7 +151,8 @@ public class ScriptExecutionLogViewPart {
       TableColumnLayout tcl = new TableColumnLayout();
       compositeLog.setLayout(tcl);
 
-      tableViewer = new TableViewer(compositeLog, SWT.BORDER | SWT.FULL_SELECTION | SWT.MULTI);
+      tableViewer = new TableViewer(compositeLog, SWT.BORDER | SWT.FULL_SELECTION | SWT.MULTI | SWT.VIRTUAL);
+      tableViewer.setUseHashlookup(true);
       logTable = tableViewer.getTable();
       logTable.setHeaderVisible(true);
       logTable.setLinesVisible(true);
@@ -216,11 +231,70 @@ public class ScriptExecutionLogViewPart {
       logExecution = new ArrayList<>();
       tableViewer.setContentProvider(ArrayContentProvider.getInstance());
       tableViewer.setInput(logExecution);
+
+      // Lines logged before the part was created
+      drainLogs();
    }
 
    // ------
    // Helper
    // ------
+
+   private void drainLogs() {
+      List<ScriptStepResult> batch = new ArrayList<>(BATCH_SIZE);
+      int nbDropped = scriptExecutionEngine.getExecutionLog().drainTo(batch, BATCH_SIZE);
+      log.debug("ScriptExecutionLogViewPart refresh. {} lines, {} dropped", batch.size(), nbDropped);
+
+      List<ScriptStepResult> newLines = new ArrayList<>(batch.size() + 1);
+      for (ScriptStepResult ssr : batch) {
+         if (ssr.getAction() == ExectionActionCode.SCRIPT) {
+            nbPostLines = 0;
+         }
+         if ((ssr.getAction() == ExectionActionCode.POST) && (!ssr.isAlwaysShow())) {
+            if (nbPostLines >= MAX_POST_LINES) {
+               rollUp(newLines, 1);
+               continue;
+            }
+            nbPostLines++;
+         }
+         // Lines rolled up after this one will go in a new line
+         rollUpLine = null;
+         newLines.add(ssr);
+      }
+      if (nbDropped > 0) {
+         rollUp(newLines, nbDropped);
+      }
+
+      if (!newLines.isEmpty()) {
+         logExecution.addAll(newLines);
+         tableViewer.add(newLines.toArray());
+      }
+      if (rollUpLine != null) {
+         tableViewer.update(rollUpLine, null);
+      }
+      if (!logExecution.isEmpty()) {
+         tableViewer.reveal(logExecution.get(logExecution.size() - 1));
+      }
+   }
+
+   private void rollUp(List<ScriptStepResult> newLines, int nbLines) {
+      if (rollUpLine == null) {
+         rollUp = new RollUp();
+         rollUpLine = new ScriptStepResult(ExectionActionCode.POST, ExectionReturnCode.SUCCESS, rollUp, true);
+         newLines.add(rollUpLine);
+      }
+      rollUp.nbLines += nbLines;
+   }
+
+   private static final class RollUp {
+      private int nbLines;
+
+      @Override
+      public String toString() {
+         return String.format("... %d more lines not shown", nbLines);
+      }
+   }
+
    private class LogDataColumnProvider extends ColumnLabelProvider {
 
       @Override
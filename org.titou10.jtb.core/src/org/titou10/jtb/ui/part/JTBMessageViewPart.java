@@ -16,6 +16,7 @@
  */
 package org.titou10.jtb.ui.part;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.Serializable;
 import java.io.StringWriter;
@@ -343,7 +344,15 @@ public class JTBMessageViewPart {
    private void populateFields(JTBMessage jtbMessage) throws JMSException {
 
       // Populate fields
-      Message m = jtbMessage.getJmsMessage();
+      // Large BytesMessages captured from topics are shown from the spill file, without rebuilding the message
+      byte[] spilledPayload = null;
+      try {
+         spilledPayload = jtbMessage.getSpilledPayload();
+      } catch (IOException ex) {
+         log.warn("IOException occurred when reading spilled payload: {}", ex.getMessage());
+      }
+      boolean showSpilledPayload = (spilledPayload != null) && (jtbMessage.getJtbMessageType() == JTBMessageType.BYTES);
+      Message m = showSpilledPayload ? jtbMessage.getJmsMessage() : jtbMessage.getJmsMessageWithPayload();
 
       // Properties
       Map<String, Object> properties = new TreeMap<>();
@@ -423,8 +432,6 @@ public class JTBMessageViewPart {
 
             cleanTabs(true, true, false, true);
 
-            final BytesMessage bm = (BytesMessage) m;
-
             if (tabPayloadHex == null) {
                tabPayloadHex = new TabItem(tabFolder, SWT.NONE);
 
@@ -436,13 +443,19 @@ public class JTBMessageViewPart {
                hvPayLoadHex.setBackground(SWTResourceManager.getColor(SWT.COLOR_WHITE));
             }
 
-            byte[] payloadBytes = new byte[(int) bm.getBodyLength()];
-            bm.reset();
-            bm.readBytes(payloadBytes);
-            IDataProvider idp = new BytesDataProvider(payloadBytes);
+            IDataProvider idp;
+            if (showSpilledPayload) {
+               idp = new BytesDataProvider(spilledPayload);
+            } else {
+               BytesMessage bm = (BytesMessage) m;
+               byte[] payloadBytes = new byte[(int) bm.getBodyLength()];
+               bm.reset();
+               bm.readBytes(payloadBytes);
+               idp = new BytesDataProvider(payloadBytes);
+            }
             hvPayLoadHex.setDataProvider(idp);
 
-            tabPayloadHex.setText(String.format(Constants.PAYLOAD_BYTES_TITLE, payloadBytes.length));
+            tabPayloadHex.setText(String.format(Constants.PAYLOAD_BYTES_TITLE, idp.getDataSize()));
 
             break;
 
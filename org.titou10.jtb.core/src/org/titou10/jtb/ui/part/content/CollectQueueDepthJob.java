@@ -17,11 +17,24 @@
 package org.titou10.jtb.ui.part.content;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import javax.jms.JMSException;
+import javax.jms.Session;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -41,23 +54,34 @@ import org.titou10.jtb.util.Utils;
 /**
  * Job that asynchronously collect Queue Depth data
  * 
+ * Queues are processed in parallel by a bounded pool of worker threads, each one with its own JMS session. Results are pushed
+ * to the table by batches as soon as they are available. Calls to the Q Manager are serialized unless it supports concurrent
+ * calls
+ * 
  * @author Denis Forveille
  *
  */
 public class CollectQueueDepthJob extends Job {
 
-   private static final Logger log = LoggerFactory.getLogger(CollectQueueDepthJob.class);
+   private static final Logger               log            = LoggerFactory.getLogger(CollectQueueDepthJob.class);
+
+   private static final long                 UI_FLUSH_DELAY = 200;                                                 // ms
+
+   private final UISynchronize               sync;
 
-   private final UISynchronize sync;
+   private final JTBConnection               jtbConnection;
+   private final QManager                    qm;
 
-   private final JTBConnection jtbConnection;
-   private final QManager      qm;
+   private final TableViewer                 tableViewer;
+   private final CTabItem                    tabItem;
+   private final String                      title;
 
-   private final TableViewer   tableViewer;
-   private final CTabItem      tabItem;
-   private final String        title;
+   private SortedSet<JTBQueue>               jtbQueuesFiltered;
+   private int                               nbThreads      = Constants.PREF_Q_DEPTH_NB_THREADS_DEFAULT;
 
-   private SortedSet<JTBQueue> jtbQueuesFiltered;
+   // Content of the table. Only accessed from the UI thread
+   private final List<QueueWithDepth>        rows           = new ArrayList<>();
+   private final Map<String, QueueWithDepth> rowsByName     = new HashMap<>();
 
    // ------------
    // Constructors
@@ -89,6 +113,10 @@ public class CollectQueueDepthJob extends Job {
       this.jtbQueuesFiltered = jtbQueuesFiltered;
    }
 
+   public void setNbThreads(int nbThreads) {
+      this.nbThreads = Math.max(1, nbThreads);
+   }
+
    // ------------------
    // Business Interface
    // ------------------
@@ -96,37 +124,81 @@ public class CollectQueueDepthJob extends Job {
    @Override
    protected IStatus run(IProgressMonitor monitor) {
 
-      List<QueueWithDepth> list = new ArrayList<QueueWithDepth>(jtbConnection.getJtbQueues().size());
+      SortedSet<JTBQueue> jtbQueues = jtbQueuesFiltered;
+      int nbQueues = jtbQueues.size();
+      int nbWorkers = Math.max(1, Math.min(nbThreads, nbQueues));
+      log.debug("Collecting depth of {} queues with {} threads", nbQueues, nbWorkers);
 
-      Date firstMessageTimestamp;
-      for (JTBQueue jtbQueue : jtbQueuesFiltered) {
+      // Q Managers that can read all depths in one request do it once here. The workers only read the first message timestamps
+      Map<String, Integer> depths = null;
+      if (qm.supportsBulkQueueDepths()) {
+         List<String> queueNames = jtbQueues.stream().map(JTBQueue::getName).collect(Collectors.toList());
+         depths = qm.getQueueDepths(jtbConnection.getJmsConnection(), queueNames);
+         log.debug("Bulk depths read for {} queues", depths.size());
+      }
+      Map<String, Integer> bulkDepths = depths;
 
-         try {
-            firstMessageTimestamp = jtbConnection.getFirstMessageTimestamp(jtbQueue);
-         } catch (JMSException e) {
-            firstMessageTimestamp = null;
-            log.error("JMSException occurred when calling jtbConnection.getFirstMessageTimestamp", e);
-         }
+      // Results are produced by the workers and consumed by the UI flush
+      Queue<QueueWithDepth> pending = new ConcurrentLinkedQueue<>();
 
-         list.add(new QueueWithDepth(jtbQueue,
-                                     qm.getQueueDepth(jtbConnection.getJmsConnection(), jtbQueue.getName()),
-                                     firstMessageTimestamp));
-      }
+      // One JMS session per worker thread
+      ThreadLocal<Session> workerSession = new ThreadLocal<>();
+      List<Session> workerSessions = Collections.synchronizedList(new ArrayList<>(nbWorkers));
 
-      // Update UI
-      sync.asyncExec(new Runnable() {
-         @Override
-         public void run() {
-            if (tableViewer.getControl().isDisposed()) {
-               cancel();
+      ExecutorService executor = Executors.newFixedThreadPool(nbWorkers, new WorkerThreadFactory(getName()));
+      for (JTBQueue jtbQueue : jtbQueues) {
+         executor.execute(() -> {
+            if (monitor.isCanceled()) {
                return;
             }
 
-            tableViewer.setInput(list);
-            Utils.resizeTableViewerAll(tableViewer);
-            tabItem.setText(title);
+            Session session = workerSession.get();
+            if (session == null) {
+               try {
+                  session = jtbConnection.createWorkerSession();
+                  workerSession.set(session);
+                  workerSessions.add(session);
+               } catch (JMSException e) {
+                  log.error("JMSException occurred when creating a worker session", e);
+               }
+            }
+
+            pending.add(collect(session, jtbQueue, bulkDepths));
+         });
+      }
+      executor.shutdown();
+
+      // Stream partial results to the table while the workers are running
+      int nbDone = 0;
+      try {
+         while (!executor.awaitTermination(UI_FLUSH_DELAY, TimeUnit.MILLISECONDS)) {
+            if (monitor.isCanceled()) {
+               executor.shutdownNow();
+               break;
+            }
+            nbDone += flush(pending, nbDone, nbQueues, null);
          }
-      });
+      } catch (InterruptedException e) {
+         executor.shutdownNow();
+         Thread.currentThread().interrupt();
+      } finally {
+         synchronized (workerSessions) {
+            for (Session session : workerSessions) {
+               try {
+                  session.close();
+               } catch (JMSException e) {
+                  log.warn("JMSException occurred when closing a worker session. Ignoring: {}", e.getMessage());
+               }
+            }
+         }
+      }
+
+      if (monitor.isCanceled()) {
+         return Status.CANCEL_STATUS;
+      }
+
+      // Last batch + remove queues that are not displayed anymore
+      flush(pending, nbDone, nbQueues, jtbQueues.stream().map(JTBQueue::getName).collect(Collectors.toSet()));
 
       return Status.OK_STATUS;
    }
@@ -145,4 +217,124 @@ public class CollectQueueDepthJob extends Job {
       return false;
    }
 
+   // -------
+   // Helpers
+   // -------
+
+   private QueueWithDepth collect(Session session, JTBQueue jtbQueue, Map<String, Integer> bulkDepths) {
+      Date firstMessageTimestamp = null;
+      if (session != null) {
+         try {
+            firstMessageTimestamp = jtbConnection.getFirstMessageTimestamp(session, jtbQueue);
+         } catch (JMSException e) {
+            log.error("JMSException occurred when calling jtbConnection.getFirstMessageTimestamp", e);
+         }
+      }
+
+      Integer depth;
+      if (bulkDepths == null) {
+         depth = getQueueDepth(jtbQueue);
+      } else {
+         depth = bulkDepths.get(jtbQueue.getName());
+      }
+
+      return new QueueWithDepth(jtbQueue, depth, firstMessageTimestamp);
+   }
+
+   private Integer getQueueDepth(JTBQueue jtbQueue) {
+      if (qm.supportsConcurrentQueueDepths()) {
+         return qm.getQueueDepth(jtbConnection.getJmsConnection(), jtbQueue.getName());
+      }
+
+      // Some Q Managers share one admin session/requestor per connection, that must not be used by many threads at once
+      synchronized (qm) {
+         return qm.getQueueDepth(jtbConnection.getJmsConnection(), jtbQueue.getName());
+      }
+   }
+
+   // Push the results received so far to the table and return their number. nbDone: results pushed earlier in this run
+   // queueNames is only set on the last call
+   private int flush(Queue<QueueWithDepth> pending, int nbDone, int nbQueues, Set<String> queueNames) {
+      List<QueueWithDepth> batch = new ArrayList<>();
+      QueueWithDepth qwd;
+      while ((qwd = pending.poll()) != null) {
+         batch.add(qwd);
+      }
+
+      boolean lastCall = queueNames != null;
+      if ((batch.isEmpty()) && (!lastCall)) {
+         return 0;
+      }
+
+      // On auto refresh, the table already holds the queues of the previous run
+      int nbCollected = nbDone + batch.size();
+
+      sync.asyncExec(new Runnable() {
+         @Override
+         public void run() {
+            if (tableViewer.getControl().isDisposed()) {
+               cancel();
+               return;
+            }
+
+            if (tableViewer.getInput() != rows) {
+               tableViewer.setInput(rows);
+            }
+
+            // Update existing rows in place to avoid flickering on auto refresh
+            List<QueueWithDepth> newRows = new ArrayList<>(batch.size());
+            for (QueueWithDepth qwd : batch) {
+               QueueWithDepth row = rowsByName.get(qwd.jtbQueue.getName());
+               if (row == null) {
+                  rowsByName.put(qwd.jtbQueue.getName(), qwd);
+                  rows.add(qwd);
+                  newRows.add(qwd);
+               } else {
+                  row.jtbQueue = qwd.jtbQueue;
+                  row.depth = qwd.depth;
+                  row.firstMessageTimestamp = qwd.firstMessageTimestamp;
+                  tableViewer.update(row, null);
+               }
+            }
+            if (!(newRows.isEmpty())) {
+               tableViewer.add(newRows.toArray());
+            }
+
+            if (!lastCall) {
+               tabItem.setText("(Refreshing.. " + nbCollected + "/" + nbQueues + ")");
+               return;
+            }
+
+            List<QueueWithDepth> oldRows = rows.stream().filter(r -> !queueNames.contains(r.jtbQueue.getName()))
+                     .collect(Collectors.toList());
+            if (!(oldRows.isEmpty())) {
+               rows.removeAll(oldRows);
+               oldRows.forEach(r -> rowsByName.remove(r.jtbQueue.getName()));
+               tableViewer.remove(oldRows.toArray());
+            }
+
+            // Sort again as depths may have changed
+            tableViewer.refresh();
+            Utils.resizeTableViewerAll(tableViewer);
+            tabItem.setText(title);
+         }
+      });
+      return batch.size();
+   }
+
+   private static final class WorkerThreadFactory implements ThreadFactory {
+      private final String        baseName;
+      private final AtomicInteger n = new AtomicInteger(0);
+
+      WorkerThreadFactory(String baseName) {
+         this.baseName = baseName;
+      }
+
+      @Override
+      public Thread newThread(Runnable r) {
+         Thread t = new Thread(r, baseName + " #" + n.incrementAndGet());
+         t.setDaemon(true);
+         return t;
+      }
+   }
 }
@@ -64,9 +64,9 @@ import org.eclipse.jface.viewers.StructuredSelection;
 import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.jface.viewers.TableViewerColumn;
 import org.eclipse.jface.viewers.TableViewerFocusCellManager;
+import org.eclipse.jface.viewers.ViewerCell;
 import org.eclipse.jface.window.Window;
 import org.eclipse.swt.SWT;
-import org.eclipse.swt.custom.BusyIndicator;
 import org.eclipse.swt.custom.CTabFolder;
 import org.eclipse.swt.custom.CTabItem;
 import org.eclipse.swt.dnd.DND;
@@ -104,6 +104,7 @@ import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Spinner;
 import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.swt.widgets.Text;
 import org.eclipse.wb.swt.SWTResourceManager;
 import org.slf4j.Logger;
@@ -191,7 +192,6 @@ public class JTBSessionContentViewPart {
 
    private CTabFolder           tabFolder;
 
-   private Integer              nbMessage                = 0;
 
    private IEclipseContext      windowContext;
 
@@ -711,7 +711,8 @@ public class JTBSessionContentViewPart {
          // -------------------
          // Table with Messages
          // -------------------
-         final TableViewer tableViewer = new TableViewer(composite, SWT.BORDER | SWT.FULL_SELECTION | SWT.MULTI);
+         // Virtual table : messages are read by pages when the user scrolls down
+         final TableViewer tableViewer = new TableViewer(composite, SWT.BORDER | SWT.FULL_SELECTION | SWT.MULTI | SWT.VIRTUAL);
 
          // Create Columns
          List<TableViewerColumn> cols = createColumns(tableViewer, true, cs);
@@ -813,13 +814,16 @@ public class JTBSessionContentViewPart {
                log.debug("dispose CTabItem for Queue '{}'", jtbQueueName);
                AutoRefreshJob job = td.autoRefreshJob;
                job.cancel();
+               if (td.queueBrowserJob != null) {
+                  td.queueBrowserJob.cancel();
+               }
 
                mapTabData.remove(computeCTabItemName(jtbQueue));
             }
          });
 
          // Kind of content
-         tableViewer.setContentProvider(ArrayContentProvider.getInstance());
+         tableViewer.setContentProvider(new QueueBrowserContentProvider(tableViewer));
 
          int maxMessages = ps.getInt(Constants.PREF_MAX_MESSAGES);
          spinnerMaxMessages.setSelection(maxMessages);
@@ -858,10 +862,6 @@ public class JTBSessionContentViewPart {
                        td.payloadSearchItemsHistory,
                        td.selectorsSearchTextCombo,
                        td.selectorsSearchItemsHistory);
-
-      if (ps.getBoolean(Constants.PREF_AUTO_RESIZE_COLS_BROWSER)) {
-         Utils.resizeTableViewer(td.tableViewer);
-      }
    }
 
    private void loadQueueContent(final JTBQueue jtbQueue,
@@ -891,62 +891,24 @@ public class JTBSessionContentViewPart {
          selectorsSearchTextCombo.select(0);
       }
 
-      // G
-      BusyIndicator.showWhile(Display.getCurrent(), new Runnable() {
-         @Override
-         public void run() {
-            TabData td = mapTabData.get(computeCTabItemName(jtbQueue));
-
-            int maxMessages = td.maxMessages == 0 ? Integer.MAX_VALUE : td.maxMessages;
-
-            JTBConnection jtbConnection = jtbQueue.getJtbConnection();
-            Integer depth = jtbConnection.getQm().getQueueDepth(jtbConnection.getJmsConnection(), jtbQueue.getName());
-
-            nbMessage = 0;
-
-            try {
-               List<JTBMessage> messages = new ArrayList<>(256);
-               messages = jtbQueue.getJtbConnection().browseQueue(jtbQueue, maxMessages, payloadSearchText, selectorsSearchText);
-
-               // Display # messages in tab title
-
-               Integer totalMessages = messages.size();
-               log.debug("Q Depth : {} Max : {} Nb msg to display : {}", depth, maxMessages, totalMessages);
-
-               StringBuilder sb = new StringBuilder(64);
-               sb.append(jtbQueue.getName());
-               sb.append(" (");
-               sb.append(totalMessages);
-               if (totalMessages >= maxMessages) {
-                  if (depth != null) {
-                     sb.append(" / ");
-                     sb.append(depth);
-                  } else {
-                     sb.append("+");
-                  }
-               }
-               sb.append(")");
-               CTabItem tabItem = td.tabItem;
-               tabItem.setText(sb.toString());
-
-               if (totalMessages >= maxMessages) {
-                  tabItem.setImage(SWTResourceManager.getImage(this.getClass(), "icons/error.png"));
-               } else {
-                  if (payloadSearchText.isEmpty() && selectorsSearchText.isEmpty()) {
-                     tabItem.setImage(null);
-                  } else {
-                     tabItem.setImage(SWTResourceManager.getImage(this.getClass(), "icons/filter.png"));
-                  }
-               }
-
-               tableViewer.setInput(messages);
+      // Browse the queue in the background. The previous browse, if any, is stopped
+      TabData td = mapTabData.get(computeCTabItemName(jtbQueue));
+      if (td.queueBrowserJob != null) {
+         td.queueBrowserJob.cancel();
+      }
 
-            } catch (Throwable e) {
-               jtbStatusReporter.showError("Problem while browsing queue", Utils.getCause(e), "");
-               return;
-            }
-         }
-      });
+      QueueBrowserJob job = new QueueBrowserJob(sync,
+                                                jtbStatusReporter,
+                                                jtbQueue,
+                                                td.maxMessages,
+                                                payloadSearchText,
+                                                selectorsSearchText,
+                                                tableViewer,
+                                                td.tabItem,
+                                                ps.getBoolean(Constants.PREF_AUTO_RESIZE_COLS_BROWSER));
+      ((QueueBrowserContentProvider) tableViewer.getContentProvider()).setQueueBrowserJob(job);
+      td.queueBrowserJob = job;
+      job.schedule();
    }
 
    @SuppressWarnings("unchecked")
@@ -968,6 +930,7 @@ public class JTBSessionContentViewPart {
       log.debug("clear captured messages. topic={}", jtbTopic);
 
       TabData td = mapTabData.get(computeCTabItemName(jtbTopic));
+      td.topicMessages.forEach(JTBMessage::releaseSpilledPayload);
       td.topicMessages.clear();
       td.tableViewer.refresh();
    }
@@ -985,7 +948,9 @@ public class JTBSessionContentViewPart {
 
       for (JTBMessage jtbMessage : messages) {
          log.debug("remove captured message {}", jtbMessage);
-         td.topicMessages.remove(jtbMessage);
+         if (td.topicMessages.remove(jtbMessage)) {
+            jtbMessage.releaseSpilledPayload();
+         }
       }
 
       td.tableViewer.refresh();
@@ -1095,7 +1060,7 @@ public class JTBSessionContentViewPart {
                if (td.topicMessages != null) {
                   // Clean messages table
                   while (td.topicMessages.size() > td.maxMessages) {
-                     td.topicMessages.pollLast();
+                     td.topicMessages.pollLast().releaseSpilledPayload();
                   }
                   td.tableViewer.refresh();
                }
@@ -1220,6 +1185,7 @@ public class JTBSessionContentViewPart {
                } catch (JMSException e) {
                   log.error("Exception when closing subscription", e);
                }
+               td.topicMessages.forEach(JTBMessage::releaseSpilledPayload);
                mapTabData.remove(computeCTabItemName(jtbTopic));
             }
          });
@@ -1370,7 +1336,7 @@ public class JTBSessionContentViewPart {
          // -----------
          // Search Line
          // -----------
-         GridLayout glSearch = new GridLayout(6, false);
+         GridLayout glSearch = new GridLayout(8, false);
          glSearch.marginWidth = 0;
          glSearch.marginHeight = 0;
 
@@ -1468,6 +1434,26 @@ public class JTBSessionContentViewPart {
             }
          }));
 
+         // Number of parallel requests used to collect the queues depth
+         final Label labelNbThreads = new Label(leftComposite, SWT.NONE);
+         labelNbThreads.setText("Parallel requests: ");
+         final Spinner spinnerNbThreads = new Spinner(leftComposite, SWT.BORDER);
+         spinnerNbThreads.setToolTipText("Number of queues processed in parallel when collecting the queues depth");
+         spinnerNbThreads.setMinimum(1);
+         spinnerNbThreads.setMaximum(64);
+         spinnerNbThreads.setIncrement(1);
+         spinnerNbThreads.setPageIncrement(4);
+         spinnerNbThreads.setTextLimit(2);
+         spinnerNbThreads.setSelection(ps.getQDepthNbThreads(jtbSessionName));
+         spinnerNbThreads.addSelectionListener(SelectionListener.widgetSelectedAdapter(e -> {
+            ps.setValue(ps.buildPreferenceKeyForQDepthNbThreads(jtbSessionName), spinnerNbThreads.getSelection());
+            try {
+               ps.save();
+            } catch (IOException ex) {
+               log.error("IOException when saving preferences", ex);
+            }
+         }));
+
          // ---------------------------------------
          // Table with Queue Depths + JMS Timestamp
          // ---------------------------------------
@@ -1674,6 +1660,7 @@ public class JTBSessionContentViewPart {
       if (collectQueueDepthJob.getState() != Job.RUNNING) {
          td.tabItem.setText("(Refreshing..)");
          collectQueueDepthJob.setJtbQueuesFiltered(jtbQueuesFiltered);
+         collectQueueDepthJob.setNbThreads(ps.getQDepthNbThreads(jtbSessionName));
 
          // Start the Job
          log.debug("Starting the Queue Depth data collection job.");
@@ -1714,10 +1701,11 @@ public class JTBSessionContentViewPart {
          tvcList.add(col);
          col.setLabelProvider(new ColumnLabelProvider() {
 
+            // Rows of virtual tables are not rendered in sequence
             @Override
-            public String getText(Object element) {
-               nbMessage++;
-               return nbMessage.toString();
+            public void update(ViewerCell cell) {
+               int index = tv.getTable().indexOf((TableItem) cell.getItem());
+               cell.setText(String.valueOf(index + 1));
             }
          });
       }
@@ -1797,7 +1785,6 @@ public class JTBSessionContentViewPart {
       for (TableViewerColumn c : td.tableViewerColumns) {
          c.getColumn().dispose();
       }
-      nbMessage = 0;
       td.columnsSet = cs;
       td.tableViewerColumns = createColumns(td.tableViewer, true, td.columnsSet);
       td.tableViewer.refresh();
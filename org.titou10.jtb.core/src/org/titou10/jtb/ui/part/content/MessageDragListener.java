@@ -113,17 +113,17 @@ final class MessageDragListener extends DragSourceAdapter {
 
                switch (jtbMessage.getJtbMessageType()) {
                   case TEXT:
-                     fileName = Utils.writePayloadToOS((TextMessage) jtbMessage.getJmsMessage());
+                     fileName = Utils.writePayloadToOS((TextMessage) jtbMessage.getJmsMessageWithPayload());
                      tempFileNames.add(fileName);
                      break;
 
                   case BYTES:
-                     fileName = Utils.writePayloadToOS((BytesMessage) jtbMessage.getJmsMessage());
+                     fileName = Utils.writePayloadToOS((BytesMessage) jtbMessage.getJmsMessageWithPayload());
                      tempFileNames.add(fileName);
                      break;
 
                   case MAP:
-                     fileName = Utils.writePayloadToOS((MapMessage) jtbMessage.getJmsMessage());
+                     fileName = Utils.writePayloadToOS((MapMessage) jtbMessage.getJmsMessageWithPayload());
                      tempFileNames.add(fileName);
                      break;
 
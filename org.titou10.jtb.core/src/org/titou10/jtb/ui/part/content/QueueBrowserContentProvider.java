@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2015-2020 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.ui.part.content;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jface.viewers.ILazyContentProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.titou10.jtb.jms.model.JTBMessage;
+
+/**
+ * Lazy content provider for the SWT.VIRTUAL table of browsed messages
+ *
+ * Only the rows made visible are materialized. When the user scrolls near the last message loaded so far, the next page is
+ * requested to the QueueBrowserJob that fills the list
+ *
+ * @author Denis Forveille
+ *
+ */
+final class QueueBrowserContentProvider implements ILazyContentProvider {
+
+   private final TableViewer tableViewer;
+
+   private List<JTBMessage>  messages = Collections.emptyList();
+   private QueueBrowserJob   queueBrowserJob;
+
+   // ------------
+   // Constructors
+   // ------------
+
+   QueueBrowserContentProvider(TableViewer tableViewer) {
+      this.tableViewer = tableViewer;
+   }
+
+   // ------------------
+   // Business Interface
+   // ------------------
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+      messages = newInput == null ? Collections.emptyList() : (List<JTBMessage>) newInput;
+   }
+
+   @Override
+   public void updateElement(int index) {
+      if (index >= messages.size()) {
+         return;
+      }
+      tableViewer.replace(messages.get(index), index);
+
+      // Prefetch the next page when the last quarter of the current page becomes visible
+      if ((queueBrowserJob != null) && (index >= messages.size() - (QueueBrowserJob.PAGE_SIZE / 4))) {
+         queueBrowserJob.requestNextPage();
+      }
+   }
+
+   // ---------------
+   // Getters/Setters
+   // ---------------
+
+   void setQueueBrowserJob(QueueBrowserJob queueBrowserJob) {
+      this.queueBrowserJob = queueBrowserJob;
+   }
+
+}
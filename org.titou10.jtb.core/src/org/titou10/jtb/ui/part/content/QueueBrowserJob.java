@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2015-2020 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.ui.part.content;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.e4.ui.di.UISynchronize;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.swt.custom.CTabItem;
+import org.eclipse.wb.swt.SWTResourceManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.jms.model.JTBConnection;
+import org.titou10.jtb.jms.model.JTBMessage;
+import org.titou10.jtb.jms.model.JTBQueue;
+import org.titou10.jtb.jms.model.JTBQueueBrowser;
+import org.titou10.jtb.ui.JTBStatusReporter;
+import org.titou10.jtb.util.Constants;
+import org.titou10.jtb.util.Utils;
+
+/**
+ * Job that browses a Queue incrementally
+ *
+ * The JMS QueueBrowser stays open while the job runs. Messages are pushed page by page into the virtual table and the next page
+ * is only read when the user scrolls near the end of what has been loaded so far
+ *
+ * @author Denis Forveille
+ *
+ */
+final class QueueBrowserJob extends Job {
+
+   private static final Logger       log             = LoggerFactory.getLogger(QueueBrowserJob.class);
+
+   static final int                  PAGE_SIZE       = 200;
+   private static final long         WAIT_NEXT_PAGE  = 250;                                           // ms
+
+   private final UISynchronize       sync;
+   private final JTBStatusReporter   jtbStatusReporter;
+
+   private final JTBQueue            jtbQueue;
+   private final int                 maxMessages;
+   private final String              payloadSearchText;
+   private final String              selectorsSearchText;
+
+   private final TableViewer         tableViewer;
+   private final CTabItem            tabItem;
+   private final boolean             autoResizeColumns;
+
+   // Messages loaded so far. Only accessed from the UI thread
+   private final List<JTBMessage>    messages        = new ArrayList<>(PAGE_SIZE);
+
+   private final Object              nextPageLock    = new Object();
+   private boolean                   nextPageRequested;
+   private volatile boolean          canceled;
+
+   // ------------
+   // Constructors
+   // ------------
+
+   QueueBrowserJob(UISynchronize sync,
+                   JTBStatusReporter jtbStatusReporter,
+                   JTBQueue jtbQueue,
+                   int maxMessages,
+                   String payloadSearchText,
+                   String selectorsSearchText,
+                   TableViewer tableViewer,
+                   CTabItem tabItem,
+                   boolean autoResizeColumns) {
+      super("Browse Queue " + jtbQueue.getName());
+      this.setSystem(true);
+      this.sync = sync;
+      this.jtbStatusReporter = jtbStatusReporter;
+
+      this.jtbQueue = jtbQueue;
+      this.maxMessages = maxMessages == 0 ? Integer.MAX_VALUE : maxMessages;
+      this.payloadSearchText = payloadSearchText;
+      this.selectorsSearchText = selectorsSearchText;
+
+      this.tableViewer = tableViewer;
+      this.tabItem = tabItem;
+      this.autoResizeColumns = autoResizeColumns;
+   }
+
+   // ------------------
+   // Business Interface
+   // ------------------
+
+   // Called from the UI thread when the user scrolls near the last message loaded
+   void requestNextPage() {
+      synchronized (nextPageLock) {
+         nextPageRequested = true;
+         nextPageLock.notifyAll();
+      }
+   }
+
+   @Override
+   protected IStatus run(IProgressMonitor monitor) {
+
+      JTBConnection jtbConnection = jtbQueue.getJtbConnection();
+      Integer depth = jtbConnection.getQm().getQueueDepth(jtbConnection.getJmsConnection(), jtbQueue.getName());
+
+      try (JTBQueueBrowser browser = jtbConnection.openQueueBrowser(jtbQueue, payloadSearchText, selectorsSearchText);) {
+         int nbLoaded = 0;
+         boolean firstPage = true;
+         while (!monitor.isCanceled()) {
+            List<JTBMessage> page = browser.nextPage(Math.min(PAGE_SIZE, maxMessages - nbLoaded));
+            nbLoaded += page.size();
+
+            boolean limitReached = nbLoaded >= maxMessages;
+            boolean endReached = !browser.hasMoreMessages();
+            showPage(page, firstPage, nbLoaded, depth, limitReached, endReached);
+            firstPage = false;
+
+            log.debug("Q Depth : {} Max : {} Nb msg loaded : {}", depth, maxMessages, nbLoaded);
+            if (limitReached || endReached) {
+               break;
+            }
+
+            // Wait for the user to scroll down
+            synchronized (nextPageLock) {
+               while ((!nextPageRequested) && (!monitor.isCanceled())) {
+                  nextPageLock.wait(WAIT_NEXT_PAGE);
+               }
+               nextPageRequested = false;
+            }
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      } catch (Throwable e) {
+         if (!monitor.isCanceled()) {
+            sync.asyncExec(() -> jtbStatusReporter.showError("Problem while browsing queue", Utils.getCause(e), ""));
+         }
+      }
+
+      return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+   }
+
+   @Override
+   protected void canceling() {
+      log.debug("Canceling '{}'", getName());
+      canceled = true;
+      synchronized (nextPageLock) {
+         nextPageLock.notifyAll();
+      }
+      super.canceling();
+   }
+
+   @Override
+   public boolean belongsTo(Object family) {
+      if (family instanceof String) {
+         return Constants.JTB_JOBS_FAMILY.equals(family);
+      }
+      return false;
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   private void showPage(List<JTBMessage> page,
+                         boolean firstPage,
+                         int nbLoaded,
+                         Integer depth,
+                         boolean limitReached,
+                         boolean endReached) {
+      sync.asyncExec(new Runnable() {
+         @Override
+         public void run() {
+            if (canceled) {
+               return;
+            }
+            if (tableViewer.getControl().isDisposed()) {
+               cancel();
+               return;
+            }
+
+            // The previous content stays displayed until the first page is available
+            if (firstPage) {
+               messages.addAll(page);
+               tableViewer.setInput(messages);
+            } else {
+               if (tableViewer.getInput() != messages) {
+                  // A new browse has been started
+                  cancel();
+                  return;
+               }
+               messages.addAll(page);
+            }
+            tableViewer.setItemCount(messages.size());
+
+            if (firstPage && autoResizeColumns) {
+               Utils.resizeTableViewer(tableViewer);
+            }
+
+            // Display # messages in tab title
+            StringBuilder sb = new StringBuilder(64);
+            sb.append(jtbQueue.getName());
+            sb.append(" (");
+            sb.append(nbLoaded);
+            if (!endReached) {
+               if (depth != null) {
+                  sb.append(" / ");
+                  sb.append(depth);
+               } else {
+                  sb.append("+");
+               }
+            }
+            sb.append(")");
+            tabItem.setText(sb.toString());
+
+            if (limitReached && !endReached) {
+               tabItem.setImage(SWTResourceManager.getImage(this.getClass(), "icons/error.png"));
+            } else {
+               if (payloadSearchText.isEmpty() && selectorsSearchText.isEmpty()) {
+                  tabItem.setImage(null);
+               } else {
+                  tabItem.setImage(SWTResourceManager.getImage(this.getClass(), "icons/filter.png"));
+               }
+            }
+         }
+      });
+   }
+}
@@ -61,6 +61,7 @@ final class TabData {
    // Queues specifics
    AutoRefreshJob          autoRefreshJob;
    boolean                 autoRefreshActive;
+   QueueBrowserJob         queueBrowserJob;
 
    CollectQueueDepthJob    collectQueueDepthJob;
 
@@ -16,7 +16,13 @@
  */
 package org.titou10.jtb.ui.part.content;
 
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.jms.JMSException;
 import javax.jms.Message;
@@ -25,6 +31,7 @@ import javax.jms.MessageListener;
 import org.eclipse.e4.ui.di.UISynchronize;
 import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.swt.custom.CTabItem;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.wb.swt.SWTResourceManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,23 +41,36 @@ import org.titou10.jtb.jms.model.JTBTopic;
 /**
  * MessageListener to capture messages published to a topic
  * 
+ * Messages are queued by the JMS thread and applied to the table by batches, at most every FLUSH_DELAY ms, on the UI thread
+ * 
  * @author Denis Forveille
  *
  */
 public final class TopicListener implements MessageListener {
 
-   private static final Logger     log = LoggerFactory.getLogger(TopicListener.class);
+   private static final Logger       log          = LoggerFactory.getLogger(TopicListener.class);
+
+   private static final int          FLUSH_DELAY  = 200;                                         // ms
 
-   private UISynchronize           sync;
+   private UISynchronize             sync;
 
-   private final JTBTopic          jtbTopic;
-   private final TableViewer       tableViewer;
-   private final CTabItem          tabItemTopic;
-   private final Deque<JTBMessage> messages;
-   private int                     maxSize;
-   private boolean                 selectorInUse;
+   private final JTBTopic            jtbTopic;
+   private final TableViewer         tableViewer;
+   private final CTabItem            tabItemTopic;
+   private final Deque<JTBMessage>   messages;
+   private volatile int              maxSize;
+   private boolean                   selectorInUse;
    // private Session jmsAsynchronousSession;
 
+   // Messages received and not yet displayed. Written by the JMS thread, drained by the UI thread
+   private final Queue<JTBMessage>   pending      = new ConcurrentLinkedQueue<>();
+   private final AtomicInteger       nbPending    = new AtomicInteger(0);
+   private final AtomicInteger       nbDropped    = new AtomicInteger(0);
+   private final AtomicBoolean       flushPending = new AtomicBoolean(false);
+
+   // Total number of messages dropped since the subscription started. Only accessed from the UI thread
+   private long                      totalDropped;
+
    public TopicListener(UISynchronize sync,
                         JTBTopic jtbTopic,
                         Deque<JTBMessage> messages,
@@ -78,40 +98,102 @@ public final class TopicListener implements MessageListener {
 
    @Override
    public void onMessage(final Message jmsMessage) {
-      sync.asyncExec(new Runnable() {
-         @Override
-         public void run() {
-            try {
-               log.debug("{} : Received message with id '{}'", jtbTopic, jmsMessage.getJMSMessageID());
-               messages.addFirst(new JTBMessage(jtbTopic, jmsMessage));
-               // jmsAsynchronousSession.commit();
-               if (messages.size() > maxSize) {
-                  messages.pollLast();
-                  if (!tabItemTopic.isDisposed()) {
-                     tabItemTopic.setImage(SWTResourceManager.getImage(this.getClass(), "icons/topics/warning-16.png"));
-                  }
-               } else {
-                  if (selectorInUse) {
-                     if (!tabItemTopic.isDisposed()) {
-                        tabItemTopic.setImage(SWTResourceManager.getImage(this.getClass(), "icons/filter.png"));
-                     }
-                  } else {
-                     if (!tabItemTopic.isDisposed()) {
-                        tabItemTopic.setImage(SWTResourceManager.getImage(this.getClass(), "icons/topics/play-2-16.png"));
-                     }
-                  }
-
-               }
-            } catch (JMSException e) {
-               // TODO : Notify end user?
-               log.error("Exception occurred when receiving a message", e);
-            }
-
-            // Send event to refresh list of messages
-            if (!(tableViewer.getTable().isDisposed())) {
-               tableViewer.refresh();
-            }
+      try {
+         log.debug("{} : Received message with id '{}'", jtbTopic, jmsMessage.getJMSMessageID());
+         pending.add(new JTBMessage(jtbTopic, jmsMessage, false));
+         // jmsAsynchronousSession.commit();
+      } catch (JMSException e) {
+         // TODO : Notify end user?
+         log.error("Exception occurred when receiving a message", e);
+         return;
+      }
+
+      // No need to keep more messages than what can be displayed
+      if (nbPending.incrementAndGet() > maxSize) {
+         JTBMessage dropped = pending.poll();
+         if (dropped != null) {
+            nbPending.decrementAndGet();
+            nbDropped.incrementAndGet();
+            dropped.releaseSpilledPayload();
+         }
+      }
+
+      // Only one flush scheduled at a time
+      if (flushPending.compareAndSet(false, true)) {
+         sync.asyncExec(() -> Display.getCurrent().timerExec(FLUSH_DELAY, this::flush));
+      }
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   // Called on the UI thread. Apply all the messages received since the last flush
+   private void flush() {
+      flushPending.set(false);
+
+      List<JTBMessage> batch = new ArrayList<>(nbPending.get());
+      JTBMessage jtbMessage;
+      while ((jtbMessage = pending.poll()) != null) {
+         nbPending.decrementAndGet();
+         batch.add(jtbMessage);
+      }
+      int dropped = nbDropped.getAndSet(0);
+
+      if (batch.isEmpty()) {
+         return;
+      }
+      if (tableViewer.getTable().isDisposed()) {
+         batch.forEach(JTBMessage::releaseSpilledPayload);
+         return;
+      }
+
+      // Messages are displayed newest first
+      int max = maxSize;
+      if (batch.size() > max) {
+         dropped += batch.size() - max;
+         batch.subList(0, batch.size() - max).forEach(JTBMessage::releaseSpilledPayload);
+         batch = batch.subList(batch.size() - max, batch.size());
+      }
+      List<JTBMessage> removed = new ArrayList<>();
+      for (JTBMessage m : batch) {
+         messages.addFirst(m);
+      }
+      while (messages.size() > max) {
+         JTBMessage m = messages.pollLast();
+         m.releaseSpilledPayload();
+         removed.add(m);
+      }
+      dropped += removed.size();
+
+      tableViewer.getTable().setRedraw(false);
+      try {
+         if (!removed.isEmpty()) {
+            tableViewer.remove(removed.toArray());
+         }
+         for (JTBMessage m : batch) {
+            tableViewer.insert(m, 0);
+         }
+      } finally {
+         tableViewer.getTable().setRedraw(true);
+      }
+
+      if (tabItemTopic.isDisposed()) {
+         return;
+      }
+      if (dropped > 0) {
+         totalDropped += dropped;
+         log.debug("{} : {} messages dropped. Total: {}", jtbTopic, dropped, totalDropped);
+         tabItemTopic.setImage(SWTResourceManager.getImage(this.getClass(), "icons/topics/warning-16.png"));
+         tabItemTopic.setToolTipText(totalDropped + " messages dropped as the maximum of messages displayed (" + max
+                                     + ") has been exceeded");
+      } else {
+         tabItemTopic.setToolTipText(null);
+         if (selectorInUse) {
+            tabItemTopic.setImage(SWTResourceManager.getImage(this.getClass(), "icons/filter.png"));
+         } else {
+            tabItemTopic.setImage(SWTResourceManager.getImage(this.getClass(), "icons/topics/play-2-16.png"));
          }
-      });
+      }
    }
 };
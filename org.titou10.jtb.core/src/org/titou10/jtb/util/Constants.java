@@ -103,9 +103,16 @@ public final class Constants {
    public static final String   PREF_EDIT_MESSAGE_DND                      = "message.browser.edit.message.dnd";
    public static final boolean  PREF_EDIT_MESSAGE_DND_DEFAULT              = false;
    public static final String   PREF_COLUMNSSET_DEFAULT_NAME               = "columnsset.default.name";
+   public static final String   PREF_Q_DEPTH_NB_THREADS                    = "queue.depth.nb.threads";
+   public static final int      PREF_Q_DEPTH_NB_THREADS_DEFAULT            = 4;
+   public static final String   PREF_TRANSFER_BATCH_SIZE                   = "transfer.batch.size";
+   public static final int      PREF_TRANSFER_BATCH_SIZE_DEFAULT           = 500;
+   public static final String   PREF_SESSION_POOL_SIZE                     = "connection.session.pool.size";
+   public static final int      PREF_SESSION_POOL_SIZE_DEFAULT             = 4;
 
    public static final String   PREF_COLUMNSSET_DEFAULT_DEST_PREFIX        = "columnsset.default.dest.prefix.";
    public static final String   PREF_Q_DEPTH_FILTER_KEY_PREFIX             = "jtb.queue.depth.filter.";
+   public static final String   PREF_Q_DEPTH_NB_THREADS_KEY_PREFIX         = "jtb.queue.depth.nbthreads.";
 
    public static final String   PREF_SESSION_TYPE_BASE                     = "sessionttype.";
    public static final String   PREF_SESSION_TYPE_PREFIX                   = PREF_SESSION_TYPE_BASE + "definition.";
@@ -232,6 +239,7 @@ public final class Constants {
    public static final String   COMMAND_SCRIPT_NEWSTEP_PARAM               = BASE + "script.newstep.parameter.mode";
    public static final String   COMMAND_SCRIPT_NEWSTEP_STEP                = "step";
    public static final String   COMMAND_SCRIPT_NEWSTEP_PAUSE               = "pause";
+   public static final String   COMMAND_SCRIPT_NEWSTEP_CONSUME             = "consume";
    public static final String   COMMAND_SCRIPT_NEWSTEP_EDIT                = "edit";
 
    public static final String   COMMAND_SCRIPT_NEWDF                       = BASE_COMMAND + "script.newdatafile";
@@ -46,7 +46,6 @@ import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.core.filesystem.URIUtil;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.Platform;
 import org.eclipse.e4.ui.model.application.ui.menu.MMenuItem;
 import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.swt.SWT;
@@ -73,7 +72,7 @@ public final class Utils {
    private static final int     EXT_LENGTH                = Constants.JTB_TEMPLATE_FILE_EXTENSION.length();
 
    private static final String  TMP_DIR                   = System.getProperty("java.io.tmpdir");
-   private static final boolean IS_WINDOWS                = Platform.getOS().startsWith("win");
+   private static final boolean IS_WINDOWS                = System.getProperty("os.name", "").toLowerCase().startsWith("win");
 
    private static final Long    LONG_ZERO                 = Long.valueOf(0L);
 
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.variable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.titou10.jtb.variable.gen.Variable;
+
+/**
+ *
+ * Text with variables "${name}" parsed once into literal segments and variable slots
+ *
+ * Each call to render() resolves the variables once and builds the text in a StringBuilder reused by the calling thread. A
+ * variable present more than once in the text gets the same value. Instances are immutable and can be shared between threads
+ *
+ * As before, template variables present in the values of the data file or global variables are resolved too, with the same
+ * values as in the rest of the text
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class CompiledTemplate {
+
+   private static final String                     VAR_START = "${";
+   private static final char                       VAR_END   = '}';
+
+   private static final ThreadLocal<StringBuilder> BUFFERS   = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+   private final VariablesManager                  variablesManager;
+   private final Map<String, Variable>             templateVariables;
+   private final String                            text;
+
+   // literals[i] is the text before slot i. The last literal is the text after the last slot
+   private final String[]                          literals;
+   private final int[]                             slots;
+
+   // Distinct names used in the text. variables[i] is null when the value comes from the map passed to render()
+   private final String[]                          names;
+   private final Variable[]                        variables;
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   CompiledTemplate(VariablesManager variablesManager,
+                    String text,
+                    Map<String, Variable> templateVariables,
+                    Collection<String> valueNames) {
+      this.variablesManager = variablesManager;
+      this.templateVariables = templateVariables;
+      this.text = text;
+
+      List<String> literalList = new ArrayList<>();
+      List<Integer> slotList = new ArrayList<>();
+      List<String> nameList = new ArrayList<>();
+      List<Variable> variableList = new ArrayList<>();
+
+      if (text != null) {
+         StringBuilder literal = new StringBuilder(text.length());
+         int pos = 0;
+         while (true) {
+            int start = text.indexOf(VAR_START, pos);
+            int end = start < 0 ? -1 : text.indexOf(VAR_END, start + VAR_START.length());
+            if (end < 0) {
+               literal.append(text, pos, text.length());
+               break;
+            }
+
+            String name = text.substring(start + VAR_START.length(), end);
+            boolean isValue = valueNames.contains(name);
+            Variable variable = isValue ? null : templateVariables.get(name);
+            if ((!isValue) && (variable == null)) {
+               // Not a known variable, kept as is
+               literal.append(text, pos, end + 1);
+               pos = end + 1;
+               continue;
+            }
+
+            literal.append(text, pos, start);
+            literalList.add(literal.toString());
+            literal.setLength(0);
+
+            int index = nameList.indexOf(name);
+            if (index < 0) {
+               index = nameList.size();
+               nameList.add(name);
+               variableList.add(variable);
+            }
+            slotList.add(index);
+            pos = end + 1;
+         }
+         literalList.add(literal.toString());
+      }
+
+      this.literals = literalList.toArray(new String[literalList.size()]);
+      this.slots = slotList.stream().mapToInt(Integer::intValue).toArray();
+      this.names = nameList.toArray(new String[nameList.size()]);
+      this.variables = variableList.toArray(new Variable[variableList.size()]);
+   }
+
+   // ------------------------
+   // Business Interface
+   // ------------------------
+
+   // True if the text does not contain any variable
+   public boolean isConstant() {
+      return slots.length == 0;
+   }
+
+   public String getText() {
+      return text;
+   }
+
+   // Build the text with new values for the variables. "values" holds the values of the data file or global variables
+   public String render(Map<String, String> values) {
+      if (isConstant()) {
+         return text;
+      }
+
+      String[] resolved = new String[names.length];
+      boolean nestedVariables = false;
+      for (int i = 0; i < names.length; i++) {
+         if (variables[i] == null) {
+            String value = values.get(names[i]);
+            resolved[i] = value == null ? VAR_START + names[i] + VAR_END : value;
+            nestedVariables |= (!templateVariables.isEmpty()) && resolved[i].contains(VAR_START);
+         }
+      }
+
+      // Some values hold variables: insert the values first, then resolve the template variables over the result
+      if (nestedVariables) {
+         for (int i = 0; i < names.length; i++) {
+            if (variables[i] != null) {
+               resolved[i] = VAR_START + names[i] + VAR_END;
+            }
+         }
+         String withValues = build(resolved);
+         return new CompiledTemplate(variablesManager, withValues, templateVariables, Collections.emptySet())
+                  .render(Collections.emptyMap());
+      }
+
+      ThreadLocalRandom r = ThreadLocalRandom.current();
+      for (int i = 0; i < names.length; i++) {
+         if (variables[i] != null) {
+            resolved[i] = variablesManager.resolveVariable(r, variables[i]);
+         }
+      }
+      return build(resolved);
+   }
+
+   // ------------------------
+   // Helpers
+   // ------------------------
+
+   private String build(String[] resolved) {
+      StringBuilder sb = BUFFERS.get();
+      sb.setLength(0);
+      for (int i = 0; i < slots.length; i++) {
+         sb.append(literals[i]);
+         sb.append(resolved[slots[i]]);
+      }
+      sb.append(literals[slots.length]);
+      return sb.toString();
+   }
+}
@@ -25,13 +25,14 @@ import java.io.UnsupportedEncodingException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Random;
 
 import javax.annotation.PostConstruct;
@@ -92,6 +93,9 @@ public class VariablesManager {
 
    public static final VariableComparator VARIABLE_COMPARATOR    = new VariableComparator();
 
+   // SimpleDateFormat is not thread safe and costly to build. Date variables patterns use its syntax
+   private static final ThreadLocal<Map<String, SimpleDateFormat>> DATE_FORMATS = ThreadLocal.withInitial(HashMap::new);
+
    @Inject
    private ConfigManager                  cm;
 
@@ -187,52 +191,35 @@ public class VariablesManager {
    // Variables Helper
    // ---------------------------
 
+   // Replace the variables whose values are given in the map (data file or global variables)
    public String replaceDataFileVariables(Map<String, String> dataFileVariables, String originalText) {
       if (Utils.isEmpty(originalText)) {
          return originalText;
       }
-
-      String res = originalText;
-
-      for (Entry<String, String> e : dataFileVariables.entrySet()) {
-         String v = buildVariableReplaceName(e.getKey());
-         res = res.replaceAll(v, e.getValue());
-      }
-
-      return res;
+      return new CompiledTemplate(this, originalText, Collections.emptyMap(), dataFileVariables.keySet()).render(dataFileVariables);
    }
 
    public String replaceTemplateVariables(String originalText) {
       if (Utils.isEmpty(originalText)) {
          return originalText;
       }
+      return compileTemplate(originalText, Collections.emptySet()).render(Collections.emptyMap());
+   }
 
-      StringBuilder tag1 = new StringBuilder(64);
-      StringBuilder tag2 = new StringBuilder(64);
-      Random r = new Random(System.nanoTime());
-
-      String res = originalText;
-
-      // For each possible variable
+   // Parse a text once for repeated renderings. valueNames are the names of the variables whose values are passed to render()
+   public CompiledTemplate compileTemplate(String text, Collection<String> valueNames) {
+      Map<String, Variable> templateVariables = new HashMap<>(variables.size());
       for (Variable v : variables) {
-         tag2.setLength(0);
-         tag2.append(buildVariableDisplayName(v));
-
-         if (res.contains(tag2)) {
-            tag1.setLength(0);
-            tag1.append(buildVariableReplaceName(v.getName()));
-            String val = resolveVariable(r, v);
-            res = res.replaceAll(tag1.toString(), val);
-         }
+         templateVariables.put(v.getName(), v);
       }
-      return res;
+      return new CompiledTemplate(this, text, templateVariables, valueNames);
    }
 
    public String resolveVariable(Random r, Variable variable) {
 
       switch (variable.getKind()) {
          case DATE:
-            SimpleDateFormat sdf = new SimpleDateFormat(variable.getDateTimePattern());
+            SimpleDateFormat sdf = DATE_FORMATS.get().computeIfAbsent(variable.getDateTimePattern(), SimpleDateFormat::new);
             switch (variable.getDateTimeKind()) {
                case STANDARD:
                   return sdf.format(new Date());
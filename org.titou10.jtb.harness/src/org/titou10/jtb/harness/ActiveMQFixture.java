@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.harness;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.broker.jmx.ManagementContext;
+import org.apache.activemq.command.ActiveMQDestination;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.apache.activemq.command.ActiveMQTopic;
+import org.titou10.jtb.config.gen.SessionDef;
+import org.titou10.jtb.jms.qm.QManager;
+import org.titou10.jtb.qm.activemq.ActiveMQQManager;
+
+/**
+ *
+ * Apache ActiveMQ 5 broker with an OpenWire connector and a JMX connector, as used by ActiveMQQManager
+ *
+ * @author Denis Forveille
+ *
+ */
+final class ActiveMQFixture extends BrokerFixture {
+
+   private BrokerService broker;
+   private int           jmsPort;
+   private int           jmxPort;
+
+   @Override
+   String getName() {
+      return "Apache ActiveMQ";
+   }
+
+   @Override
+   void start(List<String> queueNames, List<String> topicNames) throws Exception {
+      jmsPort = freePort();
+      jmxPort = freePort();
+
+      List<ActiveMQDestination> destinations = new ArrayList<>(queueNames.size() + topicNames.size());
+      for (String queueName : queueNames) {
+         destinations.add(new ActiveMQQueue(queueName));
+      }
+      for (String topicName : topicNames) {
+         destinations.add(new ActiveMQTopic(topicName));
+      }
+
+      broker = new BrokerService();
+      broker.setBrokerName("jtb-harness");
+      broker.setPersistent(false);
+      broker.setUseShutdownHook(false);
+      broker.setDestinations(destinations.toArray(new ActiveMQDestination[destinations.size()]));
+      broker.addConnector("tcp://localhost:" + jmsPort);
+
+      broker.setUseJmx(true);
+      ManagementContext managementContext = broker.getManagementContext();
+      managementContext.setCreateConnector(true);
+      managementContext.setConnectorPort(jmxPort);
+
+      broker.start();
+      broker.waitUntilStarted();
+   }
+
+   @Override
+   void stop() throws Exception {
+      broker.stop();
+      broker.waitUntilStopped();
+   }
+
+   @Override
+   QManager createQManager() {
+      return new ActiveMQQManager();
+   }
+
+   // Host/port of the session are those of the JMX connector
+   @Override
+   SessionDef createSessionDef() {
+      SessionDef sessionDef = buildSessionDef("localhost", jmxPort);
+      addProperty(sessionDef, "brokerURL", "tcp://localhost:" + jmsPort);
+      addProperty(sessionDef, "useJMX", "true");
+      return sessionDef;
+   }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.harness;
+
+import java.util.List;
+
+import org.apache.activemq.artemis.api.core.QueueConfiguration;
+import org.apache.activemq.artemis.api.core.RoutingType;
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.CoreAddressConfiguration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.titou10.jtb.config.gen.SessionDef;
+import org.titou10.jtb.jms.qm.QManager;
+import org.titou10.jtb.qm.artemis2.ActiveMQArtemis2QManager;
+
+/**
+ *
+ * Apache ActiveMQ Artemis 2 broker with a netty acceptor. ActiveMQArtemis2QManager manages it through its management address
+ *
+ * @author Denis Forveille
+ *
+ */
+final class Artemis2Fixture extends BrokerFixture {
+
+   private EmbeddedActiveMQ broker;
+   private int              port;
+
+   @Override
+   String getName() {
+      return "Apache ActiveMQ Artemis 2";
+   }
+
+   @Override
+   void start(List<String> queueNames, List<String> topicNames) throws Exception {
+      port = freePort();
+
+      Configuration config = new ConfigurationImpl();
+      config.setPersistenceEnabled(false);
+      config.setSecurityEnabled(false);
+      config.setJMXManagementEnabled(false);
+      config.addAcceptorConfiguration("netty", "tcp://localhost:" + port);
+
+      for (String queueName : queueNames) {
+         config.addQueueConfiguration(new QueueConfiguration(queueName).setAddress(queueName).setRoutingType(RoutingType.ANYCAST));
+      }
+      for (String topicName : topicNames) {
+         config.addAddressConfiguration(new CoreAddressConfiguration().setName(topicName).addRoutingType(RoutingType.MULTICAST));
+      }
+
+      broker = new EmbeddedActiveMQ();
+      broker.setConfiguration(config);
+      broker.start();
+   }
+
+   @Override
+   void stop() throws Exception {
+      broker.stop();
+   }
+
+   @Override
+   QManager createQManager() {
+      return new ActiveMQArtemis2QManager();
+   }
+
+   @Override
+   SessionDef createSessionDef() {
+      return buildSessionDef("localhost", port);
+   }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.harness;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.List;
+
+import org.titou10.jtb.config.gen.Properties;
+import org.titou10.jtb.config.gen.SessionDef;
+import org.titou10.jtb.jms.qm.QManager;
+
+/**
+ *
+ * A broker started in process, with its destinations, and the Q Manager plugin used to reach it
+ *
+ * @author Denis Forveille
+ *
+ */
+abstract class BrokerFixture {
+
+   // ------------------------
+   // Fixture Contract
+   // ------------------------
+
+   // Name of the plugin in the report
+   abstract String getName();
+
+   abstract void start(List<String> queueNames, List<String> topicNames) throws Exception;
+
+   abstract void stop() throws Exception;
+
+   // Real Q Manager of the plugin
+   abstract QManager createQManager();
+
+   // Session definition of the plugin pointing to the broker
+   abstract SessionDef createSessionDef();
+
+   // ------------------------
+   // Helpers
+   // ------------------------
+
+   static int freePort() throws IOException {
+      try (ServerSocket s = new ServerSocket(0);) {
+         return s.getLocalPort();
+      }
+   }
+
+   SessionDef buildSessionDef(String host, int port) {
+      SessionDef sessionDef = new SessionDef();
+      sessionDef.setName(getName());
+      sessionDef.setHost(host);
+      sessionDef.setPort(port);
+      sessionDef.setProperties(new Properties());
+      return sessionDef;
+   }
+
+   void addProperty(SessionDef sessionDef, String name, String value) {
+      Properties.Property property = new Properties.Property();
+      property.setName(name);
+      property.setValue(value, false);
+      sessionDef.getProperties().getProperty().add(property);
+   }
+}
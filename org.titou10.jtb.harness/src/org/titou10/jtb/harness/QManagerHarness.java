@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.harness;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.jms.Connection;
+import javax.jms.TextMessage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.config.JTBPreferenceStore;
+import org.titou10.jtb.config.gen.SessionDef;
+import org.titou10.jtb.jms.model.JTBConnection;
+import org.titou10.jtb.jms.model.JTBMessage;
+import org.titou10.jtb.jms.model.JTBMessageType;
+import org.titou10.jtb.jms.model.JTBQueue;
+import org.titou10.jtb.jms.model.JTBSessionClientType;
+import org.titou10.jtb.jms.qm.DestinationData;
+import org.titou10.jtb.jms.qm.QManager;
+import org.titou10.jtb.util.Constants;
+
+/**
+ *
+ * Starts each broker in process with thousands of destinations, then times the operations of the real Q Manager plugin:
+ * connect, discoverDestinations, getQueueDepth(s), getQueueInformation, send and browse
+ *
+ * Parameters are system properties: harness.queues, harness.topics, harness.messages, harness.plugins (activemq,artemis2) and
+ * harness.report (csv file)
+ *
+ * HornetQ is not part of the harness: its server needs an older netty than Artemis and both can not share a classpath
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class QManagerHarness {
+
+   private static final Logger log              = LoggerFactory.getLogger(QManagerHarness.class);
+
+   private static final String QUEUE_PREFIX     = "JTB.HARNESS.Q.";
+   private static final String TOPIC_PREFIX     = "JTB.HARNESS.T.";
+   private static final int    NB_QUEUES_INFO   = 100;
+
+   private final int           nbQueues;
+   private final int           nbTopics;
+   private final int           nbMessages;
+
+   private final List<String>  queueNames;
+   private final List<String>  topicNames;
+
+   private final TimingReport  report;
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   private QManagerHarness(int nbQueues, int nbTopics, int nbMessages) {
+      this.nbQueues = nbQueues;
+      this.nbTopics = nbTopics;
+      this.nbMessages = nbMessages;
+
+      this.queueNames = buildNames(QUEUE_PREFIX, nbQueues);
+      this.topicNames = buildNames(TOPIC_PREFIX, nbTopics);
+
+      this.report = new TimingReport(String.format("Q Manager plugins: %d queues, %d topics, %d messages",
+                                                   nbQueues,
+                                                   nbTopics,
+                                                   nbMessages));
+   }
+
+   // ------------------------
+   // Main
+   // ------------------------
+
+   public static void main(String[] args) throws Exception {
+      int nbQueues = Integer.getInteger("harness.queues", 2000);
+      int nbTopics = Integer.getInteger("harness.topics", 500);
+      int nbMessages = Integer.getInteger("harness.messages", 1000);
+      String plugins = System.getProperty("harness.plugins", "activemq,artemis2");
+      String reportFileName = System.getProperty("harness.report");
+
+      QManagerHarness harness = new QManagerHarness(nbQueues, nbTopics, nbMessages);
+
+      List<String> failures = new ArrayList<>();
+      for (String plugin : plugins.split(",")) {
+         BrokerFixture fixture = buildFixture(plugin.trim());
+         try {
+            harness.run(fixture);
+         } catch (Exception e) {
+            log.error("Harness failed for '{}'", fixture.getName(), e);
+            failures.add(fixture.getName());
+         }
+      }
+
+      harness.report.print(System.out);
+      if (reportFileName != null) {
+         harness.report.writeCsv(Paths.get(reportFileName));
+         log.info("Report written in {}", reportFileName);
+      }
+
+      if (!failures.isEmpty()) {
+         throw new IllegalStateException("Harness failed for " + failures);
+      }
+   }
+
+   // ------------------------
+   // Helpers
+   // ------------------------
+
+   private static BrokerFixture buildFixture(String plugin) {
+      switch (plugin) {
+         case "activemq":
+            return new ActiveMQFixture();
+         case "artemis2":
+            return new Artemis2Fixture();
+         default:
+            throw new IllegalArgumentException("Unknown plugin '" + plugin + "'. Supported plugins: activemq, artemis2");
+      }
+   }
+
+   private static List<String> buildNames(String prefix, int nb) {
+      List<String> names = new ArrayList<>(nb);
+      for (int i = 0; i < nb; i++) {
+         names.add(String.format("%s%05d", prefix, i));
+      }
+      return names;
+   }
+
+   private void run(BrokerFixture fixture) throws Exception {
+      String name = fixture.getName();
+      log.info("Starting '{}' with {} queues and {} topics", name, nbQueues, nbTopics);
+
+      long start = System.nanoTime();
+      fixture.start(queueNames, topicNames);
+      report.add(name, "start broker", 1, System.nanoTime() - start);
+
+      try {
+         QManager qm = fixture.createQManager();
+         SessionDef sessionDef = fixture.createSessionDef();
+
+         // Connection and discovery, straight through the Q Manager
+         start = System.nanoTime();
+         Connection jmsConnection = qm.connect(sessionDef, false, "JTBHarness");
+         report.add(name, "connect", 1, System.nanoTime() - start);
+
+         start = System.nanoTime();
+         DestinationData dd = qm.discoverDestinations(jmsConnection, false);
+         report.add(name, "discoverDestinations", 1, System.nanoTime() - start);
+
+         qm.close(jmsConnection);
+
+         int nbQueuesFound = dd.getListQueueData().size();
+         int nbTopicsFound = dd.getListTopicData().size();
+         if ((nbQueuesFound < nbQueues) || (nbTopicsFound < nbTopics)) {
+            throw new IllegalStateException(String.format("%d queues and %d topics discovered. Expected at least %d queues and %d topics",
+                                                          nbQueuesFound,
+                                                          nbTopicsFound,
+                                                          nbQueues,
+                                                          nbTopics));
+         }
+
+         // Other operations, as used by the application
+         JTBPreferenceStore ps = new JTBPreferenceStore();
+         ps.setValue(Constants.PREF_CONN_CLIENT_ID_PREFIX, "JTBHarness");
+         ps.setValue(Constants.PREF_SESSION_POOL_SIZE, Constants.PREF_SESSION_POOL_SIZE_DEFAULT);
+
+         JTBConnection jtbConnection = new JTBConnection(ps, JTBSessionClientType.SCRIPT_EXEC, sessionDef, qm, null);
+         jtbConnection.connect();
+         try {
+            runOperations(name, qm, jtbConnection);
+         } finally {
+            jtbConnection.disconnect();
+         }
+
+      } finally {
+         fixture.stop();
+      }
+   }
+
+   private void runOperations(String name, QManager qm, JTBConnection jtbConnection) throws Exception {
+      Connection jmsConnection = jtbConnection.getJmsConnection();
+
+      long start = System.nanoTime();
+      for (String queueName : queueNames) {
+         qm.getQueueDepth(jmsConnection, queueName);
+      }
+      report.add(name, "getQueueDepth", nbQueues, System.nanoTime() - start);
+
+      if (qm.supportsBulkQueueDepths()) {
+         start = System.nanoTime();
+         Map<String, Integer> depths = qm.getQueueDepths(jmsConnection, queueNames);
+         report.add(name, "getQueueDepths (bulk)", depths.size(), System.nanoTime() - start);
+      }
+
+      int nbInfo = Math.min(NB_QUEUES_INFO, nbQueues);
+      start = System.nanoTime();
+      for (String queueName : queueNames.subList(0, nbInfo)) {
+         qm.getQueueInformation(jmsConnection, queueName);
+      }
+      report.add(name, "getQueueInformation", nbInfo, System.nanoTime() - start);
+
+      // Send then browse the messages of the first queue. Each message is sent in its own transaction
+      JTBQueue jtbQueue = (JTBQueue) jtbConnection.getJTBDestinationByName(queueNames.get(0));
+      String payload = buildPayload();
+
+      start = System.nanoTime();
+      for (int i = 0; i < nbMessages; i++) {
+         TextMessage message = (TextMessage) jtbConnection.createJMSMessage(JTBMessageType.TEXT);
+         message.setText(payload);
+         message.setIntProperty("sequence", i);
+         jtbConnection.sendMessage(new JTBMessage(jtbQueue, message));
+      }
+      report.add(name, "send", nbMessages, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      List<JTBMessage> messages = jtbConnection.browseQueue(jtbQueue, 0);
+      report.add(name, "browse", messages.size(), System.nanoTime() - start);
+
+      if (messages.size() != nbMessages) {
+         throw new IllegalStateException(String.format("%d messages browsed. Expected %d", messages.size(), nbMessages));
+      }
+   }
+
+   private static String buildPayload() {
+      StringBuilder sb = new StringBuilder(1024);
+      while (sb.length() < 1000) {
+         sb.append("JMSToolBox harness payload. ");
+      }
+      return sb.toString();
+   }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.harness;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ *
+ * Timings of the operations of each Q Manager plugin
+ *
+ * Printed as a table per plugin, and written as a csv file with one line per plugin and operation
+ *
+ * @author Denis Forveille
+ *
+ */
+final class TimingReport {
+
+   private static final String CSV_HEADER   = "plugin,operation,calls,totalMs,perCallMicros,perSecond";
+   private static final String TABLE_HEADER = "%-24s %8s %12s %16s %14s%n";
+   private static final String TABLE_LINE   = "%-24s %8d %12.1f %16.1f %14.1f%n";
+
+   private final String        title;
+   private final List<Timing>  timings      = new ArrayList<>();
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   TimingReport(String title) {
+      this.title = title;
+   }
+
+   // ------------------------
+   // Business Interface
+   // ------------------------
+
+   void add(String plugin, String operation, int calls, long elapsedNanos) {
+      timings.add(new Timing(plugin, operation, calls, elapsedNanos));
+   }
+
+   void print(PrintStream out) {
+      out.println();
+      out.println(title);
+      String plugin = null;
+      for (Timing t : timings) {
+         if (!t.plugin.equals(plugin)) {
+            plugin = t.plugin;
+            out.println();
+            out.println(plugin);
+            out.printf(TABLE_HEADER, "Operation", "Calls", "Total (ms)", "Per call (us)", "Per second");
+         }
+         out.printf(Locale.ROOT, TABLE_LINE, t.operation, t.calls, t.getTotalMs(), t.getPerCallMicros(), t.getPerSecond());
+      }
+      out.println();
+   }
+
+   void writeCsv(Path path) throws IOException {
+      List<String> lines = new ArrayList<>(timings.size() + 1);
+      lines.add(CSV_HEADER);
+      for (Timing t : timings) {
+         lines.add(String.format(Locale.ROOT,
+                                 "%s,%s,%d,%.3f,%.3f,%.3f",
+                                 t.plugin,
+                                 t.operation,
+                                 t.calls,
+                                 t.getTotalMs(),
+                                 t.getPerCallMicros(),
+                                 t.getPerSecond()));
+      }
+      if (path.getParent() != null) {
+         Files.createDirectories(path.getParent());
+      }
+      Files.write(path, lines, StandardCharsets.UTF_8);
+   }
+
+   // ------------------------
+   // Timing of one operation
+   // ------------------------
+
+   private static final class Timing {
+      private final String plugin;
+      private final String operation;
+      private final int    calls;
+      private final long   elapsedNanos;
+
+      private Timing(String plugin, String operation, int calls, long elapsedNanos) {
+         this.plugin = plugin;
+         this.operation = operation;
+         this.calls = calls;
+         this.elapsedNanos = elapsedNanos;
+      }
+
+      private double getTotalMs() {
+         return elapsedNanos / 1_000_000d;
+      }
+
+      private double getPerCallMicros() {
+         return calls == 0 ? 0 : elapsedNanos / 1_000d / calls;
+      }
+
+      private double getPerSecond() {
+         return elapsedNanos == 0 ? 0 : calls * 1_000_000_000d / elapsedNanos;
+      }
+   }
+}
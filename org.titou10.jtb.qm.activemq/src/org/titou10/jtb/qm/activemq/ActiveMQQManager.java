@@ -476,6 +476,34 @@ public class ActiveMQQManager extends QManager {
       return depth;
    }
 
+   @Override
+   public boolean supportsConcurrentQueueDepths() {
+      // JMX connections are thread-safe
+      return true;
+   }
+
+   @Override
+   public boolean purgeQueue(Connection jmsConnection, String queueName) throws Exception {
+
+      SessionInfo sessionInfo = sessionsInfo.get(jmsConnection.hashCode());
+
+      if (!sessionInfo.isUseJMX()) {
+         // No JMX. The messages will be consumed
+         return false;
+      }
+
+      MBeanServerConnection mbsc = sessionInfo.getMbsc();
+      boolean legacy = sessionInfo.isUseLegacys();
+
+      ObjectName on = new ObjectName(String.format(legacy ? JMX_QUEUE_LEGACY : JMX_QUEUE, queueName));
+      Set<ObjectName> attributesSet = mbsc.queryNames(on, null);
+      if ((attributesSet == null) || (attributesSet.isEmpty())) {
+         return false;
+      }
+      mbsc.invoke(attributesSet.iterator().next(), "purge", null, null);
+      return true;
+   }
+
    @Override
    public Map<String, Object> getQueueInformation(Connection jmsConnection, String queueName) {
 
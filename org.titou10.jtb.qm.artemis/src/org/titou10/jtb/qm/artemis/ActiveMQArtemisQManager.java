@@ -269,6 +269,18 @@ public class ActiveMQArtemisQManager extends QManager {
       return n == null ? null : n.intValue();
    }
 
+   @Override
+   public boolean purgeQueue(Connection jmsConnection, String queueName) throws Exception {
+      Integer hash = jmsConnection.hashCode();
+      QueueRequestor requestorJMS = requestorJMSs.get(hash);
+      Session sessionJMS = sessionJMSs.get(hash);
+
+      // An empty filter selects all the messages
+      Object n = sendAdminOperation(sessionJMS, requestorJMS, ResourceNames.JMS_QUEUE + queueName, "removeMessages", "");
+      log.debug("removeMessages on '{}' : {} messages removed", queueName, n);
+      return true;
+   }
+
    @Override
    public Map<String, Object> getQueueInformation(Connection jmsConnection, String queueName) {
 
@@ -395,6 +407,23 @@ public class ActiveMQArtemisQManager extends QManager {
       }
    }
 
+   private Object sendAdminOperation(Session sessionJMS,
+                                     QueueRequestor requestorJMS,
+                                     String resourceName,
+                                     String operationName,
+                                     Object... parameters) throws Exception {
+      Message m = sessionJMS.createMessage();
+      JMSManagementHelper.putOperationInvocation(m, resourceName, operationName, parameters);
+      Message r = requestorJMS.request(m);
+
+      if (JMSManagementHelper.hasOperationSucceeded(r)) {
+         return JMSManagementHelper.getResult(r);
+      } else {
+         Object resp = JMSManagementHelper.getResult(r);
+         throw new Exception(resp == null ? operationName + " failed" : resp.toString());
+      }
+   }
+
    private <T> T samNull(Class<T> clazz, Session sessionJMS, QueueRequestor requestorJMS, String resourceName, String methodName) {
       try {
          return sendAdminMessage(clazz, sessionJMS, requestorJMS, resourceName, methodName);
@@ -389,6 +389,17 @@ public class ActiveMQArtemis2QManager extends QManager {
       return n == null ? null : n.intValue();
    }
 
+   @Override
+   public boolean purgeQueue(Connection jmsConnection, String queueName) throws Exception {
+      Integer hash = jmsConnection.hashCode();
+      QueueRequestor requestorJMS = requestorJMSs.get(hash);
+      Session sessionJMS = sessionJMSs.get(hash);
+
+      Object n = sendAdminOperation(sessionJMS, requestorJMS, ResourceNames.QUEUE + queueName, "removeAllMessages");
+      log.debug("removeAllMessages on '{}' : {} messages removed", queueName, n);
+      return true;
+   }
+
    @Override
    public Map<String, Object> getQueueInformation(Connection jmsConnection, String queueName) {
 
@@ -546,6 +557,23 @@ public class ActiveMQArtemis2QManager extends QManager {
       return (T) JMSManagementHelper.getResult(r);
    }
 
+   private Object sendAdminOperation(Session sessionJMS,
+                                     QueueRequestor requestorJMS,
+                                     String resourceName,
+                                     String operationName,
+                                     Object... parameters) throws Exception {
+      Message m = sessionJMS.createMessage();
+      JMSManagementHelper.putOperationInvocation(m, resourceName, operationName, parameters);
+      Message r = requestorJMS.request(m);
+
+      if (JMSManagementHelper.hasOperationSucceeded(r)) {
+         return JMSManagementHelper.getResult(r);
+      } else {
+         Object resp = JMSManagementHelper.getResult(r);
+         throw new Exception(resp == null ? operationName + " failed" : resp.toString());
+      }
+   }
+
    private <T> T samNull(Class<T> clazz, Session sessionJMS, QueueRequestor requestorJMS, String resourceName, String methodName) {
       try {
          return sendAdminMessage(clazz, sessionJMS, requestorJMS, resourceName, methodName);
@@ -20,11 +20,14 @@ import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
@@ -469,6 +472,61 @@ public class MQQManager extends QManager {
       return depth;
    }
 
+   @Override
+   public boolean supportsBulkQueueDepths() {
+      return true;
+   }
+
+   @Override
+   public Map<String, Integer> getQueueDepths(Connection jmsConnection, Collection<String> queueNames) {
+
+      Integer hash = jmsConnection.hashCode();
+      PCFMessageAgent agent = mqAgents.get(hash);
+
+      // One INQUIRE_Q_STATUS for all the queues instead of one MQOPEN/MQINQ/MQCLOSE per queue
+      Set<String> names = new HashSet<>(queueNames);
+      Map<String, Integer> depths = new HashMap<>(names.size());
+      try {
+         PCFMessage request = new PCFMessage(CMQCFC.MQCMD_INQUIRE_Q_STATUS);
+         request.addParameter(CMQC.MQCA_Q_NAME, "*");
+         request.addParameter(CMQCFC.MQIACF_Q_STATUS_ATTRS, new int[] { CMQC.MQCA_Q_NAME, CMQC.MQIA_CURRENT_Q_DEPTH });
+
+         PCFMessage[] responses;
+         synchronized (agent) {
+            responses = agent.send(request);
+         }
+         for (PCFMessage response : responses) {
+            String qName = response.getStringParameterValue(CMQC.MQCA_Q_NAME).trim();
+            if (names.contains(qName)) {
+               depths.put(qName, response.getIntParameterValue(CMQC.MQIA_CURRENT_Q_DEPTH));
+            }
+         }
+         log.debug("Q Depths read for {} queues", depths.size());
+      } catch (MQDataException | IOException e) {
+         // Probably not authorized to inquire the status of all queues. Fall back to one request per queue
+         log.warn("Exception when reading queue depths in bulk. Reading them one by one. Msg={}", e.getMessage());
+         return super.getQueueDepths(jmsConnection, queueNames);
+      }
+
+      return depths;
+   }
+
+   @Override
+   public boolean purgeQueue(Connection jmsConnection, String queueName) throws Exception {
+
+      Integer hash = jmsConnection.hashCode();
+      PCFMessageAgent agent = mqAgents.get(hash);
+
+      // CLEAR QLOCAL fails if the queue is opened by an application or has uncommitted messages
+      PCFMessage request = new PCFMessage(CMQCFC.MQCMD_CLEAR_Q);
+      request.addParameter(CMQC.MQCA_Q_NAME, queueName);
+      synchronized (agent) {
+         agent.send(request);
+      }
+      log.debug("Queue {} cleared", queueName);
+      return true;
+   }
+
    @Override
    public Map<String, Object> getQueueInformation(Connection jmsConnection, String queueName) {
 
@@ -50,6 +50,9 @@ public final class SEMPContext {
 
    private static final String            SEMP_QUEUE_INFO       = "%s" + SEMP_CONFIG_URI + "/queues/%s";
 
+   private static final String            SEMP_ACTION_URI       = "/SEMP/v2/action/msgVpns/%s";
+   private static final String            SEMP_Q_DELETE_MSGS    = "%s" + SEMP_ACTION_URI + "/queues/%s/deleteMsgs";
+
    private String                         vpn;
    private String                         mgmtUrl;
 
@@ -86,6 +89,12 @@ public final class SEMPContext {
                .timeout(Duration.ofMinutes(1)).header(HTTP_H_CT, HTTP_H_JSON).header(HTTP_H_AUTHORIZATION, authHeader).build();
    }
 
+   public HttpRequest buildQueueDeleteMsgsRequest(String queueName) {
+      return HttpRequest.newBuilder().uri(URI.create(String.format(SEMP_Q_DELETE_MSGS, mgmtUrl, vpn, queueName)))
+               .PUT(HttpRequest.BodyPublishers.ofString("{}")).timeout(Duration.ofMinutes(1)).header(HTTP_H_CT, HTTP_H_JSON)
+               .header(HTTP_H_AUTHORIZATION, authHeader).build();
+   }
+
    public void putJndiTopicData(SempJndiTopicData sempJndiTopicData) {
       mapJndiTopicData.put(sempJndiTopicData.physicalName, sempJndiTopicData);
    }
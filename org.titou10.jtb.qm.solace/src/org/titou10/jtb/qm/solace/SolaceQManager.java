@@ -368,6 +368,28 @@ public class SolaceQManager extends QManager {
       return new DestinationData(listQueueData, listTopicData);
    }
 
+   @Override
+   public boolean purgeQueue(Connection jmsConnection, String queueName) throws Exception {
+
+      Integer hash = jmsConnection.hashCode();
+      SEMPContext sempContext = sempContexts.get(hash);
+
+      // SEMP v2 action API, available from Solace PubSub+ 9.x
+      HttpRequest request = sempContext.buildQueueDeleteMsgsRequest(queueName);
+      log.debug("SEMP request: {}", request);
+      HttpResponse<String> response = HTTP_CLIENT.send(request, BodyHandlers.ofString());
+      String body = response.body();
+      log.debug("statusCode={}", response.statusCode());
+      if (response.statusCode() != HttpURLConnection.HTTP_OK) {
+         String msg = formatSempError("Error received from Solace server when deleting the messages of Queue '" + queueName + "'",
+                                      response.statusCode(),
+                                      body);
+         throw new Exception(msg);
+      }
+
+      return true;
+   }
+
    @Override
    public Map<String, Object> getQueueInformation(Connection jmsConnection, String queueName) {
 
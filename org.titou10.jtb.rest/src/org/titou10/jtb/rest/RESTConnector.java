@@ -60,6 +60,8 @@ public class RESTConnector implements ExternalConnector {
       ps = eConfigManager.getIPreferenceStore();
       ps.setDefault(Constants.PREF_REST_PORT, Constants.PREF_REST_PORT_DEFAULT);
       ps.setDefault(Constants.PREF_REST_AUTOSTART, Constants.PREF_REST_AUTOSTART_DEFAULT);
+      ps.setDefault(Constants.PREF_REST_THREADS, Constants.PREF_REST_THREADS_DEFAULT);
+      ps.setDefault(Constants.PREF_REST_QUEUE_SIZE, Constants.PREF_REST_QUEUE_SIZE_DEFAULT);
 
       // Create an injectable object for e4 artefacts
       Bundle b = FrameworkUtil.getBundle(RESTConnector.class);
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.rest;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.rest.util.Constants;
+
+/**
+ * 
+ * Rejects REST requests with a "429 Too Many Requests" and a retry hint when too many requests are already in flight
+ * 
+ * @author Denis Forveille
+ *
+ */
+public final class RequestLimiter implements Filter {
+
+   private static final Logger log                   = LoggerFactory.getLogger(RequestLimiter.class);
+
+   private static final int    SC_TOO_MANY_REQUESTS  = 429;
+
+   private final int           maxConcurrentRequests;
+   private final Semaphore     inFlight;
+
+   public RequestLimiter(int maxConcurrentRequests) {
+      this.maxConcurrentRequests = maxConcurrentRequests;
+      this.inFlight = new Semaphore(maxConcurrentRequests);
+   }
+
+   @Override
+   public void init(FilterConfig filterConfig) throws ServletException {
+      // NOP
+   }
+
+   @Override
+   public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException,
+                                                                                            ServletException {
+      if (!inFlight.tryAcquire()) {
+         log.warn("{} REST requests already in flight. Rejecting request", maxConcurrentRequests);
+         HttpServletResponse httpResponse = (HttpServletResponse) response;
+         httpResponse.setHeader(Constants.HEADER_RETRY_AFTER, String.valueOf(Constants.REST_RETRY_AFTER_SECONDS));
+         httpResponse.sendError(SC_TOO_MANY_REQUESTS, "Too many REST requests in flight. Retry later");
+         return;
+      }
+
+      try {
+         chain.doFilter(request, response);
+      } finally {
+         inFlight.release();
+      }
+   }
+
+   @Override
+   public void destroy() {
+      // NOP
+   }
+}
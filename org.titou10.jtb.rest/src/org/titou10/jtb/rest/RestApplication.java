@@ -26,6 +26,8 @@ import org.titou10.jtb.connector.ExternalConnectorManager;
 import org.titou10.jtb.rest.service.MessageServices;
 import org.titou10.jtb.rest.service.ScriptServices;
 import org.titou10.jtb.rest.service.SessionServices;
+import org.titou10.jtb.rest.util.Constants;
+import org.titou10.jtb.rest.util.SessionLeases;
 
 /**
  * 
@@ -37,18 +39,22 @@ import org.titou10.jtb.rest.service.SessionServices;
 public class RestApplication extends Application {
 
    ExternalConnectorManager eConfigManager;
+   SessionLeases            sessionLeases;
 
    public RestApplication() {
       // DF: beurk..don't know how to pass this parameter correctly
       eConfigManager = RuntimeRESTConnector.E_CONNECTOR_MANAGER;
+
+      // One JMS session per request in flight for a session
+      sessionLeases = new SessionLeases(eConfigManager.getSessionPoolSize(), Constants.REST_SESSION_LEASE_MAX_WAIT);
    }
 
    @Override
    public Set<Object> getSingletons() {
       Set<Object> r = new HashSet<>(3);
-      r.add(new MessageServices(eConfigManager));
+      r.add(new MessageServices(eConfigManager, sessionLeases));
       r.add(new ScriptServices(eConfigManager));
-      r.add(new SessionServices(eConfigManager));
+      r.add(new SessionServices(eConfigManager, sessionLeases));
       return r;
    }
 
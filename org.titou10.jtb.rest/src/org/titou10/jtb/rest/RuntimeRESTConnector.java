@@ -16,13 +16,19 @@
  */
 package org.titou10.jtb.rest;
 
+import java.util.EnumSet;
+
 import javax.inject.Singleton;
+import javax.servlet.DispatcherType;
 
 import org.eclipse.e4.core.di.annotations.Creatable;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.FilterHolder;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.jboss.resteasy.plugins.server.servlet.HttpServletDispatcher;
 import org.slf4j.Logger;
@@ -40,11 +46,14 @@ import org.titou10.jtb.rest.util.Constants;
 @Singleton
 public class RuntimeRESTConnector {
 
-   private static final Logger            log = LoggerFactory.getLogger(RuntimeRESTConnector.class);
+   private static final Logger            log                 = LoggerFactory.getLogger(RuntimeRESTConnector.class);
+
+   // Threads used by Jetty on top of the ones processing requests: acceptor, selector
+   private static final int               NB_THREADS_HEADROOM = 4;
+   private static final int               THREAD_IDLE_TIMEOUT = 60 * 1000;  // ms
 
    private IPreferenceStore               ps;
 
-   private ServletContextHandler          servletCtxHandler;
    private Server                         jettyServer;
 
    public static ExternalConnectorManager E_CONNECTOR_MANAGER;
@@ -54,13 +63,6 @@ public class RuntimeRESTConnector {
 
       E_CONNECTOR_MANAGER = eConfigManager;
 
-      // Manage Jetty
-      ServletHolder servletHolder = new ServletHolder(new HttpServletDispatcher());
-      servletHolder.setInitParameter("javax.ws.rs.Application", RestApplication.class.getCanonicalName());
-
-      servletCtxHandler = new ServletContextHandler();
-      servletCtxHandler.addServlet(servletHolder, "/rest/*");
-
       boolean autostart = ps.getBoolean(Constants.PREF_REST_AUTOSTART);
       if (autostart) {
          start();
@@ -75,7 +77,33 @@ public class RuntimeRESTConnector {
       log.info("Starting Jetty Server on port {}", getPort());
 
       if (jettyServer == null) {
-         jettyServer = new Server(getPort());
+         int nbThreads = ps.getInt(Constants.PREF_REST_THREADS);
+         int queueSize = ps.getInt(Constants.PREF_REST_QUEUE_SIZE);
+         log.info("REST requests processed at the same time: {}. Waiting: {}", nbThreads, queueSize);
+
+         // Bounded pool and queue: requests over the limits are rejected instead of piling up
+         QueuedThreadPool threadPool = new QueuedThreadPool(nbThreads + NB_THREADS_HEADROOM,
+                                                            2,
+                                                            THREAD_IDLE_TIMEOUT,
+                                                            new BlockingArrayQueue<>(queueSize));
+         threadPool.setName("jtb-rest");
+         threadPool.setReservedThreads(0);
+
+         jettyServer = new Server(threadPool);
+
+         // Reads of request bodies that stall fail instead of holding a thread and a JMS session
+         ServerConnector connector = new ServerConnector(jettyServer, 1, 1);
+         connector.setPort(getPort());
+         connector.setIdleTimeout(Constants.REST_IDLE_TIMEOUT);
+         jettyServer.addConnector(connector);
+
+         ServletHolder servletHolder = new ServletHolder(new HttpServletDispatcher());
+         servletHolder.setInitParameter("javax.ws.rs.Application", RestApplication.class.getCanonicalName());
+
+         ServletContextHandler servletCtxHandler = new ServletContextHandler();
+         servletCtxHandler.addServlet(servletHolder, "/rest/*");
+         servletCtxHandler.addFilter(new FilterHolder(new RequestLimiter(nbThreads)), "/rest/*", EnumSet.of(DispatcherType.REQUEST));
+
          jettyServer.setHandler(servletCtxHandler);
          jettyServer.start();
          jettyServer.setStopAtShutdown(true);
@@ -43,6 +43,8 @@ public final class RESTPreferencePage extends PreferencePage {
    private IPreferenceStore    ps;
 
    private Spinner             spinnerPort;
+   private Spinner             spinnerThreads;
+   private Spinner             spinnerQueueSize;
    private Button              startRESTOnStartup;
 
    public RESTPreferencePage(IPreferenceStore ps) {
@@ -66,12 +68,36 @@ public final class RESTPreferencePage extends PreferencePage {
       spinnerPort.setPageIncrement(50);
       spinnerPort.setTextLimit(5);
 
+      Label lbl2 = new Label(composite, SWT.LEFT);
+      lbl2.setText("Max requests processed at the same time  ");
+
+      spinnerThreads = new Spinner(composite, SWT.BORDER);
+      spinnerThreads.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 1, 1));
+      spinnerThreads.setMinimum(1);
+      spinnerThreads.setMaximum(256);
+      spinnerThreads.setIncrement(1);
+      spinnerThreads.setPageIncrement(8);
+      spinnerThreads.setTextLimit(3);
+
+      Label lbl3 = new Label(composite, SWT.LEFT);
+      lbl3.setText("Max requests waiting to be processed  ");
+
+      spinnerQueueSize = new Spinner(composite, SWT.BORDER);
+      spinnerQueueSize.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 1, 1));
+      spinnerQueueSize.setMinimum(1);
+      spinnerQueueSize.setMaximum(9999);
+      spinnerQueueSize.setIncrement(1);
+      spinnerQueueSize.setPageIncrement(50);
+      spinnerQueueSize.setTextLimit(4);
+
       startRESTOnStartup = new Button(composite, SWT.CHECK);
       startRESTOnStartup.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 2, 1));
       startRESTOnStartup.setText("Start the REST connector on JMSToolBox startup");
 
       // Set Values
       spinnerPort.setSelection(ps.getInt(Constants.PREF_REST_PORT));
+      spinnerThreads.setSelection(ps.getInt(Constants.PREF_REST_THREADS));
+      spinnerQueueSize.setSelection(ps.getInt(Constants.PREF_REST_QUEUE_SIZE));
       startRESTOnStartup.setSelection(ps.getBoolean(Constants.PREF_REST_AUTOSTART));
 
       return composite;
@@ -91,6 +117,8 @@ public final class RESTPreferencePage extends PreferencePage {
    @Override
    protected void performDefaults() {
       spinnerPort.setSelection(ps.getDefaultInt(Constants.PREF_REST_PORT));
+      spinnerThreads.setSelection(ps.getDefaultInt(Constants.PREF_REST_THREADS));
+      spinnerQueueSize.setSelection(ps.getDefaultInt(Constants.PREF_REST_QUEUE_SIZE));
       startRESTOnStartup.setSelection(ps.getDefaultBoolean(Constants.PREF_REST_AUTOSTART));
    }
 
@@ -107,6 +135,8 @@ public final class RESTPreferencePage extends PreferencePage {
       }
 
       ps.setValue(Constants.PREF_REST_PORT, spinnerPort.getSelection());
+      ps.setValue(Constants.PREF_REST_THREADS, spinnerThreads.getSelection());
+      ps.setValue(Constants.PREF_REST_QUEUE_SIZE, spinnerQueueSize.getSelection());
       ps.setValue(Constants.PREF_REST_AUTOSTART, startRESTOnStartup.getSelection());
    }
 }
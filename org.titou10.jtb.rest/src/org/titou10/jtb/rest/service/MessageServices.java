@@ -16,6 +16,12 @@
  */
 package org.titou10.jtb.rest.service;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import javax.inject.Singleton;
@@ -29,12 +35,17 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.Providers;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.connector.ExternalConnectorManager;
+import org.titou10.jtb.connector.MessageBatch;
+import org.titou10.jtb.connector.MessageStream;
 import org.titou10.jtb.connector.ex.EmptyMessageException;
 import org.titou10.jtb.connector.ex.ExecutionException;
 import org.titou10.jtb.connector.ex.UnknownDestinationException;
@@ -43,7 +54,19 @@ import org.titou10.jtb.connector.ex.UnknownSessionException;
 import org.titou10.jtb.connector.ex.UnknownTemplateException;
 import org.titou10.jtb.connector.transport.MessageInput;
 import org.titou10.jtb.connector.transport.MessageOutput;
+import org.titou10.jtb.connector.transport.PostBatchOutput;
+import org.titou10.jtb.connector.transport.TransferOutput;
 import org.titou10.jtb.rest.util.Constants;
+import org.titou10.jtb.rest.util.SessionBusyException;
+import org.titou10.jtb.rest.util.SessionLeases;
+import org.titou10.jtb.rest.util.SessionLeases.Lease;
+import org.titou10.jtb.rest.util.Utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 /**
  * 
@@ -56,12 +79,20 @@ import org.titou10.jtb.rest.util.Constants;
 @Singleton
 public class MessageServices {
 
-   private static final Logger      log = LoggerFactory.getLogger(MessageServices.class);
+   private static final Logger      log            = LoggerFactory.getLogger(MessageServices.class);
+
+   private static final String      MODE_COPY      = "copy";
+   private static final String      MODE_MOVE      = "move";
+
+   private static final String      FIELDS_ALL     = "all";
+   private static final String      FIELDS_HEADERS = "headers";
 
    private ExternalConnectorManager eConfigManager;
+   private SessionLeases            sessionLeases;
 
-   public MessageServices(ExternalConnectorManager eConfigManager) {
+   public MessageServices(ExternalConnectorManager eConfigManager, SessionLeases sessionLeases) {
       this.eConfigManager = eConfigManager;
+      this.sessionLeases = sessionLeases;
    }
 
    // -----------------------------------------------------------------------
@@ -78,7 +109,7 @@ public class MessageServices {
                                   @DefaultValue("200") @QueryParam(Constants.P_LIMIT) int limit) {
       log.debug("browseMessages. sessionName={} destinationName={} limit={}", sessionName, destinationName, limit);
 
-      try {
+      try (Lease lease = sessionLeases.lease(sessionName)) {
 
          List<MessageOutput> messages = eConfigManager.browseMessages(sessionName, destinationName, limit);
          log.debug("nb messages : {}", messages.size());
@@ -92,9 +123,63 @@ public class MessageServices {
          return Response.serverError().build();
       } catch (UnknownSessionException | UnknownDestinationException | UnknownQueueException e) {
          return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+      } catch (SessionBusyException e) {
+         return Utils.retryLater(e);
       }
    }
 
+   // -----------------------------------------------------------------------
+   // Stream Messages from a Session:Queue, one JSON object per line (NDJSON)
+   // GET /rest/message/stream/<sessionName>/<queueName>?selector=s&fields=all|headers&limit=n
+   // defaults: fields=all, limit=0 (no limit)
+   // -----------------------------------------------------------------------
+
+   @GET
+   @Path("/stream/{" + Constants.P_SESSION_NAME + "}/{" + Constants.P_QUEUE_NAME + "}")
+   @Produces(Constants.APPLICATION_NDJSON)
+   public Response streamMessages(@PathParam(Constants.P_SESSION_NAME) String sessionName,
+                                  @PathParam(Constants.P_QUEUE_NAME) String queueName,
+                                  @QueryParam(Constants.P_SELECTOR) String selector,
+                                  @DefaultValue(FIELDS_ALL) @QueryParam(Constants.P_FIELDS) String fields,
+                                  @DefaultValue("0") @QueryParam(Constants.P_LIMIT) int limit,
+                                  @Context Providers providers) {
+      log.debug("streamMessages. sessionName={} queueName={} selector={} fields={} limit={}",
+                sessionName,
+                queueName,
+                selector,
+                fields,
+                limit);
+
+      if (!(FIELDS_ALL.equalsIgnoreCase(fields) || FIELDS_HEADERS.equalsIgnoreCase(fields))) {
+         return Response.status(Response.Status.BAD_REQUEST).entity("Invalid fields '" + fields + "'. Valid values: all, headers")
+                  .build();
+      }
+      boolean withPayload = FIELDS_ALL.equalsIgnoreCase(fields);
+
+      // Same JSON representation as the other services, one message per line
+      ObjectMapper mapper = providers.getContextResolver(ObjectMapper.class, MediaType.APPLICATION_JSON_TYPE)
+               .getContext(MessageOutput.class);
+      ObjectWriter writer = mapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+
+      // The session lease and the JMS browser are held until the last message has been written
+      Lease lease = null;
+      MessageStream messageStream = null;
+      try {
+         lease = sessionLeases.lease(sessionName);
+         messageStream = eConfigManager.openMessageStream(sessionName, queueName, selector, limit, withPayload);
+      } catch (ExecutionException e) {
+         lease.close();
+         return Response.serverError().build();
+      } catch (UnknownSessionException | UnknownDestinationException | UnknownQueueException e) {
+         lease.close();
+         return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+      } catch (SessionBusyException e) {
+         return Utils.retryLater(e);
+      }
+
+      return Response.ok(new MessageStreamingOutput(messageStream, lease, writer)).build();
+   }
+
    // -----------------------------------------------------------------------
    // Post/Publish a message to Session:Destination
    // POST /rest/message/<sessionName>/<destinationName>
@@ -108,7 +193,7 @@ public class MessageServices {
                                MessageInput message) {
       log.debug("postMessage. sessionName={} destinationName={} message={}", sessionName, destinationName, message);
 
-      try {
+      try (Lease lease = sessionLeases.lease(sessionName)) {
 
          eConfigManager.postMessage(sessionName, destinationName, message);
          log.debug("postMessage OK");
@@ -117,8 +202,87 @@ public class MessageServices {
          return Response.serverError().build();
       } catch (UnknownSessionException | UnknownDestinationException | EmptyMessageException e) {
          return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+      } catch (SessionBusyException e) {
+         return Utils.retryLater(e);
+      }
+
+   }
+
+   // -----------------------------------------------------------------------
+   // Post/Publish many messages to Session:Destination, from a JSON array or from NDJSON (one message per line)
+   // POST /rest/message/batch/<sessionName>/<destinationName>?commitEvery=n
+   // defaults: commitEvery=500
+   // NDJSON bodies are read while a JMS session is leased: reading stops after REST_BATCH_MAX_READ ms, or when no data has been
+   // received for REST_IDLE_TIMEOUT ms
+   // -----------------------------------------------------------------------
+
+   @POST
+   @Path("/batch/{" + Constants.P_SESSION_NAME + "}/{" + Constants.P_DESTINATION_NAME + "}")
+   @Consumes(MediaType.APPLICATION_JSON)
+   @Produces(MediaType.APPLICATION_JSON)
+   public Response postMessages(@PathParam(Constants.P_SESSION_NAME) String sessionName,
+                                @PathParam(Constants.P_DESTINATION_NAME) String destinationName,
+                                @DefaultValue("500") @QueryParam(Constants.P_COMMIT_EVERY) int commitEvery,
+                                List<MessageInput> messages) {
+      log.debug("postMessages. sessionName={} destinationName={} commitEvery={} nbMessages={}",
+                sessionName,
+                destinationName,
+                commitEvery,
+                messages == null ? 0 : messages.size());
+
+      if ((messages == null) || (messages.isEmpty())) {
+         return Response.status(Response.Status.BAD_REQUEST).entity("No messages to post").build();
       }
 
+      return postBatch(sessionName, destinationName, commitEvery, batch -> {
+         for (MessageInput message : messages) {
+            batch.add(message);
+         }
+      });
+   }
+
+   @POST
+   @Path("/batch/{" + Constants.P_SESSION_NAME + "}/{" + Constants.P_DESTINATION_NAME + "}")
+   @Consumes(Constants.APPLICATION_NDJSON)
+   @Produces(MediaType.APPLICATION_JSON)
+   public Response postMessagesNDJSON(@PathParam(Constants.P_SESSION_NAME) String sessionName,
+                                      @PathParam(Constants.P_DESTINATION_NAME) String destinationName,
+                                      @DefaultValue("500") @QueryParam(Constants.P_COMMIT_EVERY) int commitEvery,
+                                      @Context Providers providers,
+                                      InputStream is) {
+      log.debug("postMessagesNDJSON. sessionName={} destinationName={} commitEvery={}", sessionName, destinationName, commitEvery);
+
+      // Messages are read and sent one line at a time: the request is never held in memory
+      ObjectReader reader = providers.getContextResolver(ObjectMapper.class, MediaType.APPLICATION_JSON_TYPE)
+               .getContext(MessageInput.class).readerFor(MessageInput.class);
+
+      return postBatch(sessionName, destinationName, commitEvery, batch -> {
+         long deadline = System.currentTimeMillis() + Constants.REST_BATCH_MAX_READ;
+         try (BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));) {
+            String line;
+            while ((line = br.readLine()) != null) {
+               if (System.currentTimeMillis() > deadline) {
+                  log.warn("Batch posted to '{}' not read within {} ms. Remaining messages ignored",
+                           destinationName,
+                           Constants.REST_BATCH_MAX_READ);
+                  batch.addError("Request not read within " + Constants.REST_BATCH_MAX_READ + " ms. Remaining messages ignored");
+                  break;
+               }
+               if (line.trim().isEmpty()) {
+                  continue;
+               }
+               try {
+                  batch.add(reader.readValue(line));
+               } catch (JsonProcessingException e) {
+                  batch.addError("Invalid message: " + e.getOriginalMessage());
+               }
+            }
+         } catch (IOException e) {
+            // Client too slow (REST_IDLE_TIMEOUT) or upload broken. The messages read so far are reported as usual
+            log.warn("Exception when reading the messages posted to '{}': {}", destinationName, e.toString());
+            batch.addError("Request could not be read completely: " + e.toString() + ". Remaining messages ignored");
+         }
+      });
    }
 
    // -----------------------------------------------------------------------
@@ -137,7 +301,7 @@ public class MessageServices {
                 destinationName,
                 templateName);
 
-      try {
+      try (Lease lease = sessionLeases.lease(sessionName)) {
 
          MessageOutput message = eConfigManager.postMessageTemplate(sessionName, destinationName, templateName);
          log.debug("message={}", message);
@@ -147,10 +311,58 @@ public class MessageServices {
          return Response.serverError().build();
       } catch (UnknownSessionException | UnknownDestinationException | UnknownTemplateException | EmptyMessageException e) {
          return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+      } catch (SessionBusyException e) {
+         return Utils.retryLater(e);
       }
 
    }
 
+   // -----------------------------------------------------------------------
+   // Copy or move messages from a Session:Queue to a Session:Destination
+   // POST /rest/message/transfer/<sessionName>/<queueName>?targetDestinationName=d&targetSessionName=s&mode=copy|move&selector=s&limit=n
+   // defaults: targetSessionName=sessionName, mode=copy, limit=0 (no limit)
+   // -----------------------------------------------------------------------
+
+   @POST
+   @Path("/transfer/{" + Constants.P_SESSION_NAME + "}/{" + Constants.P_QUEUE_NAME + "}")
+   @Produces(MediaType.APPLICATION_JSON)
+   public Response transferMessages(@PathParam(Constants.P_SESSION_NAME) String sessionName,
+                                    @PathParam(Constants.P_QUEUE_NAME) String queueName,
+                                    @QueryParam(Constants.P_TARGET_SESSION_NAME) String targetSessionName,
+                                    @QueryParam(Constants.P_TARGET_DESTINATION_NAME) String targetDestinationName,
+                                    @DefaultValue(MODE_COPY) @QueryParam(Constants.P_MODE) String mode,
+                                    @QueryParam(Constants.P_SELECTOR) String selector,
+                                    @DefaultValue("0") @QueryParam(Constants.P_LIMIT) int limit) {
+      log.debug("transferMessages. sessionName={} queueName={} targetSessionName={} targetDestinationName={} mode={} selector={} limit={}",
+                sessionName,
+                queueName,
+                targetSessionName,
+                targetDestinationName,
+                mode,
+                selector,
+                limit);
+
+      if (!(MODE_COPY.equalsIgnoreCase(mode) || MODE_MOVE.equalsIgnoreCase(mode))) {
+         return Response.status(Response.Status.BAD_REQUEST).entity("Invalid mode '" + mode + "'. Valid values: copy, move").build();
+      }
+      boolean move = MODE_MOVE.equalsIgnoreCase(mode);
+
+      try (Lease lease = sessionLeases.lease(sessionName, targetSessionName)) {
+
+         TransferOutput transferOutput = eConfigManager
+                  .transferMessages(sessionName, queueName, targetSessionName, targetDestinationName, move, selector, limit);
+         log.debug("transferMessages OK: {}", transferOutput);
+         return Response.ok(transferOutput).build();
+
+      } catch (ExecutionException e) {
+         return Response.serverError().build();
+      } catch (UnknownSessionException | UnknownDestinationException | UnknownQueueException e) {
+         return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+      } catch (SessionBusyException e) {
+         return Utils.retryLater(e);
+      }
+   }
+
    // -----------------------------------------------------------------------
    // Remove messages from a Session:Destination
    // PUT /rest/message/<sessionName>/<destinationName>?limit=n
@@ -165,7 +377,7 @@ public class MessageServices {
                                   @DefaultValue("1") @QueryParam(Constants.P_LIMIT) int limit) {
       log.debug("removeMessages. sessionName={} destinationName={} limit={}", sessionName, destinationName, limit);
 
-      try {
+      try (Lease lease = sessionLeases.lease(sessionName)) {
 
          List<MessageOutput> messages = eConfigManager.removeMessages(sessionName, destinationName, limit);
          log.debug("nb messages : {}", messages.size());
@@ -179,6 +391,8 @@ public class MessageServices {
          return Response.serverError().build();
       } catch (UnknownSessionException | UnknownDestinationException | UnknownQueueException e) {
          return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+      } catch (SessionBusyException e) {
+         return Utils.retryLater(e);
       }
    }
 
@@ -193,7 +407,7 @@ public class MessageServices {
                                     @PathParam(Constants.P_QUEUE_NAME) String queueName) {
       log.debug("emptyDestination. sessionName={} queueName={} ", sessionName, queueName);
 
-      try {
+      try (Lease lease = sessionLeases.lease(sessionName)) {
          eConfigManager.emptyQueue(sessionName, queueName);
          log.debug("emptyDestination OK");
          return Response.ok().build();
@@ -201,6 +415,63 @@ public class MessageServices {
          return Response.serverError().build();
       } catch (UnknownSessionException | UnknownDestinationException | UnknownQueueException e) {
          return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+      } catch (SessionBusyException e) {
+         return Utils.retryLater(e);
+      }
+   }
+
+   // -----------------------------------------------------------------------
+   // Helpers
+   // -----------------------------------------------------------------------
+
+   @FunctionalInterface
+   private interface BatchFeeder {
+      void feed(MessageBatch batch);
+   }
+
+   private Response postBatch(String sessionName, String destinationName, int commitEvery, BatchFeeder feeder) {
+      try (Lease lease = sessionLeases.lease(sessionName);
+           MessageBatch batch = eConfigManager.openMessageBatch(sessionName, destinationName, commitEvery);) {
+
+         feeder.feed(batch);
+         PostBatchOutput postBatchOutput = batch.finish();
+         log.debug("postMessages OK: {}", postBatchOutput);
+         return Response.ok(postBatchOutput).build();
+
+      } catch (ExecutionException e) {
+         return Response.serverError().build();
+      } catch (UnknownSessionException | UnknownDestinationException e) {
+         return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+      } catch (SessionBusyException e) {
+         return Utils.retryLater(e);
+      }
+   }
+
+   private static final class MessageStreamingOutput implements StreamingOutput {
+
+      private final MessageStream messageStream;
+      private final Lease         lease;
+      private final ObjectWriter  writer;
+
+      private MessageStreamingOutput(MessageStream messageStream, Lease lease, ObjectWriter writer) {
+         this.messageStream = messageStream;
+         this.lease = lease;
+         this.writer = writer;
+      }
+
+      @Override
+      public void write(OutputStream os) throws IOException {
+         try (MessageStream ms = messageStream; Lease l = lease) {
+            MessageOutput messageOutput;
+            while ((messageOutput = ms.next()) != null) {
+               os.write(writer.writeValueAsBytes(messageOutput));
+               os.write('\n');
+            }
+            log.debug("nb messages streamed : {}", ms.getNbMessages());
+         } catch (ExecutionException e) {
+            // Headers are already sent: the response is truncated
+            throw new IOException("Exception when streaming messages", e);
+         }
       }
    }
 
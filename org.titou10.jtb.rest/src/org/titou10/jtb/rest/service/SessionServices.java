@@ -33,6 +33,10 @@ import org.titou10.jtb.connector.ex.ExecutionException;
 import org.titou10.jtb.connector.ex.UnknownSessionException;
 import org.titou10.jtb.connector.transport.Destination;
 import org.titou10.jtb.rest.util.Constants;
+import org.titou10.jtb.rest.util.SessionBusyException;
+import org.titou10.jtb.rest.util.SessionLeases;
+import org.titou10.jtb.rest.util.SessionLeases.Lease;
+import org.titou10.jtb.rest.util.Utils;
 
 /**
  * 
@@ -48,9 +52,11 @@ public class SessionServices {
    private static final Logger      log = LoggerFactory.getLogger(SessionServices.class);
 
    private ExternalConnectorManager eConfigManager;
+   private SessionLeases            sessionLeases;
 
-   public SessionServices(ExternalConnectorManager eConfigManager) {
+   public SessionServices(ExternalConnectorManager eConfigManager, SessionLeases sessionLeases) {
       this.eConfigManager = eConfigManager;
+      this.sessionLeases = sessionLeases;
    }
 
    // -----------------------------------
@@ -64,7 +70,7 @@ public class SessionServices {
    public Response getDestinations(@PathParam(Constants.P_SESSION_NAME) String sessionName) {
       log.debug("getDestinationNames. sessionName={}", sessionName);
 
-      try {
+      try (Lease lease = sessionLeases.lease(sessionName)) {
 
          List<Destination> destinations = eConfigManager.getDestination(sessionName);
          log.debug("nb destinations : {}", destinations.size());
@@ -78,6 +84,8 @@ public class SessionServices {
          return Response.serverError().build();
       } catch (UnknownSessionException e) {
          return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+      } catch (SessionBusyException e) {
+         return Utils.retryLater(e);
       }
    }
 }
@@ -32,6 +32,19 @@ public final class Constants {
    public static final int     PREF_REST_PORT_DEFAULT        = 9998;
    public static final String  PREF_REST_AUTOSTART           = "rest.autostart";
    public static final boolean PREF_REST_AUTOSTART_DEFAULT   = false;
+   public static final String  PREF_REST_THREADS             = "rest.threads";
+   public static final int     PREF_REST_THREADS_DEFAULT     = 16;
+   public static final String  PREF_REST_QUEUE_SIZE          = "rest.queue.size";
+   public static final int     PREF_REST_QUEUE_SIZE_DEFAULT  = 64;
+
+   // Saturation
+   public static final String  HEADER_RETRY_AFTER            = "Retry-After";
+   public static final int     REST_RETRY_AFTER_SECONDS      = 1;
+   public static final long    REST_SESSION_LEASE_MAX_WAIT   = 2 * 1000L;        // ms
+
+   // A batch posted as NDJSON holds its JMS session while the body is read: stalled or endless uploads are cut
+   public static final long    REST_IDLE_TIMEOUT             = 30 * 1000L;       // ms
+   public static final long    REST_BATCH_MAX_READ           = 5 * 60 * 1000L;   // ms
 
    // E4 Events
 
@@ -49,6 +62,15 @@ public final class Constants {
    public static final String  P_SCRIPT_NAME                 = "scriptName";
    public static final String  P_MODE                        = "mode";
    public static final String  P_LIMIT                       = "limit";
+   public static final String  P_TARGET_SESSION_NAME         = "targetSessionName";
+   public static final String  P_TARGET_DESTINATION_NAME     = "targetDestinationName";
+   public static final String  P_SELECTOR                    = "selector";
+   public static final String  P_FIELDS                      = "fields";
+   public static final String  P_COMMIT_EVERY                = "commitEvery";
+
+   // Media types
+
+   public static final String  APPLICATION_NDJSON            = "application/x-ndjson";
 
    private Constants() {
       // NOP
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.rest.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 
+ * Bounds the number of REST requests in flight per JMSToolBox session to the size of its JMS session pool, so that each request
+ * works with its own JMS session instead of queuing inside the pool
+ * 
+ * @author Denis Forveille
+ *
+ */
+public final class SessionLeases {
+
+   private static final Logger                    log    = LoggerFactory.getLogger(SessionLeases.class);
+
+   private final int                              nbLeases;
+   private final long                             maxWait;
+   private final ConcurrentMap<String, Semaphore> leases = new ConcurrentHashMap<>();
+
+   public SessionLeases(int nbLeases, long maxWait) {
+      this.nbLeases = Math.max(1, nbLeases);
+      this.maxWait = maxWait;
+   }
+
+   // Lease one JMS session of each of the distinct sessions. null session names are ignored
+   public Lease lease(String... sessionNames) throws SessionBusyException {
+      Lease lease = new Lease();
+      try {
+         for (String sessionName : sessionNames) {
+            if ((sessionName == null) || (lease.sessionNames.contains(sessionName))) {
+               continue;
+            }
+            Semaphore s = leases.computeIfAbsent(sessionName, k -> new Semaphore(nbLeases, true));
+            if (!s.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+               log.warn("All the {} JMS sessions of session '{}' are in use", nbLeases, sessionName);
+               throw new SessionBusyException("All the JMS sessions of session '" + sessionName + "' are in use. Retry later");
+            }
+            lease.sessionNames.add(sessionName);
+         }
+         return lease;
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new SessionBusyException("Interrupted while waiting for a JMS session");
+      } catch (SessionBusyException e) {
+         lease.close();
+         throw e;
+      }
+   }
+
+   // --------------------------------
+   // JMS sessions held by one request
+   // --------------------------------
+
+   public final class Lease implements AutoCloseable {
+
+      private final List<String> sessionNames = new ArrayList<>(2);
+
+      private Lease() {
+         // NOP
+      }
+
+      @Override
+      public void close() {
+         for (String sessionName : sessionNames) {
+            leases.get(sessionName).release();
+         }
+         sessionNames.clear();
+      }
+   }
+}
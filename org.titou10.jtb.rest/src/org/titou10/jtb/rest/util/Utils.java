@@ -16,6 +16,9 @@
  */
 package org.titou10.jtb.rest.util;
 
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
 /**
  * Class that holds various utility methods
  * 
@@ -36,6 +39,15 @@ public final class Utils {
       return result;
    }
 
+   // "503 Service Unavailable" with a retry hint, when all the JMS sessions of a session are in use
+   public static Response retryLater(SessionBusyException e) {
+      return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+               .header(Constants.HEADER_RETRY_AFTER, Constants.REST_RETRY_AFTER_SECONDS)
+               .type(MediaType.TEXT_PLAIN)
+               .entity(e.getMessage())
+               .build();
+   }
+
    // ------------------
    // Pure Utility Class
    // ------------------